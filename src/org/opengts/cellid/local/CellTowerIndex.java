@@ -0,0 +1,544 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.cellid.local;
+
+import java.util.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.zip.*;
+
+import org.opengts.util.*;
+
+/**
+*** <code>CellTowerIndex</code> is a compact, read-only, memory-mapped index of cell tower
+*** locations keyed by (MCC, MNC, LAC, CID).<br>
+*** The index file is built from an OpenCellID-format CSV export ("cell_towers.csv[.gz]")
+*** and consists of a 16-byte header followed by fixed-width records sorted by key:
+*** <pre>
+***   Header: "GTSCELL1"(8) recordCount(4) reserved(4)
+***   Record: key(8) latitudeE7(4) longitudeE7(4) rangeMeters(4)
+*** </pre>
+*** Lookups are a binary search over the mapped file, so only the touched pages are
+*** brought into memory (the file size is limited to 2GB, or about 100 million towers).
+**/
+
+public class CellTowerIndex
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final byte   MAGIC[]             = { 'G','T','S','C','E','L','L','1' };
+    private static final int    HEADER_SIZE         = 16;
+    private static final int    RECORD_SIZE         = 20;
+
+    private static final double LATLON_SCALE        = 10000000.0; // 1e7
+
+    private static final int    MAX_MCC             = 999;        // 10 bits
+    private static final int    MAX_MNC             = 999;        // 10 bits
+    private static final int    MASK_MCC            = 0x3FF;
+    private static final int    MASK_MNC            = 0x3FF;
+    private static final int    MAX_LAC             = 0xFFFF;     // 16 bits
+    private static final int    MAX_CID             = 0xFFFFFFF;  // 28 bits
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Packs the specified cell tower identifiers into an index key.<br>
+    *** Keys with an MCC of 512 or greater are negative, which is fine since keys are only
+    *** compared with each other.  Since the MCC is at most 999, no valid key is equal to -1.
+    *** @return The index key, or -1 if any identifier is out of range
+    **/
+    public static long GetKey(int mcc, int mnc, int lac, int cid)
+    {
+        if ((mcc < 0) || (mcc > MAX_MCC) ||
+            (mnc < 0) || (mnc > MAX_MNC) ||
+            (lac < 0) || (lac > MAX_LAC) ||
+            (cid < 0) || (cid > MAX_CID)   ) {
+            return -1L;
+        }
+        return ((long)mcc << 54) | ((long)mnc << 44) | ((long)lac << 28) | (long)cid;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Cell tower location record
+    **/
+    public static class Tower
+    {
+        private double latitude  = 0.0;
+        private double longitude = 0.0;
+        private int    range     = 0;
+        public Tower(double lat, double lon, int range) {
+            this.latitude  = lat;
+            this.longitude = lon;
+            this.range     = range;
+        }
+        public double getLatitude() {
+            return this.latitude;
+        }
+        public double getLongitude() {
+            return this.longitude;
+        }
+        public int getRange() {
+            return this.range;
+        }
+        public String toString() {
+            return this.latitude + "/" + this.longitude + " range=" + this.range + " m";
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private File                indexFile   = null;
+    private MappedByteBuffer    mapBuffer   = null;
+    private int                 recCount    = 0;
+
+    /**
+    *** Constructor: maps the specified index file
+    *** @param indexFile  The index file created by <code>Build</code>
+    *** @throws IOException if the file cannot be mapped, or is not a valid index file
+    **/
+    public CellTowerIndex(File indexFile)
+        throws IOException
+    {
+        this.indexFile = indexFile;
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(indexFile, "r");
+            long fileLen = raf.length();
+            if (fileLen > (long)Integer.MAX_VALUE) {
+                throw new IOException("Index file exceeds 2GB: " + indexFile);
+            } else
+            if (fileLen < HEADER_SIZE) {
+                throw new IOException("Invalid index file (too short): " + indexFile);
+            }
+            FileChannel fc = raf.getChannel();
+            this.mapBuffer = fc.map(FileChannel.MapMode.READ_ONLY, 0L, fileLen);
+            // mapping remains valid after the channel is closed
+        } finally {
+            if (raf != null) { try { raf.close(); } catch (Throwable th) {/*ignore*/} }
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (this.mapBuffer.get(i) != MAGIC[i]) {
+                throw new IOException("Invalid index file (bad header): " + indexFile);
+            }
+        }
+        this.recCount = this.mapBuffer.getInt(MAGIC.length);
+        if ((this.recCount < 0) || (((long)HEADER_SIZE + ((long)this.recCount * RECORD_SIZE)) > this.mapBuffer.capacity())) {
+            throw new IOException("Invalid index file (truncated): " + indexFile);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the index file
+    **/
+    public File getFile()
+    {
+        return this.indexFile;
+    }
+
+    /**
+    *** Gets the number of cell towers in this index
+    **/
+    public int size()
+    {
+        return this.recCount;
+    }
+
+    /**
+    *** Gets the key of the specified record
+    **/
+    private long _getKey(int ndx)
+    {
+        return this.mapBuffer.getLong(HEADER_SIZE + (ndx * RECORD_SIZE));
+    }
+
+    /**
+    *** Returns the record index of the specified key, or -1 if not found
+    **/
+    private int _find(long key)
+    {
+        // absolute 'get's do not change the buffer position, and may be shared by threads
+        int lo = 0, hi = this.recCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long k = this._getKey(mid);
+            if (k < key) {
+                lo = mid + 1;
+            } else
+            if (k > key) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+    *** Gets the location of the specified cell tower
+    *** @return The cell tower location, or null if not found
+    **/
+    public Tower getTower(int mcc, int mnc, int lac, int cid)
+    {
+        long key = CellTowerIndex.GetKey(mcc, mnc, lac, cid);
+        if (key == -1L) {
+            return null;
+        }
+        int ndx = this._find(key);
+        if (ndx < 0) {
+            return null;
+        }
+        int pos = HEADER_SIZE + (ndx * RECORD_SIZE) + 8;
+        double lat = (double)this.mapBuffer.getInt(pos    ) / LATLON_SCALE;
+        double lon = (double)this.mapBuffer.getInt(pos + 4) / LATLON_SCALE;
+        int  range =         this.mapBuffer.getInt(pos + 8);
+        return new Tower(lat, lon, range);
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Growable parallel arrays used while building the index
+    **/
+    private static class BuildTable
+    {
+        private long keys[]     = new long[1024];
+        private int  lats[]     = new int[1024];
+        private int  lons[]     = new int[1024];
+        private int  ranges[]   = new int[1024];
+        private int  samples[]  = new int[1024];
+        private int  size       = 0;
+        public void add(long key, int lat, int lon, int range, int smp) {
+            if (this.size >= this.keys.length) {
+                int len = this.keys.length * 2;
+                this.keys    = Arrays.copyOf(this.keys   , len);
+                this.lats    = Arrays.copyOf(this.lats   , len);
+                this.lons    = Arrays.copyOf(this.lons   , len);
+                this.ranges  = Arrays.copyOf(this.ranges , len);
+                this.samples = Arrays.copyOf(this.samples, len);
+            }
+            this.keys[this.size]    = key;
+            this.lats[this.size]    = lat;
+            this.lons[this.size]    = lon;
+            this.ranges[this.size]  = range;
+            this.samples[this.size] = smp;
+            this.size++;
+        }
+        private void swap(int a, int b) {
+            long k = this.keys[a];    this.keys[a]    = this.keys[b];    this.keys[b]    = k;
+            int  t;
+            t = this.lats[a];    this.lats[a]    = this.lats[b];    this.lats[b]    = t;
+            t = this.lons[a];    this.lons[a]    = this.lons[b];    this.lons[b]    = t;
+            t = this.ranges[a];  this.ranges[a]  = this.ranges[b];  this.ranges[b]  = t;
+            t = this.samples[a]; this.samples[a] = this.samples[b]; this.samples[b] = t;
+        }
+        public void sort() {
+            // iterative quicksort (explicit stack of ranges), insertion sort for short ranges
+            int stack[] = new int[128];
+            int sp = 0;
+            stack[sp++] = 0;
+            stack[sp++] = this.size - 1;
+            while (sp > 0) {
+                int hi = stack[--sp];
+                int lo = stack[--sp];
+                while ((hi - lo) > 16) {
+                    int mid = (lo + hi) >>> 1;
+                    if (this.keys[mid] < this.keys[lo]) { this.swap(mid, lo); }
+                    if (this.keys[hi]  < this.keys[lo]) { this.swap(hi , lo); }
+                    if (this.keys[hi]  < this.keys[mid]) { this.swap(hi, mid); }
+                    long pivot = this.keys[mid];
+                    int i = lo, j = hi;
+                    while (i <= j) {
+                        while (this.keys[i] < pivot) { i++; }
+                        while (this.keys[j] > pivot) { j--; }
+                        if (i <= j) { this.swap(i, j); i++; j--; }
+                    }
+                    // push the larger partition, continue with the smaller (bounds stack depth)
+                    if ((j - lo) > (hi - i)) {
+                        stack[sp++] = lo; stack[sp++] = j;
+                        lo = i;
+                    } else {
+                        stack[sp++] = i;  stack[sp++] = hi;
+                        hi = j;
+                    }
+                }
+                for (int i = lo + 1; i <= hi; i++) {
+                    for (int j = i; (j > lo) && (this.keys[j - 1] > this.keys[j]); j--) {
+                        this.swap(j, j - 1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+    *** Builds an index file from the specified OpenCellID-format CSV file.<br>
+    *** The CSV columns are located from the header line ("radio,mcc,net,area,cell,unit,lon,lat,range,samples,...").
+    *** Towers with identifiers which do not fit the index key (ie. 5G NR cell-ids) are skipped.
+    *** If the same tower occurs more than once, the entry with the most samples is kept.
+    *** @param csvFile    The CSV file (may be gzip compressed, if the name ends with ".gz")
+    *** @param indexFile  The index file to create
+    *** @param mccFilter  If non-negative, only towers with this MCC are included
+    *** @return The number of towers written to the index
+    *** @throws IOException if an I/O error occurs
+    **/
+    public static int Build(File csvFile, File indexFile, int mccFilter)
+        throws IOException
+    {
+        BuildTable tbl = new BuildTable();
+        long lineCount = 0L, skipCount = 0L;
+
+        /* read CSV */
+        BufferedReader br = null;
+        try {
+            InputStream in = new FileInputStream(csvFile);
+            if (csvFile.getName().toLowerCase().endsWith(".gz")) {
+                in = new GZIPInputStream(in, 65536);
+            }
+            br = new BufferedReader(new InputStreamReader(in, StringTools.CharEncoding_UTF_8), 65536);
+            // default OpenCellID column positions
+            int colMCC = 1, colMNC = 2, colLAC = 3, colCID = 4, colLon = 6, colLat = 7, colRange = 8, colSamples = 9;
+            for (String line = br.readLine(); line != null; line = br.readLine()) {
+                lineCount++;
+                String f[] = StringTools.split(line, ',');
+                if ((lineCount == 1L) && (f.length > 0) && !StringTools.isNumeric(f[0].trim()) &&
+                    ListTools.contains(f,"mcc")) {
+                    // header line
+                    List<String> hdr = ListTools.toList(f);
+                    colMCC     = hdr.indexOf("mcc");
+                    colMNC     = hdr.indexOf("net");
+                    colLAC     = hdr.indexOf("area");
+                    colCID     = hdr.indexOf("cell");
+                    colLon     = hdr.indexOf("lon");
+                    colLat     = hdr.indexOf("lat");
+                    colRange   = hdr.indexOf("range");
+                    colSamples = hdr.indexOf("samples");
+                    if ((colMCC < 0) || (colMNC < 0) || (colLAC < 0) || (colCID < 0) || (colLon < 0) || (colLat < 0)) {
+                        throw new IOException("Missing required CSV column(s): " + line);
+                    }
+                    continue;
+                }
+                int mcc = (colMCC < f.length)? StringTools.parseInt(f[colMCC],-1) : -1;
+                if ((mccFilter >= 0) && (mcc != mccFilter)) {
+                    continue;
+                }
+                int    mnc = (colMNC < f.length)? StringTools.parseInt(f[colMNC],-1) : -1;
+                int    lac = (colLAC < f.length)? StringTools.parseInt(f[colLAC],-1) : -1;
+                long   cid = (colCID < f.length)? StringTools.parseLong(f[colCID],-1L) : -1L;
+                double lat = (colLat < f.length)? StringTools.parseDouble(f[colLat],999.0) : 999.0;
+                double lon = (colLon < f.length)? StringTools.parseDouble(f[colLon],999.0) : 999.0;
+                int    rng = ((colRange   >= 0) && (colRange   < f.length))? StringTools.parseInt(f[colRange  ],0) : 0;
+                int    smp = ((colSamples >= 0) && (colSamples < f.length))? StringTools.parseInt(f[colSamples],0) : 0;
+                long   key = (cid <= (long)MAX_CID)? CellTowerIndex.GetKey(mcc, mnc, lac, (int)cid) : -1L;
+                if ((key == -1L) || !GeoPoint.isValid(lat,lon)) {
+                    skipCount++;
+                    continue;
+                }
+                tbl.add(key, (int)Math.round(lat * LATLON_SCALE), (int)Math.round(lon * LATLON_SCALE), Math.max(rng,0), smp);
+            }
+        } finally {
+            if (br != null) { try { br.close(); } catch (Throwable th) {/*ignore*/} }
+        }
+        if (((long)HEADER_SIZE + ((long)tbl.size * RECORD_SIZE)) > (long)Integer.MAX_VALUE) {
+            throw new IOException("Too many cell towers for a single index file: " + tbl.size);
+        }
+
+        /* sort by key */
+        tbl.sort();
+
+        /* write index (duplicate keys are adjacent after sorting) */
+        int recCount = 0;
+        File tmpFile = new File(indexFile.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 65536));
+            out.write(MAGIC);
+            out.writeInt(0); // record count, updated below
+            out.writeInt(0); // reserved
+            for (int i = 0; i < tbl.size; ) {
+                int best = i;
+                int j = i + 1;
+                for (; (j < tbl.size) && (tbl.keys[j] == tbl.keys[i]); j++) {
+                    if (tbl.samples[j] > tbl.samples[best]) { best = j; }
+                }
+                out.writeLong(tbl.keys[best]);
+                out.writeInt(tbl.lats[best]);
+                out.writeInt(tbl.lons[best]);
+                out.writeInt(tbl.ranges[best]);
+                recCount++;
+                i = j;
+            }
+        } finally {
+            if (out != null) { try { out.close(); } catch (Throwable th) {/*ignore*/} }
+        }
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(tmpFile, "rw");
+            raf.seek(MAGIC.length);
+            raf.writeInt(recCount);
+        } finally {
+            if (raf != null) { try { raf.close(); } catch (Throwable th) {/*ignore*/} }
+        }
+        if (indexFile.exists() && !indexFile.delete()) {
+            throw new IOException("Unable to replace index file: " + indexFile);
+        }
+        if (!tmpFile.renameTo(indexFile)) {
+            throw new IOException("Unable to rename index file: " + tmpFile);
+        }
+        Print.logInfo("CSV lines=" + lineCount + " skipped=" + skipCount + " towers=" + recCount + " [" + indexFile + "]");
+        return recCount;
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private static final String ARG_CSV[]       = new String[] { "csv"      };
+    private static final String ARG_INDEX[]     = new String[] { "index"    , "idx" };
+    private static final String ARG_BUILD[]     = new String[] { "build"    };
+    private static final String ARG_LOOKUP[]    = new String[] { "lookup"   };
+    private static final String ARG_BENCH[]     = new String[] { "benchmark", "bench" };
+    private static final String ARG_MCC[]       = new String[] { "mcc"      };
+    private static final String ARG_MNC[]       = new String[] { "mnc"      };
+    private static final String ARG_LAC[]       = new String[] { "lac"      };
+    private static final String ARG_CID[]       = new String[] { "cid"      , "cellID" };
+
+    private static void usage()
+    {
+        String n = CellTowerIndex.class.getName();
+        Print.sysPrintln("");
+        Print.sysPrintln("Description:");
+        Print.sysPrintln("   Offline Cell Tower Index Tool ...");
+        Print.sysPrintln("");
+        Print.sysPrintln("Usage:");
+        Print.sysPrintln("   java ... " + n + " -index=<file> -build -csv=<file> [-mcc=<MCC>]");
+        Print.sysPrintln("   java ... " + n + " -index=<file> -lookup -mcc=<MCC> -mnc=<MNC> -lac=<LAC> -cid=<CID>");
+        Print.sysPrintln("   java ... " + n + " -index=<file> -benchmark=<count>");
+        Print.sysPrintln("");
+        Print.sysPrintln("Options:");
+        Print.sysPrintln("   -index=<file>       Cell tower index file");
+        Print.sysPrintln("   -build              Build index from OpenCellID CSV file (may be \".gz\")");
+        Print.sysPrintln("   -csv=<file>         OpenCellID CSV file");
+        Print.sysPrintln("   -mcc=<MCC>          Only include this Mobile Country Code (with '-build')");
+        Print.sysPrintln("   -lookup             Lookup the specified Cell Tower");
+        Print.sysPrintln("   -benchmark=<count>  Time <count> random lookups");
+        Print.sysPrintln("");
+        System.exit(1);
+    }
+
+    /**
+    *** Main entry point for building/testing the index
+    **/
+    public static void main(String argv[])
+    {
+        RTConfig.setCommandLineArgs(argv);
+        Print.setAllOutputToStdout(true);
+
+        /* index file */
+        String idxName = RTConfig.getString(ARG_INDEX, "");
+        if (StringTools.isBlank(idxName)) {
+            Print.sysPrintln("ERROR: Missing '-index=<file>'");
+            usage();
+        }
+        File idxFile = new File(idxName);
+
+        /* build */
+        if (RTConfig.getBoolean(ARG_BUILD,false)) {
+            String csvName = RTConfig.getString(ARG_CSV, "");
+            if (StringTools.isBlank(csvName)) {
+                Print.sysPrintln("ERROR: Missing '-csv=<file>'");
+                usage();
+            }
+            try {
+                long startMS = System.currentTimeMillis();
+                int count = CellTowerIndex.Build(new File(csvName), idxFile, RTConfig.getInt(ARG_MCC,-1));
+                long deltaMS = System.currentTimeMillis() - startMS;
+                Print.sysPrintln("Built index: " + count + " towers in " + deltaMS + " ms");
+            } catch (IOException ioe) {
+                Print.logException("Unable to build index: " + idxFile, ioe);
+                System.exit(99);
+            }
+            System.exit(0);
+        }
+
+        /* open index */
+        CellTowerIndex cti = null;
+        try {
+            cti = new CellTowerIndex(idxFile);
+        } catch (IOException ioe) {
+            Print.logException("Unable to open index: " + idxFile, ioe);
+            System.exit(99);
+        }
+        Print.sysPrintln("Index towers: " + cti.size());
+
+        /* lookup */
+        if (RTConfig.getBoolean(ARG_LOOKUP,false)) {
+            int mcc = RTConfig.getInt(ARG_MCC,-1);
+            int mnc = RTConfig.getInt(ARG_MNC,-1);
+            int lac = RTConfig.getInt(ARG_LAC,-1);
+            int cid = RTConfig.getInt(ARG_CID,-1);
+            Tower t = cti.getTower(mcc, mnc, lac, cid);
+            Print.sysPrintln("Tower " + mcc + "/" + mnc + "/" + lac + "/" + cid + ": " + ((t != null)? t.toString() : "not found"));
+            System.exit(0);
+        }
+
+        /* benchmark */
+        if (RTConfig.hasProperty(ARG_BENCH)) {
+            int count = RTConfig.getInt(ARG_BENCH, 1000000);
+            if ((count <= 0) || (cti.size() <= 0)) {
+                Print.sysPrintln("ERROR: Invalid benchmark count, or empty index");
+                System.exit(1);
+            }
+            // half existing keys (decoded from random records), half random (mostly missing) keys
+            Random rand = new Random(1L);
+            int ids[] = new int[count * 4];
+            for (int i = 0; i < count; i++) {
+                long key = ((i & 1) == 0)? cti._getKey(rand.nextInt(cti.size())) : rand.nextLong();
+                ids[(i*4)+0] = (int)((key >>> 54) & MASK_MCC);
+                ids[(i*4)+1] = (int)((key >>> 44) & MASK_MNC);
+                ids[(i*4)+2] = (int)((key >>> 28) & MAX_LAC);
+                ids[(i*4)+3] = (int)( key         & MAX_CID);
+            }
+            for (int pass = 1; pass <= 2; pass++) { // pass 1 warms up the JIT and page cache
+                int found = 0;
+                long startNS = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    if (cti.getTower(ids[(i*4)+0], ids[(i*4)+1], ids[(i*4)+2], ids[(i*4)+3]) != null) {
+                        found++;
+                    }
+                }
+                long deltaNS = System.nanoTime() - startNS;
+                Print.sysPrintln("Pass " + pass + ": " + count + " lookups, found=" + found +
+                    ", total=" + (deltaNS / 1000000L) + " ms, avg=" +
+                    StringTools.format(((double)deltaNS / (double)count) / 1000.0, "0.000") + " us/lookup");
+            }
+            System.exit(0);
+        }
+
+        usage();
+
+    }
+
+}
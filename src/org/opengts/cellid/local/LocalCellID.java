@@ -0,0 +1,273 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.cellid.local;
+
+import java.util.*;
+import java.io.*;
+
+import org.opengts.util.*;
+
+import org.opengts.db.*;
+import org.opengts.cellid.*;
+
+/**
+*** <code>LocalCellID</code> is a MobileLocationProvider which resolves cell tower locations
+*** from a local memory-mapped <code>CellTowerIndex</code> (built from an OpenCellID CSV export),
+*** without any network access.<br>
+*** The returned location is a weighted centroid of the serving and neighbor towers found in
+*** the index.  Towers are weighted by reception level, and the serving tower weight is
+*** increased when a small timing advance indicates that the device is close to it.
+**/
+
+public class LocalCellID
+    extends MobileLocationProviderAdapter
+    implements MobileLocationProvider
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final String  PROP_indexFile                 = "indexFile";
+    private static final String  PROP_servingWeight             = "servingWeight";
+
+    // ------------------------------------------------------------------------
+
+    private static final double  TA_METERS                      = 553.5;  // GSM timing-advance step
+    private static final double  TA_NEAR_METERS                 = 2000.0; // TA distance below which serving weight is increased
+    private static final int     GSM_RXLEV_MAX                  = 63;     // GSM RXLEV 0..63 == -110..-47 dBm
+    private static final double  DFT_RXLEV_DBM                  = -95.0;  // assumed when not specified
+    private static final double  DFT_SERVING_WEIGHT             = 2.0;
+    private static final double  DFT_RANGE_METERS               = 1000.0; // when the index has no range
+    private static final double  MIN_ACCURACY_METERS            = 50.0;
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the reception level of the specified tower in dBm
+    **/
+    private static double _getReceptionDBm(CellTower ct)
+    {
+        if (!ct.hasReceptionLevel()) {
+            return DFT_RXLEV_DBM;
+        }
+        int rx = ct.getReceptionLevel();
+        if (rx <= GSM_RXLEV_MAX) {
+            return (double)rx - 110.0; // GSM RXLEV
+        } else {
+            return -(double)rx;        // absolute dBm
+        }
+    }
+
+    /**
+    *** Gets the distance from the serving tower indicated by the timing advance,
+    *** or -1 if the timing advance is not known
+    **/
+    private static double _getTimingAdvanceMeters(CellTower ct)
+    {
+        if ((ct == null) || !ct.hasTimingAdvance()) {
+            return -1.0;
+        }
+        return ((double)ct.getTimingAdvance() + 0.5) * TA_METERS;
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private CellTowerIndex  towerIndex      = null;
+    private long            indexModTime    = 0L;
+    private boolean         indexError      = false;
+
+    /**
+    *** Constructor
+    **/
+    public LocalCellID(String name, String key, RTProperties rtProps)
+    {
+        super(name, key, rtProps);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the configured index file
+    **/
+    private File _getIndexFile()
+    {
+        String idxName = this.getProperties().getString(PROP_indexFile, "");
+        if (StringTools.isBlank(idxName)) {
+            return null;
+        }
+        File idxFile = new File(idxName);
+        if (!idxFile.isAbsolute() && (RTConfig.getLoadedConfigDir() != null)) {
+            idxFile = new File(RTConfig.getLoadedConfigDir(), idxName);
+        }
+        return idxFile;
+    }
+
+    /**
+    *** Gets the cell tower index, (re)mapping the index file if it has been rebuilt
+    *** @return The cell tower index, or null if unavailable
+    **/
+    protected synchronized CellTowerIndex getCellTowerIndex()
+    {
+        File idxFile = this._getIndexFile();
+        if (idxFile == null) {
+            if (!this.indexError) {
+                Print.logError("Required '" + PROP_indexFile + "' is not specified");
+                this.indexError = true;
+            }
+            return null;
+        }
+        long modTime = idxFile.lastModified();
+        if ((this.towerIndex == null) || (modTime != this.indexModTime)) {
+            if ((modTime == this.indexModTime) && this.indexError) {
+                return null; // already failed for this file
+            }
+            this.indexModTime = modTime;
+            try {
+                this.towerIndex = new CellTowerIndex(idxFile);
+                this.indexError = false;
+                Print.logInfo("Loaded cell tower index: " + idxFile + " [" + this.towerIndex.size() + " towers]");
+            } catch (IOException ioe) {
+                Print.logError("Unable to load cell tower index: " + idxFile + " [" + ioe + "]");
+                this.towerIndex = null;
+                this.indexError = true;
+            }
+        }
+        return this.towerIndex;
+    }
+
+    // ------------------------------------------------------------------------
+    // MobileLocationProvider interface
+
+    /**
+    *** Returns the weighted location of the specified serving and neighbor cell towers
+    *** @param servCT  The serving Cell Tower information
+    *** @param nborCT  Neighbor Cell Tower information
+    *** @return The Mobile location, or null if none of the towers are in the index
+    **/
+    public MobileLocation getMobileLocation(CellTower servCT, CellTower nborCT[])
+    {
+
+        /* no cell towers? */
+        if ((servCT == null) && ListTools.isEmpty(nborCT)) {
+            Print.logWarn("Null CellTower specified");
+            return null;
+        }
+
+        /* index */
+        CellTowerIndex cti = this.getCellTowerIndex();
+        if (cti == null) {
+            // errors already displayed
+            return null;
+        }
+
+        /* towers */
+        Vector<CellTower> ctList = new Vector<CellTower>();
+        if (servCT != null) { ctList.add(servCT); }
+        if (nborCT != null) {
+            for (CellTower ct : nborCT) {
+                if (ct != null) { ctList.add(ct); }
+            }
+        }
+        double servWeight = this.getProperties().getDouble(PROP_servingWeight, DFT_SERVING_WEIGHT);
+        double taMeters   = LocalCellID._getTimingAdvanceMeters(servCT);
+
+        /* weighted centroid */
+        double sumW = 0.0, sumLat = 0.0, sumLon = 0.0, sumRange = 0.0;
+        int found = 0;
+        boolean servFound = false;
+        for (CellTower ct : ctList) {
+            int mnc = ct.getMobileNetworkCode();
+            int mcc = ct.getMobileCountryCode();
+            if ((mcc < 0) && (servCT != null)) {
+                // neighbors often omit the MCC/MNC of the serving tower
+                mcc = servCT.getMobileCountryCode();
+                mnc = (mnc < 0)? servCT.getMobileNetworkCode() : mnc;
+            }
+            CellTowerIndex.Tower t = cti.getTower(mcc, mnc, ct.getLocationAreaCode(), ct.getCellTowerID());
+            if (t == null) {
+                continue;
+            }
+            double w = Math.pow(10.0, LocalCellID._getReceptionDBm(ct) / 20.0); // signal amplitude
+            if (ct == servCT) {
+                w *= servWeight;
+                if (taMeters > 0.0) {
+                    w *= Math.max(1.0, TA_NEAR_METERS / taMeters);
+                }
+                servFound = true;
+            }
+            double range = (t.getRange() > 0)? (double)t.getRange() : DFT_RANGE_METERS;
+            sumW     += w;
+            sumLat   += w * t.getLatitude();
+            sumLon   += w * t.getLongitude();
+            sumRange += w * range;
+            found++;
+        }
+        if ((found <= 0) || (sumW <= 0.0)) {
+            Print.logDebug("No CellTowers found in local index");
+            return null;
+        }
+        double lat = sumLat / sumW;
+        double lon = sumLon / sumW;
+        if (!GeoPoint.isValid(lat,lon)) {
+            return null;
+        }
+
+        /* accuracy */
+        double accuracy = (sumRange / sumW) / Math.sqrt((double)found);
+        if (servFound && (taMeters > 0.0)) {
+            accuracy = Math.min(accuracy, taMeters + TA_METERS);
+        }
+        accuracy = Math.max(accuracy, MIN_ACCURACY_METERS);
+        Print.logDebug("MobileLocation: "+lat+"/"+lon+" accuracy="+accuracy+" m [towers="+found+"/"+ctList.size()+"]");
+        return new MobileLocation(lat, lon, accuracy);
+
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Main entery point for debugging/testing
+    **/
+    public static void main(String argv[])
+    {
+        RTConfig.setCommandLineArgs(argv);
+        Print.setAllOutputToStdout(true);
+        Print.setEncoding(StringTools.CharEncoding_UTF_8);
+
+        /* serving cell tower */
+        CellTower ct = new CellTower();
+        ct.setCellTowerID(      RTConfig.getInt("cid",565110));
+        ct.setMobileNetworkCode(RTConfig.getInt("mnc",     8));
+        ct.setMobileCountryCode(RTConfig.getInt("mcc",   240));
+        ct.setLocationAreaCode( RTConfig.getInt("lac",   318));
+        ct.setTimingAdvance(    RTConfig.getInt("tav",    -1));
+        ct.setReceptionLevel(   RTConfig.getInt("rxlev",  -1));
+
+        /* get CellTower location */
+        RTProperties rtp = new RTProperties();
+        rtp.setString(PROP_indexFile, RTConfig.getString("index",""));
+        LocalCellID mobLoc = new LocalCellID("localCellID", null, rtp);
+        MobileLocation ml = mobLoc.getMobileLocation(ct, null);
+        Print.logInfo("Mobile Location: " + ml);
+
+    }
+
+}
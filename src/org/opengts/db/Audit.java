@@ -213,6 +213,19 @@ public class Audit
         }
     }
 
+    public static void deviceCommands(
+        String acctID, String userID, java.util.List<String> devIDs,
+        String ipAddr, 
+        String cmdStr)
+    {
+        if (!ListTools.isEmpty(devIDs)) {
+            // -- one audit entry per device
+            for (String devID : devIDs) {
+                Audit.deviceCommand(acctID, userID, devID, ipAddr, cmdStr);
+            }
+        }
+    }
+
     // ------------------------------------------------------------------------
 
 }
@@ -498,6 +498,8 @@ public class BasicPrivateLabel
     private AccessLevel                 dftAccLevel             = null;
     private OrderedMap<String,AclEntry> privateAclMap           = null;
     private AclEntry                    allAclEntries[]         = null;
+    private Map<String,Integer>         allAclIndex             = null;
+    private AclEntry                    allAclIndexEntries[]    = null;
 
     // Event Notification EMail
     private String                      eventNotifyFrom         = null;
@@ -1707,6 +1709,28 @@ public class BasicPrivateLabel
         return this.allAclEntries;
     }
 
+    /**
+    *** Returns the index of the specified ACL within the array returned by "getAllAclEntries()"
+    *** @param aclName  The ACL key
+    *** @return The ACL index, or -1 if the ACL is not defined
+    **/
+    public int getAclIndex(String aclName)
+    {
+        AclEntry aclEntries[] = this.getAllAclEntries();
+        Map<String,Integer> aclIndex = this.allAclIndex;
+        if ((aclIndex == null) || (this.allAclIndexEntries != aclEntries)) {
+            // -- (re)build index for the current ACL entries
+            aclIndex = new HashMap<String,Integer>();
+            for (int a = 0; a < aclEntries.length; a++) {
+                aclIndex.put(aclEntries[a].getName(), new Integer(a));
+            }
+            this.allAclIndex        = aclIndex;
+            this.allAclIndexEntries = aclEntries;
+        }
+        Integer ndx = (aclName != null)? aclIndex.get(aclName) : null;
+        return (ndx != null)? ndx.intValue() : -1;
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -1769,6 +1793,16 @@ public class BasicPrivateLabel
             return AccessLevel.NONE;
         }
 
+        /* compiled ACL matrix */
+        UserAclMatrix aclMatrix = user.getAclMatrix();
+        if ((aclMatrix != null) && aclMatrix.isValid(this,user)) {
+            AccessLevel acl = aclMatrix.getAccessLevel(this.getAclIndex(aclName));
+            if (acl != null) {
+                return acl;
+            }
+            // -- ACL not defined by this PrivateLabel, continue below
+        }
+
         /* normal user */
         AccessLevel acl = UserAcl.getAccessLevel(user, aclName, null);
         if (acl == null) {
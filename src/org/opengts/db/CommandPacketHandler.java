@@ -73,6 +73,7 @@ public abstract class CommandPacketHandler
     };
 
     public static final String  ARG_SERVER              = DCServerFactory.CMDARG_SERVER;
+    public static final String  ARG_REQID               = DCServerFactory.CMDARG_REQID;
     
     public static final String  ARG_IP                  = "ip";
     public static final String  ARG_PHONE               = "phone";
@@ -127,6 +128,10 @@ public abstract class CommandPacketHandler
     private InetAddress     inetAddress         = null;
     private String          ipAddress           = null;
 
+    /* pipelined command channel */
+    private int             commandCount        = 0;
+    private Account         lastAccount         = null;
+
     /* packet handler constructor */
     public CommandPacketHandler() 
     {
@@ -159,6 +164,8 @@ public abstract class CommandPacketHandler
         this.sessionStartTime = DateTime.getCurrentTimeSec();
         this.inetAddress      = inetAddr;
         this.ipAddress        = (inetAddr != null)? inetAddr.getHostAddress() : null;
+        this.commandCount     = 0;
+        this.lastAccount      = null;
 
         /* debug message */
         Print.logInfo("---- Begin Command Packet Handler: " + this.ipAddress);
@@ -169,7 +176,8 @@ public abstract class CommandPacketHandler
     public void sessionTerminated(Throwable err, long readCount, long writeCount)
     {
         
-        Print.logInfo("---- End Command Packet Handler: " + this.ipAddress);
+        Print.logInfo("---- End Command Packet Handler: " + this.ipAddress + " [commands=" + this.commandCount + "]");
+        this.lastAccount = null;
         try { Thread.sleep(10L); } catch (Throwable t) {}
         
     }
@@ -210,8 +218,16 @@ public abstract class CommandPacketHandler
     {
         if (!ListTools.isEmpty(pktBytes)) {
             String cmd = StringTools.toStringValue(pktBytes);
-            this.setTerminateSession();
-            return this.parseCommand(cmd);
+            RTProperties rtCmd = new RTProperties(cmd);
+            this.commandCount++;
+            if (!rtCmd.hasProperty(ARG_REQID)) {
+                // -- single command per session
+                this.setTerminateSession();
+            } else {
+                // -- pipelined command channel: the session remains open for the next
+                // -  command (the "reqid" is echoed in the response)
+            }
+            return this.parseCommand(rtCmd);
         }
         return null;
     }
@@ -254,9 +270,8 @@ public abstract class CommandPacketHandler
 
     /* parse and insert data record */
     // account=myaccount device=mydevice cmdType=config command="someCommand" arg="someArg"
-    private byte[] parseCommand(String cmd)
+    private byte[] parseCommand(RTProperties rtCmd)
     {
-        RTProperties rtCmd = new RTProperties(cmd);
         Print.logInfo("Command: " + rtCmd);
 
         /* standard arguments */
@@ -297,6 +312,11 @@ public abstract class CommandPacketHandler
         Account account = null;
         if (StringTools.isBlank(accountID)) {
             //Print.logDebug("Account not specified");
+        } else
+        if ((this.lastAccount != null) && this.lastAccount.getAccountID().equals(accountID.trim())) {
+            // -- same Account as the previous command on this pipelined session
+            accountID = accountID.trim(); // not blank
+            account = this.lastAccount;
         } else {
             accountID = accountID.trim(); // not blank
             try {
@@ -323,6 +343,7 @@ public abstract class CommandPacketHandler
                 return RESULT(rtCmd, DCServerFactory.ResultCode.INVALID_ACCOUNT);
             } else {
                 Print.logDebug("Found Account: [%s] %s", account.getAccountID(), account.getDescription());
+                this.lastAccount = account;
             }
         }
 
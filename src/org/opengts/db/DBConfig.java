@@ -454,6 +454,22 @@ public class DBConfig
     **/
     public static final String PROP_Device_checkAccountAllowNotify      = "Device.checkAccountAllowNotify";
 
+    /**
+    *** Runtime Configuration Property<br>
+    *** Number of recent event keys remembered per Device for in-memory duplicate event
+    *** detection (0 to disable, defaults to 64)<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_Device_duplicateFilter_size         = "Device.duplicateFilter.size";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Maximum number of Devices for which recent event keys are remembered (defaults to 5000).
+    *** Filters removed beyond this maximum are not reloaded from the EventData table.<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_Device_duplicateFilter_maxDevices   = "Device.duplicateFilter.maxDevices";
+
     /**
     *** Runtime Configuration Property<br>
     *** Device EventsPerSecond calculation properties
@@ -533,6 +549,27 @@ public class DBConfig
     **/
     public static final String PROP_EventData_logMissingColumns         = "EventData.logMissingColumns";
 
+    /**
+    *** Runtime Configuration Property<br>
+    *** Store EventData field values in compact (array-backed) form (defaults to 'true')<br>
+    *** Type: Boolean
+    **/
+    public static final String PROP_EventData_compactFieldValues        = "EventData.compactFieldValues";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Maximum number of devices selected per multi-device EventData range query (defaults to '100')<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_EventData_multiDeviceBatchSize      = "EventData.multiDeviceBatchSize";
+
+    /**
+    *** Runtime Configuration Property<br>
+    *** Store EventData records in monthly physical tables ("EventData_YYYYMM") (defaults to 'false')<br>
+    *** Type: Boolean
+    **/
+    public static final String PROP_EventData_timeShards                = "EventData.timeShards";
+
     /**
     *** Runtime Configuration Property<br>
     *** Odometer offset type<br>
@@ -656,6 +693,127 @@ public class DBConfig
     **/
     public static final String PROP_PendingCommands_keyedSendState      = "PendingCommands.keyedSendState";
 
+    // ----------------------
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** True to send DCS commands over a persistent, pipelined command channel
+    *** (the DCS CommandPacketHandler must echo the "reqid" command argument)<br>
+    *** Type: Boolean
+    **/
+    public static final String PROP_DCServerFactory_commandChannel      = "DCServerFactory.commandChannel";
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** Maximum time to wait for a DCS command response on the persistent command channel<br>
+    *** Type: Long (milliseconds)
+    **/
+    public static final String PROP_DCServerFactory_commandTimeoutMS    = "DCServerFactory.commandTimeoutMS";
+
+    // ----------------------
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** Number of DCS event ingest shards (0 to insert events in the session thread)<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_EventIngestQueue_shardCount         = "EventIngestQueue.shardCount";
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** Maximum number of events queued per DCS event ingest shard<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_EventIngestQueue_queueSize          = "EventIngestQueue.queueSize";
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** True to acknowledge events to the device as soon as they are queued, false to
+    *** acknowledge only after they have been inserted<br>
+    *** Type: Boolean
+    **/
+    public static final String PROP_EventIngestQueue_ackOnQueue         = "EventIngestQueue.ackOnQueue";
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** Maximum time to wait for a queued event to be inserted (if not acknowledged on queue).
+    *** A queued event which has not been started when this time expires is cancelled.<br>
+    *** Type: Long (milliseconds)
+    **/
+    public static final String PROP_EventIngestQueue_insertTimeoutMS    = "EventIngestQueue.insertTimeoutMS";
+
+    // ----------------------
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** Maximum number of EventData records deleted per DELETE statement by the event purge<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_EventDataPurge_chunkSize            = "EventDataPurge.chunkSize";
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** Target number of EventData records deleted per second, over all devices (0 for no limit)<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_EventDataPurge_rowsPerSecond        = "EventDataPurge.rowsPerSecond";
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** Minimum pause between DELETE statements for a device<br>
+    *** Type: Long (milliseconds)
+    **/
+    public static final String PROP_EventDataPurge_chunkPauseMS         = "EventDataPurge.chunkPauseMS";
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** Maximum number of devices purged concurrently<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_EventDataPurge_maxConcurrency       = "EventDataPurge.maxConcurrency";
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** File recording the devices already purged (and the cutoff time used for each), allowing
+    *** an interrupted purge to be resumed with the same or an earlier cutoff time<br>
+    *** Type: String (file path)
+    **/
+    public static final String PROP_EventDataPurge_checkpointFile       = "EventDataPurge.checkpointFile";
+
+    // ----------------------
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** Maximum number of compiled rule selectors cached by the RuleFactory<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_RuleFactory_selectorCacheSize       = "RuleFactory.selectorCacheSize";
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** Maximum number of compiled notification/message templates cached by MessageTemplate<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_MessageTemplate_cacheSize           = "MessageTemplate.cacheSize";
+
+    // ----------------------
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** Number of EventData records inserted per JDBC batch by the bulk event importer<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_EventImport_batchSize               = "EventImport.batchSize";
+
+    // ----------------------
+
+    /**
+    *** Runtime Configuration Property (optional)<br>
+    *** Maximum number of simplified map routes cached by RouteSimplifier<br>
+    *** Type: Integer
+    **/
+    public static final String PROP_RouteSimplifier_cacheSize           = "RouteSimplifier.cacheSize";
+
     // ----------------------
     
     /**
@@ -737,6 +895,14 @@ public class DBConfig
     **/
     public static final String PROP_track_updateLastLoginTime_account  = "track.updateLastLoginTime.account";
 
+    /**
+    *** Runtime Configuration Property<br>
+    *** Minimum number of seconds between validations of the Account/User records cached in
+    *** the session at login (0 to validate on every request, defaults to '10').<br>
+    *** Type: Long
+    **/
+    public static final String PROP_track_sessionPrincipal_validateInterval = "track.sessionPrincipal.validateInterval";
+
     // ----------------------
 
     /**
@@ -889,6 +1055,9 @@ public class DBConfig
         new RTKey.Entry(PROP_EventData_allowInnoDBCountWithWhere    , true                          , "Allow 'count(*)' with WHERE"),
         new RTKey.Entry(PROP_EventData_keyedAccountDeviceTime       , false                         , "Create AltKey Account/Device/Timestamp"),
         new RTKey.Entry(PROP_EventData_keyedCreationTime            , false                         , "Keyed 'EventData.creationTime'"),
+        new RTKey.Entry(PROP_EventData_compactFieldValues           , true                          , "Compact EventData field storage"),
+        new RTKey.Entry(PROP_EventData_multiDeviceBatchSize         , 100                           , "Multi-Device range query batch size"),
+        new RTKey.Entry(PROP_EventData_timeShards                   , false                         , "Monthly EventData time-shards"),
         new RTKey.Entry(PROP_Geozone_alwaysActive                   , true                          , "Geozones Always Active"),
         new RTKey.Entry(PROP_Geozone_maximumVertices                , -1                            , "Maximum Number of Geozone Vertices"),
         new RTKey.Entry(PROP_Geozone_dftRadius_pointRadius          , 3000                          , "Default Point Radius"),
@@ -0,0 +1,356 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+import java.net.*;
+
+import org.opengts.util.*;
+
+/**
+*** <code>DCServerCommandChannel</code> is a persistent, pipelined connection to the command
+*** port of a DCS.  Each command is tagged with a request-id ("reqid"), which the DCS
+*** CommandPacketHandler echoes in the response, allowing many commands to be outstanding
+*** on the same connection.  Responses are read by a separate thread and complete the
+*** matching <code>PendingCommand</code>.<br>
+*** Enabled with the runtime property "DCServerFactory.commandChannel".
+**/
+
+public class DCServerCommandChannel
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final long   CONNECT_TIMEOUT_MS          = 5000L;
+    private static final long   DEFAULT_RESPONSE_TIMEOUT_MS = 15000L;
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if DCS commands should be sent over a persistent command channel
+    *** @return True if the persistent command channel is enabled
+    **/
+    public static boolean IsEnabled()
+    {
+        return RTConfig.getBoolean(DBConfig.PROP_DCServerFactory_commandChannel,false);
+    }
+
+    /**
+    *** Gets the maximum time to wait for a command response
+    *** @return The response timeout, in milliseconds
+    **/
+    public static long GetResponseTimeoutMS()
+    {
+        long tmo = RTConfig.getLong(DBConfig.PROP_DCServerFactory_commandTimeoutMS,DEFAULT_RESPONSE_TIMEOUT_MS);
+        return (tmo > 0L)? tmo : DEFAULT_RESPONSE_TIMEOUT_MS;
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static Map<String,DCServerCommandChannel> channelMap = new HashMap<String,DCServerCommandChannel>();
+
+    /**
+    *** Gets the command channel for the specified DCS command host:port
+    *** @param host  The DCS command host
+    *** @param port  The DCS command port
+    *** @return The command channel
+    **/
+    public static DCServerCommandChannel GetChannel(String host, int port)
+    {
+        String key = StringTools.trim(host) + ":" + port;
+        synchronized (DCServerCommandChannel.channelMap) {
+            DCServerCommandChannel chan = DCServerCommandChannel.channelMap.get(key);
+            if (chan == null) {
+                chan = new DCServerCommandChannel(host, port);
+                DCServerCommandChannel.channelMap.put(key, chan);
+            }
+            return chan;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** PendingCommand: a command which has been sent, and for which a response is expected
+    **/
+    public static class PendingCommand
+    {
+        private DCServerCommandChannel channel  = null;
+        private long                   reqID    = 0L;
+        private RTProperties           command  = null;
+        private RTProperties           response = null;
+        private boolean                done     = false;
+        private PendingCommand(DCServerCommandChannel channel, long reqID, RTProperties command) {
+            this.channel = channel;
+            this.reqID   = reqID;
+            this.command = command;
+        }
+        /**
+        *** Gets the request-id of this command
+        **/
+        public long getRequestID() {
+            return this.reqID;
+        }
+        /**
+        *** Gets the command sent to the DCS
+        **/
+        public RTProperties getCommand() {
+            return this.command;
+        }
+        /**
+        *** Returns true if a response has been received, or the command has failed
+        **/
+        public synchronized boolean isDone() {
+            return this.done;
+        }
+        /**
+        *** Gets the response (null if no response has been received, or the command failed)
+        **/
+        public synchronized RTProperties getResponse() {
+            return this.response;
+        }
+        private synchronized void setResponse(RTProperties resp) {
+            if (!this.done) {
+                this.response = resp;
+                this.done     = true;
+                this.notifyAll();
+            }
+        }
+        /**
+        *** Waits for the response to this command
+        *** @param timeoutMS  The maximum time to wait, in milliseconds
+        *** @return The response, or null if the command failed or timed-out
+        **/
+        public RTProperties waitForResponse(long timeoutMS) {
+            long untilMS = DateTime.getCurrentTimeMillis() + timeoutMS;
+            synchronized (this) {
+                while (!this.done) {
+                    long waitMS = untilMS - DateTime.getCurrentTimeMillis();
+                    if (waitMS <= 0L) { break; }
+                    try { this.wait(waitMS); } catch (InterruptedException ie) { break; }
+                }
+            }
+            if (!this.isDone()) {
+                Print.logError("Command response timeout: reqid=" + this.reqID);
+                if (this.channel != null) {
+                    this.channel._removePending(this.reqID);
+                }
+                this.setResponse(null);
+            }
+            return this.getResponse();
+        }
+    }
+
+    /**
+    *** Creates a PendingCommand which is already complete (ie. the command was sent by
+    *** other means, or was not sent at all)
+    *** @param command   The command
+    *** @param response  The command response (null if the command was not sent)
+    *** @return The completed PendingCommand
+    **/
+    public static PendingCommand CompletedCommand(RTProperties command, RTProperties response)
+    {
+        PendingCommand pc = new PendingCommand(null, 0L, command);
+        pc.setResponse(response);
+        return pc;
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private String                          host        = null;
+    private int                             port        = 0;
+
+    private ClientSocketThread              socket      = null;
+    private long                            nextReqID   = 1L;
+    private OrderedMap<Long,PendingCommand> pending     = new OrderedMap<Long,PendingCommand>();
+
+    /**
+    *** Constructor
+    **/
+    private DCServerCommandChannel(String host, int port)
+    {
+        this.host = host;
+        this.port = port;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the number of commands waiting for a response
+    *** @return The number of commands waiting for a response
+    **/
+    public int getPendingCount()
+    {
+        synchronized (this.pending) {
+            return this.pending.size();
+        }
+    }
+
+    /**
+    *** Removes the specified pending command
+    **/
+    private PendingCommand _removePending(long reqID)
+    {
+        synchronized (this.pending) {
+            return this.pending.remove(new Long(reqID));
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Sends the specified command to the DCS.  The command is tagged with a new request-id
+    *** and this method returns without waiting for the response.
+    *** @param rtCmd  The command to send
+    *** @return The PendingCommand (check "waitForResponse" for the result)
+    **/
+    public synchronized PendingCommand send(RTProperties rtCmd)
+    {
+
+        /* tag command with request-id */
+        long reqID = this.nextReqID++;
+        rtCmd.setLong(DCServerFactory.CMDARG_REQID, reqID);
+        PendingCommand pc = new PendingCommand(this, reqID, rtCmd);
+
+        /* open channel */
+        if (this.socket == null) {
+            ClientSocketThread cst = new ClientSocketThread(this.host, this.port);
+            try {
+                cst.openSocket(CONNECT_TIMEOUT_MS);
+            } catch (ConnectException ce) { // "Connection refused"
+                Print.logError("Unable to connect to command port " + this.host + ":" + this.port + " - " + ce.getMessage());
+                pc.setResponse(null);
+                return pc;
+            } catch (Throwable th) {
+                Print.logException("Unable to open command channel " + this.host + ":" + this.port, th);
+                pc.setResponse(null);
+                return pc;
+            }
+            this.socket = cst;
+            this._startReader(cst);
+        }
+
+        /* send */
+        synchronized (this.pending) {
+            this.pending.put(new Long(reqID), pc);
+        }
+        try {
+            this.socket.socketWriteBytes((rtCmd.toString() + "\n").getBytes());
+        } catch (Throwable th) {
+            Print.logError("Command channel write error " + this.host + ":" + this.port + " - " + th);
+            this._close(this.socket); // fails all pending commands (including this one)
+        }
+        return pc;
+
+    }
+
+    /**
+    *** Starts the response reader thread for the specified socket
+    **/
+    private void _startReader(final ClientSocketThread cst)
+    {
+        Thread reader = new Thread("CommandChannel_" + this.host + ":" + this.port) {
+            public void run() {
+                DCServerCommandChannel.this._readResponses(cst);
+            }
+        };
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+    *** Reads responses from the specified socket until the socket is closed
+    **/
+    private void _readResponses(ClientSocketThread cst)
+    {
+        try {
+            for (;;) {
+                String line = cst.socketReadLine();
+                if (StringTools.isBlank(line)) {
+                    continue;
+                }
+                RTProperties resp = new RTProperties(line.trim());
+                long reqID = resp.getLong(DCServerFactory.CMDARG_REQID, -1L);
+                PendingCommand pc;
+                synchronized (this.pending) {
+                    if (reqID > 0L) {
+                        pc = this.pending.remove(new Long(reqID));
+                    } else
+                    if (!this.pending.isEmpty()) {
+                        // -- response without request-id, match to oldest command
+                        pc = this.pending.remove(this.pending.getFirstKey());
+                    } else {
+                        pc = null;
+                    }
+                }
+                if (pc != null) {
+                    pc.setResponse(resp);
+                } else {
+                    Print.logWarn("Unexpected command response: " + resp);
+                }
+            }
+        } catch (IOException ioe) {
+            // -- closed by DCS (idle timeout), or by "_close"
+            Print.logDebug("Command channel closed " + this.host + ":" + this.port + " - " + ioe.getMessage());
+        } catch (Throwable th) {
+            Print.logException("Command channel read error " + this.host + ":" + this.port, th);
+        }
+        this._close(cst);
+    }
+
+    /**
+    *** Closes the specified socket, and fails all pending commands
+    **/
+    private void _close(ClientSocketThread cst)
+    {
+        cst.closeSocket();
+        synchronized (this) {
+            if (this.socket != cst) {
+                return; // already closed
+            }
+            this.socket = null;
+            java.util.List<PendingCommand> failed;
+            synchronized (this.pending) {
+                failed = new Vector<PendingCommand>(this.pending.values());
+                this.pending.clear();
+            }
+            for (PendingCommand pc : failed) {
+                Print.logWarn("Command channel closed before response: reqid=" + pc.getRequestID());
+                pc.setResponse(null);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns a String representation of this instance
+    **/
+    public String toString()
+    {
+        return this.host + ":" + this.port + " [pending=" + this.getPendingCount() + "]";
+    }
+
+    // ------------------------------------------------------------------------
+
+}
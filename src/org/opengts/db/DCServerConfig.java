@@ -2032,6 +2032,26 @@ public class DCServerConfig
         return this.getLongProperty(DCServerFactory.CONFIG_udpSessionTimeoutMS(this.getName()), dft);
     }
 
+    /**
+    *** Gets the "Command idle timeout"
+    *** @param dft  The default timeout value
+    *** @return The default timeout value
+    **/
+    public long getCommandIdleTimeoutMS(long dft)
+    {
+        return this.getLongProperty(DCServerFactory.CONFIG_commandIdleTimeoutMS(this.getName()), dft);
+    }
+
+    /**
+    *** Gets the "Command session timeout"
+    *** @param dft  The default timeout value
+    *** @return The default timeout value
+    **/
+    public long getCommandSessionTimeoutMS(long dft)
+    {
+        return this.getLongProperty(DCServerFactory.CONFIG_commandSessionTimeoutMS(this.getName()), dft);
+    }
+
     // ------------------------------------------------------------------------
 
     /**
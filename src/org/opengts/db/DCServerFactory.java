@@ -352,6 +352,7 @@ public class DCServerFactory
     public static final String  CMDARG_CMDNAME                  = "cmdname";
     public static final String  CMDARG_ARG                      = DCServerConfig.DEFAULT_ARG_NAME;
     public static final String  CMDARG_SERVER                   = "server";
+    public static final String  CMDARG_REQID                    = "reqid";  // pipelined request-id
 
     public static final String  RESPONSE_SERVER                 = CMDARG_SERVER;
     public static final String  RESPONSE_RESULT                 = "result";
@@ -1999,19 +2000,35 @@ public class DCServerFactory
     }
 
     /**
-    *** Send a command request to the command port for the specified server
+    *** Send a command request to the command port for the specified server, and wait
+    *** for the response.
     **/
     private static RTProperties _sendServerCommand(
         String serverName,
         Device device,
         String cmdType, String cmdName, String cmdArgs[])
     {
+        DCServerCommandChannel.PendingCommand pc = DCServerFactory._queueServerCommand(
+            serverName, device, cmdType, cmdName, cmdArgs);
+        return pc.waitForResponse(DCServerCommandChannel.GetResponseTimeoutMS());
+    }
+
+    /**
+    *** Send a command request to the command port for the specified server.<br>
+    *** If the persistent command channel is enabled, this method returns without waiting
+    *** for the response.  Otherwise the returned PendingCommand is already complete.
+    **/
+    private static DCServerCommandChannel.PendingCommand _queueServerCommand(
+        String serverName,
+        Device device,
+        String cmdType, String cmdName, String cmdArgs[])
+    {
 
         /* blank account/device */
         if ((device == null) && 
             !cmdType.equalsIgnoreCase(DCServerConfig.COMMAND_INTERNAL)) {
             Print.logError("Device is null");
-            return null;
+            return DCServerCommandChannel.CompletedCommand(null, null);
         }
         String accountID = (device != null)? device.getAccountID() : "";
         String deviceID  = (device != null)? device.getDeviceID()  : "";
@@ -2021,15 +2038,13 @@ public class DCServerFactory
         DCServerConfig dcs = DCServerFactory.getServerConfig(serverName);
         if (dcs == null) {
             Print.logError("DCServerConfig not found: %s", serverName);
-            return null;
+            return DCServerCommandChannel.CompletedCommand(null, null);
         }
 
         /* command */
         RTProperties rtCmd = DCServerFactory.createRTProperties(
             accountID, deviceID, uniqueID, 
             cmdType, cmdName, cmdArgs);
-        String   cmdStr    = rtCmd.toString();
-        byte     cmdData[] = (cmdStr + "\n").getBytes();
 
         /* get command dispatch host:port */
         String cmdHost = dcs.getCommandDispatcherHost(device);
@@ -2040,20 +2055,28 @@ public class DCServerFactory
             DCServerConfig.Command command = dcs.getCommand(cmdName);
             if (command == null) {
                 Print.logError("[%s] Command not supported: %s", serverName, cmdName);
-                return null;
+                return DCServerCommandChannel.CompletedCommand(rtCmd, null);
             } else
             if (!command.isCommandProtocolSMS()) {
                 Print.logError("[%s] Command port not supported", serverName);
-                return null;
+                return DCServerCommandChannel.CompletedCommand(rtCmd, null);
             }
             // send command via SMS (SmsOutboudGatweay)
             String commandStr = command.getCommandString(device, cmdArgs);
             String protoHndlr = command.getCommandProtocolHandler();
             DCServerFactory.ResultCode result = DCServerFactory._SendSMSCommand(protoHndlr, device, commandStr);
             CommandPacketHandler.setResult(rtCmd,result);
-            return rtCmd;
+            return DCServerCommandChannel.CompletedCommand(rtCmd, rtCmd);
         }
 
+        /* send via persistent command channel */
+        if (DCServerCommandChannel.IsEnabled()) {
+            Print.logInfo("[%s] Sending command to '%s:%d' (channel) ==> %s", serverName, cmdHost, cmdPort, rtCmd);
+            return DCServerCommandChannel.GetChannel(cmdHost, cmdPort).send(rtCmd);
+        }
+        String   cmdStr    = rtCmd.toString();
+        byte     cmdData[] = (cmdStr + "\n").getBytes();
+
         /* send */
         Print.logInfo("[%s] Sending command to '%s:%d' ==> %s", serverName, cmdHost, cmdPort, cmdStr);
         RTProperties response = null;
@@ -2073,24 +2096,23 @@ public class DCServerFactory
         }
         
         /* return response */
-        return response;
+        return DCServerCommandChannel.CompletedCommand(rtCmd, response);
 
     }
-    
+
     /**
-    *** Send a command request to the server command port for the specified Device
+    *** Validate the specified Device, and send the command request to the server command port
     **/
-    public static RTProperties sendServerCommand(
+    private static DCServerCommandChannel.PendingCommand _queueDeviceCommand(
+        String dcsCtx,
         Device device,
         String cmdType, String cmdName, String cmdArgs[])
     {
-        boolean isDCS = DCServerFactory.__isRunningDCS();
-        String dcsCtx = isDCS? "(DCS Context) " : "(UI Context) ";
 
         /* quick checks */
         if (device == null) {
             Print.logWarn(dcsCtx + "Device is null");
-            return null;
+            return DCServerCommandChannel.CompletedCommand(null, null);
         } 
         String acctID = device.getAccountID();
         String devID  = device.getDeviceID();
@@ -2106,7 +2128,7 @@ public class DCServerFactory
                 cmdType, cmdName, cmdArgs);
             resp.setString(DCServerFactory.RESPONSE_RESULT , result.getCode() );
             resp.setString(DCServerFactory.RESPONSE_MESSAGE, result.toString());
-            return resp;
+            return DCServerCommandChannel.CompletedCommand(resp, resp);
         }
 
         /* Account/Device: exceeds max 'ping' */
@@ -2118,23 +2140,81 @@ public class DCServerFactory
                 cmdType, cmdName, cmdArgs);
             resp.setString(DCServerFactory.RESPONSE_RESULT , result.getCode() );
             resp.setString(DCServerFactory.RESPONSE_MESSAGE, result.toString());
-            return resp;
+            return DCServerCommandChannel.CompletedCommand(resp, resp);
         }
 
         /* send command */
-        RTProperties resp = DCServerFactory._sendServerCommand(server, device, cmdType, cmdName, cmdArgs);
+        return DCServerFactory._queueServerCommand(server, device, cmdType, cmdName, cmdArgs);
+
+    }
+
+    /**
+    *** Increment the ping count of the specified Devices, and audit the sent command.<br>
+    *** The Account ping count is updated, and the command is audited, once per Account.
+    **/
+    private static void _recordDeviceCommands(
+        String dcsCtx,
+        java.util.List<Device> devices,
+        String cmdName, String cmdArgs[])
+    {
+        if (ListTools.isEmpty(devices)) {
+            return;
+        }
+        long   nowSec = DateTime.getCurrentTimeSec();
+        String userID = RTConfig.getString(RTKey.SESSION_USER     ,"");
+        String ipAddr = RTConfig.getString(RTKey.SESSION_IPADDRESS,"");
+        String cmdStr = "Command: " + cmdName;
+        if (!ListTools.isEmpty(cmdArgs)) { cmdStr += "(" + StringTools.join(cmdArgs,",") + ")"; }
+
+        /* increment Device ping counts (grouped by Account) */
+        Print.logInfo(dcsCtx + "Incrementing Device PingCount [" + devices.size() + "] ...");
+        OrderedMap<String,java.util.List<Device>> acctDevMap = new OrderedMap<String,java.util.List<Device>>();
+        for (Device device : devices) {
+            device.incrementPingCount(nowSec, true/*reload*/, true/*update*/, false/*account*/); // Server delegate
+            java.util.List<Device> acctDevs = acctDevMap.get(device.getAccountID());
+            if (acctDevs == null) {
+                acctDevs = new Vector<Device>();
+                acctDevMap.put(device.getAccountID(), acctDevs);
+            }
+            acctDevs.add(device);
+        }
+
+        /* increment Account ping counts, and audit */
+        for (String acctID : acctDevMap.keySet()) {
+            java.util.List<Device> acctDevs = acctDevMap.get(acctID);
+            Account account = acctDevs.get(0).getAccount();
+            if (account != null) {
+                account.incrementPingCount(acctDevs.size(), nowSec, true/*reload*/, true/*update*/);
+            }
+            java.util.List<String> devIDs = new Vector<String>();
+            for (Device device : acctDevs) {
+                devIDs.add(device.getDeviceID());
+            }
+            Audit.deviceCommands(acctID, userID, devIDs, ipAddr, cmdStr);
+        }
+
+    }
+
+    /**
+    *** Send a command request to the server command port for the specified Device
+    **/
+    public static RTProperties sendServerCommand(
+        Device device,
+        String cmdType, String cmdName, String cmdArgs[])
+    {
+        boolean isDCS = DCServerFactory.__isRunningDCS();
+        String dcsCtx = isDCS? "(DCS Context) " : "(UI Context) ";
+
+        /* send command */
+        DCServerCommandChannel.PendingCommand pc = DCServerFactory._queueDeviceCommand(
+            dcsCtx, device, cmdType, cmdName, cmdArgs);
+        RTProperties resp = pc.waitForResponse(DCServerCommandChannel.GetResponseTimeoutMS());
 
         /* increment ping count */
         if ((device != null) && DCServerFactory.isCommandResultOK(resp)) {
-            Print.logInfo(dcsCtx + "Incrementing Device PingCount ...");
-            device.incrementPingCount(DateTime.getCurrentTimeSec(), true/*reload*/, true/*update*/); // Server delegate
-          //String acctID = RTConfig.getString(RTKey.SESSION_ACCOUNT  ,device.getAccountID());
-            String userID = RTConfig.getString(RTKey.SESSION_USER     ,"");
-          //String devID  = device.getDeviceID();
-            String ipAddr = RTConfig.getString(RTKey.SESSION_IPADDRESS,"");
-            String cmdStr = "Command: " + cmdName;
-            if (!ListTools.isEmpty(cmdArgs)) { cmdStr += "(" + StringTools.join(cmdArgs,",") + ")"; }
-            Audit.deviceCommand(acctID, userID, devID, ipAddr, cmdStr);
+            java.util.List<Device> devList = new Vector<Device>();
+            devList.add(device);
+            DCServerFactory._recordDeviceCommands(dcsCtx, devList, cmdName, cmdArgs);
         } else {
             Print.logInfo(dcsCtx + "Response: " + resp);
         }
@@ -2144,6 +2224,60 @@ public class DCServerFactory
 
     }
 
+    /**
+    *** Send a command request to the server command port for each of the specified Devices.<br>
+    *** When the persistent command channel is enabled, all commands are sent before waiting
+    *** for any response.  The ping counts are updated, and the commands are audited, once
+    *** per Account for all successful commands.
+    *** @param devices  The list of Devices to which the command is sent
+    *** @param cmdType  The command type
+    *** @param cmdName  The command name
+    *** @param cmdArgs  The command arguments
+    *** @return The list of command responses, in the same order as the specified Devices
+    ***         (an entry will be null if the command could not be sent)
+    **/
+    public static java.util.List<RTProperties> sendServerCommands(
+        java.util.List<Device> devices,
+        String cmdType, String cmdName, String cmdArgs[])
+    {
+        boolean isDCS = DCServerFactory.__isRunningDCS();
+        String dcsCtx = isDCS? "(DCS Context) " : "(UI Context) ";
+        java.util.List<RTProperties> respList = new Vector<RTProperties>();
+
+        /* nothing to send? */
+        if (ListTools.isEmpty(devices)) {
+            return respList;
+        }
+
+        /* send commands */
+        java.util.List<DCServerCommandChannel.PendingCommand> pcList = 
+            new Vector<DCServerCommandChannel.PendingCommand>();
+        for (Device device : devices) {
+            pcList.add(DCServerFactory._queueDeviceCommand(dcsCtx, device, cmdType, cmdName, cmdArgs));
+        }
+
+        /* wait for responses */
+        long untilMS = DateTime.getCurrentTimeMillis() + DCServerCommandChannel.GetResponseTimeoutMS();
+        java.util.List<Device> okDevices = new Vector<Device>();
+        for (int i = 0; i < pcList.size(); i++) {
+            long waitMS = Math.max(untilMS - DateTime.getCurrentTimeMillis(), 1L);
+            RTProperties resp = pcList.get(i).waitForResponse(waitMS);
+            respList.add(resp);
+            Device device = devices.get(i);
+            if ((device != null) && DCServerFactory.isCommandResultOK(resp)) {
+                okDevices.add(device);
+            }
+        }
+        Print.logInfo(dcsCtx + "Commands sent: " + okDevices.size() + " of " + devices.size());
+
+        /* increment ping counts */
+        DCServerFactory._recordDeviceCommands(dcsCtx, okDevices, cmdName, cmdArgs);
+
+        /* return responses */
+        return respList;
+
+    }
+
     /* create result RTProperties */
     public static RTProperties createRTProperties(
         String accountID, String deviceID, String uniqueID,
@@ -2626,6 +2760,8 @@ public class DCServerFactory
     public static final String  CFG_udpIdleTimeoutMS            = ".udpIdleTimeoutMS";           // long
     public static final String  CFG_udpPacketTimeoutMS          = ".udpPacketTimeoutMS";         // long
     public static final String  CFG_udpSessionTimeoutMS         = ".udpSessionTimeoutMS";        // long
+    public static final String  CFG_commandIdleTimeoutMS        = ".commandIdleTimeoutMS";       // long
+    public static final String  CFG_commandSessionTimeoutMS     = ".commandSessionTimeoutMS";    // long
     public static final String  CFG_minimumSpeedKPH             = ".minimumSpeedKPH";            // double
     public static final String  CFG_estimateOdometer            = ".estimateOdometer";           // boolean
     public static final String  CFG_ignoreDeviceOdometer        = ".ignoreDeviceOdometer";       // boolean
@@ -2895,6 +3031,32 @@ public class DCServerFactory
 
     // --------------------------------
 
+    /**
+    *** Return an array of "Command idle timeout" property names
+    *** @param name  The server name
+    *** @return An array of "Command idle timeout" property names
+    **/
+    public static String[] CONFIG_commandIdleTimeoutMS(String name)
+    {
+        return new String[] { 
+            PROP_DCServer_ + name + CFG_commandIdleTimeoutMS
+        };  // int
+    }
+
+    /**
+    *** Return an array of "Command session timeout" property names
+    *** @param name  The server name
+    *** @return An array of "Command session timeout" property names
+    **/
+    public static String[] CONFIG_commandSessionTimeoutMS(String name)
+    {
+        return new String[] { 
+            PROP_DCServer_ + name + CFG_commandSessionTimeoutMS
+        };  // int
+    }
+
+    // --------------------------------
+
     /**
     *** Return an array of UniquID prefix property names
     *** @param name  The server name
@@ -0,0 +1,574 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+import java.util.zip.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+
+import org.opengts.db.tables.*;
+
+/**
+*** <code>EventBatchIngest</code> parses a batch of buffered GPS records sent by a single
+*** Device (ie. points stored by a phone application or gateway while offline), and inserts
+*** them into the EventData table.<br>
+*** The batch may be gzip compressed, and may contain either:
+*** <ul>
+*** <li>A JSON array of objects, with fields "ts", "code", "lat", "lon", "speed", "head",
+***     "alt", "odom", "sats" (or "gprmc" containing an NMEA-0183 sentence)</li>
+*** <li>One record per line, either an NMEA-0183 $GPRMC/$GPGGA sentence, or CSV
+***     "timestamp,statusCode,latitude,longitude[,speedKPH[,heading[,altitudeM[,odometerKM]]]]"</li>
+*** </ul>
+*** Records are de-duplicated by (timestamp, statusCode) against both the batch itself and the
+*** existing EventData records, so a batch may be safely re-submitted.  Location records are
+*** inserted using batched JDBC inserts (see <code>EventImportBatch</code>), other status codes
+*** are inserted through "Device.insertEventData" so that rules are still evaluated.
+**/
+
+public class EventBatchIngest
+{
+
+    // ------------------------------------------------------------------------
+
+    public  static final int    DFT_MAX_RECORDS         = 5000;
+    public  static final int    DFT_MAX_BYTES           = 8 * 1024 * 1024;
+
+    /* per-record status */
+    public  static final String STATUS_OK               = "OK";
+    public  static final String STATUS_DUPLICATE        = "DUP";
+    public  static final String STATUS_IGNORED          = "IGNORED";
+    public  static final String STATUS_ERROR            = "ERROR";
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** StatusCodeTranslator interface (translates device status codes)
+    **/
+    public interface StatusCodeTranslator
+    {
+        public int translateStatusCode(String code);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Reads the batch content from the specified InputStream, decompressing the content if
+    *** it is gzip compressed (the gzip header is checked, regardless of "Content-Encoding")
+    *** @param input     The InputStream
+    *** @param maxBytes  The maximum number of (uncompressed) bytes read
+    *** @return The batch content
+    **/
+    public static String ReadBatch(InputStream input, int maxBytes)
+        throws IOException
+    {
+        if (input == null) {
+            return "";
+        }
+        BufferedInputStream bis = new BufferedInputStream(input);
+        bis.mark(2);
+        int b0 = bis.read();
+        int b1 = bis.read();
+        bis.reset();
+        InputStream is = ((b0 == 0x1F) && (b1 == 0x8B))? new GZIPInputStream(bis) : bis;
+        int max = (maxBytes > 0)? maxBytes : DFT_MAX_BYTES;
+        byte data[] = FileTools.readStream(is, max + 1);
+        if (data.length > max) {
+            throw new IOException("Batch exceeds maximum size: " + max);
+        }
+        return StringTools.toStringValue(data);
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Record: a single parsed batch record and its insertion status
+    **/
+    public static class Record
+    {
+        private int     index       = 0;
+        private long    timestamp   = 0L;
+        private int     statusCode  = StatusCodes.STATUS_LOCATION;
+        private boolean validGPS    = false;
+        private double  latitude    = 0.0;
+        private double  longitude   = 0.0;
+        private double  speedKPH    = 0.0;
+        private double  heading     = 0.0;
+        private double  altitudeM   = 0.0;
+        private double  odometerKM  = 0.0;
+        private int     numSats     = 0;
+        private String  status      = null;
+        private String  message     = null;
+        private Record(int index) {
+            this.index = index;
+        }
+        public int getIndex() {
+            return this.index;
+        }
+        public long getTimestamp() {
+            return this.timestamp;
+        }
+        public int getStatusCode() {
+            return this.statusCode;
+        }
+        public String getStatus() {
+            return this.status;
+        }
+        public String getMessage() {
+            return this.message;
+        }
+        private void setStatus(String status, String msg) {
+            this.status  = status;
+            this.message = msg;
+        }
+        private String getKey() {
+            return this.timestamp + "/" + this.statusCode; // see EventData.getExistingEventKeys
+        }
+        public String toString() {
+            // -- "index,status[,message]"
+            StringBuffer sb = new StringBuffer();
+            sb.append(this.index).append(",").append(this.status);
+            if (!StringTools.isBlank(this.message)) {
+                sb.append(",").append(this.message);
+            }
+            return sb.toString();
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private Device                          device          = null;
+    private StatusCodeTranslator            scTranslator    = null;
+    private int                             maxRecords      = DFT_MAX_RECORDS;
+    private double                          minSpeedKPH     = 0.0;
+    private boolean                         estimateOdom    = false;
+
+    private java.util.List<Record>          records         = new Vector<Record>();
+    private int                             insertCount     = 0;
+    private int                             dupCount        = 0;
+    private int                             errorCount      = 0;
+
+    /**
+    *** Constructor
+    *** @param device  The Device to which the batch records belong
+    **/
+    public EventBatchIngest(Device device)
+    {
+        this.device = device;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Sets the status code translator (the default parses status code names and numbers)
+    **/
+    public void setStatusCodeTranslator(StatusCodeTranslator sct)
+    {
+        this.scTranslator = sct;
+    }
+
+    /**
+    *** Sets the maximum number of records accepted per batch
+    **/
+    public void setMaximumRecords(int max)
+    {
+        this.maxRecords = (max > 0)? max : DFT_MAX_RECORDS;
+    }
+
+    /**
+    *** Sets the minimum speed (speeds below this value are set to zero)
+    **/
+    public void setMinimumSpeedKPH(double kph)
+    {
+        this.minSpeedKPH = kph;
+    }
+
+    /**
+    *** Sets whether the odometer should be estimated for records which do not specify one
+    **/
+    public void setEstimateOdometer(boolean estOdom)
+    {
+        this.estimateOdom = estOdom;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Translates the specified status code
+    **/
+    private int _translateStatusCode(String code)
+    {
+        if (StringTools.isBlank(code)) {
+            return StatusCodes.STATUS_LOCATION;
+        } else
+        if (this.scTranslator != null) {
+            return this.scTranslator.translateStatusCode(code);
+        } else {
+            return StatusCodes.ParseCode(code, null, StatusCodes.STATUS_LOCATION);
+        }
+    }
+
+    /**
+    *** Sets the record location from the specified NMEA-0183 sentence
+    **/
+    private boolean _parseNmea(Record r, String nmea)
+    {
+        String s = nmea.trim().toUpperCase();
+        if (!s.startsWith("$")) {
+            s = "$" + s;
+        }
+        if (!s.startsWith("$GPRMC") && !s.startsWith("$GPGGA")) {
+            return false;
+        }
+        boolean ignoreChecksum = (s.indexOf("*") < 0);
+        Nmea0183 gprmc = new Nmea0183(s, ignoreChecksum);
+        r.timestamp = gprmc.getFixtime();
+        r.validGPS  = gprmc.isValidGPS();
+        if (r.validGPS) {
+            r.latitude  = gprmc.getLatitude();
+            r.longitude = gprmc.getLongitude();
+            r.speedKPH  = gprmc.getSpeedKPH();
+            r.heading   = gprmc.getHeading();
+            r.numSats   = gprmc.getNumberOfSatellites();
+            r.altitudeM = gprmc.getAltitudeMeters();
+        }
+        return true;
+    }
+
+    /**
+    *** Parses the batch content
+    *** @param batch  The batch content (JSON array, or NMEA/CSV lines)
+    *** @return The number of records parsed
+    **/
+    public int parse(String batch)
+    {
+        String b = StringTools.trim(batch);
+        if (b.startsWith("[")) {
+            this._parseJSON(b);
+        } else {
+            this._parseLines(b);
+        }
+        return this.records.size();
+    }
+
+    /**
+    *** Parses a JSON array of records
+    **/
+    private void _parseJSON(String batch)
+    {
+        JSON._Array array;
+        try {
+            array = JSON.parse_Array(batch);
+        } catch (JSON.JSONParsingException jpe) {
+            Print.logError("Invalid JSON batch: " + jpe.getMessage());
+            Record r = new Record(0);
+            r.setStatus(STATUS_ERROR, "json");
+            this.records.add(r);
+            return;
+        }
+        for (int i = 0; i < array.size(); i++) {
+            Record r = new Record(i);
+            this.records.add(r);
+            if (i >= this.maxRecords) {
+                r.setStatus(STATUS_ERROR, "limit");
+                continue;
+            }
+            JSON._Object obj = array.getObjectValueAt(i, null);
+            if (obj == null) {
+                r.setStatus(STATUS_ERROR, "format");
+                continue;
+            }
+            r.statusCode = this._translateStatusCode(obj.getStringForName(new String[] { "code", "sc" }, null));
+            String nmea  = obj.getStringForName(new String[] { "gprmc", "nmea" }, null);
+            if (!StringTools.isBlank(nmea)) {
+                if (!this._parseNmea(r, nmea)) {
+                    r.setStatus(STATUS_ERROR, "nmea");
+                    continue;
+                }
+            } else {
+                r.timestamp  = obj.getLongForName(  new String[] { "ts", "timestamp", "time" }, 0L);
+                r.latitude   = obj.getDoubleForName(new String[] { "lat", "latitude"  }, 0.0);
+                r.longitude  = obj.getDoubleForName(new String[] { "lon", "longitude" }, 0.0);
+                r.speedKPH   = obj.getDoubleForName(new String[] { "speed", "kph"     }, 0.0);
+                r.heading    = obj.getDoubleForName(new String[] { "head", "heading"  }, 0.0);
+                r.altitudeM  = obj.getDoubleForName(new String[] { "alt", "altitude"  }, 0.0);
+                r.numSats    = obj.getIntForName(   new String[] { "sats", "numsats"  }, 0);
+                r.validGPS   = GeoPoint.isValid(r.latitude, r.longitude);
+            }
+            r.odometerKM = obj.getDoubleForName(new String[] { "odom", "odometer" }, 0.0);
+        }
+    }
+
+    /**
+    *** Parses NMEA/CSV lines
+    **/
+    private void _parseLines(String batch)
+    {
+        String lines[] = StringTools.split(batch, '\n');
+        int ndx = 0;
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.equals("") || line.startsWith("#")) {
+                continue;
+            }
+            Record r = new Record(ndx++);
+            this.records.add(r);
+            if (r.getIndex() >= this.maxRecords) {
+                r.setStatus(STATUS_ERROR, "limit");
+                continue;
+            }
+            if (line.startsWith("$") || line.toUpperCase().startsWith("GP")) {
+                // -- NMEA-0183
+                if (!this._parseNmea(r, line)) {
+                    r.setStatus(STATUS_ERROR, "nmea");
+                }
+                continue;
+            }
+            // -- timestamp,statusCode,latitude,longitude[,speedKPH[,heading[,altitudeM[,odometerKM]]]]
+            String f[] = StringTools.split(line, ',');
+            if ((f.length < 4) || !StringTools.isLong(f[0],true)) {
+                r.setStatus(STATUS_ERROR, "format");
+                continue;
+            }
+            r.timestamp  = StringTools.parseLong(f[0], 0L);
+            r.statusCode = this._translateStatusCode(f[1]);
+            r.latitude   = StringTools.parseDouble(f[2], 0.0);
+            r.longitude  = StringTools.parseDouble(f[3], 0.0);
+            r.speedKPH   = (f.length > 4)? StringTools.parseDouble(f[4], 0.0) : 0.0;
+            r.heading    = (f.length > 5)? StringTools.parseDouble(f[5], 0.0) : 0.0;
+            r.altitudeM  = (f.length > 6)? StringTools.parseDouble(f[6], 0.0) : 0.0;
+            r.odometerKM = (f.length > 7)? StringTools.parseDouble(f[7], 0.0) : 0.0;
+            r.validGPS   = GeoPoint.isValid(r.latitude, r.longitude);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Inserts the parsed records which do not already exist
+    *** @return The number of records inserted
+    **/
+    public int insert()
+    {
+        if (this.device == null) {
+            return 0;
+        }
+        String acctID = this.device.getAccountID();
+        String devID  = this.device.getDeviceID();
+        long   maxTS  = DateTime.getCurrentTimeSec() + DateTime.DaySeconds(1);
+
+        /* validate, and collect the time range */
+        java.util.List<Record> pending = new Vector<Record>();
+        long minTime = -1L, maxTime = -1L;
+        for (Record r : this.records) {
+            if (r.getStatus() != null) {
+                continue; // parse error
+            } else
+            if ((r.timestamp <= 0L) || (r.timestamp > maxTS)) {
+                r.setStatus(STATUS_ERROR, "timestamp");
+                continue;
+            } else
+            if (!r.validGPS && (r.statusCode == StatusCodes.STATUS_LOCATION)) {
+                // -- same as a single request: ignore invalid simple location events
+                r.setStatus(STATUS_IGNORED, "gps");
+                continue;
+            }
+            pending.add(r);
+            if ((minTime < 0L) || (r.timestamp < minTime)) { minTime = r.timestamp; }
+            if ((maxTime < 0L) || (r.timestamp > maxTime)) { maxTime = r.timestamp; }
+        }
+        if (pending.isEmpty()) {
+            this._countStatus();
+            return 0;
+        }
+
+        /* existing events (idempotent re-submission) */
+        Set<String> existing;
+        try {
+            existing = EventData.getExistingEventKeys(acctID, devID, minTime, maxTime);
+        } catch (DBException dbe) {
+            Print.logException("Unable to read existing events: " + acctID + "/" + devID, dbe);
+            for (Record r : pending) {
+                r.setStatus(STATUS_ERROR, "db");
+            }
+            this._countStatus();
+            return 0;
+        }
+
+        /* insert in timestamp order */
+        Collections.sort(pending, new Comparator<Record>() {
+            public int compare(Record r1, Record r2) {
+                return (r1.timestamp < r2.timestamp)? -1 : ((r1.timestamp > r2.timestamp)? 1 : 0);
+            }
+        });
+        EventImportBatch batch = new EventImportBatch(this.device, -1);
+        java.util.List<Record>    batched   = new Vector<Record>();
+        java.util.List<EventData> batchedEv = new Vector<EventData>();
+        for (Record r : pending) {
+            String key = r.getKey();
+            if (existing.contains(key)) {
+                r.setStatus(STATUS_DUPLICATE, null);
+                continue;
+            }
+            existing.add(key);
+            EventData ev = this._createEvent(r);
+            if (StatusCodes.IsDiscardable(r.statusCode)) {
+                // -- location/motion record: batched insert
+                if (batch.addEvent(ev)) {
+                    r.setStatus(STATUS_OK, null);
+                    batched.add(r);
+                    batchedEv.add(ev);
+                } else {
+                    r.setStatus(STATUS_ERROR, "insert");
+                }
+            } else {
+                // -- alarm/status record: insert through the Device so rules are checked
+                batch.flush();
+                if (!this.device.insertEventData(ev)) {
+                    r.setStatus(STATUS_ERROR, "insert");
+                } else
+                if (ev.getIsDuplicateEvent()) {
+                    r.setStatus(STATUS_DUPLICATE, null);
+                } else {
+                    r.setStatus(STATUS_OK, null);
+                }
+            }
+        }
+        batch.flush();
+        if (batch.getErrorCount() > 0L) {
+            // -- failed batches are retried one event at a time, mark only the events which failed
+            Print.logWarn("Batched insert errors: " + acctID + "/" + devID + " " + batch.getProgress());
+            Set<EventData> failed = Collections.newSetFromMap(new IdentityHashMap<EventData,Boolean>());
+            failed.addAll(batch.getFailedEvents());
+            for (int i = 0; i < batched.size(); i++) {
+                if (failed.contains(batchedEv.get(i))) {
+                    batched.get(i).setStatus(STATUS_ERROR, "insert");
+                }
+            }
+        }
+
+        /* update device */
+        try {
+            this.device.updateChangedEventFields();
+        } catch (DBException dbe) {
+            Print.logException("Unable to update Device: " + acctID + "/" + devID, dbe);
+        }
+
+        this._countStatus();
+        return this.insertCount;
+    }
+
+    /**
+    *** Creates the EventData record for the specified batch record
+    **/
+    private EventData _createEvent(Record r)
+    {
+        Device dev = this.device;
+        double speedKPH = (!r.validGPS || (r.speedKPH < this.minSpeedKPH))? 0.0 : r.speedKPH;
+        double heading  = ((speedKPH <= 0.0) || (r.heading < 0.0))? 0.0 : r.heading;
+        double odomKM;
+        if (r.odometerKM <= 0.0) {
+            odomKM = (this.estimateOdom && r.validGPS)?
+                dev.getNextOdometerKM(new GeoPoint(r.latitude,r.longitude)) :
+                dev.getLastOdometerKM();
+        } else {
+            odomKM = dev.adjustOdometerKM(r.odometerKM);
+        }
+        EventData.Key evKey = new EventData.Key(dev.getAccountID(), dev.getDeviceID(), r.timestamp, r.statusCode);
+        EventData ev = evKey.getDBRecord();
+        ev.setLatitude(r.validGPS? r.latitude : 0.0);
+        ev.setLongitude(r.validGPS? r.longitude : 0.0);
+        ev.setSpeedKPH(speedKPH);
+        ev.setHeading(heading);
+        ev.setAltitude(r.altitudeM);
+        ev.setOdometerKM(odomKM);
+        ev.setSatelliteCount(r.numSats);
+        return ev;
+    }
+
+    /**
+    *** Updates the inserted/duplicate/error counts
+    **/
+    private void _countStatus()
+    {
+        this.insertCount = 0;
+        this.dupCount    = 0;
+        this.errorCount  = 0;
+        for (Record r : this.records) {
+            String s = r.getStatus();
+            if (STATUS_OK.equals(s)) {
+                this.insertCount++;
+            } else
+            if (STATUS_DUPLICATE.equals(s)) {
+                this.dupCount++;
+            } else
+            if (STATUS_ERROR.equals(s)) {
+                this.errorCount++;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the parsed records (in batch order)
+    **/
+    public java.util.List<Record> getRecords()
+    {
+        return this.records;
+    }
+
+    /**
+    *** Gets the batch summary
+    *** @return The summary String
+    **/
+    public String getSummary()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append("records=").append(this.records.size());
+        sb.append(";inserted=").append(this.insertCount);
+        sb.append(";duplicates=").append(this.dupCount);
+        sb.append(";errors=").append(this.errorCount);
+        return sb.toString();
+    }
+
+    /**
+    *** Gets the per-record status response (a summary line, followed by one
+    *** "index,status[,message]" line per record)
+    *** @param okPrefix  The summary line prefix (ie. "OK")
+    *** @return The response String
+    **/
+    public String getResponse(String okPrefix)
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(StringTools.blankDefault(okPrefix,STATUS_OK)).append(":batch:").append(this.getSummary()).append("\n");
+        for (Record r : this.records) {
+            sb.append(r.toString()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    // ------------------------------------------------------------------------
+
+}
@@ -0,0 +1,422 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+
+import org.opengts.db.tables.*;
+
+/**
+*** <code>EventDataPurge</code> deletes old EventData records in small chunks, rather than
+*** with a single DELETE per device, so that the purge does not hold long table/row locks
+*** or flood the replication log while devices are inserting new events.<br>
+*** Each chunk deletes the oldest (at most) "EventDataPurge.chunkSize" events of a device,
+*** the overall delete rate is limited to "EventDataPurge.rowsPerSecond", and up to
+*** "EventDataPurge.maxConcurrency" devices are purged concurrently.  Completed devices, and
+*** the cutoff time used for each, are recorded in the "EventDataPurge.checkpointFile" (if
+*** specified), so that an interrupted purge may be resumed by running it again.  A device is
+*** skipped on resume if it was completed with a cutoff time at or after the current cutoff
+*** (ie. a purge with a relative cutoff, such as "-days=90", resumed on a later day).
+**/
+
+public class EventDataPurge
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final int    DFT_CHUNK_SIZE          = 1000;
+    private static final int    DFT_ROWS_PER_SECOND     = 5000;
+    private static final long   DFT_CHUNK_PAUSE_MS      = 100L;
+    private static final int    DFT_MAX_CONCURRENCY     = 2;
+    private static final long   PROGRESS_INTERVAL_MS    = 60L * 1000L;
+
+    // ------------------------------------------------------------------------
+
+    private long                oldTimeSec      = 0L;
+
+    private int                 chunkSize       = DFT_CHUNK_SIZE;
+    private int                 rowsPerSecond   = DFT_ROWS_PER_SECOND;
+    private long                chunkPauseMS    = DFT_CHUNK_PAUSE_MS;
+    private int                 maxConcurrency  = DFT_MAX_CONCURRENCY;
+    private File                checkpointFile  = null;
+
+    private Map<String,Long>    completed       = new HashMap<String,Long>(); // device => cutoff
+    private long                nextAllowedMS   = 0L;
+
+    private int                 devicesTotal    = 0;
+    private int                 devicesDone     = 0;
+    private int                 devicesSkipped  = 0;
+    private int                 devicesFailed   = 0;
+    private int                 devicesActive   = 0;
+    private long                rowsDeleted     = 0L;
+    private long                chunkCount      = 0L;
+    private long                startMS         = 0L;
+    private long                lastProgressMS  = 0L;
+
+    /**
+    *** Constructor
+    *** @param oldTimeSec  The time before which (exclusive) events will be deleted
+    **/
+    public EventDataPurge(long oldTimeSec)
+    {
+        this.oldTimeSec = oldTimeSec;
+        int  csz = RTConfig.getInt(DBConfig.PROP_EventDataPurge_chunkSize,DFT_CHUNK_SIZE);
+        int  rps = RTConfig.getInt(DBConfig.PROP_EventDataPurge_rowsPerSecond,DFT_ROWS_PER_SECOND);
+        long cpm = RTConfig.getLong(DBConfig.PROP_EventDataPurge_chunkPauseMS,DFT_CHUNK_PAUSE_MS);
+        int  mxc = RTConfig.getInt(DBConfig.PROP_EventDataPurge_maxConcurrency,DFT_MAX_CONCURRENCY);
+        String cpf = RTConfig.getString(DBConfig.PROP_EventDataPurge_checkpointFile,null);
+        this.chunkSize      = (csz > 0)? csz : DFT_CHUNK_SIZE;
+        this.rowsPerSecond  = (rps > 0)? rps : 0; // 0 = no limit
+        this.chunkPauseMS   = (cpm > 0L)? cpm : 0L;
+        this.maxConcurrency = (mxc > 0)? mxc : 1;
+        this.checkpointFile = !StringTools.isBlank(cpf)? new File(cpf) : null;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the time before which (exclusive) events will be deleted
+    **/
+    public long getOldTimeSec()
+    {
+        return this.oldTimeSec;
+    }
+
+    /**
+    *** Sets the maximum number of events deleted per chunk
+    **/
+    public void setChunkSize(int chunkSize)
+    {
+        this.chunkSize = (chunkSize > 0)? chunkSize : DFT_CHUNK_SIZE;
+    }
+
+    /**
+    *** Sets the target number of events deleted per second (0 for no limit)
+    **/
+    public void setRowsPerSecond(int rowsPerSecond)
+    {
+        this.rowsPerSecond = (rowsPerSecond > 0)? rowsPerSecond : 0;
+    }
+
+    /**
+    *** Sets the maximum number of devices purged concurrently
+    **/
+    public void setMaxConcurrency(int maxConcurrency)
+    {
+        this.maxConcurrency = (maxConcurrency > 0)? maxConcurrency : 1;
+    }
+
+    /**
+    *** Sets the checkpoint file (null for no checkpoint)
+    **/
+    public void setCheckpointFile(File file)
+    {
+        this.checkpointFile = file;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Deletes old events for all devices in the specified Accounts
+    *** @param acctIDs  The list of Account IDs
+    *** @return The number of events deleted
+    **/
+    public long purgeAccounts(Collection<String> acctIDs)
+        throws DBException
+    {
+
+        /* collect devices */
+        java.util.List<String[]> devList = new Vector<String[]>();
+        for (String acctID : acctIDs) {
+            if (StringTools.isBlank(acctID)) { continue; }
+            OrderedSet<String> devIDs = DeviceGroup.getDeviceIDsForGroup(acctID, DeviceGroup.DEVICE_GROUP_ALL, null, true/*inclInactv*/, -1L);
+            for (String devID : devIDs) {
+                devList.add(new String[] { acctID, devID });
+            }
+        }
+
+        /* resume from checkpoint */
+        this._loadCheckpoint();
+
+        /* init progress */
+        synchronized (this) {
+            this.devicesTotal   = devList.size();
+            this.startMS        = DateTime.getCurrentTimeMillis();
+            this.lastProgressMS = this.startMS;
+        }
+        Print.logInfo("Purging events prior to " + (new DateTime(this.oldTimeSec)) +
+            " for " + devList.size() + " devices [chunkSize=" + this.chunkSize +
+            ", rowsPerSecond=" + this.rowsPerSecond + ", maxConcurrency=" + this.maxConcurrency + "]");
+
+        /* purge devices */
+        ThreadPool purgePool = (this.maxConcurrency > 1)?
+            new ThreadPool("EventDataPurge", this.maxConcurrency, 5/*maxIdleSec*/, 0/*maxQueueSize*/) :
+            null;
+        for (final String ad[] : devList) {
+            String key = ad[0] + "/" + ad[1];
+            boolean done;
+            synchronized (this.completed) {
+                Long cpTime = this.completed.get(key);
+                done = (cpTime != null) && (cpTime.longValue() >= this.oldTimeSec);
+            }
+            if (done) {
+                synchronized (this) { this.devicesSkipped++; }
+                continue;
+            }
+            synchronized (this) { this.devicesActive++; }
+            Runnable job = new Runnable() {
+                public void run() {
+                    EventDataPurge.this._purgeDevice(ad[0], ad[1]);
+                }
+            };
+            if ((purgePool == null) || !purgePool.run(job)) {
+                job.run();
+            }
+        }
+
+        /* wait for completion */
+        synchronized (this) {
+            while (this.devicesActive > 0) {
+                try { this.wait(PROGRESS_INTERVAL_MS); } catch (InterruptedException ie) { break; }
+                this._checkLogProgress();
+            }
+        }
+        if (purgePool != null) {
+            purgePool.stopThreads();
+        }
+
+        /* done */
+        Print.logInfo("Purge complete: " + this.getProgress());
+        if ((this.getFailedCount() == 0) && (this.checkpointFile != null) && this.checkpointFile.exists()) {
+            // -- purge completed, checkpoint no longer needed
+            this.checkpointFile.delete();
+        }
+        return this.getRowsDeleted();
+
+    }
+
+    /**
+    *** Deletes old events for the specified device, one chunk at a time
+    **/
+    private void _purgeDevice(String acctID, String devID)
+    {
+        String key = acctID + "/" + devID;
+        boolean ok = false;
+        try {
+            Account account = Account.getAccount(acctID);
+            Device  device  = (account != null)? Device.getDevice(account, devID) : null;
+            if (device != null) {
+                StringBuffer msg = new StringBuffer();
+                long delTimeSec = EventData.getOldEventsDeleteTime(device, this.oldTimeSec, msg);
+                long devRows = 0L;
+                for (;;) {
+                    this._throttle(this.chunkSize);
+                    long rows = EventData.deleteOldEventsChunk(acctID, devID, delTimeSec, this.chunkSize);
+                    synchronized (this) {
+                        this.rowsDeleted += rows;
+                        if (rows > 0L) { this.chunkCount++; }
+                    }
+                    devRows += rows;
+                    if (rows < this.chunkSize) {
+                        break; // no events remain prior to 'delTimeSec'
+                    }
+                    if (this.chunkPauseMS > 0L) {
+                        try { Thread.sleep(this.chunkPauseMS); } catch (InterruptedException ie) { /* ignore */ }
+                    }
+                    this._checkLogProgress();
+                }
+                if (msg.length() > 0) { msg.append(", "); }
+                msg.append("Deleted ").append(devRows);
+                Print.logInfo("  Device: " + key + " [" + msg + "]");
+            } else {
+                Print.logWarn("  Device not found: " + key);
+            }
+            ok = true;
+        } catch (Throwable th) {
+            Print.logException("Error purging events for device: " + key, th);
+        }
+        if (ok) {
+            this._saveCheckpoint(key);
+        }
+        synchronized (this) {
+            if (ok) {
+                this.devicesDone++;
+            } else {
+                this.devicesFailed++;
+            }
+            this.devicesActive--;
+            this.notifyAll();
+        }
+    }
+
+    /**
+    *** Waits until the specified number of rows may be deleted within the rows/second limit
+    **/
+    private void _throttle(long rows)
+    {
+        if (this.rowsPerSecond <= 0) {
+            return;
+        }
+        long sleepMS;
+        synchronized (this) {
+            long nowMS = DateTime.getCurrentTimeMillis();
+            long runMS = Math.max(nowMS, this.nextAllowedMS);
+            this.nextAllowedMS = runMS + ((rows * 1000L) / this.rowsPerSecond);
+            sleepMS = runMS - nowMS;
+        }
+        if (sleepMS > 0L) {
+            try { Thread.sleep(sleepMS); } catch (InterruptedException ie) { /* ignore */ }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Loads the completed devices from the checkpoint file.  Each line contains a device
+    *** "account/device" key and the cutoff time with which that device was completed.  Devices
+    *** completed with a cutoff time prior to the current cutoff are purged again.
+    **/
+    private void _loadCheckpoint()
+    {
+        this.completed.clear();
+        if (this.checkpointFile == null) {
+            return;
+        }
+        if (this.checkpointFile.exists()) {
+            byte data[] = FileTools.readFile(this.checkpointFile);
+            String lines[] = StringTools.split(StringTools.toStringValue(data),'\n');
+            long fileTimeSec = -1L; // older checkpoint format: cutoff on first line
+            StringBuffer keep = new StringBuffer();
+            for (int i = 0; i < lines.length; i++) {
+                String line = lines[i].trim();
+                if (line.equals("")) {
+                    continue;
+                }
+                int p = line.lastIndexOf(',');
+                String key;
+                long cpTimeSec;
+                if (p > 0) {
+                    key       = line.substring(0,p).trim();
+                    cpTimeSec = StringTools.parseLong(line.substring(p+1).trim(),-1L);
+                } else
+                if ((i == 0) && StringTools.isLong(line,true)) {
+                    fileTimeSec = StringTools.parseLong(line,-1L);
+                    continue;
+                } else {
+                    key       = line;
+                    cpTimeSec = fileTimeSec;
+                }
+                if (cpTimeSec >= this.oldTimeSec) {
+                    // -- no events remain prior to the current cutoff
+                    this.completed.put(key, new Long(cpTimeSec));
+                    keep.append(key).append(",").append(cpTimeSec).append("\n");
+                }
+            }
+            if (!this.completed.isEmpty()) {
+                Print.logInfo("Resuming purge, devices already completed: " + this.completed.size());
+            } else {
+                Print.logWarn("Ignoring checkpoint for an earlier cutoff time: " + this.checkpointFile);
+            }
+            try {
+                FileTools.writeFile(keep.toString().getBytes(), this.checkpointFile, false);
+            } catch (IOException ioe) {
+                Print.logWarn("Unable to write checkpoint file: " + this.checkpointFile + " [" + ioe + "]");
+            }
+        }
+    }
+
+    /**
+    *** Records the specified device as completed (with the current cutoff time) in the
+    *** checkpoint file
+    **/
+    private void _saveCheckpoint(String key)
+    {
+        if (this.checkpointFile != null) {
+            synchronized (this.completed) {
+                this.completed.put(key, new Long(this.oldTimeSec));
+                try {
+                    String line = key + "," + this.oldTimeSec + "\n";
+                    FileTools.writeFile(line.getBytes(), this.checkpointFile, true);
+                } catch (IOException ioe) {
+                    Print.logWarn("Unable to update checkpoint file: " + this.checkpointFile + " [" + ioe + "]");
+                }
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the total number of events deleted
+    **/
+    public synchronized long getRowsDeleted()
+    {
+        return this.rowsDeleted;
+    }
+
+    /**
+    *** Gets the number of devices which failed
+    **/
+    public synchronized int getFailedCount()
+    {
+        return this.devicesFailed;
+    }
+
+    /**
+    *** Gets the purge progress
+    *** @return The progress String
+    **/
+    public synchronized String getProgress()
+    {
+        long elapsedMS = DateTime.getCurrentTimeMillis() - this.startMS;
+        long rowsPerSec = (elapsedMS > 0L)? ((this.rowsDeleted * 1000L) / elapsedMS) : 0L;
+        StringBuffer sb = new StringBuffer();
+        sb.append("devices=").append(this.devicesDone + this.devicesSkipped).append("/").append(this.devicesTotal);
+        sb.append(" skipped=").append(this.devicesSkipped);
+        sb.append(" failed=").append(this.devicesFailed);
+        sb.append(" rows=").append(this.rowsDeleted);
+        sb.append(" chunks=").append(this.chunkCount);
+        sb.append(" rowsPerSec=").append(rowsPerSec);
+        sb.append(" elapsedSec=").append(elapsedMS / 1000L);
+        return sb.toString();
+    }
+
+    /**
+    *** Logs the purge progress if the progress interval has elapsed
+    **/
+    private void _checkLogProgress()
+    {
+        long nowMS = DateTime.getCurrentTimeMillis();
+        synchronized (this) {
+            if ((nowMS - this.lastProgressMS) < PROGRESS_INTERVAL_MS) {
+                return;
+            }
+            this.lastProgressMS = nowMS;
+        }
+        Print.logInfo("Purge progress: " + this.getProgress());
+    }
+
+    // ------------------------------------------------------------------------
+
+}
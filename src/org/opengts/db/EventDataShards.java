@@ -0,0 +1,435 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+import java.sql.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+
+import org.opengts.db.tables.*;
+
+/**
+*** <code>EventDataShards</code> manages the monthly physical EventData tables used when
+*** the runtime property "EventData.timeShards" is enabled.<br>
+*** Each EventData record is stored in the table "EventData_YYYYMM" for the (GMT) month of
+*** its timestamp.  Shard tables are created on demand, with the same columns, primary key,
+*** and alternate indexes as the EventData table.  The base EventData table is still
+*** created, and is read as the oldest shard so that events inserted before sharding was
+*** enabled remain visible (and may still be updated or deleted in place).  New shard tables
+*** created by other processes are found when the cached list of shard tables is refreshed.
+*** Old events may then be removed by dropping whole shard tables
+*** (see "DropShardsBefore" and "GetDropShardsTime").
+**/
+
+public class EventDataShards
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final String SHARD_SEP           = "_";
+    private static final int    SHARD_SUFFIX_LEN    = 6; // YYYYMM
+    private static final long   REFRESH_INTERVAL_MS = 5L * 60L * 1000L; // shards created by other processes
+
+    // ------------------------------------------------------------------------
+
+    private static int          isEnabled           = -1;
+
+    /**
+    *** Returns true if EventData records are stored in monthly time-shard tables
+    **/
+    public static boolean IsEnabled()
+    {
+        if (EventDataShards.isEnabled < 0) {
+            EventDataShards.isEnabled = RTConfig.getBoolean(DBConfig.PROP_EventData_timeShards,false)? 1 : 0;
+        }
+        return (EventDataShards.isEnabled == 1);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the untranslated name of the shard table which holds events with the specified
+    *** timestamp
+    *** @param timestamp  The event timestamp (seconds)
+    *** @return The shard table name (ie. "EventData_201510")
+    **/
+    public static String GetShardName(long timestamp)
+    {
+        DateTime dt = new DateTime(timestamp, DateTime.GMT);
+        int yyyymm = (dt.getYear() * 100) + dt.getMonth1();
+        return EventData.TABLE_NAME() + SHARD_SEP + yyyymm;
+    }
+
+    /**
+    *** Gets the first timestamp (inclusive) held by the specified shard table
+    *** @param shardName  The untranslated shard table name
+    *** @return The shard start time, or 0 if the name is not a shard table name
+    **/
+    public static long GetShardStartTime(String shardName)
+    {
+        int yyyymm = EventDataShards._getShardSuffix(shardName);
+        if (yyyymm <= 0) {
+            return 0L;
+        }
+        return (new DateTime(DateTime.GMT, yyyymm / 100, yyyymm % 100, 1, 0, 0, 0)).getTimeSec();
+    }
+
+    /**
+    *** Gets the last timestamp (inclusive) held by the specified shard table
+    *** @param shardName  The untranslated shard table name
+    *** @return The shard end time, or 0 if the name is not a shard table name
+    **/
+    public static long GetShardEndTime(String shardName)
+    {
+        int yyyymm = EventDataShards._getShardSuffix(shardName);
+        if (yyyymm <= 0) {
+            return 0L;
+        }
+        int year   = yyyymm / 100;
+        int month1 = (yyyymm % 100) + 1;
+        if (month1 > 12) { year++; month1 = 1; }
+        return (new DateTime(DateTime.GMT, year, month1, 1, 0, 0, 0)).getTimeSec() - 1L;
+    }
+
+    /**
+    *** Gets the YYYYMM suffix of the specified shard table name
+    **/
+    private static int _getShardSuffix(String shardName)
+    {
+        String pfx = EventData.TABLE_NAME() + SHARD_SEP;
+        if ((shardName == null) || !StringTools.startsWithIgnoreCase(shardName,pfx)) {
+            return 0;
+        }
+        String sfx = shardName.substring(pfx.length());
+        if ((sfx.length() != SHARD_SUFFIX_LEN) || !StringTools.isNumeric(sfx)) {
+            return 0;
+        }
+        int yyyymm = StringTools.parseInt(sfx, 0);
+        int month1 = yyyymm % 100;
+        return ((month1 >= 1) && (month1 <= 12))? yyyymm : 0;
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static OrderedSet<String> existingShards    = null;
+    private static long               existingShardsMS  = 0L;
+
+    /**
+    *** Gets the cached set of existing shard tables, re-reading the list from the DB if
+    *** requested, or if it has not been read within the refresh interval (shard tables
+    *** may be created by another process, such as a DCS)
+    **/
+    private static OrderedSet<String> _getExistingShards(boolean refresh)
+        throws DBException
+    {
+        synchronized (EventDataShards.class) {
+            long nowMS = DateTime.getCurrentTimeMillis();
+            if (refresh || 
+                (EventDataShards.existingShards == null) || 
+                ((nowMS - EventDataShards.existingShardsMS) > REFRESH_INTERVAL_MS)) {
+                EventDataShards.existingShards   = EventDataShards._readShardTables();
+                EventDataShards.existingShardsMS = nowMS;
+            }
+            return EventDataShards.existingShards;
+        }
+    }
+
+    /**
+    *** Gets the list of existing shard tables, oldest first
+    *** @param refresh  True to re-read the list of tables from the DB
+    *** @return The list of untranslated shard table names
+    **/
+    public static java.util.List<String> GetExistingShards(boolean refresh)
+        throws DBException
+    {
+        synchronized (EventDataShards.class) {
+            return new Vector<String>(EventDataShards._getExistingShards(refresh));
+        }
+    }
+
+    /**
+    *** Returns true if the specified shard table exists.  The shard table is not created.
+    *** @param shardName  The untranslated shard table name
+    *** @return True if the shard table exists
+    **/
+    public static boolean ShardExists(String shardName)
+        throws DBException
+    {
+        synchronized (EventDataShards.class) {
+            return EventDataShards._getExistingShards(false).contains(shardName);
+        }
+    }
+
+    /**
+    *** Reads the list of shard tables from the DB metadata
+    **/
+    private static OrderedSet<String> _readShardTables()
+        throws DBException
+    {
+        // -- table names may be translated (prefix/case) by the DBProvider
+        String utableName = EventData.TABLE_NAME();
+        String xtablePfx  = DBProvider.translateTableName(utableName) + SHARD_SEP;
+        Vector<String> shards = new Vector<String>();
+        DBConnection dbc = null;
+        ResultSet     rs = null;
+        try {
+            dbc = DBConnection.getDefaultConnection();
+            DatabaseMetaData meta = dbc.getConnection().getMetaData();
+            rs = meta.getTables(null, null, "%", new String[] { "TABLE" });
+            while (rs.next()) {
+                String xtn = rs.getString("TABLE_NAME");
+                if ((xtn == null) || (xtn.length() != (xtablePfx.length() + SHARD_SUFFIX_LEN))) {
+                    continue;
+                } else
+                if (!StringTools.startsWithIgnoreCase(xtn,xtablePfx)) {
+                    continue;
+                }
+                String shard = utableName + SHARD_SEP + xtn.substring(xtablePfx.length());
+                if (EventDataShards._getShardSuffix(shard) > 0) {
+                    shards.add(shard);
+                }
+            }
+        } catch (SQLException sqe) {
+            throw new DBException("Reading EventData shard tables", sqe);
+        } finally {
+            if (rs != null) { try { rs.close(); } catch (Throwable t) {} }
+            DBConnection.release(dbc);
+        }
+        Collections.sort(shards); // YYYYMM suffix sorts oldest first
+        return new OrderedSet<String>(shards);
+    }
+
+    /**
+    *** Creates the specified shard table, if it does not already exist
+    *** @param shardName  The untranslated shard table name
+    **/
+    public static void EnsureShard(String shardName)
+        throws DBException
+    {
+        synchronized (EventDataShards.class) {
+            if (EventDataShards._getExistingShards(false).contains(shardName)) {
+                return;
+            }
+            DBFactory<EventData> fact = EventData.getFactory();
+            try {
+                Print.logInfo("Creating EventData shard table: " + shardName);
+                DBProvider.createTable(shardName,
+                    fact.getFields(), fact.getKeyFields(), fact.getKeyType(),
+                    fact.getAlternateIndexes());
+            } catch (SQLException sqe) {
+                // -- may have been created by another process
+                if (!EventDataShards._getExistingShards(true).contains(shardName)) {
+                    throw new DBException("Creating EventData shard table: " + shardName, sqe);
+                }
+                return;
+            }
+            // -- keep oldest first
+            Vector<String> shards = new Vector<String>(EventDataShards.existingShards);
+            shards.add(shardName);
+            Collections.sort(shards);
+            EventDataShards.existingShards = new OrderedSet<String>(shards);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the tables which may hold events within the specified time range, oldest first.
+    *** The base EventData table is always included (as the oldest table).
+    *** @param timeStart  The range start time (inclusive, <= 0 for no start)
+    *** @param timeEnd    The range end time (inclusive, <= 0 for no end)
+    *** @return The list of untranslated table names
+    **/
+    public static java.util.List<String> GetTablesForRange(long timeStart, long timeEnd)
+        throws DBException
+    {
+        java.util.List<String> tables = new Vector<String>();
+        tables.add(EventData.TABLE_NAME());
+        for (String shard : EventDataShards.GetExistingShards(false)) {
+            if ((timeStart > 0L) && (EventDataShards.GetShardEndTime(shard) < timeStart)) {
+                continue; // shard ends before range
+            } else
+            if ((timeEnd > 0L) && (EventDataShards.GetShardStartTime(shard) > timeEnd)) {
+                continue; // shard starts after range
+            }
+            tables.add(shard);
+        }
+        return tables;
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static final int            MAX_BASE_END_DEVICES    = 10000;
+    private static Map<String,Long>     baseEndTimes            = null;
+
+    /**
+    *** Gets the timestamp of the latest event in the base EventData table which matches the
+    *** specified where clause.  New events are inserted only into shard tables, so the base
+    *** table only holds the events inserted before time-shards were enabled.
+    *** @param where  The where clause ("WHERE ...", null/blank for all events)
+    *** @return The latest timestamp, or 0 if no base table events match
+    **/
+    public static long GetBaseTableEndTime(String where)
+        throws DBException
+    {
+        // -- SELECT MAX(timestamp) FROM EventData [WHERE ...]
+        StringBuffer sql = new StringBuffer();
+        sql.append("SELECT MAX(").append(EventData.FLD_timestamp).append(") FROM ");
+        sql.append(DBProvider.translateTableName(EventData.TABLE_NAME()));
+        if (!StringTools.isBlank(where)) {
+            sql.append(" ").append(where);
+        }
+        long endTime = 0L;
+        DBConnection dbc = null;
+        Statement   stmt = null;
+        ResultSet     rs = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(sql.toString());
+            rs   = stmt.getResultSet();
+            if (rs.next()) {
+                endTime = rs.getLong(1); // 0 if NULL
+            }
+        } catch (SQLException sqe) {
+            throw new DBException("Reading EventData base table end time", sqe);
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+        return endTime;
+    }
+
+    /**
+    *** Gets the timestamp of the latest event for the specified Device in the base EventData
+    *** table.  The value is cached per Device, since the base table does not receive new
+    *** events once time-shards are enabled (events deleted from the base table only make the
+    *** cached value a conservative upper bound).
+    *** @param acctID  The Account ID
+    *** @param devID   The Device ID
+    *** @return The latest timestamp, or 0 if the base table has no events for the Device
+    **/
+    public static long GetBaseTableEndTime(String acctID, String devID)
+        throws DBException
+    {
+        String devKey = acctID + "/" + devID;
+        synchronized (EventDataShards.class) {
+            if (EventDataShards.baseEndTimes == null) {
+                EventDataShards.baseEndTimes = new LinkedHashMap<String,Long>(16, 0.75F, true/*accessOrder*/) {
+                    protected boolean removeEldestEntry(Map.Entry<String,Long> eldest) {
+                        return (this.size() > MAX_BASE_END_DEVICES);
+                    }
+                };
+            }
+            Long endTime = EventDataShards.baseEndTimes.get(devKey);
+            if (endTime != null) {
+                return endTime.longValue();
+            }
+        }
+        DBWhere dwh = new DBWhere(EventData.getFactory());
+        long endTime = EventDataShards.GetBaseTableEndTime(dwh.WHERE(dwh.AND(
+            dwh.EQ(EventData.FLD_accountID, acctID),
+            dwh.EQ(EventData.FLD_deviceID , devID))));
+        synchronized (EventDataShards.class) {
+            EventDataShards.baseEndTimes.put(devKey, new Long(endTime));
+        }
+        return endTime;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets all EventData tables (the base table and all shard tables), oldest first
+    *** @return The list of untranslated table names
+    **/
+    public static java.util.List<String> GetAllTables()
+        throws DBException
+    {
+        return EventDataShards.GetTablesForRange(-1L, -1L);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the time before which shard tables may be dropped without removing any event
+    *** which "EventData.deleteOldEvents" would retain.  This is the earliest delete time
+    *** over all Devices of all Accounts, after adjusting the specified time for the Account
+    *** retained-event age, and for the last event of each Device (see
+    *** "EventData.getOldEventsDeleteTime").
+    *** @param oldTimeSec  The requested delete time
+    *** @return The time before which shard tables may be dropped
+    **/
+    public static long GetDropShardsTime(long oldTimeSec)
+        throws DBException
+    {
+        long dropTimeSec = oldTimeSec;
+        for (String acctID : Account.getAllAccounts()) {
+            Account account = Account.getAccount(acctID);
+            if (account == null) {
+                continue;
+            }
+            dropTimeSec = Math.min(dropTimeSec, account.adjustRetainedEventTime(oldTimeSec));
+            for (String devID : Device.getDeviceIDsForAccount(acctID, null, true)) {
+                Device device = Device.getDevice(account, devID);
+                if (device == null) {
+                    continue;
+                }
+                long delTimeSec = EventData.getOldEventsDeleteTime(device, oldTimeSec, null);
+                if (delTimeSec < dropTimeSec) {
+                    dropTimeSec = delTimeSec;
+                }
+            }
+        }
+        return dropTimeSec;
+    }
+
+    /**
+    *** Drops all shard tables which only hold events prior to the specified time.  This 
+    *** applies to all Accounts/Devices, and does not itself observe the Account retained-event
+    *** age, or retain the last event for each Device.  Callers should obtain the drop time
+    *** from "GetDropShardsTime".
+    *** @param oldTimeSec  The time before which (exclusive) shard tables will be dropped
+    *** @return The number of shard tables dropped
+    **/
+    public static int DropShardsBefore(long oldTimeSec)
+        throws DBException
+    {
+        int count = 0;
+        for (String shard : EventDataShards.GetExistingShards(true)) {
+            if (EventDataShards.GetShardEndTime(shard) >= oldTimeSec) {
+                break; // oldest first
+            }
+            try {
+                Print.logInfo("Dropping EventData shard table: " + shard);
+                DBProvider.dropTable(shard);
+                count++;
+            } catch (SQLException sqe) {
+                throw new DBException("Dropping EventData shard table: " + shard, sqe);
+            }
+        }
+        if (count > 0) {
+            EventDataShards.GetExistingShards(true);
+        }
+        return count;
+    }
+
+    // ------------------------------------------------------------------------
+
+}
@@ -0,0 +1,309 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+
+import org.opengts.db.tables.*;
+
+/**
+*** <code>EventDuplicateFilter</code> remembers the keys of the most recently inserted events
+*** for each Device, so that events retransmitted by a device (ie. history which was not
+*** acknowledged) can be detected without querying the EventData table.<br>
+*** An event key consists of the timestamp, status code, and the location rounded to about
+*** one meter.  Each Device has a fixed-size ring of recent keys ("Device.duplicateFilter.size"),
+*** which is populated from the latest EventData records the first time the Device is checked.
+*** When the number of Devices exceeds "Device.duplicateFilter.maxDevices", the least-recently
+*** used filters are removed.  A filter which is recreated after being removed is not reloaded
+*** from the EventData table (to avoid repeated reloads when the number of active Devices
+*** exceeds the maximum), and starts with only the keys of subsequently inserted events.
+*** Only exact key matches are reported as duplicates (no false positives).
+**/
+
+public class EventDuplicateFilter
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final int    DFT_RING_SIZE           = 64;
+    private static final int    DFT_MAX_DEVICES         = 5000;
+
+    private static final double LATLON_SCALE            = 100000.0; // ~1 meter
+
+    // ------------------------------------------------------------------------
+
+    private static int                              RingSize        = -1;
+    private static Map<String,EventDuplicateFilter> deviceFilters   = null;
+    private static Set<String>                      evictedDevices  = new HashSet<String>();
+
+    private static long                             TotalChecked    = 0L;
+    private static long                             TotalSuppressed = 0L;
+
+    /**
+    *** Gets the number of recent event keys remembered per Device (0 if disabled)
+    **/
+    public static int GetRingSize()
+    {
+        if (RingSize < 0) {
+            int rs = RTConfig.getInt(DBConfig.PROP_Device_duplicateFilter_size, DFT_RING_SIZE);
+            RingSize = (rs > 0)? rs : 0;
+        }
+        return RingSize;
+    }
+
+    /**
+    *** Returns true if in-memory duplicate event detection is enabled
+    **/
+    public static boolean IsEnabled()
+    {
+        return (EventDuplicateFilter.GetRingSize() > 0);
+    }
+
+    /**
+    *** Gets the duplicate filter for the specified Device, loading the latest event keys
+    *** if the filter does not yet exist (least-recently-used Device filters are removed once
+    *** the number of filters exceeds "Device.duplicateFilter.maxDevices", and are not
+    *** reloaded when recreated)
+    *** @param device  The Device
+    *** @return The filter, or null if disabled
+    **/
+    public static EventDuplicateFilter GetFilter(Device device)
+    {
+        if ((device == null) || !EventDuplicateFilter.IsEnabled()) {
+            return null;
+        }
+        String devKey = device.getAccountID() + "/" + device.getDeviceID();
+        EventDuplicateFilter filter;
+        synchronized (EventDuplicateFilter.class) {
+            if (EventDuplicateFilter.deviceFilters == null) {
+                int md = RTConfig.getInt(DBConfig.PROP_Device_duplicateFilter_maxDevices, DFT_MAX_DEVICES);
+                final int maxSize = (md > 0)? md : DFT_MAX_DEVICES;
+                EventDuplicateFilter.deviceFilters = new LinkedHashMap<String,EventDuplicateFilter>(16, 0.75F, true/*accessOrder*/) {
+                    protected boolean removeEldestEntry(Map.Entry<String,EventDuplicateFilter> eldest) {
+                        if (this.size() > maxSize) {
+                            EventDuplicateFilter.evictedDevices.add(eldest.getKey());
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+            }
+            filter = EventDuplicateFilter.deviceFilters.get(devKey);
+            if (filter == null) {
+                filter = new EventDuplicateFilter(devKey, EventDuplicateFilter.GetRingSize());
+                if (EventDuplicateFilter.evictedDevices.remove(devKey)) {
+                    // -- previously evicted: do not reload the latest events
+                    filter.loaded = true;
+                }
+                EventDuplicateFilter.deviceFilters.put(devKey, filter);
+            }
+        }
+        filter._load(device);
+        return filter;
+    }
+
+    /**
+    *** Removes the duplicate filter for the specified Device (ie. after its events are deleted)
+    **/
+    public static void RemoveFilter(String accountID, String deviceID)
+    {
+        synchronized (EventDuplicateFilter.class) {
+            if (EventDuplicateFilter.deviceFilters != null) {
+                EventDuplicateFilter.deviceFilters.remove(accountID + "/" + deviceID);
+            }
+            EventDuplicateFilter.evictedDevices.remove(accountID + "/" + deviceID);
+        }
+    }
+
+    /**
+    *** Gets the total number of events checked
+    **/
+    public static synchronized long GetCheckedCount()
+    {
+        return TotalChecked;
+    }
+
+    /**
+    *** Gets the total number of duplicate events suppressed
+    **/
+    public static synchronized long GetSuppressedCount()
+    {
+        return TotalSuppressed;
+    }
+
+    /**
+    *** Gets the duplicate filter statistics
+    *** @return The statistics String
+    **/
+    public static String GetStatistics()
+    {
+        int devCount, evictCount;
+        synchronized (EventDuplicateFilter.class) {
+            devCount   = (EventDuplicateFilter.deviceFilters != null)? EventDuplicateFilter.deviceFilters.size() : 0;
+            evictCount = EventDuplicateFilter.evictedDevices.size();
+        }
+        StringBuffer sb = new StringBuffer();
+        sb.append("devices=").append(devCount);
+        sb.append(" evicted=").append(evictCount);
+        sb.append(" checked=").append(EventDuplicateFilter.GetCheckedCount());
+        sb.append(" suppressed=").append(EventDuplicateFilter.GetSuppressedCount());
+        return sb.toString();
+    }
+
+    private static synchronized void _count(boolean suppressed)
+    {
+        TotalChecked++;
+        if (suppressed) {
+            TotalSuppressed++;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the duplicate key for the specified event values
+    **/
+    public static String GetEventKey(long timestamp, int statusCode, double lat, double lon)
+    {
+        long latE = Math.round(lat * LATLON_SCALE);
+        long lonE = Math.round(lon * LATLON_SCALE);
+        return timestamp + "/" + statusCode + "/" + latE + "," + lonE;
+    }
+
+    /**
+    *** Gets the duplicate key for the specified event
+    **/
+    public static String GetEventKey(EventData ev)
+    {
+        return EventDuplicateFilter.GetEventKey(
+            ev.getTimestamp(), ev.getStatusCode(),
+            ev.getLatitude(), ev.getLongitude());
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private String      devKey          = null;
+    private String      ring[]          = null;
+    private int         ringNdx         = 0;
+    private Set<String> keys            = null;
+    private boolean     loaded          = false;
+    private long        suppressed      = 0L;
+
+    /**
+    *** Constructor
+    **/
+    private EventDuplicateFilter(String devKey, int size)
+    {
+        this.devKey = devKey;
+        this.ring   = new String[size];
+        this.keys   = new HashSet<String>();
+    }
+
+    /**
+    *** Populates this filter from the latest EventData records (once)
+    **/
+    private synchronized void _load(Device device)
+    {
+        if (this.loaded) {
+            return;
+        }
+        this.loaded = true;
+        try {
+            EventData ev[] = device.getLatestEvents((long)this.ring.length, false/*validGPS*/);
+            if (ev != null) {
+                for (EventData e : ev) {
+                    this._add(EventDuplicateFilter.GetEventKey(e));
+                }
+            }
+        } catch (DBException dbe) {
+            Print.logWarn("Unable to load latest events for duplicate filter: " + this.devKey + " [" + dbe + "]");
+        }
+    }
+
+    /**
+    *** Adds the specified key to the ring, replacing the oldest key
+    **/
+    private void _add(String key)
+    {
+        if (this.keys.contains(key)) {
+            return;
+        }
+        String old = this.ring[this.ringNdx];
+        if (old != null) {
+            this.keys.remove(old);
+        }
+        this.ring[this.ringNdx] = key;
+        this.keys.add(key);
+        this.ringNdx = (this.ringNdx + 1) % this.ring.length;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if the specified event is a duplicate of a recently inserted event
+    *** (the suppressed count is incremented if a duplicate is found)
+    *** @param ev  The event
+    *** @return True if the event is a duplicate
+    **/
+    public boolean isDuplicate(EventData ev)
+    {
+        boolean dup;
+        synchronized (this) {
+            dup = this.keys.contains(EventDuplicateFilter.GetEventKey(ev));
+            if (dup) {
+                this.suppressed++;
+            }
+        }
+        EventDuplicateFilter._count(dup);
+        return dup;
+    }
+
+    /**
+    *** Remembers the specified event as recently inserted
+    *** @param ev  The event
+    **/
+    public synchronized void addEvent(EventData ev)
+    {
+        this._add(EventDuplicateFilter.GetEventKey(ev));
+    }
+
+    /**
+    *** Remembers the specified event key as recently inserted
+    **/
+    public synchronized void addEventKey(String key)
+    {
+        this._add(key);
+    }
+
+    /**
+    *** Gets the number of duplicate events suppressed for this Device
+    **/
+    public synchronized long getSuppressedCount()
+    {
+        return this.suppressed;
+    }
+
+    // ------------------------------------------------------------------------
+
+}
@@ -0,0 +1,260 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+
+import org.opengts.db.tables.*;
+
+/**
+*** <code>EventImportBatch</code> accumulates imported EventData records for a single
+*** Device, and inserts them using batched JDBC inserts.<br>
+*** The Device "last" event fields (last event/GPS timestamp, last valid location, last
+*** odometer) are updated in memory as each event is added (so that odometer estimation and
+*** minimum-movement checks see the latest imported location), but the Device record is
+*** only written once per batch.<br>
+*** Note: events inserted through this batch do not go through "Device.insertEventData",
+*** so rules, geozone checks, and other per-event Device processing are not performed.
+*** This is intended for importing historical events.
+**/
+
+public class EventImportBatch
+{
+
+    // ------------------------------------------------------------------------
+
+    public  static final int    DFT_BATCH_SIZE          = 500;
+
+    /**
+    *** Gets the default batch size ("EventImport.batchSize")
+    **/
+    public static int GetDefaultBatchSize()
+    {
+        int bs = RTConfig.getInt(DBConfig.PROP_EventImport_batchSize, DFT_BATCH_SIZE);
+        return (bs > 0)? bs : DFT_BATCH_SIZE;
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private Device                      device          = null;
+    private int                         batchSize       = DFT_BATCH_SIZE;
+    private java.util.List<EventData>   batch           = null;
+
+    private long                        startMS         = 0L;
+    private long                        eventCount      = 0L;
+    private long                        batchCount      = 0L;
+    private long                        errorCount      = 0L;
+    private java.util.List<EventData>   failedEvents    = null;
+
+    /**
+    *** Constructor
+    *** @param device     The Device into which events will be imported
+    *** @param batchSize  The number of events inserted per batch (<= 0 for the default)
+    **/
+    public EventImportBatch(Device device, int batchSize)
+    {
+        this.device    = device;
+        this.batchSize = (batchSize > 0)? batchSize : EventImportBatch.GetDefaultBatchSize();
+        this.batch     = new Vector<EventData>(this.batchSize);
+        this.failedEvents = new Vector<EventData>();
+        this.startMS   = DateTime.getCurrentTimeMillis();
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the Device into which events are imported
+    **/
+    public Device getDevice()
+    {
+        return this.device;
+    }
+
+    /**
+    *** Gets the batch size
+    **/
+    public int getBatchSize()
+    {
+        return this.batchSize;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Adds the specified event to the current batch, inserting the batch if full
+    *** @param evdb  The event to insert
+    *** @return True if the event was accepted
+    **/
+    public boolean addEvent(EventData evdb)
+    {
+        if ((evdb == null) || (this.device == null)) {
+            return false;
+        } else
+        if (!evdb.getAccountID().equals(this.device.getAccountID()) ||
+            !evdb.getDeviceID().equals(this.device.getDeviceID())     ) {
+            Print.logError("Event does not belong to Device: " + this.device.getAccountID() + "/" + this.device.getDeviceID());
+            return false;
+        }
+        evdb.setDevice(this.device);
+        this.batch.add(evdb);
+        this._updateDeviceState(evdb);
+        if (this.batch.size() >= this.batchSize) {
+            this.flush();
+        }
+        return true;
+    }
+
+    /**
+    *** Updates the in-memory Device "last" event fields from the specified event
+    **/
+    private void _updateDeviceState(EventData evdb)
+    {
+        Device dev = this.device;
+        long   ts  = evdb.getTimestamp();
+        if (ts >= dev.getLastEventTimestamp()) {
+            dev.setLastEventTimestamp(ts);
+        }
+        if (evdb.isValidGeoPoint() && (ts >= dev.getLastGPSTimestamp())) {
+            dev.setLastValidLatitude(evdb.getLatitude());
+            dev.setLastValidLongitude(evdb.getLongitude());
+            dev.setLastValidSpeedKPH(evdb.getSpeedKPH());
+            dev.setLastValidHeading(evdb.getHeading());
+            dev.setLastGPSTimestamp(ts);
+        }
+        double odomKM = evdb.getOdometerKM();
+        if (odomKM > dev.getLastOdometerKM()) {
+            dev.setLastOdometerKM(odomKM);
+        }
+    }
+
+    /**
+    *** Inserts the current batch of events, and updates the Device record.<br>
+    *** If the batch insert fails, the events in the batch are inserted one at a time, and
+    *** the events which still cannot be inserted are added to the failed event list
+    *** (see "getFailedEvents").
+    *** @return The number of events inserted
+    **/
+    public int flush()
+    {
+        if (this.batch.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        String devKey = this.device.getAccountID() + "/" + this.device.getDeviceID();
+
+        /* insert events */
+        try {
+            count = DBRecord.insertRecords(this.batch);
+        } catch (DBException dbe) {
+            // -- retry individually (events already inserted by the batch are ignored as duplicates)
+            Print.logException("Unable to insert EventData batch, inserting individually: " + devKey, dbe);
+            count = 0;
+            for (EventData evdb : this.batch) {
+                try {
+                    evdb.insert();
+                    count++;
+                } catch (DBException dbe2) {
+                    Print.logError("Unable to insert EventData: " + evdb.getRecordKey() + " [" + dbe2.getMessage() + "]");
+                    this.failedEvents.add(evdb);
+                    this.errorCount++;
+                }
+            }
+        }
+        this.batch.clear();
+        this.eventCount += count;
+        this.batchCount++;
+
+        /* update device once per batch */
+        try {
+            this.device.updateChangedEventFields();
+        } catch (DBException dbe) {
+            Print.logException("Unable to update Device: " + devKey, dbe);
+        }
+
+        return count;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the number of events inserted
+    **/
+    public long getEventCount()
+    {
+        return this.eventCount;
+    }
+
+    /**
+    *** Gets the number of events which could not be inserted
+    **/
+    public long getErrorCount()
+    {
+        return this.errorCount;
+    }
+
+    /**
+    *** Gets the events which could not be inserted (does not return null)
+    **/
+    public java.util.List<EventData> getFailedEvents()
+    {
+        return this.failedEvents;
+    }
+
+    /**
+    *** Gets the number of batches inserted
+    **/
+    public long getBatchCount()
+    {
+        return this.batchCount;
+    }
+
+    /**
+    *** Gets the insert throughput (events per second) since this batch was created
+    **/
+    public double getEventsPerSecond()
+    {
+        long deltaMS = DateTime.getCurrentTimeMillis() - this.startMS;
+        return (deltaMS > 0L)? ((double)this.eventCount * 1000.0 / (double)deltaMS) : 0.0;
+    }
+
+    /**
+    *** Gets the import progress
+    *** @return The progress String
+    **/
+    public String getProgress()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append("events=").append(this.eventCount);
+        sb.append(" batches=").append(this.batchCount);
+        sb.append(" pending=").append(this.batch.size());
+        if (this.errorCount > 0L) {
+            sb.append(" errors=").append(this.errorCount);
+        }
+        sb.append(" rate=").append(StringTools.format(this.getEventsPerSecond(),"0.0")).append("/sec");
+        return sb.toString();
+    }
+
+    // ------------------------------------------------------------------------
+
+}
@@ -87,6 +87,8 @@ import java.util.Iterator;
 import java.util.Vector;
 import java.util.HashSet;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Collections;
 import java.io.OutputStream;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
@@ -703,6 +705,7 @@ public class EventUtil
     public  static final String  TAG_DataColumns                = "DataColumns";
     public  static final String  TAG_DataSet                    = "DataSet";
     public  static final String  TAG_Point                      = "P";
+    public  static final String  TAG_Route                      = "Route"; // simplified route-line
     public  static final String  TAG_Shape                      = "Shape"; // MapShape
     public  static final String  TAG_Action                     = "Action"; // used by ReportDisplay
     
@@ -719,6 +722,7 @@ public class EventUtil
     public  static final String  JSON_Shapes                    = "Shapes";
     public  static final String  JSON_DataSets                  = "DataSets";
     public  static final String  JSON_Points                    = "Points";
+    public  static final String  JSON_Route                     = TAG_Route;
     public  static final String  JSON_Actions                   = "Actions";
     public  static final String  JSON_YMD                       = "YMD";
     public  static final String  JSON_year                      = "YYYY";
@@ -1130,6 +1134,38 @@ public class EventUtil
         double minProximityM)
         throws IOException
     {
+        return this.writeMapEvents(
+            dataFmt, indentLevel, pwout,
+            isSoapRequest, isTopLevelTag,
+            privLabel,
+            edp, includeShapes,
+            iconSelector, iconKeys,
+            isFleet, fleetRoute, selID,
+            tmz,
+            acct, user,
+            latestTime, lastBattery, lastSignal,
+            minProximityM,
+            null/*simplifier*/);
+    }
+
+    /* write encoded map event data to the specified PrintWriter */
+    // -- if 'simplifier' is non-null, all events are still written as pushpins, and each
+    // -  device DataSet also carries the simplified "Route" used to draw the route-line.
+    public boolean writeMapEvents(
+        int dataFmt, int indentLevel, PrintWriter pwout, 
+        boolean isSoapRequest, boolean isTopLevelTag,
+        BasicPrivateLabel privLabel,
+        EventDataProvider edp[], boolean includeShapes,
+        String iconSelector, OrderedSet<String> iconKeys, 
+        boolean isFleet, boolean fleetRoute, String selID,
+        TimeZone tmz, 
+        Account acct, User user,
+        DateTime latestTime, double lastBattery, double lastSignal,
+        double minProximityM,
+        RouteSimplifier simplifier)
+        throws IOException
+    {
+        Set<EventDataProvider> routePts = EventUtil._getRoutePoints(simplifier, edp);
         if (dataFmt == EventUtil.MAPDATA_XML) {
             return this.writeMapEvents_xml(
                 indentLevel, pwout, 
@@ -1142,6 +1178,7 @@ public class EventUtil
                 acct, user,
                 latestTime, lastBattery, lastSignal,
                 minProximityM,
+                routePts,
                 CSV_SEPARATOR_CHAR);
         } else {
             return this.writeMapEvents_json(
@@ -1155,10 +1192,26 @@ public class EventUtil
                 acct, user,
                 latestTime, lastBattery, lastSignal,
                 minProximityM,
+                routePts,
                 CSV_SEPARATOR_CHAR);
         }
     }
 
+    /* return the set of events retained on the simplified route-line (null if not simplified) */
+    private static Set<EventDataProvider> _getRoutePoints(RouteSimplifier simplifier, EventDataProvider edp[])
+    {
+        if ((simplifier == null) || ListTools.isEmpty(edp)) {
+            return null;
+        }
+        RouteSimplifier.Result route = simplifier.simplify(edp);
+        Set<EventDataProvider> routePts = Collections.newSetFromMap(new IdentityHashMap<EventDataProvider,Boolean>());
+        EventDataProvider pts[] = route.getPoints();
+        for (int i = 0; i < pts.length; i++) {
+            routePts.add(pts[i]);
+        }
+        return routePts;
+    }
+
     // ------------------------------------------------------------------------
 
     /* write encoded map event data to the specified PrintWriter */
@@ -1186,10 +1239,12 @@ public class EventUtil
             acct, user,
             latestTime, lastBattery, lastSignal,
             minProximityM,
+            null/*routePts*/,
             CSV_SEPARATOR_CHAR);
     }
 
     /* write encoded map event data to the specified PrintWriter */
+    // -- 'routePts' is the set of events on the simplified route-line (null to draw all events)
     private boolean writeMapEvents_xml(
         int indentLevel, PrintWriter pwout, 
         boolean isSoapRequest, boolean isTopLevelTag,
@@ -1201,6 +1256,7 @@ public class EventUtil
         Account acct, User user,
         DateTime latestTime, double lastBattery, double lastSignal,
         double minProximityM,
+        Set<EventDataProvider> routePts,
         char csvSep)
         throws IOException
     {
@@ -1219,6 +1275,7 @@ public class EventUtil
         //   </DataSet>
         //   <DataSet type="device" id="deviceid" route="true" routeColor="#FF0000" textColor="#000000">
         //     <P>demo2|New Device|1268394337|2010/03/12|05:45:37|CST|Start|19|37.783522|-121.225672|0.0|0|12.0|269.8|8|16117.3|"778 Mission Ridge Dr, Manteca, CA 95337"</P>
+        //     <Route><![CDATA[lat/lon,lat/lon,...]]></Route>   (only if the route was simplified)
         //   </DataSet>
         //   <Action command="showpp">2</Action>
         //   <Action command="zoompp">2</Action>
@@ -1509,7 +1566,8 @@ public class EventUtil
             isFleet, fleetRoute, selID,
             tmz, dateFmt, timeFmt, 
             csvSep,
-            minProximityM);
+            minProximityM,
+            routePts);
 
         /* XML footer */
         this.write(pwout, PFX1);
@@ -1593,7 +1651,8 @@ public class EventUtil
         TimeZone tmz, 
         String dateFmt, String timeFmt, 
         char csvSep,
-        double minProximityM)
+        double minProximityM,
+        Set<EventDataProvider> routePts)
         throws IOException
     {
 
@@ -1612,6 +1671,7 @@ public class EventUtil
         String PFX2 = (indentLevel > 0)? XMLTools.PREFIX(isSoapRequest,(indentLevel+1)*3) : "";
 
         /* print events (XML) */
+        StringBuffer routeSB   = (routePts != null)? new StringBuffer() : null;
         boolean  isDeviceData  = !isFleet;
         boolean  didStartSet   = false;
         GeoPoint lastGP        = null;
@@ -1631,6 +1691,7 @@ public class EventUtil
                 if (isFleet /*&& fleetRoute*/) {
                     if (didStartSet) {
                         // close previous dataset
+                        this._writeMapRoute_xml(pwout, PFX2, isSoapRequest, routeSB);
                         this.write(pwout, PFX1);
                         this.write(pwout, XMLTools.endTAG(isSoapRequest,TAG_DataSet,true));
                         didStartSet = false;
@@ -1801,10 +1862,17 @@ public class EventUtil
             this.write(pwout, XMLTools.CDATA(isSoapRequest,rcd));
             this.write(pwout, XMLTools.endTAG(isSoapRequest,TAG_Point,true));
 
+            /* simplified route-line point */
+            if ((routeSB != null) && routePts.contains(edp[i]) && edp[i].isValidGeoPoint()) {
+                if (routeSB.length() > 0) { routeSB.append(","); }
+                routeSB.append(edp[i].getLatitude()).append("/").append(edp[i].getLongitude());
+            }
+
         } // looping through events
 
         /* Dataset footer */
         if (didStartSet) {
+            this._writeMapRoute_xml(pwout, PFX2, isSoapRequest, routeSB);
             this.write(pwout, PFX1);
             this.write(pwout, XMLTools.endTAG(isSoapRequest,TAG_DataSet,true));
         }
@@ -1813,6 +1881,19 @@ public class EventUtil
 
     }
 
+    /* write the simplified route-line of the current DataSet (and reset the buffer) */
+    private void _writeMapRoute_xml(PrintWriter pwout, String pfx, boolean isSoapRequest, StringBuffer routeSB)
+        throws IOException
+    {
+        if (routeSB != null) {
+            this.write(pwout, pfx);
+            this.write(pwout, XMLTools.startTAG(isSoapRequest,TAG_Route,"",false,false));
+            this.write(pwout, XMLTools.CDATA(isSoapRequest,routeSB.toString()));
+            this.write(pwout, XMLTools.endTAG(isSoapRequest,TAG_Route,true));
+            routeSB.setLength(0);
+        }
+    }
+
     // ------------------------------------------------------------------------
 
     /* write encoded map event data to the specified PrintWriter */
@@ -1842,10 +1923,12 @@ public class EventUtil
             acct, user,
             latestTime, lastBattery, lastSignal,
             minProximityM,
+            null/*routePts*/,
             CSV_SEPARATOR_CHAR);
     }
 
     /* write encoded map event data to the specified PrintWriter */
+    // -- 'routePts' is the set of events on the simplified route-line (null to draw all events)
     private boolean writeMapEvents_json(
         //HttpServletResponse response,
         PrintWriter pwout, 
@@ -1858,10 +1941,11 @@ public class EventUtil
         Account acct, User user,
         DateTime latestTime, double lastBattery, double lastSignal,
         double minProximityM,
+        Set<EventDataProvider> routePts,
         char csvSep)
         throws IOException
     {
-        JSON._Object JMapData = this.getJMapData_JSON(
+        JSON._Object JMapData = this._getJMapData_JSON(
             privLabel,
             edp, includeShapes,
             iconSelector, iconKeys,
@@ -1870,6 +1954,7 @@ public class EventUtil
             acct, user,
             latestTime, lastBattery, lastSignal,
             minProximityM,
+            routePts,
             null/*actions*/,
             csvSep);
         JSON._Object jsonObj = new JSON._Object();
@@ -1882,6 +1967,36 @@ public class EventUtil
         return true;
     }
 
+    /* write encoded map event data to the specified PrintWriter */
+    // -- if 'simplifier' is non-null, all events are still added as pushpins, and each
+    // -  device DataSet also carries the simplified "Route" used to draw the route-line.
+    public JSON._Object getJMapData_JSON(
+        BasicPrivateLabel privLabel,
+        EventDataProvider edp[],  boolean includeShapes,
+        String iconSelector, OrderedSet<String>iconKeys, 
+        boolean isFleet, boolean fleetRoute, String selID,
+        TimeZone tmz, 
+        Account acct, User user,
+        DateTime latestTime, double lastBattery, double lastSignal,
+        double minProximityM,
+        RouteSimplifier simplifier,
+        Collection<String> actions,
+        char csvSep)
+    {
+        return this._getJMapData_JSON(
+            privLabel,
+            edp, includeShapes,
+            iconSelector, iconKeys,
+            isFleet, fleetRoute, selID,
+            tmz,
+            acct, user,
+            latestTime, lastBattery, lastSignal,
+            minProximityM,
+            EventUtil._getRoutePoints(simplifier, edp),
+            actions,
+            csvSep);
+    }
+
     /* write encoded map event data to the specified PrintWriter */
     public JSON._Object getJMapData_JSON(
         BasicPrivateLabel privLabel,
@@ -1894,6 +2009,35 @@ public class EventUtil
         double minProximityM,
         Collection<String> actions,
         char csvSep)
+    {
+        return this._getJMapData_JSON(
+            privLabel,
+            edp, includeShapes,
+            iconSelector, iconKeys,
+            isFleet, fleetRoute, selID,
+            tmz,
+            acct, user,
+            latestTime, lastBattery, lastSignal,
+            minProximityM,
+            null/*routePts*/,
+            actions,
+            csvSep);
+    }
+
+    /* write encoded map event data to the specified PrintWriter */
+    // -- 'routePts' is the set of events on the simplified route-line (null to draw all events)
+    private JSON._Object _getJMapData_JSON(
+        BasicPrivateLabel privLabel,
+        EventDataProvider edp[],  boolean includeShapes,
+        String iconSelector, OrderedSet<String>iconKeys, 
+        boolean isFleet, boolean fleetRoute, String selID,
+        TimeZone tmz, 
+        Account acct, User user,
+        DateTime latestTime, double lastBattery, double lastSignal,
+        double minProximityM,
+        Set<EventDataProvider> routePts,
+        Collection<String> actions,
+        char csvSep)
     {
         // {
         //   "JMapData" : {
@@ -2266,6 +2410,7 @@ public class EventUtil
             //      "DeviceDesc|Data|Time|StatusCode|Latitude|Longitude|SpeedKPH|Heading|Altitude|Address",
             //      ...
             //    ],
+            //    "Route": [ "lat/lon", ... ]   (only if the route was simplified)
             // }
             // <DataSet type="device" id="deviceid" route="true">
             boolean rtn = this._addDataSet_json(
@@ -2276,7 +2421,8 @@ public class EventUtil
                 isFleet, fleetRoute, selID,
                 tmz, dateFmt, timeFmt, 
                 csvSep,
-                minProximityM);
+                minProximityM,
+                routePts);
             // add key value
             jMapDataObj.addKeyValue(JSON_DataSets,dataSetArray);
         }
@@ -2382,7 +2528,8 @@ public class EventUtil
         TimeZone tmz, 
         String dateFmt, String timeFmt, 
         char csvSep,
-        double minProximityM)
+        double minProximityM,
+        Set<EventDataProvider> routePts)
     {
         // {
         //    "type": "device",
@@ -2408,6 +2555,7 @@ public class EventUtil
 
         /* print events (JSON) */
         JSON._Array pointArray = null;
+        JSON._Array routeArray = null;
         boolean  isDeviceData  = !isFleet;
         boolean  didStartSet   = false;
         GeoPoint lastGP        = null;
@@ -2558,6 +2706,10 @@ public class EventUtil
                 dataSetObj.addKeyValue(JSON_textColor , textColor);
                 pointArray = new JSON._Array();
                 dataSetObj.addKeyValue(JSON_Points    , pointArray);
+                if (routePts != null) {
+                    routeArray = new JSON._Array();
+                    dataSetObj.addKeyValue(JSON_Route , routeArray);
+                }
                 dataSetArray.addValue(dataSetObj);
                 didStartSet = true;
             }
@@ -2591,6 +2743,11 @@ public class EventUtil
                 tmz, dateFmt, timeFmt, csvSep);
             pointArray.addValue(rcd);
 
+            /* simplified route-line point */
+            if ((routeArray != null) && routePts.contains(edp[i]) && edp[i].isValidGeoPoint()) {
+                routeArray.addValue(edp[i].getLatitude()+"/"+edp[i].getLongitude());
+            }
+
         } // looping through events
 
         /* Dataset footer */
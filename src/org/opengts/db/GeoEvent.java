@@ -717,4 +717,36 @@ public class GeoEvent
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** Creates an EventData record (not yet inserted) from this GeoEvent
+    *** @return The EventData record, or null if the Account/Device ID is not defined
+    **/
+    public EventData createEventData()
+    {
+        if (!this.hasAccountID() || !this.hasDeviceID()) {
+            return null;
+        }
+        EventData.Key evKey = new EventData.Key(
+            this.getAccountID(), this.getDeviceID(),
+            this.getTimestamp(), this.getStatusCode());
+        EventData evdb = evKey.getDBRecord();
+        if (this.hasDevice()) {
+            evdb.setDevice(this.getDevice());
+        }
+        if (this.hasGeozone()) {
+            evdb.setGeozone(this.getGeozone());
+        } else
+        if (this.hasGeozoneID()) {
+            evdb.setGeozoneID(this.getGeozoneID());
+        }
+        evdb.setGeoPoint(this.getGeoPoint());
+        evdb.setSpeedKPH(this.getSpeedKPH());
+        evdb.setHeading(this.getHeading());
+        evdb.setAltitude(this.getAltitudeMeters());
+        evdb.setOdometerKM(this.getOdometerKM());
+        return evdb;
+    }
+
+    // ------------------------------------------------------------------------
+
 }
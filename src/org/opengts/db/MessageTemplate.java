@@ -0,0 +1,316 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+
+import org.opengts.util.*;
+
+import org.opengts.db.tables.*;
+
+/**
+*** <code>MessageTemplate</code> is a precompiled notification/message template containing
+*** EventData "${key:arg=default}" references (the same syntax used by
+*** "StringTools.replaceKeys").<br>
+*** The template text is parsed once into literal and key segments, and the EventData key
+*** list for each key is resolved when the template is compiled, so that rendering the
+*** template for an event does not need to re-parse the text or search the EventData keys.
+*** Compiled templates are cached (see "GetTemplate").<br>
+*** Note: unlike "StringTools.replaceKeys", key values inserted into the rendered text are
+*** not themselves scanned for further "${key}" references.
+**/
+
+public class MessageTemplate
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final int    DFT_CACHE_SIZE      = 200;
+    private static final int    MAX_BUFFER_SIZE     = 32 * 1024;
+
+    private static Map<String,MessageTemplate> templateCache = null;
+
+    /**
+    *** Gets the compiled template for the specified text, compiling the text if it is not
+    *** already in the template cache (least-recently-used templates are removed once the
+    *** cache size exceeds "MessageTemplate.cacheSize")
+    *** @param text  The template text
+    *** @return The compiled template (null if the text is null)
+    **/
+    public static MessageTemplate GetTemplate(String text)
+    {
+        if (text == null) {
+            return null;
+        }
+        synchronized (MessageTemplate.class) {
+            if (MessageTemplate.templateCache == null) {
+                int cs = RTConfig.getInt(DBConfig.PROP_MessageTemplate_cacheSize, DFT_CACHE_SIZE);
+                final int maxSize = (cs > 0)? cs : DFT_CACHE_SIZE;
+                MessageTemplate.templateCache = new LinkedHashMap<String,MessageTemplate>(16, 0.75F, true/*accessOrder*/) {
+                    protected boolean removeEldestEntry(Map.Entry<String,MessageTemplate> eldest) {
+                        return (this.size() > maxSize);
+                    }
+                };
+            }
+            MessageTemplate tmp = MessageTemplate.templateCache.get(text);
+            if (tmp == null) {
+                tmp = new MessageTemplate(text);
+                MessageTemplate.templateCache.put(text, tmp);
+            }
+            return tmp;
+        }
+    }
+
+    /**
+    *** Clears the compiled template cache
+    **/
+    public static void ClearTemplateCache()
+    {
+        synchronized (MessageTemplate.class) {
+            if (MessageTemplate.templateCache != null) {
+                MessageTemplate.templateCache.clear();
+            }
+        }
+    }
+
+    /**
+    *** Renders the specified template text for the specified event
+    *** @param text   The template text
+    *** @param event  The event
+    *** @param bpl    The BasicPrivateLabel (used for the Locale, may be null)
+    *** @return The rendered text
+    **/
+    public static String Render(String text, EventData event, BasicPrivateLabel bpl)
+    {
+        MessageTemplate tmp = MessageTemplate.GetTemplate(text);
+        return (tmp != null)? tmp.render(event, bpl) : null;
+    }
+
+    // ------------------------------------------------------------------------
+
+    private static ThreadLocal<StringBuilder> renderBuffer = new ThreadLocal<StringBuilder>() {
+        protected StringBuilder initialValue() {
+            return new StringBuilder();
+        }
+    };
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Segment: a literal String, or a "${key:arg=default}" reference
+    **/
+    private static class Segment
+    {
+        private String literal   = null;
+        private String key       = null;
+        private String keyList[] = null;
+        private String arg       = null;
+        private String dft       = null;
+        public Segment(String literal) {
+            this.literal = literal;
+        }
+        public Segment(String key, String arg, String dft) {
+            this.key     = key;
+            this.keyList = EventData.GetKeyList(key); // resolved once
+            this.arg     = arg;
+            this.dft     = dft;
+        }
+        public boolean isLiteral() {
+            return (this.literal != null);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private String      text        = null;
+    private Segment     segments[]  = null;
+
+    /**
+    *** Constructor: compiles the specified template text
+    *** @param text  The template text
+    **/
+    public MessageTemplate(String text)
+    {
+        this.text = (text != null)? text : "";
+        this.segments = this._parse(this.text);
+    }
+
+    /**
+    *** Parses the template text into literal/key segments
+    **/
+    private Segment[] _parse(String t)
+    {
+        String keyStart = StringTools.KEY_START;
+        String keyEnd   = StringTools.KEY_END;
+        String argDelim = StringTools.ARG_DELIM;
+        String dftDelim = StringTools.DFT_DELIM;
+        java.util.List<Segment> segList = new Vector<Segment>();
+        StringBuffer lit = new StringBuffer();
+        int p = 0;
+        for (;;) {
+
+            /* find next key */
+            int ks = t.indexOf(keyStart, p);
+            int ke = (ks >= 0)? t.indexOf(keyEnd, ks) : -1;
+            if ((ks < 0) || (ke < 0)) {
+                lit.append(t.substring(p));
+                break;
+            }
+
+            /* literal up to key start (an escaping '\' is removed) */
+            int ksi = ((ks > 0) && (t.charAt(ks-1) == StringTools.KEY_START_ESC))? ks - 1 : ks;
+            if (ksi > p) {
+                lit.append(t.substring(p, ksi));
+            }
+            if (lit.length() > 0) {
+                segList.add(new Segment(lit.toString()));
+                lit.setLength(0);
+            }
+
+            /* extract "key:arg=default" */
+            String keyArgDft = t.substring(ks + keyStart.length(), ke);
+            String dftStr;
+            String keyArg;
+            int d = keyArgDft.indexOf(dftDelim);
+            if (d >= 0) {
+                dftStr = keyArgDft.substring(d + dftDelim.length()); // leave default as-is (untrimmed)
+                keyArg = keyArgDft.substring(0, d).trim();
+            } else {
+                dftStr = "";
+                keyArg = keyArgDft;
+            }
+            String key;
+            String arg;
+            int a = keyArg.indexOf(argDelim);
+            if (a >= 0) {
+                arg = keyArg.substring(a + argDelim.length());
+                key = keyArg.substring(0, a).trim();
+            } else {
+                arg = null;
+                key = keyArg;
+            }
+            segList.add(new Segment(key, arg, dftStr));
+
+            /* continue after key end */
+            p = ke + keyEnd.length();
+
+        }
+        if (lit.length() > 0) {
+            segList.add(new Segment(lit.toString()));
+        }
+        return segList.toArray(new Segment[segList.size()]);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the template text
+    **/
+    public String getText()
+    {
+        return this.text;
+    }
+
+    /**
+    *** Returns true if this template contains any key references
+    **/
+    public boolean hasKeys()
+    {
+        for (Segment seg : this.segments) {
+            if (!seg.isLiteral()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Renders this template for the specified event
+    *** @param event  The event
+    *** @param bpl    The BasicPrivateLabel (used for the Locale, may be null)
+    *** @return The rendered text
+    **/
+    public String render(EventData event, BasicPrivateLabel bpl)
+    {
+        Locale locale = (bpl != null)? bpl.getLocale() : null;
+        I18N   i18n   = I18N.getI18N(EventData.class, locale);
+        StringBuilder sb = MessageTemplate.renderBuffer.get();
+        sb.setLength(0);
+        for (Segment seg : this.segments) {
+            if (seg.isLiteral()) {
+                sb.append(seg.literal);
+            } else {
+                String val = (event != null)?
+                    EventData._getKeyFieldString(
+                        false/*value*/, seg.keyList, seg.key, seg.arg,
+                        locale, i18n, bpl, event) :
+                    null;
+                sb.append((val != null)? val : seg.dft);
+            }
+        }
+        String s = sb.toString();
+        if (sb.capacity() > MAX_BUFFER_SIZE) {
+            // -- do not hold on to an unusually large buffer
+            MessageTemplate.renderBuffer.remove();
+        }
+        return s;
+    }
+
+    /**
+    *** Renders this template using the specified KeyValueMap
+    *** @param keyMap  The KeyValueMap used to retrieve the key values
+    *** @return The rendered text
+    **/
+    public String render(StringTools.KeyValueMap keyMap)
+    {
+        StringBuilder sb = MessageTemplate.renderBuffer.get();
+        sb.setLength(0);
+        for (Segment seg : this.segments) {
+            if (seg.isLiteral()) {
+                sb.append(seg.literal);
+            } else {
+                String val = (keyMap != null)? keyMap.getKeyValue(seg.key, seg.arg, null) : null;
+                sb.append((val != null)? val : seg.dft);
+            }
+        }
+        String s = sb.toString();
+        if (sb.capacity() > MAX_BUFFER_SIZE) {
+            MessageTemplate.renderBuffer.remove();
+        }
+        return s;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns the template text
+    **/
+    public String toString()
+    {
+        return this.text;
+    }
+
+    // ------------------------------------------------------------------------
+
+}
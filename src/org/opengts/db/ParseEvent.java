@@ -40,6 +40,8 @@ public class ParseEvent
 
     public static boolean   DEBUG_MODE      = false;
 
+    private static final long   PROGRESS_INTERVAL_MS    = 5000L;
+
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
@@ -66,6 +68,11 @@ public class ParseEvent
     private Account             account        = null;
     private Device              device         = null;
 
+    private int                 batchSize      = 0;
+    private EventImportBatch    importBatch    = null;
+    private long                parsedCount    = 0L;
+    private long                lastProgressMS = 0L;
+
     /**
     *** Consgtructor 
     **/
@@ -95,6 +102,15 @@ public class ParseEvent
         
     }
 
+    /**
+    *** Sets the number of events inserted per batch
+    *** @param batchSize  The batch size (<= 0 for the default "EventImport.batchSize")
+    **/
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
     /**
     *** Parse file
     **/
@@ -108,11 +124,12 @@ public class ParseEvent
             FileInputStream fis = null;
             try {
                 fis = new FileInputStream(parseFile);
-                rtn = this.parseHandler.parseStream(fis, this);
+                rtn = this.parseHandler.parseStream(new BufferedInputStream(fis), this);
             } catch (IOException ioe) {
                 Print.logException("IO Error", ioe);
             } finally {
                 if (fis != null) { try { fis.close(); } catch (Throwable th) {} }
+                this.flush();
             }
             return rtn;
         } else {
@@ -120,6 +137,39 @@ public class ParseEvent
         }
     }
 
+    /**
+    *** Inserts any pending events, and displays the final import counts
+    **/
+    public void flush()
+    {
+        if (this.importBatch != null) {
+            this.importBatch.flush();
+        }
+        this._logProgress(true);
+    }
+
+    /**
+    *** Displays the import progress (at most every few seconds, unless forced)
+    **/
+    private void _logProgress(boolean force)
+    {
+        long nowMS = DateTime.getCurrentTimeMillis();
+        if (!force && ((nowMS - this.lastProgressMS) < PROGRESS_INTERVAL_MS)) {
+            return;
+        }
+        this.lastProgressMS = nowMS;
+        String progress = (this.importBatch != null)? this.importBatch.getProgress() : "events=0";
+        Print.logInfo("Import " + (force?"complete":"progress") + ": parsed=" + this.parsedCount + " " + progress);
+    }
+
+    /**
+    *** Gets the number of events inserted
+    **/
+    public long getInsertedCount()
+    {
+        return (this.importBatch != null)? this.importBatch.getEventCount() : 0L;
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -128,6 +178,7 @@ public class ParseEvent
     public int handleGeoEvent(GeoEvent gev)
     {
         int eventCount = 0;
+        this.parsedCount++;
 
         /* validate record identification */
         // We either have both AccountID/DeviceID, or neither
@@ -320,33 +371,33 @@ public class ParseEvent
         }
 
         /* update device date */
-        if (!DEBUG_MODE) {
-            // TODO: optimize
-            try {
-                //DBConnection.pushShowExecutedSQL();
-                if (this.device != null) {
-                    this.device.updateChangedEventFields();
-                }
-            } catch (DBException dbe) {
-                Print.logException("Unable to update Device: " + gevAcctID + "/" + gevDevID, dbe);
-            } finally {
-                //DBConnection.popShowExecutedSQL();
-            }
-        } else {
-            // TODO: reset any changes made to device record
-        }
+        // -- the Device record is updated once per inserted batch (see "EventImportBatch.flush")
 
         /* return success */
+        this._logProgress(false);
         return eventCount;
 
     }
     
     protected boolean insertEventRecord(GeoEvent gev)
     {
-        Print.logInfo("GeoEvent: " + gev);
-        if (DEBUG_MODE) { return false; }
-        
-        return false;
+        if (DEBUG_MODE) { 
+            Print.logInfo("GeoEvent: " + gev);
+            return false; 
+        }
+
+        /* create event */
+        EventData evdb = gev.createEventData();
+        if (evdb == null) {
+            return false;
+        }
+
+        /* add to batch */
+        if (this.importBatch == null) {
+            this.importBatch = new EventImportBatch(this.device, this.batchSize);
+        }
+        return this.importBatch.addEvent(evdb);
+
     }
 
     // ------------------------------------------------------------------------
@@ -357,6 +408,7 @@ public class ParseEvent
     private static String ARG_FORMAT[]  = new String[] { "format"  , "fmt"       };
     private static String ARG_DCS[]     = new String[] { "dcserver", "dcs"       };
     private static String ARG_FILE[]    = new String[] { "file"                  };
+    private static String ARG_BATCH[]   = new String[] { "batch"   , "batchSize" };
 
     private static void usage()
     {
@@ -368,6 +420,7 @@ public class ParseEvent
         Print.sysPrintln("  -format=<class> The format handler class");
         Print.sysPrintln("  -dcs=<name>     The format handler class");
         Print.sysPrintln("  -file=<file>    The file to parse");
+        Print.sysPrintln("  -batch=<size>   Number of events inserted per batch [dft " + EventImportBatch.GetDefaultBatchSize() + "]");
         System.exit(1);
     }
 
@@ -426,7 +479,16 @@ public class ParseEvent
 
         /* parse */
         ParseEvent pf = new ParseEvent(dcsc, parseHandler, accountID, deviceID);
-        pf.parse(parseFile);
+        pf.setBatchSize(RTConfig.getInt(ARG_BATCH,0));
+        long startMS = DateTime.getCurrentTimeMillis();
+        boolean ok = pf.parse(parseFile);
+        double elapsedSec = (double)(DateTime.getCurrentTimeMillis() - startMS) / 1000.0;
+        long   inserted   = pf.getInsertedCount();
+        Print.sysPrintln("Parsed events  : " + pf.parsedCount);
+        Print.sysPrintln("Inserted events: " + inserted);
+        Print.sysPrintln("Elapsed time   : " + StringTools.format(elapsedSec,"0.0") + " sec" +
+            ((elapsedSec > 0.0)? (" (" + StringTools.format((double)inserted/elapsedSec,"0.0") + " events/sec)") : ""));
+        System.exit(ok? 0 : 1);
 
     }
 
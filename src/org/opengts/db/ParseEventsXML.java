@@ -26,9 +26,7 @@ import java.util.*;
 import java.io.*;
 import java.awt.*;
 
-import javax.xml.parsers.*;
-import org.w3c.dom.*;
-import org.xml.sax.*;
+import javax.xml.stream.*;
 
 import org.opengts.util.*;
 import org.opengts.dbtools.*;
@@ -37,7 +35,8 @@ import org.opengts.db.*;
 import org.opengts.db.tables.*;
 
 /**
-*** Parse XML location formats supported by Google (currently only GPX)
+*** Parse XML location formats supported by Google (GPX track points, and KML placemark
+*** and "gx:Track" points)
 **/
 
 public class ParseEventsXML
@@ -68,6 +67,15 @@ public class ParseEventsXML
     // ------------------------------------------------------------------------
     // KML tags
 
+    private static final String TAG_kml                 = "kml";        // top level tag
+    private static final String TAG_Placemark           = "Placemark";  // a placemark
+    private static final String TAG_TimeStamp           = "TimeStamp";  // a placemark time
+    private static final String TAG_when                = "when";       // a time [2010-07-11T23:44:12Z]
+    private static final String TAG_Point               = "Point";      // a placemark point
+    private static final String TAG_coordinates         = "coordinates";// a point location [lon,lat,alt]
+    private static final String TAG_Track               = "Track";      // a "gx:Track"
+    private static final String TAG_coord               = "coord";      // a "gx:coord" track point [lon lat alt]
+
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
@@ -131,86 +139,229 @@ public class ParseEventsXML
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** Parses the specified XML (GPX/KML) stream.  The stream is read with a StAX parser,
+    *** and each point is passed to the GeoEventHandler as soon as it has been parsed (the
+    *** document is not loaded into memory).
+    *** @param xmlStream   The XML input stream
+    *** @param gevHandler  The GeoEventHandler (if null, parsed points are displayed)
+    *** @return True if the XML format is supported and was parsed without errors
+    **/
     public boolean parseStream(InputStream xmlStream, GeoEvent.GeoEventHandler gevHandler)
         throws IOException
     {
+        XMLStreamReader xr = null;
+        try {
 
-        /* get Document */
-        Document xmlDoc = XMLTools.getDocument(xmlStream, false/*checkErrors*/);
-        if (xmlDoc == null) {
-            // errors already displayed
-            return false;
-        }
+            /* StAX reader (external entities/DTDs are not resolved) */
+            XMLInputFactory xif = XMLInputFactory.newInstance();
+            xif.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+            xif.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+            xr = xif.createXMLStreamReader(xmlStream);
+
+            /* get top-level tag */
+            while (xr.hasNext() && (xr.next() != XMLStreamConstants.START_ELEMENT)) {
+                // skip prolog
+            }
+            if (!xr.isStartElement()) {
+                Print.logError("XML document has no top-level element");
+                return false;
+            }
+            String topLevelTagName = xr.getLocalName();
 
-        /* get top-level tag */
-        Element topElem = xmlDoc.getDocumentElement();
-        String topLevelTagName = topElem.getTagName();
+            /* GPX */
+            if (topLevelTagName.equalsIgnoreCase(TAG_gpx)) {
+                return this._parse_gpx(xr, gevHandler);
+            }
 
-        /* GPS */
-        if (topElem.getTagName().equalsIgnoreCase(TAG_gpx)) {
-            return this._parse_gpx(topElem, gevHandler);
-        }
+            /* KML */
+            if (topLevelTagName.equalsIgnoreCase(TAG_kml)) {
+                return this._parse_kml(xr, gevHandler);
+            }
 
-        /* not supported */
-        Print.logError("XML format not supported: " + topLevelTagName);
-        return false;
+            /* not supported */
+            Print.logError("XML format not supported: " + topLevelTagName);
+            return false;
 
+        } catch (XMLStreamException xse) {
+            Print.logError("XML parse error: " + xse.getMessage());
+            return false;
+        } finally {
+            if (xr != null) { try { xr.close(); } catch (Throwable th) {} }
+        }
+    }
+
+    /**
+    *** Returns the local name of the parent element (or "" if the element stack is empty)
+    **/
+    private static String _parentTag(Vector<String> tagStack)
+    {
+        return (tagStack.size() >= 2)? tagStack.get(tagStack.size() - 2) : "";
     }
 
     // ------------------------------------------------------------------------
 
-    public boolean _parse_gpx(Element topElem, GeoEvent.GeoEventHandler gevHandler)
+    /**
+    *** Parses GPX track points.  The reader must be positioned on the "gpx" start element.
+    **/
+    protected boolean _parse_gpx(XMLStreamReader xr, GeoEvent.GeoEventHandler gevHandler)
+        throws XMLStreamException
     {
 
         /* top level attributes */
-        String version = XMLTools.getAttribute(topElem, ATTR_version, "");
-        String creator = XMLTools.getAttribute(topElem, ATTR_creator, "");
-
-        /* tracks */
-        NodeList trkNodes = XMLTools.getChildElements(topElem, TAG_trk);
-        for (int trk = 0; trk < trkNodes.getLength(); trk++) {
-            Element trkTag = (Element)trkNodes.item(trk);
-
-            /* name */
-            Element nameTag = XMLTools.getChildElement(trkTag, TAG_name);
-            String name = (nameTag != null)? XMLTools.getNodeText(nameTag,""/*repNewline*/) : "";
-            Print.logInfo("Track Name: " + name);
-                       
-            /* description */
-            Element descTag = XMLTools.getChildElement(trkTag, TAG_desc);
-            String desc = (descTag != null)? XMLTools.getNodeText(descTag,""/*repNewline*/) : "";
-            Print.logInfo("Track Descrption: " + desc);
-
-            /* number */
-            Element numberTag = XMLTools.getChildElement(trkTag, TAG_number);
-            int number = (numberTag != null)? StringTools.parseInt(XMLTools.getNodeText(numberTag,""),0) : 0;
-            Print.logInfo("Track Number: " + number);
-    
-            /* track segments */
-            NodeList trksegNodes = XMLTools.getChildElements(trkTag, TAG_trkseg);
-            for (int seg = 0; seg < trksegNodes.getLength(); seg++) {
-                Print.logInfo("Parsing Track Segment ...");
-                Element trksegTag = (Element)trksegNodes.item(seg);
-                NodeList trkptNodes = XMLTools.getChildElements(trksegTag, TAG_trkpt);
-                for (int pt = 0; pt < trkptNodes.getLength(); pt++) {
-                    Element trkptTag = (Element)trkptNodes.item(pt);
-                    double latitude  = XMLTools.getAttributeDouble(trkptTag, ATTR_lat, 0.0);
-                    double longitude = XMLTools.getAttributeDouble(trkptTag, ATTR_lon, 0.0);
-                    Element eleTag   = XMLTools.getChildElement(trkptTag, TAG_ele);
-                    double altitudeM = (eleTag != null)? StringTools.parseDouble(XMLTools.getNodeText(eleTag,""),0.0) : 0.0;
-                    Element timeTag  = XMLTools.getChildElement(trkptTag, TAG_time);
-                    long   timestamp = (timeTag != null)? this._parseTime(XMLTools.getNodeText(timeTag,"")) : 0L;
+        String version = StringTools.trim(xr.getAttributeValue(null, ATTR_version));
+        String creator = StringTools.trim(xr.getAttributeValue(null, ATTR_creator));
+
+        /* track points */
+        Vector<String> tagStack = new Vector<String>();
+        tagStack.add(xr.getLocalName());
+        boolean inTrkpt   = false;
+        double  latitude  = 0.0;
+        double  longitude = 0.0;
+        double  altitudeM = 0.0;
+        long    timestamp = 0L;
+        while (xr.hasNext()) {
+            int evType = xr.next();
+            if (evType == XMLStreamConstants.START_ELEMENT) {
+                String tag = xr.getLocalName();
+                tagStack.add(tag);
+                String parent = ParseEventsXML._parentTag(tagStack);
+                if (tag.equalsIgnoreCase(TAG_trkpt)) {
+                    inTrkpt   = true;
+                    latitude  = StringTools.parseDouble(xr.getAttributeValue(null, ATTR_lat), 0.0);
+                    longitude = StringTools.parseDouble(xr.getAttributeValue(null, ATTR_lon), 0.0);
+                    altitudeM = 0.0;
+                    timestamp = 0L;
+                } else
+                if (inTrkpt && tag.equalsIgnoreCase(TAG_ele)) {
+                    altitudeM = StringTools.parseDouble(xr.getElementText(), 0.0);
+                    tagStack.remove(tagStack.size() - 1); // "getElementText" consumed the end element
+                } else
+                if (inTrkpt && tag.equalsIgnoreCase(TAG_time)) {
+                    timestamp = this._parseTime(StringTools.trim(xr.getElementText()));
+                    tagStack.remove(tagStack.size() - 1);
+                } else
+                if (parent.equalsIgnoreCase(TAG_trk) && tag.equalsIgnoreCase(TAG_name)) {
+                    Print.logInfo("Track Name: " + StringTools.trim(xr.getElementText()));
+                    tagStack.remove(tagStack.size() - 1);
+                } else
+                if (parent.equalsIgnoreCase(TAG_trk) && tag.equalsIgnoreCase(TAG_desc)) {
+                    Print.logInfo("Track Descrption: " + StringTools.trim(xr.getElementText()));
+                    tagStack.remove(tagStack.size() - 1);
+                } else
+                if (parent.equalsIgnoreCase(TAG_trk) && tag.equalsIgnoreCase(TAG_number)) {
+                    Print.logInfo("Track Number: " + StringTools.parseInt(xr.getElementText(),0));
+                    tagStack.remove(tagStack.size() - 1);
+                } else
+                if (tag.equalsIgnoreCase(TAG_trkseg)) {
+                    Print.logInfo("Parsing Track Segment ...");
+                }
+            } else
+            if (evType == XMLStreamConstants.END_ELEMENT) {
+                String tag = xr.getLocalName();
+                if (!tagStack.isEmpty()) {
+                    tagStack.remove(tagStack.size() - 1);
+                }
+                if (tag.equalsIgnoreCase(TAG_trkpt)) {
+                    inTrkpt = false;
                     this._handleEvent(gevHandler,
                         timestamp, StatusCodes.STATUS_LOCATION,
                         latitude, longitude, altitudeM
                         );
                 }
             }
-            
         }
         return true;
 
     }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Parses KML placemark points ("Point/coordinates" with "TimeStamp/when") and
+    *** "gx:Track" points ("when" paired with "gx:coord").  The reader must be positioned
+    *** on the "kml" start element.
+    **/
+    protected boolean _parse_kml(XMLStreamReader xr, GeoEvent.GeoEventHandler gevHandler)
+        throws XMLStreamException
+    {
+        Vector<String> tagStack = new Vector<String>();
+        tagStack.add(xr.getLocalName());
+        boolean     inPlacemark = false;
+        long        pmTime      = 0L;
+        String      pmCoord     = null;
+        Vector<Long> trackTimes = null; // "when" values waiting for a "gx:coord"
+        while (xr.hasNext()) {
+            int evType = xr.next();
+            if (evType == XMLStreamConstants.START_ELEMENT) {
+                String tag = xr.getLocalName();
+                tagStack.add(tag);
+                String parent = ParseEventsXML._parentTag(tagStack);
+                if (tag.equalsIgnoreCase(TAG_Placemark)) {
+                    inPlacemark = true;
+                    pmTime      = 0L;
+                    pmCoord     = null;
+                } else
+                if (tag.equalsIgnoreCase(TAG_Track)) {
+                    trackTimes = new Vector<Long>();
+                } else
+                if ((trackTimes != null) && tag.equalsIgnoreCase(TAG_when)) {
+                    trackTimes.add(new Long(this._parseTime(StringTools.trim(xr.getElementText()))));
+                    tagStack.remove(tagStack.size() - 1);
+                } else
+                if ((trackTimes != null) && tag.equalsIgnoreCase(TAG_coord)) {
+                    // -- "lon lat alt"
+                    long ts = !trackTimes.isEmpty()? trackTimes.remove(0).longValue() : 0L;
+                    String c[] = StringTools.split(StringTools.trim(xr.getElementText()), ' ');
+                    tagStack.remove(tagStack.size() - 1);
+                    this._handleKmlCoord(gevHandler, ts, c);
+                } else
+                if (inPlacemark && parent.equalsIgnoreCase(TAG_TimeStamp) && tag.equalsIgnoreCase(TAG_when)) {
+                    pmTime = this._parseTime(StringTools.trim(xr.getElementText()));
+                    tagStack.remove(tagStack.size() - 1);
+                } else
+                if (inPlacemark && parent.equalsIgnoreCase(TAG_Point) && tag.equalsIgnoreCase(TAG_coordinates)) {
+                    pmCoord = StringTools.trim(xr.getElementText());
+                    tagStack.remove(tagStack.size() - 1);
+                }
+            } else
+            if (evType == XMLStreamConstants.END_ELEMENT) {
+                String tag = xr.getLocalName();
+                if (!tagStack.isEmpty()) {
+                    tagStack.remove(tagStack.size() - 1);
+                }
+                if (tag.equalsIgnoreCase(TAG_Track)) {
+                    trackTimes = null;
+                } else
+                if (tag.equalsIgnoreCase(TAG_Placemark)) {
+                    inPlacemark = false;
+                    if (!StringTools.isBlank(pmCoord)) {
+                        // -- "lon,lat[,alt]"
+                        this._handleKmlCoord(gevHandler, pmTime, StringTools.split(pmCoord, ','));
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+    *** Handles a KML coordinate ("lon,lat[,alt]" split into an array)
+    **/
+    private void _handleKmlCoord(GeoEvent.GeoEventHandler gevHandler, long timestamp, String c[])
+    {
+        if ((c == null) || (c.length < 2)) {
+            return;
+        }
+        double longitude = StringTools.parseDouble(c[0], 0.0);
+        double latitude  = StringTools.parseDouble(c[1], 0.0);
+        double altitudeM = (c.length > 2)? StringTools.parseDouble(c[2], 0.0) : 0.0;
+        this._handleEvent(gevHandler,
+            timestamp, StatusCodes.STATUS_LOCATION,
+            latitude, longitude, altitudeM
+            );
+    }
         
     // ------------------------------------------------------------------------
 
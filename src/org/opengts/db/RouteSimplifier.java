@@ -0,0 +1,423 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+
+import org.opengts.util.*;
+
+/**
+*** <code>RouteSimplifier</code> reduces the number of map events sent to the browser for
+*** a device route, using the Douglas-Peucker algorithm with a tolerance derived from the
+*** map zoom level (or the displayed map bounds).<br>
+*** Key points are never removed: the first/last event of each device, events with an
+*** invalid location, events with a non-discardable status code (alarms, ignition, stops,
+*** geozone arrival/departure, etc), status code changes, and stop/start speed transitions.
+*** The route between consecutive key points is simplified independently.<br>
+*** Simplified results are cached per device, event range, and zoom/tolerance.
+**/
+
+public class RouteSimplifier
+{
+
+    // ------------------------------------------------------------------------
+
+    /* default tolerance, in pixels */
+    public  static final double DFT_PIXEL_TOLERANCE         = 2.0;
+
+    /* meters-per-pixel at the equator for zoom level 0 (256 pixel tiles) */
+    private static final double METERS_PER_PIXEL_ZOOM_0     = 156543.03392;
+
+    /* routes with fewer events are not simplified */
+    private static final int    MIN_SIMPLIFY_COUNT          = 3;
+
+    private static final int    DFT_CACHE_SIZE              = 100;
+
+    /* point flags */
+    private static final byte   POINT_DROP                  = 0;
+    private static final byte   POINT_ROUTE                 = 1;
+    private static final byte   POINT_KEY                   = 2;
+
+    // ------------------------------------------------------------------------
+
+    private static Map<String,byte[]> routeCache = null;
+
+    /**
+    *** Gets the cached point flags for the specified key
+    **/
+    private static byte[] _getCachedRoute(String key)
+    {
+        synchronized (RouteSimplifier.class) {
+            return (RouteSimplifier.routeCache != null)? RouteSimplifier.routeCache.get(key) : null;
+        }
+    }
+
+    /**
+    *** Caches the point flags for the specified key (least-recently-used routes are removed
+    *** once the cache size exceeds "RouteSimplifier.cacheSize")
+    **/
+    private static void _putCachedRoute(String key, byte flags[])
+    {
+        synchronized (RouteSimplifier.class) {
+            if (RouteSimplifier.routeCache == null) {
+                int cs = RTConfig.getInt(DBConfig.PROP_RouteSimplifier_cacheSize, DFT_CACHE_SIZE);
+                if (cs <= 0) {
+                    return; // caching disabled
+                }
+                final int maxSize = cs;
+                RouteSimplifier.routeCache = new LinkedHashMap<String,byte[]>(16, 0.75F, true/*accessOrder*/) {
+                    protected boolean removeEldestEntry(Map.Entry<String,byte[]> eldest) {
+                        return (this.size() > maxSize);
+                    }
+                };
+            }
+            RouteSimplifier.routeCache.put(key, flags);
+        }
+    }
+
+    /**
+    *** Clears the simplified route cache
+    **/
+    public static void ClearRouteCache()
+    {
+        synchronized (RouteSimplifier.class) {
+            if (RouteSimplifier.routeCache != null) {
+                RouteSimplifier.routeCache.clear();
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the number of meters per pixel at the specified zoom level and latitude
+    *** (Web Mercator projection, 256 pixel tiles)
+    *** @param zoom      The map zoom level
+    *** @param latitude  The latitude
+    *** @return The meters per pixel
+    **/
+    public static double GetMetersPerPixel(double zoom, double latitude)
+    {
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        return METERS_PER_PIXEL_ZOOM_0 * Math.abs(cosLat) / Math.pow(2.0, zoom);
+    }
+
+    /**
+    *** Creates a RouteSimplifier with a tolerance derived from the map zoom level
+    *** @param zoom      The map zoom level
+    *** @param pixelTol  The tolerance in pixels (<= 0 for the default)
+    *** @return The RouteSimplifier, or null if the zoom level is invalid
+    **/
+    public static RouteSimplifier ForZoom(double zoom, double pixelTol)
+    {
+        if ((zoom < 0.0) || (zoom > 30.0)) {
+            return null;
+        }
+        return new RouteSimplifier(zoom, 0.0, pixelTol);
+    }
+
+    /**
+    *** Creates a RouteSimplifier with a tolerance derived from the displayed map bounds
+    *** @param bounds    The displayed map bounds
+    *** @param widthPx   The map pixel width
+    *** @param heightPx  The map pixel height
+    *** @param pixelTol  The tolerance in pixels (<= 0 for the default)
+    *** @return The RouteSimplifier, or null if the bounds/dimensions are invalid
+    **/
+    public static RouteSimplifier ForBounds(GeoBounds bounds, int widthPx, int heightPx, double pixelTol)
+    {
+        if ((bounds == null) || !bounds.isValid()) {
+            return null;
+        }
+        double mpp = bounds.getMetersPerPixel(widthPx, heightPx);
+        if (mpp <= 0.0) {
+            return null;
+        }
+        return new RouteSimplifier(-1.0, mpp, pixelTol);
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Result: the simplified route and its key points
+    **/
+    public static class Result
+    {
+        private EventDataProvider   points[]    = null;
+        private EventDataProvider   keyPoints[] = null;
+        private int                 origCount   = 0;
+        private Result(EventDataProvider points[], EventDataProvider keyPoints[], int origCount) {
+            this.points    = points;
+            this.keyPoints = keyPoints;
+            this.origCount = origCount;
+        }
+        /* simplified route (includes all key points), in the original order */
+        public EventDataProvider[] getPoints() {
+            return this.points;
+        }
+        /* key points (stops, status changes, alerts, first/last events) */
+        public EventDataProvider[] getKeyPoints() {
+            return this.keyPoints;
+        }
+        /* number of events before simplification */
+        public int getOriginalCount() {
+            return this.origCount;
+        }
+        public String toString() {
+            return "original=" + this.origCount + " simplified=" + this.points.length + " keyPoints=" + this.keyPoints.length;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private double  zoom            = -1.0;
+    private double  metersPerPixel  = 0.0;
+    private double  pixelTolerance  = DFT_PIXEL_TOLERANCE;
+
+    /**
+    *** Constructor
+    **/
+    private RouteSimplifier(double zoom, double metersPerPixel, double pixelTol)
+    {
+        this.zoom           = zoom;
+        this.metersPerPixel = metersPerPixel;
+        this.pixelTolerance = (pixelTol > 0.0)? pixelTol : DFT_PIXEL_TOLERANCE;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the simplification tolerance, in meters, at the specified latitude
+    *** @param latitude  The latitude (used when the tolerance is derived from the zoom level)
+    *** @return The tolerance in meters
+    **/
+    public double getToleranceMeters(double latitude)
+    {
+        double mpp = (this.zoom >= 0.0)?
+            RouteSimplifier.GetMetersPerPixel(this.zoom, latitude) :
+            this.metersPerPixel;
+        return mpp * this.pixelTolerance;
+    }
+
+    /**
+    *** Gets the cache key component for this tolerance
+    **/
+    private String _getToleranceKey()
+    {
+        if (this.zoom >= 0.0) {
+            return "z" + StringTools.format(this.zoom,"0.00") + "p" + StringTools.format(this.pixelTolerance,"0.0");
+        } else {
+            return "m" + StringTools.format(this.metersPerPixel * this.pixelTolerance,"0.0");
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Simplifies the specified route.  Events are expected to be grouped by device, and in
+    *** ascending timestamp order within each device.
+    *** @param edp  The events
+    *** @return The simplified route and key points
+    **/
+    public Result simplify(EventDataProvider edp[])
+    {
+        if (ListTools.isEmpty(edp)) {
+            return new Result(new EventDataProvider[0], new EventDataProvider[0], 0);
+        }
+        java.util.List<EventDataProvider> points = new Vector<EventDataProvider>();
+        java.util.List<EventDataProvider> keys   = new Vector<EventDataProvider>();
+        for (int s = 0; s < edp.length;) {
+            // -- find the end of this device run
+            String devID = edp[s].getDeviceID();
+            int e = s;
+            while (((e + 1) < edp.length) && devID.equals(edp[e + 1].getDeviceID())) {
+                e++;
+            }
+            // -- simplify device run
+            byte flags[] = this._getRouteFlags(edp, s, e);
+            for (int i = s; i <= e; i++) {
+                byte f = flags[i - s];
+                if (f != POINT_DROP) {
+                    points.add(edp[i]);
+                    if (f == POINT_KEY) {
+                        keys.add(edp[i]);
+                    }
+                }
+            }
+            s = e + 1;
+        }
+        Result result = new Result(
+            points.toArray(new EventDataProvider[points.size()]),
+            keys.toArray(new EventDataProvider[keys.size()]),
+            edp.length);
+        Print.logDebug("Route simplified [" + this._getToleranceKey() + "]: " + result);
+        return result;
+    }
+
+    /**
+    *** Gets the point flags for the device run edp[s..e], from the cache if available
+    **/
+    private byte[] _getRouteFlags(EventDataProvider edp[], int s, int e)
+    {
+        int count = e - s + 1;
+        if (count < MIN_SIMPLIFY_COUNT) {
+            byte flags[] = new byte[count];
+            Arrays.fill(flags, POINT_KEY);
+            return flags;
+        }
+
+        /* cached? */
+        String cacheKey =
+            edp[s].getAccountID() + "/" + edp[s].getDeviceID() + "/" +
+            edp[s].getTimestamp() + "/" + edp[e].getTimestamp() + "/" + count + "/" +
+            this._getToleranceKey();
+        byte flags[] = RouteSimplifier._getCachedRoute(cacheKey);
+        if ((flags != null) && (flags.length == count)) {
+            return flags;
+        }
+
+        /* key points */
+        flags = new byte[count];
+        double sumLat = 0.0;
+        int    valid  = 0;
+        for (int i = s; i <= e; i++) {
+            EventDataProvider ev = edp[i];
+            if (ev.isValidGeoPoint()) {
+                sumLat += ev.getLatitude();
+                valid++;
+            }
+            flags[i - s] = this._isKeyPoint(edp, s, e, i)? POINT_KEY : POINT_DROP;
+        }
+
+        /* simplify between consecutive valid key points */
+        if (valid > 0) {
+            double lat0 = sumLat / (double)valid;
+            double tolM = this.getToleranceMeters(lat0);
+            double cosLat0 = Math.cos(Math.toRadians(lat0));
+            int anchor = -1;
+            for (int i = s; i <= e; i++) {
+                if ((flags[i - s] == POINT_KEY) && edp[i].isValidGeoPoint()) {
+                    if (anchor >= 0) {
+                        this._douglasPeucker(edp, s, anchor, i, tolM, cosLat0, flags);
+                    }
+                    anchor = i;
+                }
+            }
+        }
+
+        RouteSimplifier._putCachedRoute(cacheKey, flags);
+        return flags;
+    }
+
+    /**
+    *** Returns true if the event at index 'i' of the device run edp[s..e] must be retained
+    **/
+    private boolean _isKeyPoint(EventDataProvider edp[], int s, int e, int i)
+    {
+        EventDataProvider ev = edp[i];
+        if ((i == s) || (i == e)) {
+            // -- first/last event
+            return true;
+        } else
+        if (!ev.isValidGeoPoint()) {
+            // -- not part of the route-line, leave as-is
+            return true;
+        }
+        int code = ev.getStatusCode();
+        if (!StatusCodes.IsDiscardable(code)) {
+            // -- alarm, ignition, stop/start, geozone, etc
+            return true;
+        }
+        EventDataProvider prev = edp[i - 1];
+        if (prev.getStatusCode() != code) {
+            // -- status code changed
+            return true;
+        } else
+        if ((prev.getSpeedKPH() > 0.0) != (ev.getSpeedKPH() > 0.0)) {
+            // -- stopped/moving transition
+            return true;
+        }
+        return false;
+    }
+
+    /**
+    *** Douglas-Peucker simplification of edp[a..b] (non-recursive)
+    **/
+    private void _douglasPeucker(EventDataProvider edp[], int s, int a, int b,
+        double tolM, double cosLat0, byte flags[])
+    {
+        if ((b - a) < 2) {
+            return;
+        }
+        int stack[] = new int[2 * (b - a + 1)];
+        int sp = 0;
+        stack[sp++] = a;
+        stack[sp++] = b;
+        while (sp > 0) {
+            int j = stack[--sp];
+            int i = stack[--sp];
+            if ((j - i) < 2) {
+                continue;
+            }
+            double maxD = -1.0;
+            int    maxN = -1;
+            for (int k = i + 1; k < j; k++) {
+                if (flags[k - s] != POINT_DROP) {
+                    continue; // already retained (ie. invalid location)
+                }
+                double d = this._segmentDistanceMeters(edp[k], edp[i], edp[j], cosLat0);
+                if (d > maxD) {
+                    maxD = d;
+                    maxN = k;
+                }
+            }
+            if ((maxN >= 0) && (maxD > tolM)) {
+                flags[maxN - s] = POINT_ROUTE;
+                stack[sp++] = i;
+                stack[sp++] = maxN;
+                stack[sp++] = maxN;
+                stack[sp++] = j;
+            }
+        }
+    }
+
+    /**
+    *** Gets the distance (meters) from point 'p' to the segment 'a'-'b', using an
+    *** equirectangular projection (adequate for the short distances involved)
+    **/
+    private double _segmentDistanceMeters(EventDataProvider p, EventDataProvider a, EventDataProvider b, double cosLat0)
+    {
+        double R  = GeoPoint.EARTH_EQUATORIAL_RADIUS_KM * 1000.0;
+        double ax = Math.toRadians(a.getLongitude()) * cosLat0 * R, ay = Math.toRadians(a.getLatitude()) * R;
+        double bx = Math.toRadians(b.getLongitude()) * cosLat0 * R, by = Math.toRadians(b.getLatitude()) * R;
+        double px = Math.toRadians(p.getLongitude()) * cosLat0 * R, py = Math.toRadians(p.getLatitude()) * R;
+        double dx = bx - ax, dy = by - ay;
+        double len2 = (dx * dx) + (dy * dy);
+        double t = (len2 > 0.0)? (((px - ax) * dx) + ((py - ay) * dy)) / len2 : 0.0;
+        if (t < 0.0) { t = 0.0; } else if (t > 1.0) { t = 1.0; }
+        double cx = ax + (t * dx) - px, cy = ay + (t * dy) - py;
+        return Math.sqrt((cx * cx) + (cy * cy));
+    }
+
+    // ------------------------------------------------------------------------
+
+}
@@ -229,6 +229,14 @@ public interface RuleFactory
     **/
     public String getRuleNotifyEmail(Account account, String ruleID);
 
+    /**
+    *** Returns the notification action mask for the specified rule-id, in the specified Account
+    *** @param account  The account which owns the rule-id
+    *** @param ruleID   The Rule-ID from which the action mask is returned
+    *** @return The rule action mask (ACTION_DEFAULT if the rule does not define an action mask)
+    **/
+    public int getRuleActionMask(Account account, String ruleID);
+
     // ------------------------------------------------------------------------
 
     /**
@@ -285,6 +293,60 @@ public interface RuleFactory
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** CompiledSelector: an immutable, pre-parsed rule selector which may be evaluated
+    *** repeatedly (and concurrently) without re-parsing the selector text.
+    **/
+    public interface CompiledSelector
+    {
+        /**
+        *** Gets the selector text from which this CompiledSelector was compiled
+        **/
+        public String getSelector();
+        /**
+        *** Return true if the specified 'event' matches this selector
+        **/
+        public boolean isMatch(EventData event);
+        /**
+        *** Evaluates this selector against the specified event and returns the result
+        **/
+        public Object evaluate(EventData event)
+            throws RuleParseException;
+    }
+
+    /**
+    *** IndexedSelector: a CompiledSelector which reports the event criteria it references,
+    *** so that it may be bucketed in a RuleIndex, and which can share the results of common
+    *** sub-expressions with other selectors evaluated against the same event.
+    **/
+    public interface IndexedSelector
+        extends CompiledSelector
+    {
+        /**
+        *** Gets the RuleIndex keys (see "RuleIndex.StatusCodeKey", "RuleIndex.GeozoneKey", 
+        *** "RuleIndex.InputKey") of which an event must have at least one in order for this
+        *** selector to match, or null if this selector may match any event.
+        **/
+        public String[] getIndexKeys();
+        /**
+        *** Return true if the specified 'event' matches this selector
+        *** @param event  The event
+        *** @param memo   The sub-expression results already evaluated for this event
+        **/
+        public boolean isMatch(EventData event, Map<String,Object> memo);
+    }
+
+    /**
+    *** Compiles the specified selector.  Compiled selectors are cached by selector text,
+    *** so this method may be called for each evaluation.
+    *** @param selector  The selector to compile.
+    *** @return The compiled selector, or null if the selector is blank
+    **/
+    public CompiledSelector compileSelector(String selector)
+        throws RuleParseException;
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Evaluates a selector against the specified event and returns the result
     *** @param selector  The selector to execute.
@@ -62,6 +62,140 @@ public abstract class RuleFactoryAdapter
 
     // ------------------------------------------------------------------------
 
+    private static final int DFT_SELECTOR_CACHE_SIZE = 500;
+
+    private Map<String,CompiledSelector> selectorCache = null;
+
+    /**
+    *** Gets the compiled selector cache (least-recently-used entries are removed once
+    *** the cache size exceeds "RuleFactory.selectorCacheSize")
+    **/
+    private Map<String,CompiledSelector> _getSelectorCache()
+    {
+        synchronized (this) {
+            if (this.selectorCache == null) {
+                int cs = RTConfig.getInt(DBConfig.PROP_RuleFactory_selectorCacheSize, DFT_SELECTOR_CACHE_SIZE);
+                final int maxSize = (cs > 0)? cs : DFT_SELECTOR_CACHE_SIZE;
+                this.selectorCache = Collections.synchronizedMap(
+                    new LinkedHashMap<String,CompiledSelector>(16, 0.75F, true/*accessOrder*/) {
+                        protected boolean removeEldestEntry(Map.Entry<String,CompiledSelector> eldest) {
+                            return (this.size() > maxSize);
+                        }
+                    });
+            }
+            return this.selectorCache;
+        }
+    }
+
+    /**
+    *** Compiles the specified selector, returning the cached CompiledSelector if this
+    *** selector has already been compiled.
+    *** @param selector  The selector to compile.
+    *** @return The compiled selector, or null if the selector is blank
+    **/
+    public CompiledSelector compileSelector(String selector)
+        throws RuleParseException
+    {
+        if (StringTools.isBlank(selector)) {
+            return null;
+        }
+        Map<String,CompiledSelector> cache = this._getSelectorCache();
+        CompiledSelector cs = cache.get(selector);
+        if (cs == null) {
+            // -- compiled outside of the cache lock (may be compiled more than once)
+            cs = this._compileSelector(selector);
+            if (cs != null) {
+                cache.put(selector, cs);
+            }
+        }
+        return cs;
+    }
+
+    /**
+    *** Compiles the specified selector (not cached).  The default implementation returns
+    *** a CompiledSelector which evaluates the selector text on each call.  Subclasses
+    *** should override this method to pre-parse the selector.
+    *** @param selector  The selector to compile (not blank).
+    *** @return The compiled selector
+    **/
+    protected CompiledSelector _compileSelector(final String selector)
+        throws RuleParseException
+    {
+        final RuleFactory ruleFact = this;
+        return new CompiledSelector() {
+            public String getSelector() {
+                return selector;
+            }
+            public boolean isMatch(EventData event) {
+                return ruleFact.isSelectorMatch(selector, event);
+            }
+            public Object evaluate(EventData event) throws RuleParseException {
+                return ruleFact.evaluateSelector(selector, event);
+            }
+        };
+    }
+
+    /**
+    *** Clears the compiled selector cache (and all rule indexes)
+    **/
+    public void clearSelectorCache()
+    {
+        this._getSelectorCache().clear();
+        this.clearRuleIndex(null);
+    }
+
+    // ------------------------------------------------------------------------
+
+    // -- copy-on-write: the published map is never modified, so it is read without locking
+    private volatile Map<String,RuleIndex> ruleIndexMap  = new HashMap<String,RuleIndex>();
+    private final    Object                ruleIndexLock = new Object();
+
+    /**
+    *** Gets the RuleIndex for the rules defined for the specified Account.  The index is
+    *** built when first requested, and must be cleared (see "clearRuleIndex") when the
+    *** Account rules are changed.
+    *** @param account  The Account
+    *** @return The RuleIndex
+    **/
+    public RuleIndex getRuleIndex(Account account)
+    {
+        String acctID = (account != null)? account.getAccountID() : "";
+        RuleIndex ndx = this.ruleIndexMap.get(acctID);
+        if (ndx != null) {
+            return ndx;
+        }
+        synchronized (this.ruleIndexLock) {
+            ndx = this.ruleIndexMap.get(acctID);
+            if (ndx == null) {
+                ndx = new RuleIndex(this, account);
+                Map<String,RuleIndex> map = new HashMap<String,RuleIndex>(this.ruleIndexMap);
+                map.put(acctID, ndx);
+                this.ruleIndexMap = map;
+            }
+            return ndx;
+        }
+    }
+
+    /**
+    *** Clears the RuleIndex for the specified Account
+    *** @param accountID  The Account ID, or null to clear all rule indexes
+    **/
+    public void clearRuleIndex(String accountID)
+    {
+        synchronized (this.ruleIndexLock) {
+            if (accountID == null) {
+                this.ruleIndexMap = new HashMap<String,RuleIndex>();
+            } else
+            if (this.ruleIndexMap.containsKey(accountID)) {
+                Map<String,RuleIndex> map = new HashMap<String,RuleIndex>(this.ruleIndexMap);
+                map.remove(accountID);
+                this.ruleIndexMap = map;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Returns this RuleFactory name 
     *** @return This RuleFactory name
@@ -124,12 +124,16 @@ public class RuleFactoryExample
     private static String SEL_OVER_SPEED        = "overSpeed";
     private static String SEL_PANIC             = "panic";
     private static String SEL_CODE              = "code";
+    private static String SEL_IN_ZONE           = "inZone";
+    private static String SEL_INPUT             = "input";
     private static String RULE_FUNCTIONS[] = new String[] {
         SEL_IS_STOPPED,
         SEL_OVER_100_KPH,
         SEL_OVER_SPEED,
         SEL_PANIC,
         SEL_CODE,
+        SEL_IN_ZONE,
+        SEL_INPUT,
     };
 
     // ------------------------------------------------------------------------
@@ -153,12 +157,129 @@ public class RuleFactoryExample
 
     // ------------------------------------------------------------------------
 
-    /* interface for rule evaluation function */
-    private static interface RuleFunction
+    /* rule evaluation function */
+    private static abstract class RuleFunction
     {
-        public Object evaluate(EventData ev, String arg);
-        public String usage();
-        public String description();
+        public Object parseArgument(String arg) {
+            // -- parsed once, when the selector is compiled
+            return arg;
+        }
+        public String getIndexKey(Object arg) {
+            // -- RuleIndex key the event must have for this function to be true (null if any)
+            return null;
+        }
+        public abstract Object evaluate(EventData ev, Object arg);
+        public abstract String usage();
+        public abstract String description();
+    }
+
+    /* a single pre-parsed selector function call */
+    private static class SelectorTerm
+    {
+        private String       key = null; // memo key: "name(arg)"
+        private RuleFunction ftn = null;
+        private Object       arg = null;
+        public SelectorTerm(String key, RuleFunction ftn, Object arg) {
+            this.key = key;
+            this.ftn = ftn;
+            this.arg = arg;
+        }
+        public Object evaluate(EventData ev) {
+            return (this.ftn != null)? this.ftn.evaluate(ev, this.arg) : null;
+        }
+        public Object evaluate(EventData ev, Map<String,Object> memo) {
+            if ((this.ftn == null) || (memo == null)) {
+                return this.evaluate(ev);
+            } else
+            if (memo.containsKey(this.key)) {
+                return memo.get(this.key); // already evaluated for this event
+            } else {
+                Object eval = this.evaluate(ev);
+                memo.put(this.key, eval);
+                return eval;
+            }
+        }
+    }
+
+    /* return true if the specified evaluation result is 'true' */
+    private static boolean IsTrue(Object eval)
+    {
+        if (eval == null) {
+            // no valid result, return false
+            return false;
+        } else
+        if (eval instanceof Boolean) {
+            // return Boolean value
+            return ((Boolean)eval).booleanValue();
+        } else
+        if (eval instanceof Number) {
+            // return true if Number is non-zero
+            return (((Number)eval).longValue() != 0L);
+        } else {
+            // return true for everything else
+            return true;
+        }
+    }
+
+    /* compiled selector: a comma-separated list of function calls */
+    private static class ExampleSelector
+        implements IndexedSelector
+    {
+        private String       selector = null;
+        private SelectorTerm terms[]  = null;
+        public ExampleSelector(String selector, SelectorTerm terms[]) {
+            this.selector = selector;
+            this.terms    = terms;
+        }
+        public String getSelector() {
+            return this.selector;
+        }
+        public String[] getIndexKeys() {
+            // -- null (any event) if any term is not restricted
+            Set<String> keys = new OrderedSet<String>();
+            for (int i = 0; i < this.terms.length; i++) {
+                SelectorTerm t = this.terms[i];
+                if (t.ftn == null) {
+                    continue; // never matches
+                }
+                String k = t.ftn.getIndexKey(t.arg);
+                if (k == null) {
+                    return null;
+                }
+                keys.add(k);
+            }
+            return keys.toArray(new String[keys.size()]);
+        }
+        public boolean isMatch(EventData event) {
+            return this.isMatch(event, null);
+        }
+        public boolean isMatch(EventData event, Map<String,Object> memo) {
+            // -- true if any term matches
+            if (event != null) {
+                for (int i = 0; i < this.terms.length; i++) {
+                    if (IsTrue(this.terms[i].evaluate(event, memo))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        public Object evaluate(EventData event) {
+            // -- first 'true' value, otherwise the last value
+            Object eval = null;
+            for (int i = 0; i < this.terms.length; i++) {
+                eval = this.terms[i].evaluate(event);
+                if ((eval instanceof Boolean) && ((Boolean)eval).booleanValue()) {
+                    // return Boolean value
+                    return eval;
+                } else
+                if ((eval instanceof Number) && (((Number)eval).longValue() != 0L)) {
+                    // return Number value
+                    return eval;
+                }
+            }
+            return eval; // return last value
+        }
     }
     
     // ------------------------------------------------------------------------
@@ -174,7 +295,10 @@ public class RuleFactoryExample
 
         /* panic */
         this.ftnMap.put(SEL_PANIC, new RuleFunction() {
-            public Object evaluate(EventData ev, String arg) {
+            public String getIndexKey(Object arg) {
+                return RuleIndex.StatusCodeKey(StatusCodes.STATUS_PANIC_ON);
+            }
+            public Object evaluate(EventData ev, Object arg) {
                 return (ev.getStatusCode() == StatusCodes.STATUS_PANIC_ON);
             }
             public String usage() {
@@ -187,8 +311,14 @@ public class RuleFactoryExample
 
         /* status code */
         this.ftnMap.put(SEL_CODE, new RuleFunction() {
-            public Object evaluate(EventData ev, String arg) {
-                int code = StringTools.parseInt(arg,StatusCodes.STATUS_NONE);
+            public Object parseArgument(String arg) {
+                return new Integer(StringTools.parseInt(arg,StatusCodes.STATUS_NONE));
+            }
+            public String getIndexKey(Object arg) {
+                return RuleIndex.StatusCodeKey(((Integer)arg).intValue());
+            }
+            public Object evaluate(EventData ev, Object arg) {
+                int code = ((Integer)arg).intValue();
                 return (ev.getStatusCode() == code);
             }
             public String usage() {
@@ -201,7 +331,7 @@ public class RuleFactoryExample
 
         /* vehicle speeds over 100 kph */
         this.ftnMap.put(SEL_OVER_100_KPH, new RuleFunction() {
-            public Object evaluate(EventData ev, String arg) {
+            public Object evaluate(EventData ev, Object arg) {
                 return new Boolean(ev.getSpeedKPH() > 100.0);
             }
             public String usage() {
@@ -214,7 +344,7 @@ public class RuleFactoryExample
 
         /* vehicle stopped */
         this.ftnMap.put(SEL_IS_STOPPED, new RuleFunction() {
-            public Object evaluate(EventData ev, String arg) {
+            public Object evaluate(EventData ev, Object arg) {
                 return new Boolean(ev.getSpeedKPH() <= 0.0);
             }
             public String usage() {
@@ -227,8 +357,11 @@ public class RuleFactoryExample
 
         /* vehicle overspeed (with argument) */
         this.ftnMap.put(SEL_OVER_SPEED, new RuleFunction() {
-            public Object evaluate(EventData ev, String arg) {
-                double maxSpeed = StringTools.parseDouble(arg,99999.9);
+            public Object parseArgument(String arg) {
+                return new Double(StringTools.parseDouble(arg,99999.9));
+            }
+            public Object evaluate(EventData ev, Object arg) {
+                double maxSpeed = ((Double)arg).doubleValue();
                 return new Boolean(ev.getSpeedKPH() > maxSpeed);
             }
             public String usage() {
@@ -239,6 +372,47 @@ public class RuleFactoryExample
             }
         });
 
+        /* event geozone (with argument) */
+        this.ftnMap.put(SEL_IN_ZONE, new RuleFunction() {
+            public Object parseArgument(String arg) {
+                return StringTools.trim(arg).toLowerCase();
+            }
+            public String getIndexKey(Object arg) {
+                return RuleIndex.GeozoneKey((String)arg);
+            }
+            public Object evaluate(EventData ev, Object arg) {
+                return new Boolean(((String)arg).equalsIgnoreCase(ev.getGeozoneID()));
+            }
+            public String usage() {
+                return SEL_IN_ZONE;
+            }
+            public String description() {
+                return "True if Event geozone matches specified geozone ID";
+            }
+        });
+
+        /* digital input bit (with argument) */
+        this.ftnMap.put(SEL_INPUT, new RuleFunction() {
+            public Object parseArgument(String arg) {
+                int bit = StringTools.parseInt(arg,-1);
+                return new Integer(((bit >= 0) && (bit < 64))? bit : -1);
+            }
+            public String getIndexKey(Object arg) {
+                int bit = ((Integer)arg).intValue();
+                return (bit >= 0)? RuleIndex.InputKey(bit) : "";
+            }
+            public Object evaluate(EventData ev, Object arg) {
+                int bit = ((Integer)arg).intValue();
+                return new Boolean((bit >= 0) && ((ev.getInputMask() & (1L << bit)) != 0L));
+            }
+            public String usage() {
+                return SEL_INPUT;
+            }
+            public String description() {
+                return "True if specified Event digital input bit is set";
+            }
+        });
+
     }
 
     // ------------------------------------------------------------------------
@@ -375,6 +549,17 @@ public class RuleFactoryExample
         return null;
     }
 
+    /**
+    *** Returns the notification action mask for the specified rule-id, in the specified Account
+    *** @param account  The account which owns the rule-id
+    *** @param ruleID   The Rule-ID from which the action mask is returned
+    *** @return The rule action mask
+    **/
+    public int getRuleActionMask(Account account, String ruleID)
+    {
+        return RuleFactory.ACTION_DEFAULT;
+    }
+
     // ------------------------------------------------------------------------
 
     /* check selector syntax */
@@ -409,57 +594,35 @@ public class RuleFactoryExample
 
     // ------------------------------------------------------------------------
 
-    /* return true if the specified selector matches the specified event record */
-    public boolean isSelectorMatch(String selector, EventData event) 
+    /* compile the specified selector into a list of pre-parsed function calls */
+    protected CompiledSelector _compileSelector(String selector)
     {
-        if ((event != null) && !StringTools.isBlank(selector)) {
-            String selList[] = StringTools.split(selector,',');
-            for (int i = 0; i < selList.length; i++) {
-                if (this._isSelectorMatch(selList[i],event)) {
-                    return true;
-                }
-            }
+        String selList[] = StringTools.split(selector,',');
+        SelectorTerm terms[] = new SelectorTerm[selList.length];
+        for (int i = 0; i < selList.length; i++) {
+            // -- an unknown function never matches (warning is logged once, here)
+            RuleFunction ftn = !StringTools.isBlank(selList[i])? this.getFunction(selList[i]) : null;
+            Object       arg = (ftn != null)? ftn.parseArgument(this.getArgument(selList[i])) : null;
+            String       key = (ftn != null)? (ftn.usage() + "(" + ((arg != null)? arg : "") + ")") : null;
+            terms[i] = new SelectorTerm(key, ftn, arg);
         }
-        return false;
+        return new ExampleSelector(selector, terms);
     }
 
+    // ------------------------------------------------------------------------
+
     /* return true if the specified selector matches the specified event record */
-    private boolean _isSelectorMatch(String selector, EventData event) 
+    public boolean isSelectorMatch(String selector, EventData event) 
     {
-        
-        /* valid selector */
-        if (StringTools.isBlank(selector)) {
-            return false;
-        }
-
-        /* get function */
-        RuleFunction ftn = this.getFunction(selector);
-        if (ftn == null) {
-            // no function, no match
-            return false;
-        }
-
-        /* evaluate function */
-        String arg = this.getArgument(selector);
-        Object eval = ftn.evaluate(event,arg);
-        if (eval == null) {
-            // no valid result, return false
-            return false;
-        }
-        
-        /* return boolean results */
-        if (eval instanceof Boolean) {
-            // return Boolean value
-            return ((Boolean)eval).booleanValue();
-        } else
-        if (eval instanceof Number) {
-            // return true if Number is non-zero
-            return (((Number)eval).longValue() != 0L);
-        } else {
-            // return true for everything else
-            return true;
+        if ((event != null) && !StringTools.isBlank(selector)) {
+            try {
+                CompiledSelector cs = this.compileSelector(selector);
+                return (cs != null) && cs.isMatch(event);
+            } catch (RuleParseException rpe) {
+                Print.logWarn("Invalid selector: " + selector + " [" + rpe.getMessage() + "]");
+            }
         }
-
+        return false;
     }
 
     // ------------------------------------------------------------------------
@@ -475,37 +638,13 @@ public class RuleFactoryExample
     /* return the result of the specified selector */
     public Object evaluateSelector(String selector, EventData event) 
     {
-        String selList[] = StringTools.split(selector,',');
-        Object eval = null;
-        for (int i = 0; i < selList.length; i++) {
-            eval = this._evaluateSelector(selList[i],event);
-            if ((eval instanceof Boolean) && ((Boolean)eval).booleanValue()) {
-                // return Boolean value
-                return eval;
-            } else
-            if ((eval instanceof Number) && (((Number)eval).longValue() != 0L)) {
-                // return Number value
-                return eval;
-            }
-        }
-        return eval; // return last value
-    }
-
-    /* return the result of the specified selector */
-    private Object _evaluateSelector(String selector, EventData event) 
-    {
-
-        /* get function */
-        RuleFunction ftn = this.getFunction(selector);
-        if (ftn == null) {
-            // no function
+        try {
+            CompiledSelector cs = this.compileSelector(selector);
+            return (cs != null)? cs.evaluate(event) : null;
+        } catch (RuleParseException rpe) {
+            Print.logWarn("Invalid selector: " + selector + " [" + rpe.getMessage() + "]");
             return null;
         }
-        
-        /* evaluate and return */
-        String arg = this.getArgument(selector);
-        return ftn.evaluate(event,arg);
-
     }
 
     // ------------------------------------------------------------------------
@@ -551,8 +690,20 @@ public class RuleFactoryExample
             return actionMask;
         }
             
-        // other rules/selectors can be evaluated here
-        // IE. loop through other selectors: this.executeSelector(ruleSel[i], event);
+        /* Account rules (only candidate rules for this event are evaluated) */
+        RuleIndex ruleIndex = this.getRuleIndex(event.getAccount());
+        if (ruleIndex.getRuleCount() > 0) {
+            int accumMask = 0;
+            for (RuleIndex.IndexedRule rule : ruleIndex.getMatchingRules(event)) {
+                int actionMask = rule.getActionMask();
+                Print.logDebug("Rule matched: " + rule.getRuleID() + " [action=0x" + StringTools.toHexString(actionMask,16) + "]");
+                RuleFactoryExample._sendNotification(event, actionMask);
+                accumMask |= actionMask;
+            }
+            if (accumMask != 0) {
+                return accumMask;
+            }
+        }
 
         /* no triggered rules */
         return -1;
@@ -677,6 +828,13 @@ public class RuleFactoryExample
             body += "Address   : " + evdb.getAddress() + "\n";
         }
         body += "\n";
+        if ((privLabel != null) && privLabel.hasEventNotificationEMail()) {
+            // -- PrivateLabel notification subject/body templates ("${key}" replacement)
+            String subjTmp = privLabel.getEventNotificationSubject();
+            String bodyTmp = privLabel.getEventNotificationBody();
+            if (subjTmp != null) { subj = MessageTemplate.Render(subjTmp, evdb, privLabel); }
+            if (bodyTmp != null) { body = MessageTemplate.Render(bodyTmp, evdb, privLabel); }
+        }
         String smsm = null; // TODO: specific SMS message
 
         /* debug logging */
@@ -814,6 +972,26 @@ public class RuleFactoryExample
         printMatch(ruleFact, evRcd, SEL_OVER_SPEED + ":" + 99.0);
         printMatch(ruleFact, evRcd, SEL_OVER_SPEED + ":" + 106.0);
 
+        /* benchmark: uncached compile per evaluation vs. cached compiled selector */
+        // -- ie. "-bench=1000000"
+        long benchCount = RTConfig.getLong("bench", 0L);
+        if (benchCount > 0L) {
+            RuleFactoryExample rfe = (RuleFactoryExample)ruleFact;
+            String sel = SEL_PANIC + "," + SEL_CODE + ":" + StatusCodes.STATUS_MOTION_START + "," + SEL_OVER_SPEED + "(120)";
+            long startMS = DateTime.getCurrentTimeMillis();
+            for (long i = 0L; i < benchCount; i++) {
+                rfe._compileSelector(sel).isMatch(evRcd);
+            }
+            long parseMS = Math.max(DateTime.getCurrentTimeMillis() - startMS, 1L);
+            startMS = DateTime.getCurrentTimeMillis();
+            for (long i = 0L; i < benchCount; i++) {
+                rfe.isSelectorMatch(sel, evRcd);
+            }
+            long cacheMS = Math.max(DateTime.getCurrentTimeMillis() - startMS, 1L);
+            Print.logInfo("Parse per evaluation: " + ((benchCount * 1000L) / parseMS) + " evaluations/sec");
+            Print.logInfo("Cached compiled     : " + ((benchCount * 1000L) / cacheMS) + " evaluations/sec");
+        }
+
     }
     
 }
@@ -0,0 +1,340 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.lang.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.opengts.util.*;
+
+import org.opengts.db.tables.*;
+
+/**
+*** <code>RuleIndex</code> holds the compiled rules of an Account, bucketed by the status
+*** codes, geozone IDs, and input bits referenced by each rule selector (see
+*** <code>RuleFactory.IndexedSelector</code>).  Rules which may match any event are placed in
+*** a catch-all bucket.  For each event only the rules in the buckets for the event status
+*** code, geozone, and set input bits (plus the catch-all rules) are evaluated, and the
+*** results of sub-expressions shared by several rules are evaluated only once per event.
+*** The buckets are held in an immutable snapshot, so events are matched without locking.
+**/
+
+public class RuleIndex
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final long   STATS_INTERVAL_MS       = 5L * 60L * 1000L;
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the index key for the specified status code
+    **/
+    public static String StatusCodeKey(int statusCode)
+    {
+        return "code:" + statusCode;
+    }
+
+    /**
+    *** Gets the index key for the specified geozone ID
+    **/
+    public static String GeozoneKey(String geozoneID)
+    {
+        return "zone:" + StringTools.trim(geozoneID).toLowerCase();
+    }
+
+    /**
+    *** Gets the index key for the specified input bit
+    **/
+    public static String InputKey(int bit)
+    {
+        return "input:" + bit;
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** IndexedRule: a rule-id, its compiled selector, and its notification action mask
+    **/
+    public static class IndexedRule
+    {
+        private int                             ndx        = 0;
+        private String                          ruleID     = null;
+        private RuleFactory.CompiledSelector    selector   = null;
+        private int                             actionMask = RuleFactory.ACTION_DEFAULT;
+        private IndexedRule(int ndx, String ruleID, RuleFactory.CompiledSelector selector, int actionMask) {
+            this.ndx        = ndx;
+            this.ruleID     = ruleID;
+            this.selector   = selector;
+            this.actionMask = actionMask;
+        }
+        public String getRuleID() {
+            return this.ruleID;
+        }
+        public RuleFactory.CompiledSelector getSelector() {
+            return this.selector;
+        }
+        public int getActionMask() {
+            return this.actionMask;
+        }
+        private boolean isMatch(EventData event, Map<String,Object> memo) {
+            if (this.selector instanceof RuleFactory.IndexedSelector) {
+                return ((RuleFactory.IndexedSelector)this.selector).isMatch(event, memo);
+            } else {
+                return this.selector.isMatch(event);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Snapshot: the rules and buckets of this index.  A snapshot is never modified once it
+    *** has been published, so events are matched against it without locking.
+    **/
+    private static class Snapshot
+    {
+        private IndexedRule                 rules[]     = null;
+        private Map<String,IndexedRule[]>   buckets     = null;
+        private IndexedRule                 catchAll[]  = null;
+        private Snapshot(java.util.List<IndexedRule> ruleList) {
+            Map<String,java.util.List<IndexedRule>> bucketLists = new HashMap<String,java.util.List<IndexedRule>>();
+            java.util.List<IndexedRule> catchAllList = new Vector<IndexedRule>();
+            for (IndexedRule rule : ruleList) {
+                String keys[] = (rule.selector instanceof RuleFactory.IndexedSelector)?
+                    ((RuleFactory.IndexedSelector)rule.selector).getIndexKeys() : null;
+                if (keys == null) {
+                    catchAllList.add(rule);
+                } else {
+                    // -- an empty key list can never match
+                    for (String key : keys) {
+                        java.util.List<IndexedRule> bucket = bucketLists.get(key);
+                        if (bucket == null) {
+                            bucket = new Vector<IndexedRule>();
+                            bucketLists.put(key, bucket);
+                        }
+                        if (!bucket.contains(rule)) {
+                            bucket.add(rule);
+                        }
+                    }
+                }
+            }
+            this.rules    = ruleList.toArray(new IndexedRule[ruleList.size()]);
+            this.buckets  = new HashMap<String,IndexedRule[]>();
+            for (String key : bucketLists.keySet()) {
+                java.util.List<IndexedRule> bucket = bucketLists.get(key);
+                this.buckets.put(key, bucket.toArray(new IndexedRule[bucket.size()]));
+            }
+            this.catchAll = catchAllList.toArray(new IndexedRule[catchAllList.size()]);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private String              accountID   = null;
+    private volatile Snapshot   snapshot    = new Snapshot(new Vector<IndexedRule>());
+
+    private AtomicLong          eventCount  = new AtomicLong(0L);
+    private AtomicLong          evalCount   = new AtomicLong(0L);
+    private AtomicLong          matchCount  = new AtomicLong(0L);
+    private AtomicLong          lastStatsMS = new AtomicLong(0L);
+
+    /**
+    *** Constructor
+    *** @param accountID  The Account ID (used for logging)
+    **/
+    public RuleIndex(String accountID)
+    {
+        this.accountID = accountID;
+        this.lastStatsMS.set(DateTime.getCurrentTimeMillis());
+    }
+
+    /**
+    *** Constructor: loads and compiles the rules defined for the specified Account
+    *** @param ruleFact  The RuleFactory
+    *** @param account   The Account
+    **/
+    public RuleIndex(RuleFactory ruleFact, Account account)
+    {
+        this((account != null)? account.getAccountID() : "");
+        java.util.List<IndexedRule> ruleList = new Vector<IndexedRule>();
+        String ruleIDs[] = (account != null)? ruleFact.getRuleIDs(account) : null;
+        if (ruleIDs != null) {
+            for (String ruleID : ruleIDs) {
+                String selector = ruleFact.getRuleSelector(account, ruleID);
+                if (StringTools.isBlank(selector)) {
+                    continue;
+                }
+                try {
+                    RuleFactory.CompiledSelector cs = ruleFact.compileSelector(selector);
+                    if (cs != null) {
+                        int actionMask = ruleFact.getRuleActionMask(account, ruleID);
+                        ruleList.add(new IndexedRule(ruleList.size(), ruleID, cs, actionMask));
+                    }
+                } catch (RuleParseException rpe) {
+                    Print.logWarn("Skipping invalid rule " + this.accountID + "/" + ruleID + ": " + rpe.getMessage());
+                }
+            }
+        }
+        this.snapshot = new Snapshot(ruleList);
+        Print.logDebug("Loaded rule index: " + this.accountID + " " + this.getStatistics());
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Adds the specified rule to this index, with the default action mask
+    *** @param ruleID    The rule-id
+    *** @param selector  The compiled rule selector
+    **/
+    public void addRule(String ruleID, RuleFactory.CompiledSelector selector)
+    {
+        this.addRule(ruleID, selector, RuleFactory.ACTION_DEFAULT);
+    }
+
+    /**
+    *** Adds the specified rule to this index.  A new snapshot is published, events currently
+    *** being matched continue to use the previous snapshot.
+    *** @param ruleID      The rule-id
+    *** @param selector    The compiled rule selector
+    *** @param actionMask  The rule notification action mask
+    **/
+    public synchronized void addRule(String ruleID, RuleFactory.CompiledSelector selector, int actionMask)
+    {
+        if (selector == null) {
+            return;
+        }
+        java.util.List<IndexedRule> ruleList = ListTools.toList(this.snapshot.rules, new Vector<IndexedRule>());
+        ruleList.add(new IndexedRule(ruleList.size(), ruleID, selector, actionMask));
+        this.snapshot = new Snapshot(ruleList);
+    }
+
+    /**
+    *** Gets the number of rules in this index
+    **/
+    public int getRuleCount()
+    {
+        return this.snapshot.rules.length;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the rules which may match the specified event, in the order the rules were added
+    *** @param event  The event
+    *** @return The list of candidate rules
+    **/
+    public java.util.List<IndexedRule> getCandidateRules(EventData event)
+    {
+        Snapshot snap = this.snapshot;
+        BitSet cand = new BitSet(snap.rules.length);
+        RuleIndex._addBucket(cand, snap.catchAll);
+        RuleIndex._addBucket(cand, snap.buckets.get(RuleIndex.StatusCodeKey(event.getStatusCode())));
+        String zoneID = event.getGeozoneID();
+        if (!StringTools.isBlank(zoneID)) {
+            RuleIndex._addBucket(cand, snap.buckets.get(RuleIndex.GeozoneKey(zoneID)));
+        }
+        long inputMask = event.getInputMask();
+        for (int b = 0; (inputMask != 0L) && (b < 64); b++) {
+            if ((inputMask & (1L << b)) != 0L) {
+                RuleIndex._addBucket(cand, snap.buckets.get(RuleIndex.InputKey(b)));
+                inputMask &= ~(1L << b);
+            }
+        }
+        java.util.List<IndexedRule> list = new Vector<IndexedRule>(cand.cardinality());
+        for (int n = cand.nextSetBit(0); n >= 0; n = cand.nextSetBit(n + 1)) {
+            list.add(snap.rules[n]);
+        }
+        return list;
+    }
+
+    private static void _addBucket(BitSet cand, IndexedRule bucket[])
+    {
+        if (bucket != null) {
+            for (IndexedRule rule : bucket) {
+                cand.set(rule.ndx);
+            }
+        }
+    }
+
+    /**
+    *** Evaluates the candidate rules against the specified event
+    *** @param event  The event
+    *** @return The list of matching rules, in the order the rules were added
+    **/
+    public java.util.List<IndexedRule> getMatchingRules(EventData event)
+    {
+        java.util.List<IndexedRule> match = new Vector<IndexedRule>();
+        if (event == null) {
+            return match;
+        }
+        java.util.List<IndexedRule> cand = this.getCandidateRules(event);
+        Map<String,Object> memo = new HashMap<String,Object>(); // shared sub-expressions
+        for (IndexedRule rule : cand) {
+            if (rule.isMatch(event, memo)) {
+                match.add(rule);
+            }
+        }
+        this.eventCount.incrementAndGet();
+        this.evalCount.addAndGet(cand.size());
+        this.matchCount.addAndGet(match.size());
+        long nowMS  = DateTime.getCurrentTimeMillis();
+        long lastMS = this.lastStatsMS.get();
+        if (((nowMS - lastMS) >= STATS_INTERVAL_MS) && this.lastStatsMS.compareAndSet(lastMS, nowMS)) {
+            Print.logInfo("Rule index statistics: " + this.accountID + " " + this.getStatistics());
+        }
+        return match;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the average number of rules evaluated per event
+    **/
+    public double getRulesEvaluatedPerEvent()
+    {
+        long events = this.eventCount.get();
+        return (events > 0L)? ((double)this.evalCount.get() / (double)events) : 0.0;
+    }
+
+    /**
+    *** Gets the index statistics
+    *** @return The statistics String
+    **/
+    public String getStatistics()
+    {
+        Snapshot snap = this.snapshot;
+        StringBuffer sb = new StringBuffer();
+        sb.append("rules=").append(snap.rules.length);
+        sb.append(" buckets=").append(snap.buckets.size());
+        sb.append(" catchAll=").append(snap.catchAll.length);
+        sb.append(" events=").append(this.eventCount.get());
+        sb.append(" evaluated=").append(this.evalCount.get());
+        sb.append(" matched=").append(this.matchCount.get());
+        sb.append(" rulesPerEvent=").append(StringTools.format(this.getRulesEvaluatedPerEvent(),"0.00"));
+        return sb.toString();
+    }
+
+    // ------------------------------------------------------------------------
+
+}
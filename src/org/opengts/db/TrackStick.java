@@ -68,6 +68,7 @@ public class TrackStick
     // trackStick.minimumDormantSeconds=1800
     // trackStick.minimumMovingSeconds=120
     // trackStick.estimateOdometer=true
+    // trackStick.batchSize=0
 
     public  static final String  PROP_defaultTimeZone       = "trackStick.defaultTimeZone";
     public  static final String  PROP_minimumSpeedKPH       = "trackStick.minimumSpeedKPH";
@@ -78,6 +79,7 @@ public class TrackStick
     public  static final String  PROP_addIgnitionState      = "trackStick.addIgnitionState";
     public  static final String  PROP_preClearEvents        = "trackStick.preClearEvents";
     public  static final String  PROP_reverseGeocode        = "trackStick.reverseGeocode";
+    public  static final String  PROP_batchSize             = "trackStick.batchSize";
 
     private static       String  DFT_TIMEZONE               = "GMT";
     private static       double  MIN_SPEEDKPH               = 0.0;
@@ -90,6 +92,7 @@ public class TrackStick
     private static       boolean PRE_CLEAR_EVENTS           = false;
     private static       boolean PRE_CLEAR_ONLY             = false;
     private static       boolean REVERSE_GEOCODE            = false;
+    private static       int     BATCH_SIZE                 = 0; // 0 = insert via Device.insertEventData
 
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
@@ -116,6 +119,9 @@ public class TrackStick
     private boolean  addIgnitionState   = ADD_IGNITION_STATE;
     private boolean  preClearEvents     = PRE_CLEAR_EVENTS;
     private boolean  reverseGeocode     = REVERSE_GEOCODE;
+    private int      batchSize          = BATCH_SIZE;
+
+    private EventImportBatch importBatch = null;
 
     public TrackStick(Account acct, Device dev)
     {
@@ -134,6 +140,7 @@ public class TrackStick
         this.addIgnitionState = RTConfig.getBoolean(PROP_addIgnitionState     , ADD_IGNITION_STATE);
         this.preClearEvents   = RTConfig.getBoolean(PROP_preClearEvents       , PRE_CLEAR_EVENTS);
         this.reverseGeocode   = RTConfig.getBoolean(PROP_reverseGeocode       , REVERSE_GEOCODE);
+        this.batchSize        = RTConfig.getInt(    PROP_batchSize            , BATCH_SIZE);
 
     }
 
@@ -897,6 +904,13 @@ public class TrackStick
 
         } // CSV record loop
 
+        /* insert remaining batched events */
+        if (this.importBatch != null) {
+            this.importBatch.flush();
+            Print.logInfo("Batch insert: " + this.importBatch.getProgress());
+            this.importBatch = null;
+        }
+
         /* update device info */
         if (!DEBUG_MODE && (this.device != null)) {
             try {
@@ -981,8 +995,17 @@ public class TrackStick
             tempC);
 
         /* insert event */
-        // this will display an error if it was unable to store the event
-        device.insertEventData(evdb);
+        if ((this.batchSize > 0) && !this.reverseGeocode) {
+            // -- batched JDBC insert (Device record updated once per batch)
+            // -  (reverse-geocoding requires "Device.insertEventData")
+            if (this.importBatch == null) {
+                this.importBatch = new EventImportBatch(device, this.batchSize);
+            }
+            this.importBatch.addEvent(evdb);
+        } else {
+            // this will display an error if it was unable to store the event
+            device.insertEventData(evdb);
+        }
         this.eventTotalCount++;
         Print.logInfo("Stored Event : [0x" + StringTools.toHexString(statusCode,16) + "] " + 
             StatusCodes.GetDescription(statusCode,null));
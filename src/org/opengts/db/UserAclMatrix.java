@@ -0,0 +1,235 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.db;
+
+import java.util.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+
+import org.opengts.db.AclEntry.AccessLevel;
+import org.opengts.db.tables.*;
+
+/**
+*** <code>UserAclMatrix</code> holds the resolved AccessLevel of a User for every ACL defined
+*** by a BasicPrivateLabel (User overrides, then Role ACLs, then the PrivateLabel defaults,
+*** limited to the User maximum access level).  The matrix is compiled with one UserAcl and
+*** one RoleAcl query, and is indexed by the BasicPrivateLabel ACL registry
+*** (see "BasicPrivateLabel.getAclIndex").<br>
+*** A compiled matrix remains valid until any UserAcl/RoleAcl/Role record is changed (which
+*** increments the global ACL version), the User role/maximum-access-level changes, or the
+*** matrix exceeds its maximum age.
+**/
+
+public class UserAclMatrix
+{
+
+    // ------------------------------------------------------------------------
+
+    /* maximum age of a compiled matrix (ACL changes made by other processes) */
+    private static final long   MAX_AGE_MS              = 5L * 60L * 1000L; // 5 minutes
+
+    // ------------------------------------------------------------------------
+    // ACL version
+
+    private static long         AclVersion              = 1L;
+
+    /**
+    *** Gets the current global ACL version
+    *** @return The current global ACL version
+    **/
+    public static long GetAclVersion()
+    {
+        synchronized (UserAclMatrix.class) {
+            return AclVersion;
+        }
+    }
+
+    /**
+    *** Increments the global ACL version.  Called when a UserAcl, RoleAcl, or Role record
+    *** has been changed, to invalidate all previously compiled matrices.
+    **/
+    public static void IncrementAclVersion()
+    {
+        synchronized (UserAclMatrix.class) {
+            AclVersion++;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Compiles the AccessLevel matrix for the specified User
+    *** @param bpl   The BasicPrivateLabel
+    *** @param user  The User (must not be an admin user)
+    *** @return The compiled UserAclMatrix, or null if the matrix could not be compiled
+    **/
+    public static UserAclMatrix Compile(BasicPrivateLabel bpl, User user)
+    {
+        if ((bpl == null) || (user == null) || User.isAdminUser(user)) {
+            return null;
+        }
+        long version = UserAclMatrix.GetAclVersion(); // before reading ACLs
+
+        /* read User/Role ACLs */
+        Role role = user.getRole();
+        Map<String,AccessLevel> userAcls;
+        Map<String,AccessLevel> roleAcls;
+        try {
+            userAcls = UserAcl.getAccessLevelMap(user);
+            roleAcls = (role != null)? RoleAcl.getAccessLevelMap(role) : null;
+        } catch (DBException dbe) {
+            Print.logException("Unable to compile User ACLs: " + user, dbe);
+            return null;
+        }
+
+        /* resolve all ACLs */
+        // -- same resolution as "BasicPrivateLabel.getAccessLevel(User,String)"
+        AclEntry aclEntries[] = bpl.getAllAclEntries();
+        AccessLevel levels[]  = new AccessLevel[aclEntries.length];
+        int maxAccessLevel    = user.getMaxAccessLevel();
+        int maxUserAclLevel   = AccessLevel.ALL.getIntValue(); // see "UserAcl.getAccessLevel"
+        for (int a = 0; a < aclEntries.length; a++) {
+            String aclName = aclEntries[a].getName();
+            AccessLevel acl = (userAcls != null)? userAcls.get(aclName) : null;
+            if (acl != null) {
+                // -- User override
+                if (acl.getIntValue() > maxUserAclLevel) {
+                    acl = AclEntry.getAccessLevel(maxUserAclLevel);
+                }
+            } else {
+                // -- Role ACL, or PrivateLabel default
+                acl = (roleAcls != null)? roleAcls.get(aclName) : null;
+                if (acl == null) {
+                    acl = aclEntries[a].getDefaultAccessLevel();
+                }
+            }
+            if ((acl != null) && (acl.getIntValue() > maxAccessLevel)) {
+                acl = AclEntry.getAccessLevel(maxAccessLevel);
+            }
+            levels[a] = acl;
+        }
+
+        /* matrix */
+        return new UserAclMatrix(bpl, user, aclEntries, levels, version);
+
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private String              bplName         = null;
+    private String              accountID       = null;
+    private String              userID          = null;
+    private String              roleID          = null;
+    private int                 maxAccessLevel  = 0;
+
+    private AclEntry            aclEntries[]    = null;
+    private AccessLevel         levels[]        = null;
+
+    private long                version         = 0L;
+    private long                createTimeMS    = 0L;
+
+    /**
+    *** Constructor
+    **/
+    private UserAclMatrix(BasicPrivateLabel bpl, User user,
+        AclEntry aclEntries[], AccessLevel levels[], long version)
+    {
+        this.bplName        = bpl.getName();
+        this.accountID      = user.getAccountID();
+        this.userID         = user.getUserID();
+        this.roleID         = user.getRoleID();
+        this.maxAccessLevel = user.getMaxAccessLevel();
+        this.aclEntries     = aclEntries;
+        this.levels         = levels;
+        this.version        = version;
+        this.createTimeMS   = DateTime.getCurrentTimeMillis();
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the global ACL version at the time this matrix was compiled
+    *** @return The ACL version
+    **/
+    public long getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+    *** Returns true if this matrix is still valid for the specified BasicPrivateLabel and User
+    *** @param bpl   The BasicPrivateLabel
+    *** @param user  The User
+    *** @return True if this matrix is still valid
+    **/
+    public boolean isValid(BasicPrivateLabel bpl, User user)
+    {
+        if ((bpl == null) || (user == null)) {
+            return false;
+        } else
+        if (this.version != UserAclMatrix.GetAclVersion()) {
+            return false; // ACLs changed
+        } else
+        if ((DateTime.getCurrentTimeMillis() - this.createTimeMS) > MAX_AGE_MS) {
+            return false; // expired
+        } else
+        if (this.aclEntries != bpl.getAllAclEntries()) {
+            return false; // PrivateLabel ACL registry changed
+        } else
+        if (!this.bplName.equals(bpl.getName())        ||
+            !this.accountID.equals(user.getAccountID()) ||
+            !this.userID.equals(user.getUserID())       ||
+            !this.roleID.equals(user.getRoleID())       ||
+            (this.maxAccessLevel != user.getMaxAccessLevel())) {
+            return false; // different User, or User changed
+        } else {
+            return true;
+        }
+    }
+
+    /**
+    *** Gets the AccessLevel for the specified ACL index
+    *** @param aclIndex  The ACL index (see "BasicPrivateLabel.getAclIndex")
+    *** @return The AccessLevel, or null if the index is invalid
+    **/
+    public AccessLevel getAccessLevel(int aclIndex)
+    {
+        if ((aclIndex >= 0) && (aclIndex < this.levels.length)) {
+            return this.levels[aclIndex];
+        } else {
+            return null;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns a String representation of this instance
+    *** @return A String representation of this instance
+    **/
+    public String toString()
+    {
+        return this.accountID + "/" + this.userID + " [acls=" + this.levels.length + ", version=" + this.version + "]";
+    }
+
+    // ------------------------------------------------------------------------
+
+}
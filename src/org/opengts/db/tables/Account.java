@@ -1682,6 +1682,11 @@ public class Account
     }
 
     public boolean incrementPingCount(long pingTime, boolean reload, boolean update)
+    {
+        return this.incrementPingCount(1, pingTime, reload, update);
+    }
+
+    public boolean incrementPingCount(int count, long pingTime, boolean reload, boolean update)
     {
 
         /* refresh current totalPingCount */
@@ -1691,7 +1696,7 @@ public class Account
         }
 
         /* increment totalPingCount */
-        this.setTotalPingCount(this.getTotalPingCount() + 1);
+        this.setTotalPingCount(this.getTotalPingCount() + count);
         if (pingTime > 0L) {
             //this.setLastPingTime(pingTime);   TODO: add this method
         }
@@ -4505,6 +4510,7 @@ public class Account
     private static final String ARG_CNT_OLD_EV[] = new String[] { "countOldEvents"     };
     private static final String ARG_DEL_OLD_EV[] = new String[] { "deleteOldEvents"    };
     private static final String ARG_CONFIRM_DEL[]= new String[] { "confirmDelete"      };
+    private static final String ARG_CHUNKED[]    = new String[] { "chunked"            };
     private static final String ARG_FIND_EMAIL[] = new String[] { "findEMail"          };
 
     private static void usage()
@@ -4529,6 +4535,7 @@ public class Account
         Print.sysPrintln("  -countOldEvents=<EpochTime>  Count events (for all Devices) before specified Epoch time");
         Print.sysPrintln("  -deleteOldEvents=<EpochTime> Delete events (for all Devices) before specified Epoch time (requires '-confirm')");
         Print.sysPrintln("  -confirm                     Confirms countOldEvents/deleteOldEvents");
+        Print.sysPrintln("  -chunked                     Delete old events in throttled chunks (see 'EventDataPurge.*')");
         Print.sysPrintln("");
         Print.sysPrintln("  -prune                       Deactivate/Delete expired accounts");
         System.exit(1);
@@ -5184,6 +5191,19 @@ public class Account
                         Print.sysPrintln("ERROR: Missing '-"+ARG_CONFIRM_DEL[0]+"', aborting delete ...");
                         System.exit(1);
                     }
+                    if (EventDataShards.IsEnabled() && acctID.equalsIgnoreCase("all")) {
+                        // -- drop whole time-shards which hold no retained events (all Accounts)
+                        long dropTimeSec = EventDataShards.GetDropShardsTime(oldTimeSec);
+                        Print.sysPrintln("Dropping EventData shard tables prior to: " + (new DateTime(dropTimeSec)));
+                        int dropped = EventDataShards.DropShardsBefore(dropTimeSec);
+                        Print.sysPrintln("Dropped EventData shard tables: " + dropped);
+                    }
+                    if (RTConfig.getBoolean(ARG_CHUNKED,false)) {
+                        // -- chunked/throttled/resumable purge
+                        EventDataPurge purge = new EventDataPurge(oldTimeSec);
+                        purge.purgeAccounts(acctList);
+                        System.exit((purge.getFailedCount() > 0)? 1 : 0);
+                    }
                     for (String A : acctList) {
                         if (!StringTools.isBlank(A)) {
                             Account account = Account.getAccount(A);
@@ -6815,6 +6815,19 @@ public class Device // Asset
     *** @return True if successfully incremented
     **/
     public boolean incrementPingCount(long pingTime, boolean reload, boolean update)
+    {
+        return this.incrementPingCount(pingTime, reload, update, true);
+    }
+
+    /**
+    *** Increments the command count for this device
+    *** @param pingTime  The time of the command
+    *** @param reload    True to force a reload of the Device record prior to counting the command
+    *** @param update    True to update the Device after incrementing the count
+    *** @param account   True to also increment the Account command count
+    *** @return True if successfully incremented
+    **/
+    public boolean incrementPingCount(long pingTime, boolean reload, boolean update, boolean account)
     {
 
         /* refresh current value */
@@ -6842,9 +6855,11 @@ public class Device // Asset
         }
 
         /* update Account */
-        Account account = this.getAccount();
-        if (account != null) {
-            account.incrementPingCount(pingTime, reload, update);
+        if (account) {
+            Account acct = this.getAccount();
+            if (acct != null) {
+                acct.incrementPingCount(pingTime, reload, update);
+            }
         }
 
         return true;
@@ -9507,6 +9522,67 @@ public class Device // Asset
 
     }
 
+    /**
+    *** Sends the specified command to each of the specified devices.<br>
+    *** Devices with a DCServerConfig are sent the command with a single batch request (see
+    *** "DCServerFactory.sendServerCommands"), all other devices are sent the command through 
+    *** the PingDispatcher, one device at a time.
+    *** @param devices  The list of Devices
+    *** @param cmdType  The Command type
+    *** @param cmdName  The Command name
+    *** @param cmdArgs  The Command args/parameters
+    *** @return The number of devices to which the command was sent successfully
+    **/
+    public static int sendDeviceCommands(java.util.List<Device> devices, 
+        String cmdType, String cmdName, String cmdArgs[])
+    {
+        if (ListTools.isEmpty(devices)) {
+            return 0;
+        }
+        String ct = !StringTools.isBlank(cmdType)? cmdType : DCServerConfig.COMMAND_CONFIG;
+
+        /* separate DCServerConfig devices */
+        java.util.List<Device> dcsDevices = new Vector<Device>();
+        java.util.List<Device> pingDevices = new Vector<Device>();
+        for (Device device : devices) {
+            if (device == null) {
+                continue;
+            } else
+            if (device.getDCServerConfig() != null) {
+                dcsDevices.add(device);
+            } else {
+                pingDevices.add(device);
+            }
+        }
+        int sentCount = 0;
+
+        /* DCServerConfig */
+        if (!ListTools.isEmpty(dcsDevices)) {
+            java.util.List<RTProperties> respList = DCServerFactory.sendServerCommands(dcsDevices, ct, cmdName, cmdArgs);
+            for (RTProperties resp : respList) {
+                if (DCServerFactory.isCommandResultOK(resp)) {
+                    sentCount++;
+                }
+            }
+        }
+
+        /* PingDispatcher */
+        if (!ListTools.isEmpty(pingDevices)) {
+            if (Device.hasPingDispatcher()) {
+                PingDispatcher pd = Device.getPingDispatcher();
+                for (Device device : pingDevices) {
+                    if (pd.sendDeviceCommand(device, ct, cmdName, cmdArgs)) {
+                        sentCount++;
+                    }
+                }
+            } else {
+                Print.logWarn("Devices have no PingDispatcher: " + pingDevices.size());
+            }
+        }
+
+        return sentCount;
+    }
+
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
@@ -9645,6 +9721,10 @@ public class Device // Asset
             // event was ignored
             Print.logWarn("Event not inserted ...");
             return false;
+        } else
+        if (evdb.getIsDuplicateEvent()) {
+            // retransmitted event was accepted, but not inserted
+            return true;
         }
 
         /* status code */
@@ -9681,7 +9761,8 @@ public class Device // Asset
     /**
     *** Insert event into EventData table
     *** @param evdb  The EventData record to insert
-    *** @return True if successful, false otherwise
+    *** @return True if successful (or if the event is a retransmitted duplicate, see
+    ***         "EventData.getIsDuplicateEvent"), false otherwise
     **/
     protected boolean _insertEventData(final EventData evdb)
     {
@@ -9698,6 +9779,7 @@ public class Device // Asset
             return false;
         }
         int statusCode = evdb.getStatusCode();
+        evdb.setDuplicateEvent(false); // set below if retransmitted (EventData may be reused)
 
         /* set device */
         if (DEFERRED_RULE_CHECK) {
@@ -9796,6 +9878,22 @@ public class Device // Asset
         /* old event? (test after time checks) */
         boolean isOldEvent = (eventTime < lastEventTime)? true : false;
 
+        /* retransmitted event? (checked before any EventData table queries) */
+        EventDuplicateFilter dupFilter = EventDuplicateFilter.GetFilter(this);
+        String dupKey = null;
+        if (dupFilter != null) {
+            if (dupFilter.isDuplicate(evdb)) {
+                Print.logInfo("Duplicate event ignored: " + acctID + "/" + devID + 
+                    " [" + StatusCodes.GetHex(statusCode) + " " + new DateTime(eventTime) + 
+                    "] suppressed=" + dupFilter.getSuppressedCount());
+                // -- accepted, so that the device receives an ACK and stops retransmitting
+                evdb.setDuplicateEvent(true);
+                return true;
+            }
+            // -- incoming key (the status code may be changed below)
+            dupKey = EventDuplicateFilter.GetEventKey(evdb);
+        }
+
         /* check for invalid speed (beyond reasonable maximum) */
         int invalidSpeedAction = Device.invalidSpeedAction();
         if (invalidSpeedAction != INVALID_SPEED_DISABLED) {
@@ -10268,6 +10366,10 @@ public class Device // Asset
             Print.logError("EventData save failed: " + dbe);
             return false;
         }
+        if (dupFilter != null) {
+            dupFilter.addEventKey(dupKey);
+            dupFilter.addEvent(evdb);
+        }
 
         /* background processes */
         if (extUpdate != EXT_UPDATE_NONE) {
@@ -10763,9 +10865,12 @@ public class Device // Asset
                     ewh.LT(EventData.FLD_timestamp, priorToTime)
                 )
             ));
-            Print.logInfo("EventData delete command: " + edel);
             dbc = DBConnection.getDefaultConnection();
-            dbc.executeUpdate(edel.toString());
+            for (String table : EventData.GetReadTables(-1L, priorToTime - 1L)) {
+                edel.setUntranslatedTableName(table); // base table and time-shards
+                Print.logInfo("EventData delete command: " + edel);
+                dbc.executeUpdate(edel.toString());
+            }
         } catch (SQLException sqe) {
             throw new DBException("Deleting EventData records", sqe);
         } finally {
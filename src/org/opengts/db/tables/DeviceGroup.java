@@ -1185,6 +1185,7 @@ public class DeviceGroup
     private static final String ARG_CNT_OLD_EV[]        = new String[] { "countOldEvents"  };
     private static final String ARG_DEL_OLD_EV[]        = new String[] { "deleteOldEvents" };
     private static final String ARG_CONFIRM[]           = new String[] { "confirm"         };
+    private static final String ARG_SEND_COMMAND[]      = new String[] { "sendCommand", "sendCmd" };
 
     private static void usage()
     {
@@ -1204,6 +1205,8 @@ public class DeviceGroup
         Print.sysPrintln("  -countOldEvents=<time>      Count events before specified time (requires '-confirm')");
         Print.sysPrintln("  -deleteOldEvents=<time>     Delete events ibefore specified time (requires '-confirm')");
         Print.sysPrintln("  -confirm                    Confirms countOldEvents/deleteOldEvents");
+        Print.sysPrintln("");
+        Print.sysPrintln("  -sendCmd=<commandID>        Send command to all Devices in this Group");
         System.exit(1);
     }
 
@@ -1414,6 +1417,38 @@ public class DeviceGroup
             }
         }
 
+        /* send command */
+        // org.opengts.db.tables.DeviceGroup -account=ACCOUNT -group=GROUP -sendCmd=COMMAND_ID
+        if (RTConfig.hasProperty(ARG_SEND_COMMAND)) {
+            opts++;
+            if (!hasGroupID) {
+                Print.logError("DeviceGroup ID not specified");
+                System.exit(99);
+            } else
+            if (!groupExists) {
+                Print.logError("DeviceGroup does not exist: " + accountID + "/" + groupID);
+                System.exit(99);
+            }
+            String cmdName = RTConfig.getString(ARG_SEND_COMMAND,"");
+            try {
+                OrderedSet<String> devIDs = DeviceGroup.getDeviceIDsForGroup(accountID, groupID, null, false/*inclInactv*/, -1L);
+                java.util.List<Device> devList = new Vector<Device>();
+                for (String devID : devIDs) {
+                    Device device = Device.getDevice(acct, devID);
+                    if (device != null) {
+                        devList.add(device);
+                    }
+                }
+                int sent = Device.sendDeviceCommands(devList, DCServerConfig.COMMAND_CONFIG, cmdName, null);
+                Print.sysPrintln("Commands Sent: " + sent + " of " + devList.size());
+                System.exit(0);
+            } catch (DBException dbe) {
+                Print.logError("Error sending command to DeviceGroup: " + accountID + "/" + groupID);
+                dbe.printException();
+                System.exit(99);
+            }
+        }
+
         /* count/delete old events */
         if (RTConfig.hasProperty(ARG_CNT_OLD_EV) || 
             RTConfig.hasProperty(ARG_DEL_OLD_EV)   ) {
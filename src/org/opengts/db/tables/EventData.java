@@ -212,6 +212,8 @@ public class EventData
 {
 
     public  static final boolean DFT_allowInnoDBCountWithWhere  = true;
+    public  static final boolean DFT_compactFieldValues         = true;
+    public  static final int     DFT_multiDeviceBatchSize       = 100;
 
     // ------------------------------------------------------------------------
 
@@ -951,6 +953,56 @@ public class EventData
         public DBFactory<EventData> getFactory() {
             return EventData.getFactory();
         }
+        public String getInsertTableName() {
+            if (EventDataShards.IsEnabled()) {
+                // -- new events are inserted into the monthly shard for the event timestamp
+                String shard = this._getShardName();
+                try {
+                    EventDataShards.EnsureShard(shard);
+                } catch (DBException dbe) {
+                    Print.logError("Unable to create EventData shard: " + dbe);
+                }
+                return shard;
+            }
+            return super.getInsertTableName();
+        }
+        public String getRecordTableName() {
+            if (EventDataShards.IsEnabled()) {
+                // -- an existing event is in the monthly shard for the event timestamp, or in the
+                // -  base table if it was inserted before time-shards were enabled.  Tables are
+                // -  not created here, this name is also used for reads/updates/deletes.
+                String base = super.getRecordTableName();
+                if (!this.getFieldValues().hasFieldValue(FLD_timestamp)) {
+                    return base; // partial key
+                }
+                String shard = this._getShardName();
+                try {
+                    // -- the base table is checked only if it holds events for this device at or
+                    // -  after the event timestamp (ie. events inserted before the cutover)
+                    long timestamp = this.getFieldValues().getFieldLong(FLD_timestamp, false, 0L);
+                    long baseEnd   = EventDataShards.GetBaseTableEndTime(
+                        this.getFieldValues().getFieldValueAsString(FLD_accountID),
+                        this.getFieldValues().getFieldValueAsString(FLD_deviceID));
+                    if ((timestamp <= baseEnd) && this._exists(base, null, DBWhere.KEY_FULL)) {
+                        return base;
+                    } else {
+                        return EventDataShards.ShardExists(shard)? shard : base;
+                    }
+                } catch (Throwable th) { // SQLException, DBException
+                    Print.logError("Unable to locate EventData record table: " + th);
+                    return base;
+                }
+            }
+            return super.getRecordTableName();
+        }
+        public java.util.List<String> getReadTableNames() throws DBException {
+            // -- the base table, followed by any time-shards
+            return EventData.GetReadTables(-1L, -1L);
+        }
+        private String _getShardName() {
+            long timestamp = this.getFieldValues().getFieldLong(FLD_timestamp, false, 0L);
+            return EventDataShards.GetShardName(timestamp);
+        }
     }
 
     /* factory constructor */
@@ -986,6 +1038,9 @@ public class EventData
             // -- "COUNT(*)", with "where", not allowed if InnoDB
             boolean countOK = RTConfig.getBoolean(DBConfig.PROP_EventData_allowInnoDBCountWithWhere,DFT_allowInnoDBCountWithWhere);
             factory.setAllowInnoDBCOUNT(countOK);
+            // -- compact (array-backed) field value storage
+            boolean compact = RTConfig.getBoolean(DBConfig.PROP_EventData_compactFieldValues,DFT_compactFieldValues);
+            factory.setCompactFieldValues(compact);
         }
         return factory;
     }
@@ -6877,6 +6932,30 @@ public class EventData
         return this.isSynthesizedEvent;
     }
 
+    // ------------------------------------------------------------------------
+
+    /* retransmitted event */
+    private boolean isDuplicateEvent = false;
+
+    /**
+    *** Sets the duplicate event state (ie. a retransmitted event which was accepted, but
+    *** not inserted, because it matches a recently inserted event)
+    *** @param isDuplicate  True to indicate a duplicate event
+    **/
+    public void setDuplicateEvent(boolean isDuplicate)
+    {
+        this.isDuplicateEvent = isDuplicate;
+    }
+
+    /**
+    *** Returns the duplicate event state
+    *** @return The duplicate event state
+    **/
+    public boolean getIsDuplicateEvent()
+    {
+        return this.isDuplicateEvent;
+    }
+
     // ------------------------------------------------------------------------
     
     /* PushpinIconIndexProvider */
@@ -7175,7 +7254,8 @@ public class EventData
         if ((ruleFact != null) && !StringTools.isBlank(iconSel)) {
             try {
                 //Print.logInfo("iconSel: " + iconSel);
-                Object result = ruleFact.evaluateSelector(iconSel,this);
+                RuleFactory.CompiledSelector cs = ruleFact.compileSelector(iconSel); // cached
+                Object result = (cs != null)? cs.evaluate(this) : null;
                 if (result instanceof Number) {
                     int iconNdx = ((Number)result).intValue();
                     if (iconNdx >= iconKeys.size()) {
@@ -7653,16 +7733,39 @@ public class EventData
         int statCode[], 
         boolean gpsRequired, 
         String andSelect)
+    {
+        String devIds[] = (!StringTools.isBlank(devId) && !devId.equals("*"))? new String[] { devId } : null;
+        return EventData.getWhereClause(
+            acctId, devIds,
+            timeStart, timeEnd,
+            statCode,
+            gpsRequired,
+            andSelect);
+    }
+
+    // [DB]WHERE ( <Condition...> )
+    public static String getWhereClause(
+        String acctId, String devIds[],
+        long timeStart, long timeEnd, 
+        int statCode[], 
+        boolean gpsRequired, 
+        String andSelect)
     {
         DBFactory<EventData> dbFact = EventData.getFactory();
         DBWhere dwh = new DBWhere(EventData.getFactory());
 
         /* Account/Device */
         // ( (accountID='acct') AND (deviceID='dev') )
+        // ( (accountID='acct') AND (deviceID IN ('dev1','dev2',...)) )
         if (!StringTools.isBlank(acctId)) {
             dwh.append(dwh.EQ(EventData.FLD_accountID, acctId));
-            if (!StringTools.isBlank(devId) && !devId.equals("*")) {
-                dwh.append(dwh.AND_(dwh.EQ(EventData.FLD_deviceID , devId)));
+            if (ListTools.isEmpty(devIds)) {
+                // -- all devices
+            } else
+            if (devIds.length == 1) {
+                dwh.append(dwh.AND_(dwh.EQ(EventData.FLD_deviceID , devIds[0])));
+            } else {
+                dwh.append(dwh.AND_(dwh.INLIST(EventData.FLD_deviceID, devIds)));
             }
         }
 
@@ -7742,12 +7845,21 @@ public class EventData
         dsel.setWhere(EventData.getWhereClause(autoIndex));
 
         /* get events */
+        // -- 'autoIndex' is assigned per physical table, the newest time-shard is checked first
+        java.util.List<String> tables = EventData.GetReadTables(-1L, -1L);
+        Collections.reverse(tables);
         EventData ed[] = null;
         try {
             if (EventData.LockTableOnRead()) {
                 DBProvider.lockTables(new String[] { EventData.TABLE_NAME() }, null);
             }
-            ed = DBRecord.select(dsel, null); // select:DBSelect
+            for (String table : tables) {
+                dsel.setUntranslatedTableName(table);
+                ed = DBRecord.select(dsel, null); // select:DBSelect
+                if (!ListTools.isEmpty(ed)) {
+                    break;
+                }
+            }
         } finally {
             if (EventData.LockTableOnRead()) {
                 DBProvider.unlockTables();
@@ -7772,7 +7884,11 @@ public class EventData
             if (EventData.LockTableOnRead()) {
                 DBProvider.lockTables(new String[] { EventData.TABLE_NAME() }, null);
             }
-            ed = DBRecord.select(dsel, rcdHandler);
+            if (EventDataShards.IsEnabled()) {
+                ed = EventData._selectTimeShards(dsel, -1L, -1L, dsel.getLimit(), rcdHandler);
+            } else {
+                ed = DBRecord.select(dsel, rcdHandler);
+            }
         } finally {
             if (EventData.LockTableOnRead()) {
                 DBProvider.unlockTables();
@@ -7786,7 +7902,85 @@ public class EventData
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** Returns the list of EventData columns to retrieve for the specified set of 
+    *** requested fields.  The primary key fields are always included, and requested
+    *** fields which do not exist in the EventData table are ignored.
+    *** @param fields  The requested field names
+    *** @return The selected field names, or null if all fields should be retrieved
+    **/
+    public static String[] getProjectedFieldNames(Set<String> fields)
+    {
+
+        /* no projection requested */
+        if (ListTools.isEmpty(fields)) {
+            return null;
+        }
+
+        /* primary keys first */
+        DBFactory<EventData> fact = EventData.getFactory();
+        OrderedSet<String> selFlds = new OrderedSet<String>();
+        DBField keyFlds[] = fact.getKeyFields();
+        for (int i = 0; i < keyFlds.length; i++) {
+            selFlds.add(keyFlds[i].getName());
+        }
+
+        /* requested fields */
+        for (String fn : fields) {
+            if (fact.hasField(fn)) {
+                selFlds.add(fn);
+            }
+        }
+
+        /* all fields selected? */
+        if (selFlds.size() >= fact.getFields().length) {
+            return null;
+        }
+        return selFlds.toArray(new String[selFlds.size()]);
+
+    }
+
+    /**
+    *** Returns the order in which range records are selected from the DB (and passed to any
+    *** record handler).  When a limit is specified with LimitType LAST, records are selected in 
+    *** descending order, and reordered afterwards if ascending order was requested.
+    *** @param limitType  The limit type
+    *** @param limit      The record limit
+    *** @param ascending  The requested order
+    *** @return True if records are selected in ascending order
+    **/
+    public static boolean isRangeSelectionAscending(EventData.LimitType limitType, long limit, boolean ascending)
+    {
+        if ((limit > 0L) && ((limitType == null) || EventData.LimitType.LAST.equals(limitType))) {
+            // NOTE: records will be in descending order (will need to reorder)
+            return false;
+        } else {
+            return ascending;
+        }
+    }
+
     /* create range event selector */
+    /**
+    *** Gets the EventData tables to read for events within the specified time range, oldest
+    *** first.  If time-shards are enabled, this is the base EventData table (which holds the
+    *** events inserted before time-shards were enabled) followed by each existing shard table
+    *** which overlaps the time range.  Otherwise this is only the base EventData table.
+    *** @param timeStart  The range start time (inclusive, <= 0 for no start)
+    *** @param timeEnd    The range end time (inclusive, <= 0 for no end)
+    *** @return The list of untranslated table names
+    **/
+    public static java.util.List<String> GetReadTables(long timeStart, long timeEnd)
+        throws DBException
+    {
+        if (EventDataShards.IsEnabled()) {
+            return EventDataShards.GetTablesForRange(timeStart, timeEnd);
+        } else {
+            java.util.List<String> tables = new Vector<String>();
+            tables.add(EventData.TABLE_NAME());
+            return tables;
+        }
+    }
+
     private static DBSelect<EventData> _createRangeEventSelector(
         String acctId, String devId,
         long timeStart, long timeEnd,
@@ -7813,11 +8007,7 @@ public class EventData
         }
 
         /* ascending/descending */
-        boolean isAscending = ascending;
-        if ((limit > 0L) && ((limitType == null) || EventData.LimitType.LAST.equals(limitType))) {
-            // NOTE: records will be in descending order (will need to reorder)
-            isAscending = false;
-        }
+        boolean isAscending = EventData.isRangeSelectionAscending(limitType, limit, ascending);
 
         /* create/return DBSelect */
         // DBSelect: [SELECT * FROM EventData] <Where> ORDER BY <FLD_timestamp> [DESC] LIMIT <Limit>
@@ -7867,6 +8057,59 @@ public class EventData
         return (ed.length > 0)? ed[0] : null;
     }
 
+    /**
+    *** Gets the keys of the existing EventData records for the specified Account/Device
+    *** within the specified time range.  Only the key columns are read.
+    *** @param acctId     The Account ID
+    *** @param devId      The Device ID
+    *** @param timeStart  The starting time range (inclusive)
+    *** @param timeEnd    The ending time range (inclusive)
+    *** @return A set of "timestamp/statusCode" keys (does not return null)
+    **/
+    public static Set<String> getExistingEventKeys(
+        String acctId, String devId,
+        long timeStart, long timeEnd)
+        throws DBException
+    {
+        Set<String> keys = new HashSet<String>();
+        DBSelect<EventData> dsel = EventData._createRangeEventSelector(
+            acctId, devId,
+            timeStart, timeEnd,
+            null/*statCode*/,
+            false/*validGPS*/,
+            EventData.LimitType.FIRST, -1L/*limit*/, true/*ascending*/,
+            null/*addtnlSelect*/);
+        if (dsel == null) {
+            return keys;
+        }
+        dsel.setSelectedFields(FLD_timestamp, FLD_statusCode);
+        // -- when time-shards are enabled, the base EventData table is included in the read
+        // -  tables, since it still holds events inserted before time-shards were enabled
+        java.util.List<String> tables = EventData.GetReadTables(timeStart, timeEnd);
+        for (String table : tables) {
+            dsel.setUntranslatedTableName(table);
+            DBConnection dbc = null;
+            Statement   stmt = null;
+            ResultSet     rs = null;
+            try {
+                dbc  = DBConnection.getDefaultConnection();
+                stmt = dbc.execute(dsel.toString());
+                rs   = stmt.getResultSet();
+                while (rs.next()) {
+                    keys.add(rs.getLong(FLD_timestamp) + "/" + rs.getInt(FLD_statusCode));
+                }
+            } catch (SQLException sqe) {
+                throw new DBException("Get EventData keys", sqe);
+            } finally {
+                if (rs   != null) { try { rs.close();   } catch (Throwable th) {} }
+                if (stmt != null) { try { stmt.close(); } catch (Throwable th) {} }
+                DBConnection.release(dbc);
+            }
+        }
+        dsel.setUntranslatedTableName(null);
+        return keys;
+    }
+
     /* get range of EventData records (does not return null) */
     public static EventData[] getRangeEvents(
         String acctId, String devId,
@@ -7899,6 +8142,33 @@ public class EventData
         DBRecordHandler<EventData> rcdHandler)
         throws DBException
     {
+        return EventData.getRangeEvents(
+            acctId, devId, 
+            timeStart, timeEnd,
+            statCode,
+            validGPS, 
+            limitType, limit, ascending,
+            addtnlSelect,
+            null/*selectFields*/,
+            rcdHandler);
+    }
+
+    /* get range of EventData records (does not return null) */
+    // -- if 'selectFields' is specified, only the specified columns (plus the primary key 
+    // -  columns) are initially retrieved.  Any other field is loaded from the DB on first
+    // -  access of that field on the returned EventData record.
+    public static EventData[] getRangeEvents(
+        String acctId, 
+        String devId,
+        long timeStart, long timeEnd,
+        int statCode[],
+        boolean validGPS,
+        EventData.LimitType limitType, long limit, boolean ascending,
+        String addtnlSelect,
+        Set<String> selectFields,
+        DBRecordHandler<EventData> rcdHandler)
+        throws DBException
+    {
 
         /* get record selector */
         DBSelect<EventData> dsel = EventData._createRangeEventSelector(
@@ -7914,6 +8184,13 @@ public class EventData
             return EMPTY_ARRAY;
         }
 
+        /* column projection */
+        String selFlds[] = EventData.getProjectedFieldNames(selectFields);
+        if (selFlds != null) {
+            dsel.setSelectedFields(selFlds);
+            dsel.setDeferUnselectedFields(true);
+        }
+
         /* debug: compare SQL selections */
         //if (DBConnection.getShowExecutedSQL()) {
         //    Print.logInfo("SQL Select comparison:");
@@ -7930,7 +8207,11 @@ public class EventData
                 DBProvider.lockTables(new String[] { EventData.TABLE_NAME() }, null);
             }
             //ed = (EventData[])DBRecord.select(EventData.getFactory(), dsel.toString(false), rcdHandler);
-            ed = DBRecord.select(dsel, rcdHandler); // select:DBSelect
+            if (EventDataShards.IsEnabled()) {
+                ed = EventData._selectTimeShards(dsel, timeStart, timeEnd, limit, rcdHandler);
+            } else {
+                ed = DBRecord.select(dsel, rcdHandler); // select:DBSelect
+            }
             // 'ed' _may_ be empty if (rcdHandler != null)
         } finally {
             if (EventData.LockTableOnRead()) {
@@ -7958,92 +8239,800 @@ public class EventData
 
     }
 
-    /* return count in range of EventData records */
-    public static long countRangeEvents(
-        String acctId, String devId,
-        long timeStart, long timeEnd,
-        int statCode[],
-        boolean validGPS,
-        EventData.LimitType limitType, long limit,
-        String addtnlSelect)
+    /**
+    *** DBRecordHandler wrapper which counts the records passed to the handler, and whether
+    *** the handler has requested that the selection stop.
+    **/
+    private static class ShardRecordHandler
+        implements DBRecordHandler<EventData>
+    {
+        private DBRecordHandler<EventData> handler = null;
+        private long    count   = 0L;
+        private boolean stopped = false;
+        public ShardRecordHandler(DBRecordHandler<EventData> handler) {
+            this.handler = handler;
+        }
+        public int handleDBRecord(EventData rcd) throws DBException {
+            this.count++;
+            int rtn = this.handler.handleDBRecord(rcd);
+            if ((rtn & DBRH_STOP) != 0) {
+                this.stopped = true;
+            }
+            return rtn;
+        }
+        public long getCount() {
+            return this.count;
+        }
+        public boolean isStopped() {
+            return this.stopped;
+        }
+    }
+
+    /**
+    *** Selects the records for the specified range selector from each EventData table (the
+    *** base table and the time-shards) which may hold events within the specified time range,
+    *** in the selection order.<br>
+    *** Shard tables hold disjoint monthly time ranges, and are read one at a time.  The base
+    *** table however may hold events within the time range of the shards (events inserted
+    *** before time-shards were enabled), so the base table and each shard which starts at or
+    *** before the latest matching base table event are read together and merged by the
+    *** ORDER BY fields.  If the selection is not ordered by timestamp first (ie. multiple 
+    *** devices ordered by DeviceID/timestamp), all tables are merged.
+    *** Reading stops once 'limit' records have been selected.
+    *** @return The selected records, or null if no records were selected
+    **/
+    private static EventData[] _selectTimeShards(
+        DBSelect<EventData> dsel,
+        long timeStart, long timeEnd, long limit,
+        DBRecordHandler<EventData> rcdHandler)
         throws DBException
     {
 
-        /* get record selector */
-        DBSelect<EventData> dsel = EventData._createRangeEventSelector(
-            acctId, devId, 
-            timeStart, timeEnd,
-            statCode,
-            validGPS, 
-            limitType, limit, true/*ascending*/,
-            addtnlSelect);
+        /* tables (base table first, then shards oldest first) */
+        java.util.List<String> tables = EventDataShards.GetTablesForRange(timeStart, timeEnd);
+        String orderBy[] = dsel.getOrderByFields();
+        int mergeCount = 1; // number of leading tables which must be merged
+        if (orderBy == null) {
+            // -- no requested order, tables are read in sequence
+        } else
+        if (orderBy[0].equals(FLD_timestamp)) {
+            long baseEnd = EventDataShards.GetBaseTableEndTime(dsel.getWhere());
+            if (baseEnd <= 0L) {
+                tables.remove(0); // no matching events in the base table
+            } else {
+                while ((mergeCount < tables.size()) && 
+                    (EventDataShards.GetShardStartTime(tables.get(mergeCount)) <= baseEnd)) {
+                    mergeCount++;
+                }
+            }
+        } else {
+            mergeCount = tables.size();
+        }
 
-        /* invalid arguements? */
-        if (dsel == null) {
-            return 0L;
+        /* table groups, in selection order */
+        java.util.List<java.util.List<String>> groups = new Vector<java.util.List<String>>();
+        if (!tables.isEmpty()) {
+            groups.add(new Vector<String>(tables.subList(0, mergeCount)));
+            for (int t = mergeCount; t < tables.size(); t++) {
+                groups.add(ListTools.toList(new String[] { tables.get(t) }));
+            }
+        }
+        if (!dsel.isOrderAscending()) {
+            Collections.reverse(groups); // newest first
         }
 
-        /* count events */
-        long recordCount = 0L;
-        try {
-            if (EventData.LockTableOnRead()) {
-                DBProvider.lockTables(new String[] { EventData.TABLE_NAME() }, null);
+        /* select */
+        ShardRecordHandler shardHandler = (rcdHandler != null)? new ShardRecordHandler(rcdHandler) : null;
+        java.util.List<EventData> list = new Vector<EventData>();
+        long count = 0L;
+        for (java.util.List<String> group : groups) {
+            if ((limit > 0L) && (count >= limit)) {
+                break;
             }
-            recordCount = DBRecord.getRecordCount(dsel);
-        } finally {
-            if (EventData.LockTableOnRead()) {
-                DBProvider.unlockTables();
+            long grpLimit = (limit > 0L)? (limit - count) : limit;
+            dsel.setLimit(grpLimit);
+            if (group.size() == 1) {
+                // -- single table, in selection order
+                dsel.setUntranslatedTableName(group.get(0));
+                EventData ed[] = DBRecord.select(dsel, shardHandler); // select:DBSelect
+                if (ed != null) {
+                    ListTools.toList(ed, list);
+                }
+            } else {
+                // -- overlapping tables, merged by the ORDER BY fields
+                java.util.List<EventData> merged = new Vector<EventData>();
+                for (String table : group) {
+                    dsel.setUntranslatedTableName(table);
+                    EventData ed[] = DBRecord.select(dsel, null); // select:DBSelect
+                    if (ed != null) {
+                        ListTools.toList(ed, merged);
+                    }
+                }
+                Collections.sort(merged, new OrderByComparator(orderBy, 
+                    dsel.isOrderAscending(), dsel.isOrderAllFields()));
+                if ((grpLimit > 0L) && (merged.size() > grpLimit)) {
+                    merged = merged.subList(0, (int)grpLimit);
+                }
+                EventData lastEv = null;
+                for (EventData ev : merged) {
+                    if (DBRecord.handleRecord(ev, lastEv, shardHandler, list)) {
+                        break; // stopped
+                    }
+                    lastEv = ev;
+                }
+            }
+            if (shardHandler != null) {
+                count = shardHandler.getCount();
+                if (shardHandler.isStopped()) {
+                    break;
+                }
+            } else {
+                count = list.size();
             }
         }
-        return recordCount;
+        dsel.setUntranslatedTableName(null);
+        dsel.setLimit(limit);
+        return !list.isEmpty()? list.toArray(new EventData[list.size()]) : null;
 
     }
 
-    /** 
-    *** Gets the number of EventData records for the specified Account/Device
-    *** within the specified range.
-    *** @param acctId     The Account ID
-    *** @param devId      The Device ID
-    *** @param timeStart  The starting time range (inclusive)
-    *** @param timeEnd    The ending time range (inclusive)
-    *** @return The number of records within the specified range
+    /**
+    *** Compares EventData records by the specified ORDER BY fields
     **/
-    public static long getRecordCount(
-        String acctId, String devId,
+    private static class OrderByComparator
+        implements Comparator<EventData>
+    {
+        private String  orderBy[] = null;
+        private boolean ascending = true;
+        private boolean allFields = false;
+        public OrderByComparator(String orderBy[], boolean ascending, boolean allFields) {
+            this.orderBy   = orderBy;
+            this.ascending = ascending;
+            this.allFields = allFields;
+        }
+        @SuppressWarnings("unchecked")
+        public int compare(EventData ev1, EventData ev2) {
+            for (int i = 0; i < this.orderBy.length; i++) {
+                Object v1 = ev1.getFieldValue(this.orderBy[i]);
+                Object v2 = ev2.getFieldValue(this.orderBy[i]);
+                int c;
+                if (v1 == v2) {
+                    c = 0;
+                } else
+                if (v1 == null) {
+                    c = -1;
+                } else
+                if (v2 == null) {
+                    c = 1;
+                } else
+                if (v1 instanceof Comparable) {
+                    c = ((Comparable<Object>)v1).compareTo(v2);
+                } else {
+                    c = v1.toString().compareTo(v2.toString());
+                }
+                if (c != 0) {
+                    boolean desc = !this.ascending && (this.allFields || (i == (this.orderBy.length - 1)));
+                    return desc? -c : c;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+    *** Gets the record count for the specified selector, summed over each EventData table
+    *** (the base table and the time-shards) which may hold events within the specified time
+    *** range.
+    *** @return The record count, or -1 if the count is not available (InnoDB)
+    **/
+    private static long _countTimeShards(
+        DBSelect<EventData> dsel,
         long timeStart, long timeEnd)
         throws DBException
     {
-        StringBuffer wh = new StringBuffer();
-        wh.append(EventData.getWhereClause(
-            acctId, devId,
-            timeStart, timeEnd,
-            null  /*statCode[]*/ ,
-            false /*gpsRequired*/,
-            null  /*andSelect*/  ));
-        return DBRecord.getRecordCount(EventData.getFactory(), wh);
+        long count = 0L;
+        for (String table : EventDataShards.GetTablesForRange(timeStart, timeEnd)) {
+            dsel.setUntranslatedTableName(table);
+            long c = DBRecord.getRecordCount(dsel);
+            if (c < 0L) {
+                return -1L; // InnoDB
+            }
+            count += c;
+        }
+        return count;
     }
 
     // ------------------------------------------------------------------------
+    // Multi-device range selection
 
-    /* get EventData records by "creationMillis" (does not return null) */
-    public static EventData[] getEventsByCreationMillis(
+    private static int MultiDeviceBatchSize = -1;
+
+    /**
+    *** Gets the maximum number of devices selected per multi-device range query
+    **/
+    public static int GetMultiDeviceBatchSize()
+    {
+        if (MultiDeviceBatchSize <= 0) {
+            int bs = RTConfig.getInt(DBConfig.PROP_EventData_multiDeviceBatchSize, DFT_multiDeviceBatchSize);
+            MultiDeviceBatchSize = (bs > 0)? bs : DFT_multiDeviceBatchSize;
+        }
+        return MultiDeviceBatchSize;
+    }
+
+    /**
+    *** Gets the range of EventData records for each of the specified devices.<br>
+    *** The records are read with "getRangeEvents(String,Collection,...,DBRecordHandler)" and
+    *** are then demultiplexed into per-device arrays.
+    *** @param acctId       The Account ID
+    *** @param devIds       The Device IDs
+    *** @param timeStart    The range start time (inclusive)
+    *** @param timeEnd      The range end time (inclusive)
+    *** @param statCode     The list of status codes to select (null for all)
+    *** @param validGPS     True to select only events with a valid GPS location
+    *** @param limitType    The limit type (FIRST, LAST)
+    *** @param limit        The maximum number of records per device
+    *** @param ascending    True to return the records for each device in ascending order
+    *** @param addtnlSelect Additional SQL selection criteria
+    *** @param selectFields The fields to select (null for all fields, see "getProjectedFieldNames")
+    *** @return A map of Device ID to selected records (in the order of the specified Device 
+    ***         IDs, each value is non-null).
+    *** @throws DBException If a DB error occurs
+    **/
+    public static Map<String,EventData[]> getRangeEvents(
         String acctId, 
-        String devId,
-        long createStartMS, long createEndMS,
-        long limit)
+        Collection<String> devIds,
+        long timeStart, long timeEnd,
+        int statCode[],
+        boolean validGPS,
+        EventData.LimitType limitType, long limit, boolean ascending,
+        String addtnlSelect,
+        Set<String> selectFields)
         throws DBException
     {
-        DBFactory<EventData> dbFact = EventData.getFactory();
-
-        /* invalid account/device */
-        if (StringTools.isBlank(acctId)) {
-            return EMPTY_ARRAY;
-        } else
-        if (StringTools.isBlank(devId)) {
-            return EMPTY_ARRAY;
+        OrderedMap<String,EventData[]> devEvents = new OrderedMap<String,EventData[]>();
+        if (StringTools.isBlank(acctId) || ListTools.isEmpty(devIds)) {
+            return devEvents;
+        }
+        for (String devId : devIds) {
+            if (!StringTools.isBlank(devId)) {
+                devEvents.put(devId, EMPTY_ARRAY);
+            }
         }
 
-        /* invalid time range */
+        /* read/demultiplex by device */
+        final Map<String,java.util.List<EventData>> devLists = new HashMap<String,java.util.List<EventData>>();
+        EventData.getRangeEvents(
+            acctId, devEvents.keySet(),
+            timeStart, timeEnd,
+            statCode,
+            validGPS,
+            limitType, limit, ascending,
+            addtnlSelect,
+            selectFields,
+            -1L/*maxRecords*/,
+            new DBRecordHandler<EventData>() {
+                public int handleDBRecord(EventData ev) throws DBException {
+                    String devId = ev.getDeviceID();
+                    java.util.List<EventData> evList = devLists.get(devId);
+                    if (evList == null) {
+                        evList = new Vector<EventData>();
+                        devLists.put(devId, evList);
+                    }
+                    evList.add(ev);
+                    return DBRH_SKIP;
+                }
+            });
+
+        /* per-device arrays, in the requested order */
+        boolean selAscend = EventData.isRangeSelectionAscending(limitType, limit, ascending);
+        for (String devId : devLists.keySet()) {
+            java.util.List<EventData> evList = devLists.get(devId);
+            EventData devEd[] = evList.toArray(new EventData[evList.size()]);
+            if (selAscend != ascending) {
+                ListTools.reverseOrder(devEd);
+            }
+            if (devEvents.containsKey(devId)) { // should always be true
+                devEvents.put(devId, devEd);
+            }
+        }
+        return devEvents;
+
+    }
+
+    /**
+    *** Record handler wrapper which records whether the wrapped handler stopped the selection.
+    *** Records are never saved by the selection loop.
+    **/
+    private static class RangeStreamHandler
+        implements DBRecordHandler<EventData>
+    {
+        private DBRecordHandler<EventData> rcdHandler = null;
+        private long    count   = 0L;
+        private boolean stopped = false;
+        public RangeStreamHandler(DBRecordHandler<EventData> rcdHandler) {
+            this.rcdHandler = rcdHandler;
+        }
+        public int handleDBRecord(EventData ev) throws DBException {
+            this.count++;
+            int rtn = this.rcdHandler.handleDBRecord(ev);
+            if ((rtn & DBRH_STOP) != 0) {
+                this.stopped = true;
+                return DBRH_STOP;
+            }
+            return DBRH_SKIP;
+        }
+        public long getCount() {
+            return this.count;
+        }
+        public boolean isStopped() {
+            return this.stopped;
+        }
+    }
+
+    /**
+    *** Reads the range of EventData records for each of the specified devices, and passes
+    *** each record to the specified record handler.<br>
+    *** Devices are selected in batches (see "EventData.multiDeviceBatchSize"), and each batch
+    *** is read with a single statement: "deviceID IN (...)" if no limit is specified, otherwise a 
+    *** "UNION ALL" of per-device limited selects (where supported by the DB provider).
+    *** Within a batch, the records of each device are passed to the record handler 
+    *** consecutively, ordered by DeviceID/timestamp in the selection order (descending if the 
+    *** LAST "limit" records are selected, see "isRangeSelectionAscending").
+    *** The records are not retained by this method, the record handler return value is used 
+    *** only to stop the selection (DBRH_STOP).
+    *** @param acctId       The Account ID
+    *** @param devIds       The Device IDs
+    *** @param timeStart    The range start time (inclusive)
+    *** @param timeEnd      The range end time (inclusive)
+    *** @param statCode     The list of status codes to select (null for all)
+    *** @param validGPS     True to select only events with a valid GPS location
+    *** @param limitType    The limit type (FIRST, LAST)
+    *** @param limit        The maximum number of records per device
+    *** @param ascending    The requested order for each device (see "isRangeSelectionAscending")
+    *** @param addtnlSelect Additional SQL selection criteria
+    *** @param selectFields The fields to select (null for all fields, see "getProjectedFieldNames")
+    *** @param maxRecords   The maximum total number of records to select over all devices, 
+    ***                     applied as a statement LIMIT (-1 for no maximum)
+    *** @param rcdHandler   The record handler (required)
+    *** @return The number of records passed to the record handler
+    *** @throws DBException If a DB error occurs
+    **/
+    public static long getRangeEvents(
+        String acctId, 
+        Collection<String> devIds,
+        long timeStart, long timeEnd,
+        int statCode[],
+        boolean validGPS,
+        EventData.LimitType limitType, long limit, boolean ascending,
+        String addtnlSelect,
+        Set<String> selectFields,
+        long maxRecords,
+        DBRecordHandler<EventData> rcdHandler)
+        throws DBException
+    {
+        if (StringTools.isBlank(acctId) || ListTools.isEmpty(devIds) || (rcdHandler == null)) {
+            return 0L;
+        }
+
+        /* invalid time range */
+        if ((timeStart > 0L) && (timeEnd > 0L) && (timeStart > timeEnd)) {
+            return 0L;
+        }
+
+        /* unique device list */
+        OrderedSet<String> devIdSet = new OrderedSet<String>();
+        for (String devId : devIds) {
+            if (!StringTools.isBlank(devId)) {
+                devIdSet.add(devId);
+            }
+        }
+        RangeStreamHandler rsh = new RangeStreamHandler(rcdHandler);
+
+        /* single statement per batch? */
+        if (((limit > 0L) && !DBUnionSelect.isSupported()) || EventDataShards.IsEnabled()) {
+            // -- per-device LIMIT not available in a single statement, or events for each 
+            // -  device are spread over the base table and time-shards (see "GetReadTables")
+            String allIds[] = devIdSet.toArray(new String[devIdSet.size()]);
+            ListTools.sort(allIds);
+            for (String devId : allIds) {
+                long devLimit = limit;
+                if (maxRecords >= 0L) {
+                    long remaining = maxRecords - rsh.getCount();
+                    if (remaining <= 0L) {
+                        break;
+                    } else
+                    if ((devLimit <= 0L) || (remaining < devLimit)) {
+                        // -- NOTE: clips the first records in selection order
+                        devLimit = remaining;
+                    }
+                }
+                EventData.getRangeEvents(
+                    acctId, devId,
+                    timeStart, timeEnd,
+                    statCode,
+                    validGPS,
+                    limitType, devLimit, ascending,
+                    addtnlSelect,
+                    selectFields,
+                    rsh);
+                if (rsh.isStopped()) {
+                    break;
+                }
+            }
+            return rsh.getCount();
+        }
+
+        /* batches */
+        String selFlds[]  = EventData.getProjectedFieldNames(selectFields);
+        boolean selAscend = EventData.isRangeSelectionAscending(limitType, limit, ascending);
+        int batchSize     = EventData.GetMultiDeviceBatchSize();
+        String allIds[]   = devIdSet.toArray(new String[devIdSet.size()]);
+        for (int b = 0; b < allIds.length; b += batchSize) {
+            String batchIds[] = new String[Math.min(batchSize, allIds.length - b)];
+            System.arraycopy(allIds, b, batchIds, 0, batchIds.length);
+
+            /* remaining records */
+            long batchLimit = -1L;
+            if (maxRecords >= 0L) {
+                batchLimit = maxRecords - rsh.getCount();
+                if (batchLimit <= 0L) {
+                    break;
+                }
+            }
+
+            /* create selector */
+            DBSelect<EventData> dsel;
+            if (limit > 0L) {
+                // -- (SELECT ... deviceID='d1' ... LIMIT n) UNION ALL (SELECT ... deviceID='d2' ... LIMIT n) ...
+                // -    ORDER BY deviceID,timestamp
+                DBUnionSelect<EventData> usel = new DBUnionSelect<EventData>(EventData.getFactory());
+                for (String devId : batchIds) {
+                    DBSelect<EventData> ds = EventData._createRangeEventSelector(
+                        acctId, devId,
+                        timeStart, timeEnd,
+                        statCode,
+                        validGPS,
+                        limitType, limit, ascending,
+                        addtnlSelect);
+                    if (selFlds != null) {
+                        ds.setSelectedFields(selFlds);
+                    }
+                    usel.addSelect(ds);
+                }
+                dsel = usel;
+            } else {
+                // -- SELECT ... deviceID IN ('d1','d2',...) ... ORDER BY deviceID,timestamp
+                dsel = new DBSelect<EventData>(EventData.getFactory());
+                dsel.setWhere(EventData.getWhereClause(
+                    acctId, batchIds,
+                    timeStart, timeEnd,
+                    statCode,
+                    validGPS,
+                    addtnlSelect));
+            }
+            dsel.setOrderByFields(FLD_deviceID, FLD_timestamp);
+            dsel.setOrderAscending(selAscend);
+            dsel.setOrderAllFields(true);
+            if ((batchLimit > 0L) && dsel.supportsLimit()) {
+                dsel.setLimit(batchLimit);
+            }
+            if (selFlds != null) {
+                dsel.setSelectedFields(selFlds);
+                dsel.setDeferUnselectedFields(true);
+            }
+
+            /* read events */
+            try {
+                if (EventData.LockTableOnRead()) {
+                    DBProvider.lockTables(new String[] { EventData.TABLE_NAME() }, null);
+                }
+                DBRecord.select(dsel, rsh); // select:DBSelect
+            } finally {
+                if (EventData.LockTableOnRead()) {
+                    DBProvider.unlockTables();
+                }
+            }
+            if (rsh.isStopped()) {
+                break;
+            }
+
+        }
+        return rsh.getCount();
+
+    }
+
+    // ------------------------------------------------------------------------
+    // Keyset (seek) range selection
+
+    /* key fields used for keyset pagination within a single device */
+    // -- (accountID, deviceID) are fixed by the range selector
+    public static final String RANGE_KEY_FIELDS[] = new String[] { FLD_timestamp, FLD_statusCode };
+
+    /**
+    *** Position of an EventData record within a device event range, used to resume a 
+    *** keyset range selection.  The String form "timestamp/statusCode" may be passed to
+    *** clients as a resume token.
+    **/
+    public static class RangeCursor
+    {
+        private long timestamp  = 0L;
+        private int  statusCode = 0;
+        public RangeCursor(long timestamp, int statusCode) {
+            this.timestamp  = timestamp;
+            this.statusCode = statusCode;
+        }
+        public RangeCursor(EventData ev) {
+            this(ev.getTimestamp(), ev.getStatusCode());
+        }
+        public long getTimestamp() {
+            return this.timestamp;
+        }
+        public int getStatusCode() {
+            return this.statusCode;
+        }
+        public Object[] getSeekValues() {
+            return new Object[] { new Long(this.timestamp), new Integer(this.statusCode) };
+        }
+        public String toString() {
+            return this.timestamp + "/" + this.statusCode;
+        }
+        public static RangeCursor parseCursor(String s) {
+            // -- "timestamp/statusCode"
+            String v[] = StringTools.split(StringTools.trim(s),'/');
+            if ((v.length != 2) || !StringTools.isLong(v[0],true) || !StringTools.isInt(v[1],true)) {
+                return null;
+            }
+            return new RangeCursor(StringTools.parseLong(v[0],0L), StringTools.parseInt(v[1],0));
+        }
+    }
+
+    /* create keyset range event selector */
+    private static DBKeysetSelect<EventData> _createKeysetRangeSelector(
+        String acctId, String devId,
+        long timeStart, long timeEnd,
+        int statCode[],
+        boolean validGPS,
+        boolean ascending,
+        String addtnlSelect)
+    {
+
+        /* invalid account/device */
+        if (StringTools.isBlank(acctId) || StringTools.isBlank(devId)) {
+            return null;
+        }
+
+        /* invalid time range */
+        if ((timeStart > 0L) && (timeEnd > 0L) && (timeStart > timeEnd)) {
+            return null;
+        }
+
+        /* create/return DBKeysetSelect */
+        // DBSelect: [SELECT * FROM EventData] <Where> AND <Seek> ORDER BY <FLD_timestamp>,<FLD_statusCode> [DESC] LIMIT <Limit>
+        DBKeysetSelect<EventData> dsel = new DBKeysetSelect<EventData>(
+            EventData.getFactory(), RANGE_KEY_FIELDS, ascending);
+        dsel.setWhere(EventData.getWhereClause(
+            acctId, devId,
+            timeStart, timeEnd,
+            statCode,
+            validGPS,
+            addtnlSelect));
+        return dsel;
+
+    }
+
+    /**
+    *** Gets the next block of EventData records following the specified cursor position.
+    *** Unlike OFFSET based selection, the cost of retrieving a block does not depend on 
+    *** the position of the cursor within the range.
+    *** @param acctId       The Account ID
+    *** @param devId        The Device ID
+    *** @param timeStart    The range start time (inclusive)
+    *** @param timeEnd      The range end time (inclusive)
+    *** @param statCode     The list of status codes to select (null for all)
+    *** @param validGPS     True to select only events with a valid GPS location
+    *** @param ascending    True to traverse the range forward in time, false to traverse backwards
+    *** @param limit        The maximum number of records to return
+    *** @param cursor       The position after which records are selected (null to start at the 
+    ***                     beginning of the range, or at the end if traversing backwards)
+    *** @param addtnlSelect Additional SQL selection criteria
+    *** @return The selected records, in traversal order (does not return null)
+    *** @throws DBException If a DB error occurs
+    **/
+    public static EventData[] getRangeEventsAfter(
+        String acctId, String devId,
+        long timeStart, long timeEnd,
+        int statCode[],
+        boolean validGPS,
+        boolean ascending, long limit,
+        EventData.RangeCursor cursor,
+        String addtnlSelect)
+        throws DBException
+    {
+
+        /* get record selector */
+        DBKeysetSelect<EventData> dsel = EventData._createKeysetRangeSelector(
+            acctId, devId,
+            timeStart, timeEnd,
+            statCode,
+            validGPS,
+            ascending,
+            addtnlSelect);
+        if (dsel == null) {
+            return EMPTY_ARRAY;
+        }
+        dsel.setLimit(limit);
+        if (cursor != null) {
+            dsel.setSeekValues(cursor.getSeekValues());
+        }
+
+        /* get events */
+        EventData ed[] = null;
+        try {
+            if (EventData.LockTableOnRead()) {
+                DBProvider.lockTables(new String[] { EventData.TABLE_NAME() }, null);
+            }
+            if (EventDataShards.IsEnabled()) {
+                // -- tables prior to (or after, if descending) the cursor are not read
+                long tStart = timeStart, tEnd = timeEnd;
+                if (cursor != null) {
+                    if (ascending) {
+                        tStart = Math.max(tStart, cursor.getTimestamp());
+                    } else
+                    if ((tEnd <= 0L) || (cursor.getTimestamp() < tEnd)) {
+                        tEnd = cursor.getTimestamp();
+                    }
+                }
+                ed = EventData._selectTimeShards(dsel, tStart, tEnd, limit, null);
+            } else {
+                ed = DBRecord.select(dsel, null); // select:DBSelect
+            }
+        } finally {
+            if (EventData.LockTableOnRead()) {
+                DBProvider.unlockTables();
+            }
+        }
+        return (ed != null)? ed : EMPTY_ARRAY;
+
+    }
+
+    /**
+    *** Returns an iterator over all EventData records in the specified range.  Records are
+    *** read in blocks of 'blockSize' records using keyset pagination, so arbitrarily large 
+    *** ranges may be read without holding the entire range in memory.
+    *** @param acctId       The Account ID
+    *** @param devId        The Device ID
+    *** @param timeStart    The range start time (inclusive)
+    *** @param timeEnd      The range end time (inclusive)
+    *** @param statCode     The list of status codes to select (null for all)
+    *** @param validGPS     True to select only events with a valid GPS location
+    *** @param ascending    True to traverse the range forward in time, false to traverse backwards
+    *** @param blockSize    The number of records read per block
+    *** @param addtnlSelect Additional SQL selection criteria
+    *** @return The record iterator, or null if the arguments are invalid
+    *** @throws DBException If a DB error occurs
+    **/
+    public static DBRecordIterator<EventData> getRangeEventIterator(
+        String acctId, String devId,
+        long timeStart, long timeEnd,
+        int statCode[],
+        boolean validGPS,
+        boolean ascending, long blockSize,
+        String addtnlSelect)
+        throws DBException
+    {
+        DBKeysetSelect<EventData> dsel = EventData._createKeysetRangeSelector(
+            acctId, devId,
+            timeStart, timeEnd,
+            statCode,
+            validGPS,
+            ascending,
+            addtnlSelect);
+        if (dsel == null) {
+            return null;
+        }
+        java.util.List<String> tables = EventData.GetReadTables(timeStart, timeEnd);
+        if (!ascending) {
+            Collections.reverse(tables); // newest first
+        }
+        DBRecordIterator<EventData> iter = new DBRecordIterator<EventData>(dsel, tables);
+        iter.setLimit(blockSize);
+        return iter;
+    }
+
+    /* return count in range of EventData records */
+    public static long countRangeEvents(
+        String acctId, String devId,
+        long timeStart, long timeEnd,
+        int statCode[],
+        boolean validGPS,
+        EventData.LimitType limitType, long limit,
+        String addtnlSelect)
+        throws DBException
+    {
+
+        /* get record selector */
+        DBSelect<EventData> dsel = EventData._createRangeEventSelector(
+            acctId, devId, 
+            timeStart, timeEnd,
+            statCode,
+            validGPS, 
+            limitType, limit, true/*ascending*/,
+            addtnlSelect);
+
+        /* invalid arguements? */
+        if (dsel == null) {
+            return 0L;
+        }
+
+        /* count events */
+        long recordCount = 0L;
+        try {
+            if (EventData.LockTableOnRead()) {
+                DBProvider.lockTables(new String[] { EventData.TABLE_NAME() }, null);
+            }
+            if (EventDataShards.IsEnabled()) {
+                recordCount = EventData._countTimeShards(dsel, timeStart, timeEnd);
+            } else {
+                recordCount = DBRecord.getRecordCount(dsel);
+            }
+        } finally {
+            if (EventData.LockTableOnRead()) {
+                DBProvider.unlockTables();
+            }
+        }
+        return recordCount;
+
+    }
+
+    /** 
+    *** Gets the number of EventData records for the specified Account/Device
+    *** within the specified range.
+    *** @param acctId     The Account ID
+    *** @param devId      The Device ID
+    *** @param timeStart  The starting time range (inclusive)
+    *** @param timeEnd    The ending time range (inclusive)
+    *** @return The number of records within the specified range
+    **/
+    public static long getRecordCount(
+        String acctId, String devId,
+        long timeStart, long timeEnd)
+        throws DBException
+    {
+        StringBuffer wh = new StringBuffer();
+        wh.append(EventData.getWhereClause(
+            acctId, devId,
+            timeStart, timeEnd,
+            null  /*statCode[]*/ ,
+            false /*gpsRequired*/,
+            null  /*andSelect*/  ));
+        if (EventDataShards.IsEnabled()) {
+            DBSelect<EventData> dsel = new DBSelect<EventData>(EventData.getFactory(), wh.toString());
+            return EventData._countTimeShards(dsel, timeStart, timeEnd);
+        }
+        return DBRecord.getRecordCount(EventData.getFactory(), wh);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /* get EventData records by "creationMillis" (does not return null) */
+    public static EventData[] getEventsByCreationMillis(
+        String acctId, 
+        String devId,
+        long createStartMS, long createEndMS,
+        long limit)
+        throws DBException
+    {
+        DBFactory<EventData> dbFact = EventData.getFactory();
+
+        /* invalid account/device */
+        if (StringTools.isBlank(acctId)) {
+            return EMPTY_ARRAY;
+        } else
+        if (StringTools.isBlank(devId)) {
+            return EMPTY_ARRAY;
+        }
+
+        /* invalid time range */
         if ((createStartMS > 0L) && (createEndMS > 0L) && (createStartMS > createEndMS)) {
             return EMPTY_ARRAY;
         }
@@ -8076,23 +9065,44 @@ public class EventData
         dsel.setLimit(limit);
 
         /* get events */
-        EventData ed[] = null;
+        // -- "creationMillis" is not related to the event timestamp, so all tables are read
+        // -  and the selected records are merged in "creationMillis" order
+        java.util.List<String> tables = EventData.GetReadTables(-1L, -1L);
+        java.util.List<EventData> list = new Vector<EventData>();
         try {
             if (EventData.LockTableOnRead()) {
                 DBProvider.lockTables(new String[] { EventData.TABLE_NAME() }, null);
             }
-            ed = DBRecord.select(dsel, null/*rcdHandler*/); // select:DBSelect
+            for (String table : tables) {
+                dsel.setUntranslatedTableName(table);
+                EventData ed[] = DBRecord.select(dsel, null/*rcdHandler*/); // select:DBSelect
+                if (ed != null) {
+                    ListTools.toList(ed, list);
+                }
+            }
         } finally {
             if (EventData.LockTableOnRead()) {
                 DBProvider.unlockTables();
             }
         }
-        if (ed == null) {
+        if (list.isEmpty()) {
             // no records
             return EMPTY_ARRAY;
-        } else {
-            return ed;
         }
+        if (tables.size() > 1) {
+            Collections.sort(list, new Comparator<EventData>() {
+                public int compare(EventData e1, EventData e2) {
+                    long c1 = e1.getCreationMillis(), c2 = e2.getCreationMillis();
+                    if (c1 != c2) { return (c1 < c2)? -1 : 1; }
+                    long t1 = e1.getTimestamp(), t2 = e2.getTimestamp();
+                    return (t1 < t2)? -1 : (t1 > t2)? 1 : 0;
+                }
+            });
+            if ((limit > 0L) && (list.size() > limit)) {
+                list = list.subList(0, (int)limit);
+            }
+        }
+        return list.toArray(new EventData[list.size()]);
 
     }
 
@@ -8201,13 +9211,19 @@ public class EventData
         DBConnection dbc = null;
         try {
             dbc = DBConnection.getDefaultConnection();
-            dbc.executeUpdate(ddel.toString());
+            for (String table : EventData.GetReadTables(delFromTime, -1L)) {
+                ddel.setUntranslatedTableName(table);
+                dbc.executeUpdate(ddel.toString());
+            }
         } catch (SQLException sqe) {
             throw new DBException("Deleting future EventData records", sqe);
         } finally {
             DBConnection.release(dbc);
         }
 
+        /* recently inserted event keys may no longer exist */
+        EventDuplicateFilter.RemoveFilter(acctID, devID);
+
         /* return count */
         return count;
 
@@ -8216,16 +9232,15 @@ public class EventData
     // ------------------------------------------------------------------------
 
     /**
-    *** Delete old events<br>
-    *** Note: Will return -1 if EventData table is InnoDB.  
-    ***       Old events will still be deleted, however it will still go through the
-    ***       motions of attempting to delete events, even if the range is empty.
+    *** Gets the time before which (exclusive) old events for the specified Device may be
+    *** deleted.  The specified time is adjusted for the Account retained-event age, and to
+    *** always retain the most recent event for the Device.
     *** @param device      The Device instance for the events that are to be deleted.
-    *** @param oldTimeSec  The time in the past before which (exclusive) events will be deleted.
-    *** @param msg         StringBuffer where messages are placed regarding the events deleted.
-    *** @return The number of events deleted.
+    *** @param oldTimeSec  The time in the past before which (exclusive) events should be deleted.
+    *** @param msg         StringBuffer where messages are placed regarding the adjusted time.
+    *** @return The time before which (exclusive) events may be deleted
     **/
-    public static long deleteOldEvents(
+    public static long getOldEventsDeleteTime(
         Device device,
         long oldTimeSec, 
         StringBuffer msg)
@@ -8268,7 +9283,6 @@ public class EventData
             false/*validGPS*/,
             EventData.LimitType.LAST, 1L/*limit*/, true/*ascending*/,
             null/*additionalSelect*/);
-        boolean savingLastEvent = false;
         long lastTimestamp = !ListTools.isEmpty(ev)? ev[0].getTimestamp() : 0L;
         if (lastTimestamp <= 0L) {
             // -- no events found for this device
@@ -8282,25 +9296,45 @@ public class EventData
             // -  just prior to last timestamp in order to save at elast one event
             // -  for this device.
             oldTimeSec = lastTimestamp; // deletion is non-inclusive
-            savingLastEvent = true;
             if (msg != null) {
                 if (msg.length() > 0) { msg.append(", "); }
                 msg.append("Saved last event");
             }
         }
 
+        return oldTimeSec;
+
+    }
+
+    /**
+    *** Delete old events<br>
+    *** Note: Will return -1 if EventData table is InnoDB.  
+    ***       Old events will still be deleted, however it will still go through the
+    ***       motions of attempting to delete events, even if the range is empty.
+    *** @param device      The Device instance for the events that are to be deleted.
+    *** @param oldTimeSec  The time in the past before which (exclusive) events will be deleted.
+    *** @param msg         StringBuffer where messages are placed regarding the events deleted.
+    *** @return The number of events deleted.
+    **/
+    public static long deleteOldEvents(
+        Device device,
+        long oldTimeSec, 
+        StringBuffer msg)
+        throws DBException
+    {
+
+        /* adjust for retained-date, and last event */
+        oldTimeSec = EventData.getOldEventsDeleteTime(device, oldTimeSec, msg);
+        String acctID = device.getAccountID();
+        String devID  = device.getDeviceID();
+
         /* count events in range */
         long count = EventData.getRecordCount(acctID,devID,-1L,(oldTimeSec - 1L)); // -1 for InnoDB?
         if (count == 0L) {
             // -- already empty range
             if (msg != null) {
                 if (msg.length() > 0) { msg.append(", "); }
-                if (savingLastEvent) {
-                    // an empty-range is normal/expected if savingLastEvent is true.
-                    msg.append("Nothing to delete");
-                } else {
-                    msg.append("Empty range");
-                }
+                msg.append("Nothing to delete");
             }
             return 0L;
         } else
@@ -8322,18 +9356,139 @@ public class EventData
         ));
 
         /* delete */
+        java.util.List<String> tables = EventDataShards.IsEnabled()?
+            EventDataShards.GetTablesForRange(-1L, (oldTimeSec - 1L)) :
+            ListTools.toList(new String[] { EventData.TABLE_NAME() });
+        for (String table : tables) {
+            ddel.setUntranslatedTableName(table);
+            DBConnection dbc = null;
+            try {
+                dbc = DBConnection.getDefaultConnection();
+                dbc.executeUpdate(ddel.toString());
+            } catch (SQLException sqe) {
+                throw new DBException("Deleting old EventData records", sqe);
+            } finally {
+                DBConnection.release(dbc);
+            }
+        }
+
+        /* return count */
+        return count; // -1 for InnoDB
+
+    }
+
+    /**
+    *** Deletes the oldest (at most) 'chunkSize' events prior to the specified time.  Events are
+    *** deleted in primary-key (timestamp) order, so that each DELETE locks a bounded range of
+    *** rows.  Call repeatedly until zero is returned to delete all events prior to the
+    *** specified time.
+    *** @param acctID      The Account ID
+    *** @param devID       The Device ID
+    *** @param oldTimeSec  The time before which (exclusive) events will be deleted (see
+    ***                    "getOldEventsDeleteTime").
+    *** @param chunkSize   The maximum number of events to delete
+    *** @return The number of events deleted (0 if no events remain prior to 'oldTimeSec')
+    **/
+    public static long deleteOldEventsChunk(
+        String acctID, String devID,
+        long oldTimeSec, 
+        int chunkSize)
+        throws DBException
+    {
+        if (EventDataShards.IsEnabled()) {
+            // -- delete from the oldest table which still has events prior to 'oldTimeSec'
+            for (String table : EventDataShards.GetTablesForRange(-1L, (oldTimeSec - 1L))) {
+                long count = EventData._deleteOldEventsChunk(table, acctID, devID, oldTimeSec, chunkSize);
+                if (count > 0L) {
+                    return count;
+                }
+            }
+            return 0L;
+        } else {
+            return EventData._deleteOldEventsChunk(EventData.TABLE_NAME(), acctID, devID, oldTimeSec, chunkSize);
+        }
+    }
+
+    /**
+    *** Deletes the oldest (at most) 'chunkSize' events prior to the specified time from the
+    *** specified EventData table
+    **/
+    private static long _deleteOldEventsChunk(
+        String utableName,
+        String acctID, String devID,
+        long oldTimeSec, 
+        int chunkSize)
+        throws DBException
+    {
+
+        /* find the timestamp of the last event in this chunk */
+        // DBSelect: SELECT timestamp FROM EventData WHERE ((accountID='acct') AND (deviceID='dev') AND (timestamp<oldTimeSec)) ORDER BY timestamp LIMIT chunkSize
+        DBSelect<EventData> dsel = new DBSelect<EventData>(EventData.getFactory());
+        dsel.setUntranslatedTableName(utableName);
+        dsel.setSelectedFields(EventData.FLD_timestamp);
+        DBWhere swh = dsel.createDBWhere();
+        dsel.setWhere(swh.WHERE_(
+            swh.AND(
+                swh.EQ(EventData.FLD_accountID,acctID),
+                swh.EQ(EventData.FLD_deviceID ,devID),
+                swh.LT(EventData.FLD_timestamp,oldTimeSec) // non-inclusive
+            )
+        ));
+        dsel.setOrderByFields(EventData.FLD_timestamp);
+        dsel.setOrderAscending(true);
+        dsel.setLimit((chunkSize > 0)? (long)chunkSize : 1000L);
+        long count    = 0L;
+        long chunkEnd = 0L;
         DBConnection dbc = null;
+        Statement   stmt = null;
+        ResultSet     rs = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(dsel.toString());
+            rs   = stmt.getResultSet();
+            while (rs.next()) {
+                chunkEnd = rs.getLong(EventData.FLD_timestamp);
+                count++;
+            }
+        } catch (SQLException sqe) {
+            throw new DBException("Selecting old EventData chunk", sqe);
+        } finally {
+            if (rs   != null) { try { rs.close();   } catch (Throwable t) {} }
+            if (stmt != null) { try { stmt.close(); } catch (Throwable t) {} }
+            DBConnection.release(dbc);
+        }
+        if (count <= 0L) {
+            return 0L;
+        }
+
+        /* SQL statement */
+        // DBDelete: DELETE FROM EventData WHERE ((accountID='acct) AND (deviceID='dev') AND (timestamp<=chunkEnd) AND (timestamp<oldTimeSec))
+        DBDelete ddel = new DBDelete(EventData.getFactory());
+        ddel.setUntranslatedTableName(utableName);
+        DBWhere dwh = ddel.createDBWhere();
+        ddel.setWhere(dwh.WHERE_(
+            dwh.AND(
+                dwh.EQ(EventData.FLD_accountID,acctID),
+                dwh.EQ(EventData.FLD_deviceID ,devID),
+                dwh.LE(EventData.FLD_timestamp,chunkEnd),
+                dwh.LT(EventData.FLD_timestamp,oldTimeSec) // non-inclusive
+            )
+        ));
+
+        /* delete */
+        dbc = null;
         try {
             dbc = DBConnection.getDefaultConnection();
             dbc.executeUpdate(ddel.toString());
         } catch (SQLException sqe) {
-            throw new DBException("Deleting old EventData records", sqe);
+            throw new DBException("Deleting old EventData chunk", sqe);
         } finally {
             DBConnection.release(dbc);
         }
 
         /* return count */
-        return count; // -1 for InnoDB
+        // -- may be slightly low if other events share the 'chunkEnd' timestamp
+        return count;
 
     }
 
@@ -8556,6 +9711,54 @@ public class EventData
 
     // --------------------------------
 
+    private static final String KEY_LISTS[][] = new String[][] {
+        KEY_ACCOUNT, KEY_DEVICE_COUNT, KEY_DEVICE, KEY_EVENT_COUNT24,
+        KEY_DEVICE_LINK, KEY_DEV_CONN_AGE, KEY_DEV_TRAILERS, KEY_DATETIME,
+        KEY_DATE_YEAR, KEY_DATE_MONTH, KEY_DATE_DAY, KEY_DATE_DOW,
+        KEY_TIMEZONE, KEY_TIME, KEY_CREATE_DATETIME, KEY_CREATE_AGE,
+        KEY_STATUSDESC, KEY_GEOPOINT, KEY_LATITUDE, KEY_LONGITUDE,
+        KEY_GPS_AGE, KEY_SPEED, KEY_SPEED_LIMIT, KEY_DIRECTION,
+        KEY_HEADING, KEY_ODOMETER, KEY_DISTANCE, KEY_ALTITUDE,
+        KEY_RPT_DISTANCE, KEY_BATTERY_LEVEL, KEY_BATTERY_VOLTS, KEY_VEH_BATTERY_V,
+        KEY_FUEL_LEVEL, KEY_FUEL_LEVEL2, KEY_FUEL_VOLUME, KEY_FUEL_VOLUME2,
+        KEY_TIRE_TEMP, KEY_TIRE_PRESSURE, KEY_ADDRESS, KEY_STREETADDR,
+        KEY_CITY, KEY_STATE, KEY_POSTALCODE, KEY_SUBDIVISION,
+        KEY_FAULT_CODE, KEY_FAULT_CODES, KEY_FAULT_HEADER, KEY_FAULT_DESC,
+        KEY_GEOZONEID, KEY_GEOZONE, KEY_GEOZONENAME, KEY_ENTITYID,
+        KEY_ENTITY, KEY_SERVICE_NOTES, KEY_MAPLINK, KEY_DRIVERID,
+        KEY_DRIVER_DESC, KEY_DRIVER_BADGE, KEY_DRIVER_LICENSE, KEY_DRIVER_PHONE,
+        KEY_INPUT_MASK, KEY_INPUT_BIT, KEY_OUTPUT_MASK, KEY_OUTPUT_BIT,
+        KEY_SEATBELT_MASK, KEY_SEATBELT_BIT, KEY_TEMPERATURE, KEY_TEMP_ALL,
+        KEY_ETA_DATETIME, KEY_ETA_UNIQUE_ID, KEY_ETA_DISTANCE, KEY_ETA_GEOPOINT,
+        KEY_STOP_ID, KEY_STOP_STATUS, KEY_STOP_INDEX, KEY_STOPPED_TIME,
+    };
+
+    private static Map<String,String[]> keyListMap = null;
+
+    /**
+    *** Gets the key list (ie. "KEY_SPEED") which contains the specified key name
+    *** @param key  The key name (case insensitive)
+    *** @return The key list, or null if the key is not a defined EventData key
+    **/
+    public static String[] GetKeyList(String key)
+    {
+        if (key == null) {
+            return null;
+        }
+        if (EventData.keyListMap == null) {
+            Map<String,String[]> klm = new HashMap<String,String[]>();
+            for (String keyList[] : EventData.KEY_LISTS) {
+                for (String k : keyList) {
+                    klm.put(k.toLowerCase(), keyList);
+                }
+            }
+            EventData.keyListMap = klm;
+        }
+        return EventData.keyListMap.get(key.toLowerCase());
+    }
+
+    // --------------------------------
+
     /**
     *** Returns true if the specified key matches the target key
     **/
@@ -8611,6 +9814,21 @@ public class EventData
         boolean getTitle, String key, String arg, 
         Locale locale, BasicPrivateLabel bpl, EventData ed)
     {
+        if ((locale == null) && (bpl != null)) { locale = bpl.getLocale(); }
+        return EventData._getKeyFieldString(
+            getTitle, EventData.GetKeyList(key), key, arg,
+            locale, null/*I18N*/, bpl, ed);
+    }
+
+    /**
+    *** Gets the value string for the specified key.
+    *** @param keyList  The key list containing the key (see "GetKeyList")
+    *** @param i18n     The EventData I18N instance for the locale (null to look up)
+    **/
+    public static String _getKeyFieldString(
+        boolean getTitle, String keyList[], String key, String arg, 
+        Locale locale, I18N i18n, BasicPrivateLabel bpl, EventData ed)
+    {
 
         /* check for valid field name */
         if (key == null) {
@@ -8620,12 +9838,12 @@ public class EventData
             return null;
         }
         if ((locale == null) && (bpl != null)) { locale = bpl.getLocale(); }
-        I18N i18n = I18N.getI18N(EventData.class, locale);
+        if (i18n == null) { i18n = I18N.getI18N(EventData.class, locale); }
         long now = DateTime.getCurrentTimeSec();
         if (arg == null) { arg = ""; }
 
         /* Account/Device values */
-        if (EventData._keyMatch(key,EventData.KEY_ACCOUNT)) {
+        if ((keyList == EventData.KEY_ACCOUNT)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.accountDescription", "Account");
             } else {
@@ -8638,7 +9856,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DEVICE_COUNT)) {
+        if ((keyList == EventData.KEY_DEVICE_COUNT)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.deviceCount", "Device Count");
             } else {
@@ -8646,7 +9864,7 @@ public class EventData
                 return (account != null)? String.valueOf(account.getDeviceCount()) : "?";
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DEVICE)) {
+        if ((keyList == EventData.KEY_DEVICE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.deviceDescription", "Device");
             } else {
@@ -8667,7 +9885,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_EVENT_COUNT24)) {
+        if ((keyList == EventData.KEY_EVENT_COUNT24)) {
             // EXPERIMENTAL
             if (getTitle) {
                 return i18n.getString("EventData.key.24HourEventCount", "24Hr Event Count");
@@ -8695,7 +9913,7 @@ public class EventData
                 return String.valueOf(recordCount);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DEVICE_LINK)) {
+        if ((keyList == EventData.KEY_DEVICE_LINK)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.deviceLink", "Device Link");
             } else {
@@ -8727,7 +9945,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DEV_CONN_AGE)) {
+        if ((keyList == EventData.KEY_DEV_CONN_AGE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.sinceLastConnect", "Since Connection");
             } else {
@@ -8754,7 +9972,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DEV_TRAILERS)) {
+        if ((keyList == EventData.KEY_DEV_TRAILERS)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.attachedTrailers", "Attached Trailers");
             } else {
@@ -8778,21 +9996,21 @@ public class EventData
         }
 
         /* Date/Time values */
-        if (EventData._keyMatch(key,EventData.KEY_DATETIME)) {
+        if ((keyList == EventData.KEY_DATETIME)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.dateTime", "Date/Time");
             } else {
                 return ed.getTimestampString();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DATE_YEAR)) {
+        if ((keyList == EventData.KEY_DATE_YEAR)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.dateYear", "Year");
             } else {
                 return ed.getTimestampYear();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DATE_MONTH)) {
+        if ((keyList == EventData.KEY_DATE_MONTH)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.dateMonth", "Month");
             } else {
@@ -8810,21 +10028,21 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DATE_DAY)) {
+        if ((keyList == EventData.KEY_DATE_DAY)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.dateDay", "Day");
             } else {
                 return ed.getTimestampDayOfMonth();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DATE_DOW)) {
+        if ((keyList == EventData.KEY_DATE_DOW)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.dayOfWeek", "Day Of Week");
             } else {
                 return ed.getTimestampDayOfWeek(false, locale);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_TIMEZONE)) {
+        if ((keyList == EventData.KEY_TIMEZONE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.timeZone", "TimeZone");
             } else {
@@ -8832,7 +10050,7 @@ public class EventData
                 return tmz.getDisplayName(locale);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_TIME)) {
+        if ((keyList == EventData.KEY_TIME)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.time", "Time");
             } else {
@@ -8841,14 +10059,14 @@ public class EventData
         }
 
         /* Creation Date/Time values */
-        if (EventData._keyMatch(key,EventData.KEY_CREATE_DATETIME)) {
+        if ((keyList == EventData.KEY_CREATE_DATETIME)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.creationDateTime", "Creation\nDate/Time");
             } else {
                 return ed.getCreationTimeString();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_CREATE_AGE)) {
+        if ((keyList == EventData.KEY_CREATE_AGE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.creationAge", "Creation\nAge");
             } else {
@@ -8871,14 +10089,14 @@ public class EventData
         }
 
         /* Event/GPS Values */
-        if (EventData._keyMatch(key,EventData.KEY_STATUSDESC)) {
+        if ((keyList == EventData.KEY_STATUSDESC)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.statusCode", "Status Code");
             } else {
                 return ed.getStatusCodeDescription(bpl);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_GEOPOINT)) {
+        if ((keyList == EventData.KEY_GEOPOINT)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.latitudeLongitude", "Latitude/Longitude");
             } else {
@@ -8891,7 +10109,7 @@ public class EventData
                 return latStr + GeoPoint.PointSeparator + lonStr;
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_LATITUDE)) {
+        if ((keyList == EventData.KEY_LATITUDE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.latitude", "Latitude");
             } else {
@@ -8901,7 +10119,7 @@ public class EventData
                 return GeoPoint.formatLatitude(lat, fmt, locale);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_LONGITUDE)) {
+        if ((keyList == EventData.KEY_LONGITUDE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.longitude", "Longitude");
             } else {
@@ -8911,7 +10129,7 @@ public class EventData
                 return GeoPoint.formatLongitude(lon, fmt, locale);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_GPS_AGE)) {
+        if ((keyList == EventData.KEY_GPS_AGE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.gpsAge", "GPS Age");
             } else {
@@ -8929,7 +10147,7 @@ public class EventData
                 return sb.toString();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_SPEED)) {
+        if ((keyList == EventData.KEY_SPEED)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.speed", "Speed");
             } else {
@@ -8942,7 +10160,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_SPEED_LIMIT)) {
+        if ((keyList == EventData.KEY_SPEED_LIMIT)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.speedLimit", "Speed Limit");
             } else {
@@ -8964,7 +10182,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DIRECTION)) {
+        if ((keyList == EventData.KEY_DIRECTION)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.direction", "Heading");
             } else {
@@ -8978,7 +10196,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_HEADING)) {
+        if ((keyList == EventData.KEY_HEADING)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.heading", "Heading");
             } else {
@@ -8991,7 +10209,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_ODOMETER)) {
+        if ((keyList == EventData.KEY_ODOMETER)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.odometer", "Odometer");
             } else {
@@ -9004,7 +10222,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DISTANCE)) {
+        if ((keyList == EventData.KEY_DISTANCE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.distance", "Distance");
             } else {
@@ -9017,14 +10235,14 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_ALTITUDE)) {
+        if ((keyList == EventData.KEY_ALTITUDE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.altitude", "Altitude");
             } else {
                 return ed.getAltitudeString(true, locale);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_RPT_DISTANCE)) {
+        if ((keyList == EventData.KEY_RPT_DISTANCE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.reportDistance", "Report\nDistance");
             } else {
@@ -9039,7 +10257,7 @@ public class EventData
         } 
 
         /* OBD, etc */
-        if (EventData._keyMatch(key,EventData.KEY_BATTERY_LEVEL)) {
+        if ((keyList == EventData.KEY_BATTERY_LEVEL)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.batteryLevel", "Battery Level");
             } else {
@@ -9048,21 +10266,21 @@ public class EventData
                 return Math.round(P) + "%";
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_BATTERY_VOLTS)) {
+        if ((keyList == EventData.KEY_BATTERY_VOLTS)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.batteryVolts", "Battery Volts");
             } else {
                 return StringTools.format(ed.getBatteryVolts(), "0.0");
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_VEH_BATTERY_V)) {
+        if ((keyList == EventData.KEY_VEH_BATTERY_V)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.vehBatteryVolts", "Veh. Batt Volts");
             } else {
                 return StringTools.format(ed.getVBatteryVolts(), "0.0");
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_FUEL_LEVEL)) {
+        if ((keyList == EventData.KEY_FUEL_LEVEL)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.fuelLevel", "Fuel Level");
             } else {
@@ -9075,7 +10293,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_FUEL_VOLUME)) {
+        if ((keyList == EventData.KEY_FUEL_VOLUME)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.fuelVolume", "Fuel Volume");
             } else {
@@ -9090,7 +10308,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_FUEL_LEVEL2)) {
+        if ((keyList == EventData.KEY_FUEL_LEVEL2)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.fuelLevel2", "Fuel Level 2");
             } else {
@@ -9103,7 +10321,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_FUEL_VOLUME2)) {
+        if ((keyList == EventData.KEY_FUEL_VOLUME2)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.fuelVolume2", "Fuel Volume 2");
             } else {
@@ -9118,7 +10336,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_TIRE_TEMP)) {
+        if ((keyList == EventData.KEY_TIRE_TEMP)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.tireTemp", "Tire Temp");
             } else {
@@ -9134,7 +10352,7 @@ public class EventData
                 return sb.toString();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_TIRE_PRESSURE)) {
+        if ((keyList == EventData.KEY_TIRE_PRESSURE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.tirePressure", "Tire Pressure");
             } else {
@@ -9150,42 +10368,42 @@ public class EventData
         } 
 
         /* Address values */
-        if (EventData._keyMatch(key,EventData.KEY_ADDRESS)) {
+        if ((keyList == EventData.KEY_ADDRESS)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.address", "Address");
             } else {
                 return ed.getAddress();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_STREETADDR)) {
+        if ((keyList == EventData.KEY_STREETADDR)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.streetAddress", "Street");
             } else {
                 return ed.getStreetAddress();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_CITY)) {
+        if ((keyList == EventData.KEY_CITY)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.city", "City");
             } else {
                 return ed.getCity();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_STATE)) {
+        if ((keyList == EventData.KEY_STATE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.state", "State");
             } else {
                 return ed.getStateProvince();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_POSTALCODE)) {
+        if ((keyList == EventData.KEY_POSTALCODE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.postalCode", "Postal Code");
             } else {
                 return ed.getPostalCode();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_SUBDIVISION)) {
+        if ((keyList == EventData.KEY_SUBDIVISION)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.subdivision", "Country/State");
             } else {
@@ -9194,7 +10412,7 @@ public class EventData
         } 
 
         /* OBD fault values */
-        if (EventData._keyMatch(key,EventData.KEY_FAULT_CODES)) {
+        if ((keyList == EventData.KEY_FAULT_CODES)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.faultCodes", "Fault Codes");
             } else {
@@ -9209,7 +10427,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_FAULT_CODE)) {
+        if ((keyList == EventData.KEY_FAULT_CODE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.faultCode", "Fault Code");
             } else {
@@ -9217,7 +10435,7 @@ public class EventData
                 return DTOBDFault.GetFaultString(fault);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_FAULT_HEADER)) {
+        if ((keyList == EventData.KEY_FAULT_HEADER)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.faultHeader", "Fault Header");
             } else {
@@ -9225,7 +10443,7 @@ public class EventData
                 return DTOBDFault.GetFaultHeader(fault);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_FAULT_DESC)) {
+        if ((keyList == EventData.KEY_FAULT_DESC)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.faultDescr", "Fault Description");
             } else {
@@ -9235,14 +10453,14 @@ public class EventData
         }
 
         /* Geozone */
-        if (EventData._keyMatch(key,EventData.KEY_GEOZONEID)) {
+        if ((keyList == EventData.KEY_GEOZONEID)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.geozoneID", "Geozone ID");
             } else {
                 return ed.getGeozoneID();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_GEOZONE)) {
+        if ((keyList == EventData.KEY_GEOZONE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.geozoneDescription", "Geozone");
             } else {
@@ -9257,7 +10475,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_GEOZONENAME)) {
+        if ((keyList == EventData.KEY_GEOZONENAME)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.geozoneName", "Geozone Name");
             } else {
@@ -9266,14 +10484,14 @@ public class EventData
         }
 
         /* Entity */
-        if (EventData._keyMatch(key,EventData.KEY_ENTITYID)) {
+        if ((keyList == EventData.KEY_ENTITYID)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.entityID", "Entity ID");
             } else {
                 return ed.getEntityID();
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_ENTITY)) {
+        if ((keyList == EventData.KEY_ENTITY)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.entityDescription", "Entity");
             } else {
@@ -9290,14 +10508,14 @@ public class EventData
         }
 
         /* Driver */
-        if (EventData._keyMatch(key,EventData.KEY_DRIVERID)) {
+        if ((keyList == EventData.KEY_DRIVERID)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.driverID", "Driver ID");
             } else {
                 return ed.getDriverID(true);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DRIVER_DESC)) {
+        if ((keyList == EventData.KEY_DRIVER_DESC)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.driverDescription", "Driver");
             } else {
@@ -9329,7 +10547,7 @@ public class EventData
                 return "";
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DRIVER_BADGE)) {
+        if ((keyList == EventData.KEY_DRIVER_BADGE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.driverBadge", "Driver Badge");
             } else {
@@ -9347,7 +10565,7 @@ public class EventData
                 return "";
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DRIVER_LICENSE)) {
+        if ((keyList == EventData.KEY_DRIVER_LICENSE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.driverLicense", "Driver License");
             } else {
@@ -9365,7 +10583,7 @@ public class EventData
                 return "";
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_DRIVER_PHONE)) {
+        if ((keyList == EventData.KEY_DRIVER_PHONE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.driverPhone", "Driver Phone");
             } else {
@@ -9385,7 +10603,7 @@ public class EventData
         }
 
         /* digital input values */
-        if (EventData._keyMatch(key,EventData.KEY_INPUT_MASK)) {
+        if ((keyList == EventData.KEY_INPUT_MASK)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.inputMask", "Input Mask");
             } else {
@@ -9397,7 +10615,7 @@ public class EventData
                 return s.substring(len, slen);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_INPUT_BIT)) {
+        if ((keyList == EventData.KEY_INPUT_BIT)) {
             int argBit = StringTools.parseInt(arg,0);
             if (getTitle) {
                 return i18n.getString("EventData.key.inputBit", "Input Bit {0}", String.valueOf(argBit));
@@ -9412,7 +10630,7 @@ public class EventData
         }
 
         /* digital output values */
-        if (EventData._keyMatch(key,EventData.KEY_OUTPUT_MASK)) {
+        if ((keyList == EventData.KEY_OUTPUT_MASK)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.outputMask", "Output Mask");
             } else {
@@ -9424,7 +10642,7 @@ public class EventData
                 return s.substring(len, slen);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_OUTPUT_BIT)) {
+        if ((keyList == EventData.KEY_OUTPUT_BIT)) {
             int argBit = StringTools.parseInt(arg,0);
             if (getTitle) {
                 return i18n.getString("EventData.key.outputBit", "Output Bit {0}", String.valueOf(argBit));
@@ -9439,7 +10657,7 @@ public class EventData
         }
 
         /* seatbelt values */
-        if (EventData._keyMatch(key,EventData.KEY_SEATBELT_MASK)) {
+        if ((keyList == EventData.KEY_SEATBELT_MASK)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.seatbeltMask", "Seatbelt Mask");
             } else {
@@ -9451,7 +10669,7 @@ public class EventData
                 return s.substring(len, slen);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_SEATBELT_BIT)) {
+        if ((keyList == EventData.KEY_SEATBELT_BIT)) {
             int argBit = StringTools.parseInt(arg,0);
             if (getTitle) {
                 if (argBit == 0) {
@@ -9470,7 +10688,7 @@ public class EventData
         }
 
         /* temperature values (see also KEY_TIRE_TEMP) */
-        if (EventData._keyMatch(key,EventData.KEY_TEMPERATURE)) {
+        if ((keyList == EventData.KEY_TEMPERATURE)) {
             int argNdx = StringTools.parseInt(arg,0);
             if (getTitle) {
                 return i18n.getString("EventData.key.temperature", "Temperature {0}", String.valueOf(argNdx));
@@ -9490,7 +10708,7 @@ public class EventData
                 }
             }
         }
-        if (EventData._keyMatch(key,EventData.KEY_TEMP_ALL)) {
+        if ((keyList == EventData.KEY_TEMP_ALL)) {
             // Also handles:
             //  KEY_TEMP_0
             //  KEY_TEMP_1
@@ -9522,7 +10740,7 @@ public class EventData
         }
 
         /* Misc */
-        if (EventData._keyMatch(key,EventData.KEY_SERVICE_NOTES)) {
+        if ((keyList == EventData.KEY_SERVICE_NOTES)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.serviceNotes", "Service Notes");
             } else {
@@ -9530,7 +10748,7 @@ public class EventData
                 return (device != null)? device.getMaintNotes() : "";
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_MAPLINK)) {
+        if ((keyList == EventData.KEY_MAPLINK)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.mapLink", "Map Link");
             } else {
@@ -9556,7 +10774,7 @@ public class EventData
         }
         /*
         else
-        if (EventData._keyMatch(key,EventData.KEY_STOPPED_TIME)) {
+        if ((keyList == EventData.KEY_STOPPED_TIME)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.stoppedTime", "Stopped Time");
             } else {
@@ -9583,7 +10801,7 @@ public class EventData
         */
 
         /* Garmin values */
-        if (EventData._keyMatch(key,EventData.KEY_ETA_DATETIME)) {
+        if ((keyList == EventData.KEY_ETA_DATETIME)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.etaDateTime", "ETA Date/Time");
             } else {
@@ -9593,7 +10811,7 @@ public class EventData
                 return EventData.getTimestampString(ts, acct, tmz, null);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_ETA_UNIQUE_ID)) {
+        if ((keyList == EventData.KEY_ETA_UNIQUE_ID)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.etaUniqueID", "ETA Unique ID");
             } else {
@@ -9601,7 +10819,7 @@ public class EventData
                 return String.valueOf(id);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_ETA_DISTANCE)) {
+        if ((keyList == EventData.KEY_ETA_DISTANCE)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.etaDistance", "ETA Distance");
             } else {
@@ -9614,7 +10832,7 @@ public class EventData
                 }
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_ETA_GEOPOINT)) {
+        if ((keyList == EventData.KEY_ETA_GEOPOINT)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.etaLatLon", "ETA Latitude/Longitude");
             } else {
@@ -9627,7 +10845,7 @@ public class EventData
                 return latStr + GeoPoint.PointSeparator + lonStr;
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_STOP_ID)) {
+        if ((keyList == EventData.KEY_STOP_ID)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.stopID", "Stop ID");
             } else {
@@ -9635,7 +10853,7 @@ public class EventData
                 return String.valueOf(id);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_STOP_STATUS)) {
+        if ((keyList == EventData.KEY_STOP_STATUS)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.stopStatus", "Stop Status");
             } else {
@@ -9643,7 +10861,7 @@ public class EventData
                 return String.valueOf(status);
             }
         } else
-        if (EventData._keyMatch(key,EventData.KEY_STOP_INDEX)) {
+        if ((keyList == EventData.KEY_STOP_INDEX)) {
             if (getTitle) {
                 return i18n.getString("EventData.key.stopIndex", "Stop Index");
             } else {
@@ -9888,16 +11106,15 @@ public class EventData
 
         /* EventData query */
         if (RTConfig.getBoolean(ARG_QUERY_ALL,false)) {
-            DBSelect<EventData> dsel = EventData._createRangeEventSelector(
-                accountID, deviceID, 
-                -1L, -1L,
-                null,
-                false, 
-                EventData.LimitType.FIRST, 0L, true,
-                null);
             try {
-                DBRecordIterator<EventData> dbi = new DBRecordIterator<EventData>(dsel);
-                for (int rc = 1; dbi.hasNext(); rc++) {
+                DBRecordIterator<EventData> dbi = EventData.getRangeEventIterator(
+                    accountID, deviceID, 
+                    -1L, -1L,
+                    null,
+                    false, 
+                    true, DBRecordIterator.DEFAULT_LIMIT,
+                    null);
+                for (int rc = 1; (dbi != null) && dbi.hasNext(); rc++) {
                     EventData ed = dbi.next();
                     StringBuffer sb = new StringBuffer();
                     sb.append(rc).append(") ");
@@ -134,6 +134,15 @@ public class Role
         super.setRuntimeDefaultValues();
     }
 
+    /**
+    *** Callback after record has been be updated in the table
+    **/
+    protected void recordDidUpdate()
+    {
+        super.recordDidUpdate();
+        UserAclMatrix.IncrementAclVersion();
+    }
+
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
@@ -191,6 +191,24 @@ public class RoleAcl
         //super.setRuntimeDefaultValues();
     }
 
+    /**
+    *** Callback after record has been be inserted into the table
+    **/
+    protected void recordDidInsert()
+    {
+        super.recordDidInsert();
+        UserAclMatrix.IncrementAclVersion();
+    }
+
+    /**
+    *** Callback after record has been be updated in the table
+    **/
+    protected void recordDidUpdate()
+    {
+        super.recordDidUpdate();
+        UserAclMatrix.IncrementAclVersion();
+    }
+
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
@@ -304,12 +322,64 @@ public class RoleAcl
         /* delete */
         RoleAcl.Key aclKey = new RoleAcl.Key(acctId, roleId, aclId);
         aclKey.delete(true); // also delete dependencies
+        UserAclMatrix.IncrementAclVersion();
         return true;
 
     }
 
     // ------------------------------------------------------------------------
 
+    /* return map of all defined ACL access levels for the specified role */
+    // does not return null
+    public static Map<String,AccessLevel> getAccessLevelMap(Role role)
+        throws DBException
+    {
+        Map<String,AccessLevel> aclMap = new HashMap<String,AccessLevel>();
+        if (role == null) {
+            return aclMap;
+        }
+
+        /* read ACLs for role */
+        DBConnection dbc = null;
+        Statement   stmt = null;
+        ResultSet     rs = null;
+        try {
+
+            /* select */
+            // DBSelect: SELECT aclID,accessLevel FROM RoleAcl WHERE (accountID='acct') AND (roleID='role')
+            DBSelect<RoleAcl> dsel = new DBSelect<RoleAcl>(RoleAcl.getFactory());
+            dsel.setSelectedFields(RoleAcl.FLD_aclID, RoleAcl.FLD_accessLevel);
+            DBWhere dwh = dsel.createDBWhere();
+            dsel.setWhere(dwh.WHERE_(
+                dwh.AND(
+                    dwh.EQ(RoleAcl.FLD_accountID, role.getAccountID()),
+                    dwh.EQ(RoleAcl.FLD_roleID   , role.getRoleID())
+                )
+            ));
+
+            /* get records */
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(dsel.toString());
+            rs   = stmt.getResultSet();
+            while (rs.next()) {
+                String aclId  = rs.getString(RoleAcl.FLD_aclID);
+                int    accLvl = rs.getInt(RoleAcl.FLD_accessLevel);
+                aclMap.put(aclId, EnumTools.getValueOf(AccessLevel.class,accLvl));
+            }
+
+        } catch (SQLException sqe) {
+            throw new DBException("Getting Role ACL AccessLevels", sqe);
+        } finally {
+            if (rs   != null) { try { rs.close();   } catch (Throwable t) {} }
+            if (stmt != null) { try { stmt.close(); } catch (Throwable t) {} }
+            DBConnection.release(dbc);
+        }
+
+        /* return map */
+        return aclMap;
+
+    }
+
     /* Return specified role */
     public static RoleAcl getRoleAcl(Role role, String aclId)
         throws DBException
@@ -365,6 +365,23 @@ public class User
 
     // ------------------------------------------------------------------------
 
+    /* compiled ACL matrix (see "BasicPrivateLabel.getAccessLevel(User,String)") */
+    private UserAclMatrix aclMatrix = null;
+
+    /* sets the compiled ACL matrix for this user */
+    public void setAclMatrix(UserAclMatrix matrix)
+    {
+        this.aclMatrix = matrix;
+    }
+
+    /* gets the compiled ACL matrix for this user, or null if not set */
+    public UserAclMatrix getAclMatrix()
+    {
+        return this.aclMatrix;
+    }
+
+    // ------------------------------------------------------------------------
+
     /* gets the defined Role, or null if no role was defined */
     private Role userRole = null;
     public Role getRole()
@@ -200,6 +200,24 @@ public class UserAcl
         //super.setRuntimeDefaultValues();
     }
 
+    /**
+    *** Callback after record has been be inserted into the table
+    **/
+    protected void recordDidInsert()
+    {
+        super.recordDidInsert();
+        UserAclMatrix.IncrementAclVersion();
+    }
+
+    /**
+    *** Callback after record has been be updated in the table
+    **/
+    protected void recordDidUpdate()
+    {
+        super.recordDidUpdate();
+        UserAclMatrix.IncrementAclVersion();
+    }
+
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
@@ -339,12 +357,64 @@ public class UserAcl
         /* delete */
         UserAcl.Key aclKey = new UserAcl.Key(acctId, userId, aclId);
         aclKey.delete(true); // also delete dependencies
+        UserAclMatrix.IncrementAclVersion();
         return true;
 
     }
 
     // ------------------------------------------------------------------------
 
+    /* return map of all defined ACL access levels for the specified user */
+    // does not return null
+    public static Map<String,AccessLevel> getAccessLevelMap(User user)
+        throws DBException
+    {
+        Map<String,AccessLevel> aclMap = new HashMap<String,AccessLevel>();
+        if (user == null) {
+            return aclMap;
+        }
+
+        /* read ACLs for user */
+        DBConnection dbc = null;
+        Statement   stmt = null;
+        ResultSet     rs = null;
+        try {
+
+            /* select */
+            // DBSelect: SELECT aclID,accessLevel FROM UserAcl WHERE (accountID='acct') AND (userID='user')
+            DBSelect<UserAcl> dsel = new DBSelect<UserAcl>(UserAcl.getFactory());
+            dsel.setSelectedFields(UserAcl.FLD_aclID, UserAcl.FLD_accessLevel);
+            DBWhere dwh = dsel.createDBWhere();
+            dsel.setWhere(dwh.WHERE_(
+                dwh.AND(
+                    dwh.EQ(UserAcl.FLD_accountID, user.getAccountID()),
+                    dwh.EQ(UserAcl.FLD_userID   , user.getUserID())
+                )
+            ));
+
+            /* get records */
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(dsel.toString());
+            rs   = stmt.getResultSet();
+            while (rs.next()) {
+                String aclId  = rs.getString(UserAcl.FLD_aclID);
+                int    accLvl = rs.getInt(UserAcl.FLD_accessLevel);
+                aclMap.put(aclId, EnumTools.getValueOf(AccessLevel.class,accLvl));
+            }
+
+        } catch (SQLException sqe) {
+            throw new DBException("Getting User ACL AccessLevels", sqe);
+        } finally {
+            if (rs   != null) { try { rs.close();   } catch (Throwable t) {} }
+            if (stmt != null) { try { stmt.close(); } catch (Throwable t) {} }
+            DBConnection.release(dbc);
+        }
+
+        /* return map */
+        return aclMap;
+
+    }
+
     /* Return specified user */
     public static UserAcl getUserAcl(User user, String aclId)
         throws DBException
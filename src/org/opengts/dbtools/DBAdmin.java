@@ -826,6 +826,8 @@ public class DBAdmin
                 allOK = false;
             }
         }
+        // -- load the existing table columns from the schema cache file (if configured)
+        DBSchemaSnapshot.Preload(factMap.keySet());
         return allOK;
     }
 
@@ -880,6 +882,11 @@ public class DBAdmin
     public  static final String ARG_OVERWRITE[]     = new String[] { "overwrite"     };
     public  static final String ARG_NODROPWARN[]    = new String[] { "noDropWarning" };
     public  static final String ARG_BEAN[]          = new String[] { "bean"          };
+    public  static final String ARG_PARALLEL[]      = new String[] { "parallel"      };
+    public  static final String ARG_GZIP[]          = new String[] { "gzip"          };
+    public  static final String ARG_BATCH[]         = new String[] { "batch"         };
+    public  static final String ARG_COMMIT[]        = new String[] { "commit"        };
+    public  static final String ARG_DEFER_INDEXES[] = new String[] { "deferIndexes"  };
   //public  static final String ARG_HIBXML[]        = new String[] { "hibxml"        };
   //public  static final String ARG_RELOAD[]        = new String[] { "reload"        };
 
@@ -898,8 +905,8 @@ public class DBAdmin
         // -createdb -rootUser=<Root_User> -rootPass=<Root_Pass>
         // -grant -rootUser=<Root_User> -rootPass=<Root_Pass> -user=<Grant_User> -pass=<Grant_Pass>
         // -tables
-        // -dump=<table> -dir=<Destination_Dir>
-        // -load=<table> -dir=<Source_Dir>
+        // -dump=<table> -dir=<Destination_Dir> [-parallel=<threads>] [-gzip]
+        // -load=<table> -dir=<Source_Dir> [-parallel=<threads>] [-batch=<rows>] [-commit=<rows>] [-deferIndexes]
         // -drop=<table>
 
         /* if specified, the argument specified for "-db" MUST match 'DBProvider.getDBName()' */
@@ -1091,6 +1098,12 @@ public class DBAdmin
         }
         */
 
+        /* bulk load/dump options */
+        // -parallel=<threads> -batch=<rows> -commit=<rows> -deferIndexes -gzip
+        boolean bulkMode = RTConfig.hasProperty(ARG_PARALLEL) || RTConfig.hasProperty(ARG_BATCH) ||
+            RTConfig.hasProperty(ARG_COMMIT) || RTConfig.getBoolean(ARG_DEFER_INDEXES,false) ||
+            RTConfig.getBoolean(ARG_GZIP,false);
+
         /* pre-check 'load' file */
         // bin/exe DBAdmin -load=<Table> -dir=<Source_Dir> -overwrite
         File   loadTableFiles[] = null;
@@ -1115,12 +1128,19 @@ public class DBAdmin
                     loadTableNames[t] = file.getName();
                     loadDir = file.getParentFile(); // override any directory specified with '-dir=<dir>'
                 }
-                int p = loadTableNames[t].lastIndexOf('.');
+                String loadName = DBBulkLoader.RemoveGzipExtension(loadTableNames[t]);
+                int p = loadName.lastIndexOf('.');
                 if (p < 0) {
                     // IE. "Geozone"
                     loadTableFiles[t] = new File(loadDir, loadTableNames[t] + DBFactory._LOAD_EXT_TXT);
                     if (!loadTableFiles[t].isFile()) { 
                         loadTableFiles[t] = new File(loadDir, loadTableNames[t] + DBFactory._LOAD_EXT_SQL);
+                        File partFiles[] = DBBulkLoader.GetPartFiles(loadDir, loadTableNames[t]);
+                        if (!loadTableFiles[t].isFile() && (partFiles.length > 0)) {
+                            // IE. "Geozone_p01.txt.gz" (parallel dump part files)
+                            loadTableFiles[t] = partFiles[0];
+                            bulkMode = true;
+                        } else
                         if (!loadTableFiles[t].isFile()) {
                             String f = loadDir + File.separator + loadTableNames[t] + ".[txt|sql]";
                             Print.logWarn("'Load' file not found: " + f);
@@ -1128,21 +1148,25 @@ public class DBAdmin
                         }
                     }
                 } else {
-                    // IE. "Geozone.csv"
-                    String ext = loadTableNames[t].substring(p); // ==> ".csv"
+                    // IE. "Geozone.csv", "Geozone.txt.gz"
+                    String ext = loadName.substring(p); // ==> ".csv"
+                    boolean gzip = DBBulkLoader.IsGzipFile(loadTableNames[t]);
                     if (ext.equals(DBFactory._LOAD_EXT_CSV) || 
                         ext.equals(DBFactory._LOAD_EXT_TXT) || 
-                        ext.equals(DBFactory._LOAD_EXT_SQL)   ) {
+                        (ext.equals(DBFactory._LOAD_EXT_SQL) && !gzip)) {
                         loadTableFiles[t] = new File(loadDir, loadTableNames[t]);
                         if (!loadTableFiles[t].isFile()) {
                             Print.logWarn("'Load' file not found: " + loadTableFiles[t]);
                             return DBAdminExec.WARN;
                         }
+                        if (gzip) {
+                            bulkMode = true; // compressed files are only supported by the bulk loader
+                        }
                     } else {
                         Print.logError("Invalid 'load' file extension [expected txt|sql|csv]");
                         return DBAdminExec.ERROR;
                     }
-                    loadTableNames[t] = loadTableNames[t].substring(0,p);
+                    loadTableNames[t] = loadName.substring(0,p);
                 }
             }
         }
@@ -1225,8 +1249,16 @@ public class DBAdmin
                 DBFactory<? extends DBRecord> fact = DBAdmin.getTableFactory(utableName);
                 if (fact != null) {
                     try {
-                        DBSelect dbSel = new DBSelect(fact,where); // "unchecked call"
-                        fact.dumpTable(dumpFile, dbSel); // "unchecked conversion"
+                        if (bulkMode) {
+                            // -- parallel dump to part files: <Table>_pNN.<ext>[.gz]
+                            DBBulkLoader bulk = new DBBulkLoader(fact);
+                            bulk.setThreads(RTConfig.getInt(ARG_PARALLEL,1));
+                            String dotExt = dumpFile.getName().substring(utableName.length());
+                            bulk.dumpTable(dumpFile.getParentFile(), dotExt, where, RTConfig.getBoolean(ARG_GZIP,false));
+                        } else {
+                            DBSelect dbSel = new DBSelect(fact,where); // "unchecked call"
+                            fact.dumpTable(dumpFile, dbSel); // "unchecked conversion"
+                        }
                     } catch (DBException dbe) {
                         Print.logException("Error dumping table: " + utableName, dbe);
                         return DBAdminExec.ERROR;
@@ -1288,7 +1320,26 @@ public class DBAdmin
                             } else {
                                 Print.logWarn("---- Existing data will NOT be overwritten! ----");
                             }
-                            long count = fact.loadTable(loadTableFiles[t], insertRecords, overwriteExisting, noDropWarning);
+                            long count = 0L;
+                            if (bulkMode) {
+                                // -- parallel load, part files are loaded if present
+                                File partFiles[] = DBBulkLoader.GetPartFiles(loadTableFiles[t].getParentFile(), loadTableNames[t]);
+                                File loadFile    = loadTableFiles[t];
+                                if (loadFile.getName().endsWith(DBFactory._LOAD_EXT_SQL)) {
+                                    // -- column definitions are read from the ".sql" file by the loader
+                                    loadFile = new File(FileTools.removeExtension(loadFile.getPath()) + DBFactory._LOAD_EXT_TXT);
+                                }
+                                File bulkFiles[] = (partFiles.length > 0)? partFiles : new File[] { loadFile };
+                                DBBulkLoader bulk = new DBBulkLoader(fact);
+                                bulk.setThreads(RTConfig.getInt(ARG_PARALLEL,DBBulkLoader.DFT_THREADS));
+                                bulk.setBatchSize(RTConfig.getInt(ARG_BATCH,DBBulkLoader.DFT_BATCH_SIZE));
+                                bulk.setCommitSize(RTConfig.getInt(ARG_COMMIT,DBBulkLoader.DFT_COMMIT_SIZE));
+                                bulk.setDeferIndexes(RTConfig.getBoolean(ARG_DEFER_INDEXES,false));
+                                bulk.setLoadOptions(insertRecords, overwriteExisting, noDropWarning);
+                                count = bulk.loadTable(bulkFiles, null);
+                            } else {
+                                count = fact.loadTable(loadTableFiles[t], insertRecords, overwriteExisting, noDropWarning);
+                            }
                             Print.logInfo("(Loaded " + count + " records from file '" + loadTableFiles[t] + "' into table '" + loadTableNames[t] + "')");
                         } catch (DBException dbe) {
                             Print.logException("Error creating/loading table: " + loadTableNames[t], dbe);
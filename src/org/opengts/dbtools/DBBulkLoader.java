@@ -0,0 +1,1056 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.dbtools;
+
+import java.lang.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+import java.io.*;
+import java.sql.*;
+
+import org.opengts.util.*;
+
+/**
+*** <code>DBBulkLoader</code> loads and dumps large tables using several threads.<br>
+*** Loading: the load files (ie. the part files written by a parallel dump) are read by one or
+*** more reader threads, which pass chunks of rows to a set of insert threads.  Each chunk is
+*** inserted in a single transaction ("commit size" rows) using JDBC statement batches ("batch
+*** size" rows).  If a chunk cannot be inserted as a batch (ie. a record already exists), the
+*** transaction is rolled back and the chunk rows are loaded one at a time, observing the
+*** "overwrite existing" option.  Alternate indexes may optionally be dropped before the load
+*** and re-created afterwards.  When an <code>InsertionValidator</code> is specified, the load
+*** files are read sequentially by a single reader thread, so that the validator sees the field
+*** names and rows of each file in order.<br>
+*** Dumping: the table is split into contiguous ranges of the primary key (of roughly equal row
+*** counts), and each range is written to a separate (optionally gzip compressed) part file.  A
+*** table which is partitioned over several physical tables (ie. EventData time-shards, see
+*** "DBRecordKey.getReadTableNames") is split per physical table.  The part files are written
+*** by (at most) the specified number of threads.
+**/
+
+public class DBBulkLoader
+{
+
+    // ------------------------------------------------------------------------
+
+    public  static final int    DFT_THREADS             = 4;
+    public  static final int    DFT_BATCH_SIZE          = 500;
+    public  static final int    DFT_COMMIT_SIZE         = 5000;
+
+    public  static final String _EXT_GZIP               = ".gz";
+    public  static final String PART_SEP                = "_p";
+
+    private static final int    MAX_KEY_GROUPS          = 100000; // max key groups read when splitting a dump
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if the specified file name has a gzip extension
+    **/
+    public static boolean IsGzipFile(String fileName)
+    {
+        return (fileName != null) && fileName.endsWith(_EXT_GZIP);
+    }
+
+    /**
+    *** Gets the specified file name with any gzip extension removed
+    **/
+    public static String RemoveGzipExtension(String fileName)
+    {
+        if (DBBulkLoader.IsGzipFile(fileName)) {
+            return fileName.substring(0, fileName.length() - _EXT_GZIP.length());
+        } else {
+            return fileName;
+        }
+    }
+
+    /**
+    *** Gets the name of the specified dump part file
+    *** @param utableName  The untranslated table name
+    *** @param part        The part number (1 based)
+    *** @param ext         The dump file extension (ie. ".txt")
+    *** @param gzip        True for a gzip compressed part file
+    *** @return The part file name (ie. "EventData_p01.txt.gz")
+    **/
+    public static String GetPartFileName(String utableName, int part, String ext, boolean gzip)
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(utableName).append(PART_SEP).append(StringTools.format(part,"00"));
+        sb.append(ext);
+        if (gzip) {
+            sb.append(_EXT_GZIP);
+        }
+        return sb.toString();
+    }
+
+    /**
+    *** Gets the dump part files for the specified table in the specified directory
+    *** @param dir         The directory containing the part files
+    *** @param utableName  The untranslated table name
+    *** @return The part files, sorted by name (empty if there are no part files)
+    **/
+    public static File[] GetPartFiles(File dir, String utableName)
+    {
+        final String pfx = utableName + PART_SEP;
+        File files[] = (dir != null)? dir.listFiles(new FileFilter() {
+            public boolean accept(File file) {
+                if (!file.isFile() || !file.getName().startsWith(pfx)) {
+                    return false;
+                }
+                String n = DBBulkLoader.RemoveGzipExtension(file.getName().substring(pfx.length()));
+                int    p = n.indexOf('.');
+                return (p > 0) && StringTools.isNumeric(n.substring(0,p)) &&
+                    DBBulkLoader._isLoadExtension(n.substring(p));
+            }
+        }) : null;
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
+    /**
+    *** Returns true if the specified extension is a supported load file extension
+    **/
+    private static boolean _isLoadExtension(String ext)
+    {
+        return ext.equals(DBFactory._LOAD_EXT_CSV) ||
+               ext.equals(DBFactory._LOAD_EXT_TXT) ||
+               ext.equals(DBFactory._LOAD_EXT_DUMP);
+    }
+
+    /**
+    *** Opens the specified file for reading, decompressing if the file has a gzip extension
+    **/
+    private static InputStream _openInput(File file)
+        throws IOException
+    {
+        InputStream in = new FileInputStream(file);
+        if (DBBulkLoader.IsGzipFile(file.getName())) {
+            in = new GZIPInputStream(in, 64 * 1024);
+        }
+        return new BufferedInputStream(in, 64 * 1024);
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** A chunk of rows read from a load file
+    **/
+    private static class RowChunk
+    {
+        private String                  fields[] = null;
+        private java.util.List<String[]> rows    = null;
+        public RowChunk(String fields[], int size) {
+            this.fields = fields;
+            this.rows   = new Vector<String[]>(size);
+        }
+    }
+
+    private static final RowChunk END_OF_LOAD = new RowChunk(null, 0);
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private DBFactory<?>                        factory             = null;
+
+    private int                                 threads             = DFT_THREADS;
+    private int                                 batchSize           = DFT_BATCH_SIZE;
+    private int                                 commitSize          = DFT_COMMIT_SIZE;
+    private boolean                             deferIndexes        = false;
+    private boolean                             insertRecords       = true;
+    private boolean                             overwriteExisting   = false;
+    private boolean                             noDropWarning       = false;
+
+    private BlockingQueue<RowChunk>             loadQueue           = null;
+    private long                                readCount           = 0L;
+    private long                                loadCount           = 0L;
+    private long                                retryCount          = 0L;
+    private Throwable                           loadError           = null;
+
+    /**
+    *** Constructor
+    *** @param factory  The DBFactory of the table to load/dump
+    **/
+    public DBBulkLoader(DBFactory<?> factory)
+    {
+        this.factory = factory;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Sets the number of load/dump threads
+    **/
+    public void setThreads(int threads)
+    {
+        this.threads = (threads > 0)? threads : DFT_THREADS;
+    }
+
+    /**
+    *** Sets the number of rows inserted per JDBC statement batch
+    **/
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = (batchSize > 0)? batchSize : DFT_BATCH_SIZE;
+    }
+
+    /**
+    *** Sets the number of rows inserted per transaction
+    **/
+    public void setCommitSize(int commitSize)
+    {
+        this.commitSize = (commitSize > 0)? commitSize : DFT_COMMIT_SIZE;
+    }
+
+    /**
+    *** Sets whether alternate indexes should be dropped during the load, and re-created afterwards
+    **/
+    public void setDeferIndexes(boolean defer)
+    {
+        this.deferIndexes = defer;
+    }
+
+    /**
+    *** Sets the load options (see "DBFactory.loadTable")
+    *** @param insertRecords      False to only validate the loaded records
+    *** @param overwriteExisting  True to overwrite existing records
+    *** @param noDropWarning      True to suppress dropped column warnings
+    **/
+    public void setLoadOptions(boolean insertRecords, boolean overwriteExisting, boolean noDropWarning)
+    {
+        this.insertRecords     = insertRecords;
+        this.overwriteExisting = overwriteExisting;
+        this.noDropWarning     = noDropWarning;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if the records of this table can be inserted using JDBC statement batches
+    **/
+    private boolean _canBatchInsert()
+    {
+        if (!this.insertRecords) {
+            return false;
+        }
+        DBField fields[] = this.factory.getFields();
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].isAutoIncrement()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+    *** Loads the specified files into the table
+    *** @param files      The load files (".csv", ".txt", ".dump", optionally with a ".gz" extension)
+    *** @param validator  The InsertionValidator (may be null)
+    *** @return The number of records loaded
+    *** @throws DBException   If a database error occurs
+    **/
+    public long loadTable(File files[], final DBFactory.InsertionValidator validator)
+        throws DBException
+    {
+        if (ListTools.isEmpty(files)) {
+            return 0L;
+        }
+        long startMS = DateTime.getCurrentTimeMillis();
+        this.loadQueue  = new ArrayBlockingQueue<RowChunk>(this.threads * 2);
+        this.readCount  = 0L;
+        this.loadCount  = 0L;
+        this.retryCount = 0L;
+        this.loadError  = null;
+
+        /* drop alternate indexes */
+        java.util.List<DBAlternateIndex> droppedIndexes = this.deferIndexes?
+            this._dropAlternateIndexes() : null;
+
+        try {
+
+            /* start insert threads */
+            final boolean batchInsert = this._canBatchInsert();
+            Thread inserters[] = new Thread[this.threads];
+            for (int i = 0; i < inserters.length; i++) {
+                inserters[i] = new Thread("DBBulkLoader_insert_" + (i + 1)) {
+                    public void run() {
+                        DBBulkLoader.this._insertChunks(batchInsert);
+                    }
+                };
+                inserters[i].start();
+            }
+
+            /* start reader threads */
+            // -- a single reader when validating, so the validator sees each file in order
+            final java.util.List<File> fileList = new Vector<File>(Arrays.asList(files));
+            int readerCount = (validator != null)? 1 : Math.min(this.threads, fileList.size());
+            Thread readers[] = new Thread[readerCount];
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new Thread("DBBulkLoader_read_" + (i + 1)) {
+                    public void run() {
+                        for (;;) {
+                            File file = null;
+                            synchronized (fileList) {
+                                if (fileList.isEmpty()) { break; }
+                                file = fileList.remove(0);
+                            }
+                            DBBulkLoader.this._readFile(file, validator);
+                        }
+                    }
+                };
+                readers[i].start();
+            }
+
+            /* wait for readers, then stop inserters */
+            for (int i = 0; i < readers.length; i++) {
+                DBBulkLoader._join(readers[i]);
+            }
+            for (int i = 0; i < inserters.length; i++) {
+                DBBulkLoader._put(this.loadQueue, END_OF_LOAD);
+            }
+            for (int i = 0; i < inserters.length; i++) {
+                DBBulkLoader._join(inserters[i]);
+            }
+
+        } finally {
+
+            /* re-create alternate indexes */
+            if (droppedIndexes != null) {
+                this._createAlternateIndexes(droppedIndexes);
+            }
+
+        }
+
+        /* error? */
+        Throwable err = this._getLoadError();
+        if (err instanceof DBException) {
+            throw (DBException)err;
+        } else
+        if (err != null) {
+            throw new DBException("Bulk load error", err);
+        }
+
+        /* loaded */
+        long deltaMS = DateTime.getCurrentTimeMillis() - startMS;
+        long recPerSec = (deltaMS > 0L)? ((this.loadCount * 1000L) / deltaMS) : this.loadCount;
+        Print.logInfo("Bulk load: read=" + this.readCount + " loaded=" + this.loadCount +
+            " retried=" + this.retryCount + " [" + deltaMS + " ms, " + recPerSec + "/sec]");
+        return this.loadCount;
+
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Reads the specified load file, and queues the rows in chunks for insertion
+    **/
+    private void _readFile(File file, DBFactory.InsertionValidator validator)
+    {
+        String fileName = DBBulkLoader.RemoveGzipExtension(file.getName());
+        boolean isCSV   = fileName.endsWith(DBFactory._LOAD_EXT_CSV);
+        InputStream in  = null;
+        try {
+            Print.logInfo("Reading load file: " + file);
+            in = DBBulkLoader._openInput(file);
+            DBFactory.MySQLDumpReader dr = isCSV? null : new DBFactory.MySQLDumpReader(in);
+
+            /* field/column definition */
+            String fields[]  = null;
+            String firstRow  = null;
+            if (isCSV) {
+                fields = StringTools.parseArray(FileTools.readLine(in));
+            } else {
+                String firstLine = dr.readLineString();
+                if (firstLine == null) {
+                    return; // empty file
+                } else
+                if (firstLine.startsWith("#")) {
+                    fields = StringTools.parseArray(firstLine.substring(1).trim());
+                } else {
+                    // -- no header, column definitions from "<name>.sql"
+                    File sqlFile = new File(file.getParentFile(),
+                        FileTools.removeExtension(fileName) + DBFactory._LOAD_EXT_SQL);
+                    fields   = this.factory.readSQLDumpColumns(sqlFile);
+                    firstRow = firstLine;
+                }
+            }
+            if (ListTools.isEmpty(fields)) {
+                throw new DBException("Missing column definitions, unable to load file: " + file);
+            }
+            this._listFields(fields);
+
+            /* initialize validator */
+            if ((validator != null) && !validator.setFields(fields)) {
+                throw new DBException("Load fields rejected by insertion validator");
+            }
+
+            /* read rows */
+            RowChunk chunk = new RowChunk(fields, this.commitSize);
+            for (int rowNumber = 2; !this._isAborted(); rowNumber++) {
+
+                /* read line */
+                String line = null;
+                if (firstRow != null) {
+                    line = firstRow;
+                    firstRow = null;
+                } else
+                if (isCSV) {
+                    try {
+                        line = FileTools.readLine(in).trim();
+                    } catch (EOFException eofe) {
+                        line = null;
+                    }
+                } else {
+                    line = dr.readLineString();
+                }
+                if (line == null) { break; }
+                if (line.equals("") || (!isCSV && line.startsWith("#"))) { continue; }
+
+                /* parse line */
+                String rowValues[] = StringTools.parseArray(line);
+                if (rowValues.length != fields.length) {
+                    Print.logError("Fields - #found != #expected: " +
+                        rowValues.length + " != " + fields.length +
+                        " [" + file.getName() + " row " + rowNumber + "]");
+                    Print.logError("Row: " + line);
+                    continue;
+                }
+
+                /* validate record insertion */
+                if ((validator != null) && !validator.validate(rowValues)) {
+                    continue;
+                }
+
+                /* queue chunk */
+                chunk.rows.add(rowValues);
+                if (chunk.rows.size() >= this.commitSize) {
+                    this._queueChunk(chunk);
+                    chunk = new RowChunk(fields, this.commitSize);
+                }
+
+            }
+            if (!chunk.rows.isEmpty()) {
+                this._queueChunk(chunk);
+            }
+
+        } catch (Throwable th) {
+            this._setLoadError(new DBException("Reading load file: " + file, th));
+        } finally {
+            if (in != null) { try { in.close(); } catch (Throwable t) {} }
+        }
+    }
+
+    /**
+    *** Lists the load file columns
+    **/
+    private void _listFields(String fields[])
+    {
+        for (int i = 0; i < fields.length; i++) {
+            DBField field = this.factory.getField(fields[i]);
+            if (field != null) {
+                Print.logDebug("Column : " + fields[i]);
+            } else
+            if (!this.noDropWarning) {
+                Print.logInfo("Column : " + fields[i] + "  - will be dropped");
+            }
+        }
+    }
+
+    /**
+    *** Adds the specified chunk to the insert queue
+    **/
+    private void _queueChunk(RowChunk chunk)
+    {
+        synchronized (this) {
+            this.readCount += chunk.rows.size();
+        }
+        DBBulkLoader._put(this.loadQueue, chunk);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Insert thread: inserts queued chunks until the end-of-load marker is received
+    **/
+    private void _insertChunks(boolean batchInsert)
+    {
+        for (;;) {
+            RowChunk chunk = DBBulkLoader._take(this.loadQueue);
+            if ((chunk == null) || (chunk == END_OF_LOAD)) {
+                break;
+            } else
+            if (this._isAborted()) {
+                continue; // drain queue
+            }
+            try {
+                long count = 0L;
+                if (batchInsert) {
+                    try {
+                        count = this._insertChunkBatch(chunk);
+                    } catch (SQLException sqe) {
+                        // -- typically a duplicate key, load rows individually
+                        Print.logDebug("Batch insert failed, loading " + chunk.rows.size() + " rows individually: " + sqe);
+                        synchronized (this) {
+                            this.retryCount += chunk.rows.size();
+                        }
+                        count = this._insertChunkRows(chunk);
+                    }
+                } else {
+                    count = this._insertChunkRows(chunk);
+                }
+                synchronized (this) {
+                    this.loadCount += count;
+                }
+            } catch (Throwable th) {
+                this._setLoadError(th);
+            }
+        }
+    }
+
+    /**
+    *** Inserts the rows of the specified chunk in a single transaction, using statement batches
+    *** @throws SQLException  If the batch insert fails (the transaction is rolled back)
+    **/
+    private long _insertChunkBatch(RowChunk chunk)
+        throws SQLException, DBException
+    {
+        java.util.List<DBRecord<?>> recList = new Vector<DBRecord<?>>(chunk.rows.size());
+        for (String rowValues[] : chunk.rows) {
+            recList.add(this.factory._loadCreateRecord(chunk.fields, rowValues, null));
+        }
+        DBRecord._prepareInsertRecords(recList);
+        DBConnection dbc = null;
+        Connection  conn = null;
+        boolean autoCommit = true;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            conn = dbc.getConnection();
+            autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int s = 0; s < recList.size(); s += this.batchSize) {
+                    int e = Math.min(s + this.batchSize, recList.size());
+                    DBProvider.insertRecordsIntoTable(dbc, recList.subList(s, e));
+                }
+                conn.commit();
+            } catch (SQLException sqe) {
+                try { conn.rollback(); } catch (Throwable th) {}
+                throw sqe;
+            }
+        } finally {
+            if (conn != null) { try { conn.setAutoCommit(autoCommit); } catch (Throwable th) {} }
+            DBConnection.release(dbc);
+        }
+        DBRecord._didInsertRecords(recList);
+        return recList.size();
+    }
+
+    /**
+    *** Loads the rows of the specified chunk one at a time
+    **/
+    private long _insertChunkRows(RowChunk chunk)
+        throws SQLException, DBException, IOException
+    {
+        long count = 0L;
+        for (String rowValues[] : chunk.rows) {
+            if (this.factory._loadInsertRecord(chunk.fields, rowValues,
+                this.insertRecords, this.overwriteExisting)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // ------------------------------------------------------------------------
+
+    private synchronized void _setLoadError(Throwable th)
+    {
+        if (this.loadError == null) {
+            Print.logException("Bulk load aborted", th);
+            this.loadError = th;
+        }
+    }
+
+    private synchronized Throwable _getLoadError()
+    {
+        return this.loadError;
+    }
+
+    private synchronized boolean _isAborted()
+    {
+        return (this.loadError != null);
+    }
+
+    private static void _put(BlockingQueue<RowChunk> queue, RowChunk chunk)
+    {
+        for (;;) {
+            try {
+                queue.put(chunk);
+                return;
+            } catch (InterruptedException ie) {
+                // continue
+            }
+        }
+    }
+
+    private static RowChunk _take(BlockingQueue<RowChunk> queue)
+    {
+        for (;;) {
+            try {
+                return queue.take();
+            } catch (InterruptedException ie) {
+                // continue
+            }
+        }
+    }
+
+    private static void _join(Thread thread)
+    {
+        for (;;) {
+            try {
+                thread.join();
+                return;
+            } catch (InterruptedException ie) {
+                // continue
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Drops the alternate indexes of the table
+    *** @return The list of dropped alternate indexes
+    **/
+    private java.util.List<DBAlternateIndex> _dropAlternateIndexes()
+    {
+        java.util.List<DBAlternateIndex> dropped = new Vector<DBAlternateIndex>();
+        DBAlternateIndex altIndexes[] = this.factory.getAlternateIndexes();
+        if (altIndexes != null) {
+            String utableName = this.factory.getUntranslatedTableName();
+            for (int i = 0; i < altIndexes.length; i++) {
+                try {
+                    Print.logInfo("Dropping alternate index: " + utableName + "." + altIndexes[i].getIndexName());
+                    DBProvider.removeAlternateIndex(utableName, altIndexes[i].getIndexName());
+                    dropped.add(altIndexes[i]);
+                } catch (Throwable th) {
+                    Print.logWarn("Unable to drop alternate index: " + utableName + "." +
+                        altIndexes[i].getIndexName() + " [" + th + "]");
+                }
+            }
+        }
+        return dropped;
+    }
+
+    /**
+    *** Re-creates the specified alternate indexes
+    **/
+    private void _createAlternateIndexes(java.util.List<DBAlternateIndex> altIndexes)
+    {
+        String utableName = this.factory.getUntranslatedTableName();
+        for (DBAlternateIndex altIndex : altIndexes) {
+            try {
+                Print.logInfo("Creating alternate index: " + utableName + "." + altIndex.getIndexName());
+                DBProvider.createAlternateIndex(utableName, altIndex);
+            } catch (Throwable th) {
+                Print.logException("Unable to create alternate index: " + utableName + "." + altIndex.getIndexName(), th);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Dumps the table to one or more part files, split by ranges of the primary key
+    *** @param dir    The destination directory
+    *** @param ext    The dump file extension (".txt", ".csv", or ".xml")
+    *** @param where  An optional where clause (may be null)
+    *** @param gzip   True to gzip compress the part files
+    *** @return The list of part files written
+    *** @throws DBException   If a database error occurs
+    **/
+    public java.util.List<File> dumpTable(File dir, String ext, String where, boolean gzip)
+        throws DBException
+    {
+        return DBBulkLoader._dumpTable(this.factory, dir, ext, where, gzip, this.threads);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends DBRecord<T>> java.util.List<File> _dumpTable(DBFactory<?> fact,
+        File dir, String ext, String where, boolean gzip, int threads)
+        throws DBException
+    {
+        return DBBulkLoader._dumpTableRanges((DBFactory<T>)fact, dir, ext, where, gzip, threads);
+    }
+
+    private static <T extends DBRecord<T>> java.util.List<File> _dumpTableRanges(final DBFactory<T> fact,
+        File dir, String ext, String where, final boolean gzip, int threads)
+        throws DBException
+    {
+        long startMS = DateTime.getCurrentTimeMillis();
+        String utableName = fact.getUntranslatedTableName();
+
+        /* output format */
+        final int outFmt;
+        if (ext.equals(DBFactory._DUMP_EXT_CSV)) {
+            outFmt = DBFactory.DUMP_FORMAT_CSV;
+        } else
+        if (ext.equals(DBFactory._DUMP_EXT_XML)) {
+            outFmt = DBFactory.DUMP_FORMAT_XML;
+        } else {
+            outFmt = DBFactory.DUMP_FORMAT_SQL;
+        }
+
+        /* where */
+        String baseWhere = StringTools.trim(where);
+        if (StringTools.startsWithIgnoreCase(baseWhere,"WHERE ")) {
+            baseWhere = baseWhere.substring("WHERE ".length()).trim();
+        }
+
+        /* key ranges of each physical table */
+        final java.util.List<DBSelect<T>> partSels  = new Vector<DBSelect<T>>();
+        final java.util.List<File>        partFiles = new Vector<File>();
+        for (String ptable : fact.createKey().getReadTableNames()) {
+            java.util.List<String> ranges = DBBulkLoader._getKeyRanges(fact, ptable, baseWhere, threads);
+            for (String rangeWhere : ranges) {
+                DBWhere dwh = new DBWhere(fact);
+                String partWhere = null;
+                if (StringTools.isBlank(baseWhere)) {
+                    partWhere = rangeWhere;
+                } else
+                if (rangeWhere == null) {
+                    partWhere = baseWhere;
+                } else {
+                    partWhere = dwh.AND("(" + baseWhere + ")", rangeWhere);
+                }
+                DBSelect<T> dsel = new DBSelect<T>(fact, partWhere);
+                dsel.setUntranslatedTableName(ptable);
+                dsel.setOrderByFields(fact.getKeyNames());
+                partSels.add(dsel);
+                partFiles.add(new File(dir, DBBulkLoader.GetPartFileName(utableName, partFiles.size() + 1, ext, gzip)));
+            }
+        }
+
+        /* dump ranges */
+        final Throwable dumpError[] = new Throwable[1];
+        final int nextPart[] = new int[] { 0 };
+        Thread dumpers[] = new Thread[Math.max(1, Math.min(threads, partSels.size()))];
+        for (int d = 0; d < dumpers.length; d++) {
+            dumpers[d] = new Thread("DBBulkLoader_dump_" + (d + 1)) {
+                public void run() {
+                    for (;;) {
+                        int p;
+                        synchronized (nextPart) {
+                            if ((nextPart[0] >= partSels.size()) || (dumpError[0] != null)) {
+                                break;
+                            }
+                            p = nextPart[0]++;
+                        }
+                        File partFile = partFiles.get(p);
+                        PrintWriter pw = null;
+                        try {
+                            Print.logInfo("Dumping to part file: " + partFile);
+                            OutputStream out = new FileOutputStream(partFile);
+                            if (gzip) {
+                                out = new GZIPOutputStream(out, 64 * 1024);
+                            }
+                            pw = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StringTools.CharEncoding_UTF_8), 64 * 1024));
+                            fact._dumpTable(pw, partSels.get(p), null, outFmt);
+                        } catch (Throwable th) {
+                            synchronized (nextPart) {
+                                if (dumpError[0] == null) { dumpError[0] = th; }
+                            }
+                        } finally {
+                            if (pw != null) { try { pw.close(); } catch (Throwable t) {} }
+                        }
+                    }
+                }
+            };
+            dumpers[d].start();
+        }
+        for (int d = 0; d < dumpers.length; d++) {
+            DBBulkLoader._join(dumpers[d]);
+        }
+
+        /* error? */
+        if (dumpError[0] instanceof DBException) {
+            throw (DBException)dumpError[0];
+        } else
+        if (dumpError[0] != null) {
+            throw new DBException("Dumping table: " + utableName, dumpError[0]);
+        }
+
+        long deltaMS = DateTime.getCurrentTimeMillis() - startMS;
+        Print.logInfo("Bulk dump: " + utableName + " parts=" + partFiles.size() + " [" + deltaMS + " ms]");
+        return partFiles;
+    }
+
+    /**
+    *** Splits the primary key of the table into contiguous ranges of roughly equal row counts.<br>
+    *** Rows are grouped by the leading primary key fields, adding the next key field while a
+    *** single group holds more than one range of rows (ie. accountID, then deviceID).  A group
+    *** which still holds more than one range of rows is then split into value ranges of the
+    *** following integer key field (ie. timestamp).  If the leading key field alone has more
+    *** than MAX_KEY_GROUPS distinct values the table is not split, and if adding a key field 
+    *** would exceed MAX_KEY_GROUPS groups, the groups of the previous key fields are used.
+    *** @param fact    The table DBFactory
+    *** @param ptable  The untranslated name of the physical table to split
+    *** @param where   An optional where clause (may be null)
+    *** @param threads The number of ranges to create
+    *** @return The list of range where clauses (a single null range if the table is empty, or
+    ***         should not be split)
+    **/
+    private static java.util.List<String> _getKeyRanges(DBFactory<?> fact, String ptable, String where, int threads)
+        throws DBException
+    {
+        java.util.List<String> ranges = new Vector<String>();
+        if (threads <= 1) {
+            ranges.add(null);
+            return ranges;
+        }
+        DBField keyFlds[] = fact.getKeyFields();
+        DBWhere dwh = new DBWhere(fact);
+
+        /* group rows by the leading key fields */
+        java.util.List<Object[]> groups = null; // key values, followed by the row count
+        int  prefixLen  = 0;
+        long rangeSize  = 1L;
+        for (int len = 1; len <= keyFlds.length; len++) {
+            if ((len > 1) && DBBulkLoader._isRangeSplitField(keyFlds[len - 1])) {
+                break; // split large groups by value ranges of this field instead
+            }
+            java.util.List<Object[]> g2 = DBBulkLoader._getKeyGroups(fact, ptable, keyFlds, len, where);
+            if (g2 == null) {
+                break; // too many groups, use the previous key fields (if any)
+            }
+            groups    = g2;
+            prefixLen = len;
+            long totalCount = 0L, maxCount = 0L;
+            for (Object g[] : groups) {
+                long c = ((Long)g[len]).longValue();
+                totalCount += c;
+                maxCount = Math.max(maxCount, c);
+            }
+            rangeSize = Math.max(1L, (totalCount + threads - 1) / threads);
+            if (maxCount <= rangeSize) {
+                break;
+            }
+        }
+        if ((groups == null) || groups.isEmpty()) {
+            ranges.add(null);
+            return ranges;
+        }
+        DBField splitFld = ((prefixLen < keyFlds.length) && DBBulkLoader._isRangeSplitField(keyFlds[prefixLen]))?
+            keyFlds[prefixLen] : null;
+
+        /* split into contiguous ranges */
+        Object first[] = null, last[] = null;
+        long count = 0L;
+        for (Object g[] : groups) {
+            long c = ((Long)g[prefixLen]).longValue();
+            if ((c > rangeSize) && (splitFld != null)) {
+                // -- this group alone is larger than a range
+                if (first != null) {
+                    ranges.add(DBBulkLoader._getKeyRange(dwh, keyFlds, prefixLen, first, last));
+                    first = null;
+                    count = 0L;
+                }
+                DBBulkLoader._splitKeyGroup(fact, ptable, dwh, keyFlds, prefixLen, g, splitFld, where,
+                    (c + rangeSize - 1) / rangeSize, ranges);
+                continue;
+            }
+            if (first == null) {
+                first = g;
+            }
+            last   = g;
+            count += c;
+            if (count >= rangeSize) {
+                ranges.add(DBBulkLoader._getKeyRange(dwh, keyFlds, prefixLen, first, last));
+                first = null;
+                count = 0L;
+            }
+        }
+        if (first != null) {
+            ranges.add(DBBulkLoader._getKeyRange(dwh, keyFlds, prefixLen, first, last));
+        }
+        return ranges;
+
+    }
+
+    /**
+    *** Returns true if the specified key field may be split into value ranges
+    **/
+    private static boolean _isRangeSplitField(DBField fld)
+    {
+        return fld.isTypeLong() || fld.isTypeInteger();
+    }
+
+    /**
+    *** Reads the row counts of each distinct value of the first 'len' key fields, in key order
+    *** @return The list of key values, each followed by the row count (as a Long), or null if
+    ***         there are more than MAX_KEY_GROUPS groups
+    **/
+    private static java.util.List<Object[]> _getKeyGroups(DBFactory<?> fact, String ptable, 
+        DBField keyFlds[], int len, String where)
+        throws DBException
+    {
+        // -- SELECT <k1>,<k2>,COUNT(*) FROM <table> [WHERE ...] GROUP BY <k1>,<k2> ORDER BY <k1>,<k2>
+        StringBuffer keyNames = new StringBuffer();
+        for (int k = 0; k < len; k++) {
+            if (k > 0) { keyNames.append(","); }
+            keyNames.append(keyFlds[k].getName());
+        }
+        StringBuffer sql = new StringBuffer();
+        sql.append("SELECT ").append(keyNames).append(",COUNT(*) FROM ");
+        sql.append(DBProvider.translateTableName(ptable));
+        if (!StringTools.isBlank(where)) {
+            sql.append(" WHERE ( ").append(where).append(" )");
+        }
+        sql.append(" GROUP BY ").append(keyNames);
+        sql.append(" ORDER BY ").append(keyNames);
+        if (DBProvider.getProvider().supportsLimit() && (DBProvider.getProvider().getID() != DBProvider.DB_SQLSERVER)) {
+            sql.append(" LIMIT ").append(MAX_KEY_GROUPS + 1);
+        }
+        java.util.List<Object[]> groups = new Vector<Object[]>();
+        DBConnection dbc = null;
+        Statement   stmt = null;
+        ResultSet     rs = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(sql.toString());
+            rs   = stmt.getResultSet();
+            while (rs.next()) {
+                if (groups.size() >= MAX_KEY_GROUPS) {
+                    return null; // too many groups (stop reading)
+                }
+                Object g[] = new Object[len + 1];
+                for (int k = 0; k < len; k++) {
+                    g[k] = keyFlds[k].getResultSetValue(rs);
+                }
+                g[len] = new Long(rs.getLong(len + 1));
+                groups.add(g);
+            }
+        } catch (SQLException sqe) {
+            throw new DBException("Reading key ranges: " + ptable, sqe);
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+        return groups;
+    }
+
+    /**
+    *** Returns the where clause selecting the inclusive range of key values [first,last] of
+    *** the first 'len' key fields (compared in key order)
+    **/
+    private static String _getKeyRange(DBWhere dwh, DBField keyFlds[], int len, Object first[], Object last[])
+    {
+        return dwh.AND(
+            DBBulkLoader._getKeyBound(dwh, keyFlds, len, first, true),
+            DBBulkLoader._getKeyBound(dwh, keyFlds, len, last , false));
+    }
+
+    /**
+    *** Returns the where clause selecting key values at/after (lower) or at/before (upper)
+    *** the specified key values.<br>
+    *** ie. "(k1 &gt; v1) OR ((k1 = v1) AND (k2 &gt;= v2))"
+    **/
+    private static String _getKeyBound(DBWhere dwh, DBField keyFlds[], int len, Object vals[], boolean lower)
+    {
+        String bound = null;
+        for (int k = len - 1; k >= 0; k--) {
+            String fn = keyFlds[k].getName();
+            if (bound == null) {
+                bound = lower? dwh.GE(fn,vals[k]) : dwh.LE(fn,vals[k]);
+            } else {
+                String cmp = lower? dwh.GT(fn,vals[k]) : dwh.LT(fn,vals[k]);
+                bound = dwh.OR(cmp, dwh.AND(dwh.EQ(fn,vals[k]), bound));
+            }
+        }
+        return bound;
+    }
+
+    /**
+    *** Splits the rows of a single key group into (at most) 'parts' value ranges of the
+    *** specified integer key field, and adds the range where clauses to the list
+    **/
+    private static void _splitKeyGroup(DBFactory<?> fact, String ptable, DBWhere dwh, DBField keyFlds[], int len,
+        Object group[], DBField splitFld, String where, long parts, java.util.List<String> ranges)
+        throws DBException
+    {
+
+        /* group where */
+        String eq[] = new String[len];
+        for (int k = 0; k < len; k++) {
+            eq[k] = dwh.EQ(keyFlds[k].getName(), group[k]);
+        }
+        String groupWhere = (len > 1)? dwh.AND(eq) : eq[0];
+
+        /* value range of split field */
+        // -- SELECT MIN(<f>),MAX(<f>) FROM <table> WHERE [(...) AND] <groupWhere>
+        String fn = splitFld.getName();
+        StringBuffer sql = new StringBuffer();
+        sql.append("SELECT MIN(").append(fn).append("),MAX(").append(fn).append(") FROM ");
+        sql.append(DBProvider.translateTableName(ptable));
+        sql.append(" WHERE ");
+        if (!StringTools.isBlank(where)) {
+            sql.append("( ").append(where).append(" ) AND ");
+        }
+        sql.append(groupWhere);
+        long minVal = 0L, maxVal = -1L;
+        DBConnection dbc = null;
+        Statement   stmt = null;
+        ResultSet     rs = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(sql.toString());
+            rs   = stmt.getResultSet();
+            if (rs.next()) {
+                minVal = rs.getLong(1);
+                maxVal = rs.getLong(2);
+            }
+        } catch (SQLException sqe) {
+            throw new DBException("Reading key ranges: " + ptable, sqe);
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+        if ((parts <= 1L) || (maxVal <= minVal)) {
+            ranges.add(groupWhere);
+            return;
+        }
+
+        /* equal width value ranges */
+        long width = Math.max(1L, ((maxVal - minVal) / parts) + 1L);
+        for (long v = minVal; v <= maxVal; v += width) {
+            long e = Math.min(maxVal, v + width - 1L);
+            ranges.add(dwh.AND(groupWhere, dwh.GE(fn,v), dwh.LE(fn,e)));
+            if (e >= maxVal) {
+                break; // also prevents overflow
+            }
+        }
+
+    }
+
+    // ------------------------------------------------------------------------
+
+}
@@ -346,10 +346,6 @@ public class DBFactory<gDBR extends DBRecord>
 
     private OrderedMap<String,DBAlternateIndex>     altIndexMap         = null;
 
-    private Object                                  existingFieldLock   = new Object();
-    private DBField                                 existingField[]     = null;
-    private Map<String,DBField>                     existingFieldMap    = null;
-
     private OrderedMap<String,DBField>              fieldMap            = null;
     private boolean                                 fieldArrayReady     = false;
     private DBField                                 fieldArray[]        = null;     // optimization
@@ -366,6 +362,10 @@ public class DBFactory<gDBR extends DBRecord>
 
     private boolean                                 allowInnoDBCOUNT    = true; // allow "COUNT(*)" for InnoDB
 
+    private boolean                                 compactFieldValues  = false;
+    private volatile DBFieldValues.FieldSlots       fieldSlots          = null;
+    private volatile DBFieldValues.FieldSlots       keySlots            = null;
+
     // ------------------------------------------------------------------------
  
     /**
@@ -553,6 +553,11 @@ public class DBFactory<gDBR extends DBRecord>
             this.setLogMissingColumnWarnings(lmc);
         }
 
+        /* set "compactFieldValues" default */
+        // -- ie. EventData.compactFieldValues=true
+        String cfvKey = utableName + RTKey._DB_COMPACT_FIELD_VALUES;
+        this.setCompactFieldValues(RTConfig.getBoolean(cfvKey,RTConfig.getBoolean(RTKey.DB_COMPACT_FIELD_VALUES,false)));
+
         /* add this DBFactory to the list of managed factories */
         DBFactory.factoryList.add(this);
 
@@ -628,36 +633,20 @@ public class DBFactory<gDBR extends DBRecord>
     **/
     public void clearExistingColumnMap()
     {
-        synchronized (this.existingFieldLock) {
-            this.existingField = null;
-            this.existingFieldMap = null;
-        }
+        DBSchemaSnapshot.Invalidate(this.getUntranslatedTableName());
     }
     
     /**
-    *** Retrieves the list of existing columns in the database for this DBFactory
+    *** Retrieves the list of existing columns in the database for this DBFactory.<br>
+    *** The columns are read from the current schema snapshot without locking (see DBSchemaSnapshot).
     *** @param update  True to update the current map, false to return the previously cached map
-    *** @return A map of exiting table columns
+    *** @return A (read-only) map of exiting table columns
     *** @throws DBException   If a database error occurs
     **/
     public Map<String,DBField> getExistingColumnMap(boolean update)
         throws DBException
     {
-        synchronized (this.existingFieldLock) {
-            if (update || (this.existingFieldMap == null)) {
-                DBField fld[] = this.getExistingColumns(update);
-                if (fld != null) {
-                    this.existingFieldMap = new HashMap<String,DBField>();
-                    for (int i = 0; i < fld.length; i++) {
-                        String fldName = fld[i].getName();
-                        this.existingFieldMap.put(fldName, fld[i]);
-                    }
-                } else {
-                    this.existingFieldMap = null;
-                }
-            }
-        }
-        return this.existingFieldMap;
+        return DBSchemaSnapshot.GetColumnMap(this.getUntranslatedTableName(), update);
     }
     
     /**
@@ -669,14 +658,7 @@ public class DBFactory<gDBR extends DBRecord>
     public DBField[] getExistingColumns(boolean update)
         throws DBException
     {
-        synchronized (this.existingFieldLock) {
-            if (update || (this.existingField == null)) {
-                // get fields (may throw DBException)
-                this.existingFieldMap = null;
-                this.existingField = DBProvider.getActualTableFields(this.getUntranslatedTableName());
-            }
-        }
-        return this.existingField;
+        return DBSchemaSnapshot.GetColumns(this.getUntranslatedTableName(), update);
     }
 
     /**
@@ -1240,6 +1222,52 @@ public class DBFactory<gDBR extends DBRecord>
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** Sets the state for storing record field values in compact (array-backed) form.
+    *** Compact storage keeps primitive values unboxed in typed arrays indexed by field
+    *** slot, which significantly reduces the per-record memory footprint for tables
+    *** with many columns (ie. EventData).
+    *** @param state  True to use compact field value storage, false for map storage (default)
+    **/
+    public void setCompactFieldValues(boolean state)
+    {
+        this.compactFieldValues = state;
+    }
+
+    /**
+    *** Returns true if records created by this factory store field values in compact form
+    *** @return True if compact field value storage is used
+    **/
+    public boolean getCompactFieldValues()
+    {
+        return this.compactFieldValues;
+    }
+
+    /**
+    *** Gets the shared field layout for the specified field set (all fields, or key fields)
+    *** @param flds  The field set
+    *** @return The shared field layout
+    **/
+    DBFieldValues.FieldSlots getFieldSlots(DBField flds[])
+    {
+        if (flds == this.getFields()) {
+            if (this.fieldSlots == null) {
+                this.fieldSlots = new DBFieldValues.FieldSlots(flds); // benign race
+            }
+            return this.fieldSlots;
+        } else
+        if (flds == this.getKeyFields()) {
+            if (this.keySlots == null) {
+                this.keySlots = new DBFieldValues.FieldSlots(flds); // benign race
+            }
+            return this.keySlots;
+        } else {
+            return new DBFieldValues.FieldSlots(flds);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Gets the "autoIndex" key field (if any)
     *** @return The "autoIndex" key field, or null if not found
@@ -2128,6 +2156,7 @@ public class DBFactory<gDBR extends DBRecord>
                 dbc.executeUpdate(sb.toString());
             } finally {
                 DBConnection.release(dbc);
+                DBSchemaSnapshot.Invalidate(this.getUntranslatedTableName()); // DDL
             }
         }
         
@@ -2206,6 +2235,7 @@ public class DBFactory<gDBR extends DBRecord>
                     dbc.executeUpdate(sb.toString());
                 } finally {
                     DBConnection.release(dbc);
+                    DBSchemaSnapshot.Invalidate(this.getUntranslatedTableName()); // DDL
                 }
             }
         }
@@ -2606,10 +2636,13 @@ public class DBFactory<gDBR extends DBRecord>
     protected static class MySQLDumpReader
     {
         private int pushedByte = -1;
-        private FileInputStream fis = null;
+        private InputStream fis = null;
         public MySQLDumpReader(File file) throws IOException {
+            this(new BufferedInputStream(new FileInputStream(file)));
+        }
+        public MySQLDumpReader(InputStream input) {
             super();
-            this.fis = new FileInputStream(file);
+            this.fis = input;
         }
         public String readLineString() throws IOException {
             byte buff[] = this.readLineBytes();
@@ -2913,7 +2946,7 @@ public class DBFactory<gDBR extends DBRecord>
     *** @return The SQL column/field names
     *** @throws DBException   If unable to load the SQL dump
     **/
-    private String[] readSQLDumpColumns(File tableSQLFile)
+    protected String[] readSQLDumpColumns(File tableSQLFile)
         throws DBException
     {
         
@@ -3104,43 +3137,13 @@ public class DBFactory<gDBR extends DBRecord>
     *** @throws DBException   If a database error occurs
     *** @throws IOException   If an I/O error occurs
     **/
-    private boolean _loadInsertRecord(String oldFieldNames[], String rowValues[], 
+    protected boolean _loadInsertRecord(String oldFieldNames[], String rowValues[], 
         boolean insertRecord, boolean overwriteExisting)
         throws DBException, SQLException, IOException
     {
-        DBRecordKey<?> dbRcdKey  = this.createKey();   // may throw DBException
-        DBFieldValues  dbKeyVals = dbRcdKey.getKeyValues();
-        DBFieldValues  dbFldVals = dbRcdKey.getFieldValues();
-        DBRecord<?>    dbRcd     = dbRcdKey.getDBRecord(); // does not reload record
-
-        /* parse all field values */
-        boolean addedField = false;
-        Set<String> fieldNameList = new HashSet<String>();
-        for (int i = 0; i < oldFieldNames.length; i++) {
-            String fieldName = oldFieldNames[i];
-            DBField dbFld = this.getField(fieldName);
-            if (dbFld != null) {
-                // column exists
-                boolean       priKey = dbFld.isPrimaryKey();
-                DBFieldValues dbVals = priKey? dbKeyVals : dbFldVals;
-                // column value
-                String rowVal = ((i < rowValues.length) && !rowValues[i].equals("\\N"))? rowValues[i] : null;
-                Object objVal = dbFld.parseStringValue(rowVal);
-                // set value
-                boolean didSet = dbVals._setFieldValue(dbFld, objVal);
-                if (!didSet) {
-                    Print.logError("Invalid field type: %s [%s]", fieldName, StringTools.className(objVal));
-                } else
-                if (priKey) {
-                    // skip primary key update
-                } else {
-                    fieldNameList.add(fieldName);
-                }
-                addedField = true;
-            } else {
-                // column does not exist in defined table (will be dropped)
-            }
-        }
+        Set<String>    fieldNameList = new HashSet<String>();
+        DBRecord<?>    dbRcd     = this._loadCreateRecord(oldFieldNames, rowValues, fieldNameList);
+        DBRecordKey<?> dbRcdKey  = dbRcd.getRecordKey();
 
         /* skip record insertion? */
         if (!insertRecord) {
@@ -3171,11 +3174,6 @@ public class DBFactory<gDBR extends DBRecord>
 
         } else {
 
-            /* nothing to insert?
-            if (!addedField) {
-                throw new DBException("No fields to insert");
-            }
-
             /* insert */
             dbRcd.insert();
 
@@ -3183,6 +3181,54 @@ public class DBFactory<gDBR extends DBRecord>
         return true;
 
     }
+
+    /**
+    *** Creates a record (not yet inserted) from the specified data, using the specified field layout
+    *** @param oldFieldNames  The column/field layout
+    *** @param rowValues      The values for the specifies columns/fields
+    *** @param fieldNameList  The set to which the names of the non-key fields set are added (may be null)
+    *** @return The created record
+    *** @throws DBException   If a database error occurs
+    **/
+    protected DBRecord<?> _loadCreateRecord(String oldFieldNames[], String rowValues[], 
+        Set<String> fieldNameList)
+        throws DBException
+    {
+        DBRecordKey<?> dbRcdKey  = this.createKey();   // may throw DBException
+        DBFieldValues  dbKeyVals = dbRcdKey.getKeyValues();
+        DBFieldValues  dbFldVals = dbRcdKey.getFieldValues();
+        DBRecord<?>    dbRcd     = dbRcdKey.getDBRecord(); // does not reload record
+
+        /* parse all field values */
+        for (int i = 0; i < oldFieldNames.length; i++) {
+            String fieldName = oldFieldNames[i];
+            DBField dbFld = this.getField(fieldName);
+            if (dbFld != null) {
+                // column exists
+                boolean       priKey = dbFld.isPrimaryKey();
+                DBFieldValues dbVals = priKey? dbKeyVals : dbFldVals;
+                // column value
+                String rowVal = ((i < rowValues.length) && !rowValues[i].equals("\\N"))? rowValues[i] : null;
+                Object objVal = dbFld.parseStringValue(rowVal);
+                // set value
+                boolean didSet = dbVals._setFieldValue(dbFld, objVal);
+                if (!didSet) {
+                    Print.logError("Invalid field type: %s [%s]", fieldName, StringTools.className(objVal));
+                } else
+                if (priKey) {
+                    // skip primary key update
+                } else
+                if (fieldNameList != null) {
+                    fieldNameList.add(fieldName);
+                }
+            } else {
+                // column does not exist in defined table (will be dropped)
+            }
+        }
+
+        return dbRcd;
+
+    }
     
     /**
     *** Inserts the specified data, using the specified field layout, into this table
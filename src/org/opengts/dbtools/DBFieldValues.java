@@ -78,26 +78,100 @@ public class DBFieldValues
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
+    private static final int SLOT_OBJECT    = 0;
+    private static final int SLOT_LONG      = 1; // Boolean/Byte/Short/Integer/Long
+    private static final int SLOT_DOUBLE    = 2; // Float/Double
+
+    /**
+    *** <code>FieldSlots</code> is the immutable field layout shared by all DBFieldValues
+    *** instances created for the same set of DBFields (one per DBFactory field set).
+    *** It maps each field name to a storage slot used by the compact value storage.
+    **/
+    static class FieldSlots
+    {
+        private DBField                     fields[]    = null;
+        private OrderedMap<String,DBField>  fieldMap    = null; // translated name ==> DBField
+        private Map<String,String>          caseMap     = null; // lowercase name ==> translated name
+        private Map<String,Integer>         slotMap     = null; // field name ==> slot
+        private int                         slotType[]  = null;
+        private int                         slotIndex[] = null; // index into the typed value array
+        private int                         longCount   = 0;
+        private int                         doubleCount = 0;
+        private int                         objectCount = 0;
+        public FieldSlots(DBField fld[]) {
+            int len = (fld != null)? fld.length : 0;
+            this.fields    = new DBField[len];
+            this.fieldMap  = new OrderedMap<String,DBField>();
+            this.caseMap   = new HashMap<String,String>();
+            this.slotMap   = new HashMap<String,Integer>();
+            this.slotType  = new int[len];
+            this.slotIndex = new int[len];
+            for (int i = 0; i < len; i++) {
+                String fldName = DBProvider.translateColumnName(fld[i].getName());
+                this.fieldMap.put(fldName, fld[i]);
+                this.caseMap.put(fldName.toLowerCase(), fldName);
+                this.slotMap.put(fld[i].getName(), new Integer(i));
+                this.fields[i] = fld[i];
+                Class tc = fld[i].getTypeClass();
+                if ((tc == Boolean.class) || (tc == Boolean.TYPE) ||
+                    (tc == Byte.class   ) || (tc == Byte.TYPE   ) ||
+                    (tc == Short.class  ) || (tc == Short.TYPE  ) ||
+                    (tc == Integer.class) || (tc == Integer.TYPE) ||
+                    (tc == Long.class   ) || (tc == Long.TYPE   )   ) {
+                    this.slotType[i]  = SLOT_LONG;
+                    this.slotIndex[i] = this.longCount++;
+                } else
+                if ((tc == Float.class  ) || (tc == Float.TYPE  ) ||
+                    (tc == Double.class ) || (tc == Double.TYPE )   ) {
+                    this.slotType[i]  = SLOT_DOUBLE;
+                    this.slotIndex[i] = this.doubleCount++;
+                } else {
+                    this.slotType[i]  = SLOT_OBJECT;
+                    this.slotIndex[i] = this.objectCount++;
+                }
+            }
+        }
+        public int getSlotCount() {
+            return this.fields.length;
+        }
+        public int getSlot(String fldName) {
+            Integer slot = (fldName != null)? this.slotMap.get(fldName) : null;
+            return (slot != null)? slot.intValue() : -1;
+        }
+        public DBField getField(int slot) {
+            return this.fields[slot];
+        }
+        public boolean hasField(String transFldName) {
+            return this.fieldMap.containsKey(transFldName);
+        }
+        public String getFieldName(String fldName) {
+            return this.caseMap.get(fldName.toLowerCase());
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
     private String                      name            = "";
 
     private DBRecordKey                 recordKey       = null;
+    private FieldSlots                  fieldSlots      = null; // shared, immutable
+
+    // -- map storage
     private OrderedMap<String,Object>   valueMap        = null;
-    private OrderedMap<String,DBField>  fieldMap        = null;
-    private Map<String,String>          caseMap         = null; // order is not important
+
+    // -- compact storage (see "DBFactory.setCompactFieldValues")
+    private long                        longVals[]      = null;
+    private double                      doubleVals[]    = null;
+    private Object                      objectVals[]    = null;
+    private long                        setMask[]       = null; // slot value assigned
+    private long                        valMask[]       = null; // slot value assigned and non-null
+    private OrderedMap<String,Object>   extraMap        = null; // values for fields without a slot
 
     private DBFieldValues               fieldDelegate   = null;
 
     private boolean                     mustExist       = true;
 
-    /**
-    *** Constructor
-    **/
-    private DBFieldValues()
-    {
-        this.valueMap  = new OrderedMap<String,Object>();
-        this.fieldMap  = new OrderedMap<String,DBField>();
-        this.caseMap   = new HashMap<String,String>();
-    }
+    private boolean                     deferredLoad    = false; // partial (projected) select
 
     /**
     *** Constructor
@@ -114,7 +188,6 @@ public class DBFieldValues
     **/
     public DBFieldValues(DBRecordKey rcdKey, DBFieldValues delegate)
     {
-        this();
         this.recordKey = rcdKey;
         this.fieldDelegate = delegate; // may be null
 
@@ -123,15 +196,90 @@ public class DBFieldValues
             rcdKey.getFields()    : // no field delegate
             rcdKey.getKeyFields();  // field delegate
 
-        /* add fields to this instance */
-        for (int i = 0; i < fld.length; i++) {
-            String fldName = DBProvider.translateColumnName(fld[i].getName());
-            this.fieldMap.put(fldName, fld[i]);
-            this.caseMap.put(fldName.toLowerCase(),fldName);
+        /* shared field layout */
+        DBFactory fact = rcdKey.getFactory();
+        this.fieldSlots = fact.getFieldSlots(fld);
+
+        /* value storage */
+        if (fact.getCompactFieldValues()) {
+            FieldSlots fs  = this.fieldSlots;
+            int maskLen    = (fs.getSlotCount() + 63) / 64;
+            this.longVals   = new long[fs.longCount];
+            this.doubleVals = new double[fs.doubleCount];
+            this.objectVals = new Object[fs.objectCount];
+            this.setMask    = new long[maskLen];
+            this.valMask    = new long[maskLen];
+        } else {
+            this.valueMap   = new OrderedMap<String,Object>();
         }
 
     }
 
+    /**
+    *** Returns true if this instance uses compact (array-backed) value storage
+    *** @return True if this instance uses compact value storage
+    **/
+    public boolean isCompact()
+    {
+        return (this.valueMap == null);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Sets the deferred-load state.  When true, this instance was populated from a 
+    *** select which retrieved only a subset of the table columns, and the remaining
+    *** columns will be loaded from the DB on first access.
+    *** @param deferred  True to enable loading of the remaining fields on first access
+    **/
+    /* package */ void setDeferredLoad(boolean deferred)
+    {
+        this.deferredLoad = deferred;
+    }
+
+    /**
+    *** Returns true if the remaining (unselected) fields have not yet been loaded
+    *** @return True if the remaining fields have not yet been loaded
+    **/
+    public boolean isDeferredLoad()
+    {
+        return this.deferredLoad;
+    }
+
+    /**
+    *** Gets the names of the non-key fields for which no value has been retrieved
+    *** @return The names of the fields which have not been loaded
+    **/
+    /* package */ String[] getUnloadedFieldNames()
+    {
+        java.util.List<String> fn = new Vector<String>();
+        DBField fld[] = (this.recordKey != null)? this.recordKey.getFields() : null;
+        if (fld != null) {
+            for (int i = 0; i < fld.length; i++) {
+                String n = fld[i].getName();
+                if (!fld[i].isPrimaryKey() && !this._containsValue(n)) {
+                    fn.add(n);
+                }
+            }
+        }
+        return fn.toArray(new String[fn.size()]);
+    }
+
+    /**
+    *** If this instance was only partially loaded, and the specified field has not been
+    *** retrieved, load the remaining fields from the DB now.
+    **/
+    private void _checkDeferredLoad(String fldName)
+    {
+        if (this.deferredLoad && (fldName != null) && !this._containsValue(fldName) && this.hasField(fldName)) {
+            this.deferredLoad = false; // clear first (prevent recursion)
+            DBRecord rcd = (this.recordKey != null)? this.recordKey._getDBRecord() : null;
+            if (rcd != null) {
+                rcd._loadDeferredFields(fldName);
+            }
+        }
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -345,7 +493,7 @@ public class DBFieldValues
         /* store value */
         String fldName = fld.getName();
         Object oldVal = this._getFieldValue(fldName, true);
-        this.valueMap.put(fldName, newVal);
+        this._putValue(fldName, newVal);
 
         /* also set delegate */
         if (this.fieldDelegate != null) {
@@ -366,6 +514,177 @@ public class DBFieldValues
 
     }
 
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Stores the specified value in this instance (no type checking)
+    *** @param fldName  The field name
+    *** @param val      The field value (may be null)
+    **/
+    private void _putValue(String fldName, Object val)
+    {
+        if (this.valueMap != null) {
+            this.valueMap.put(fldName, val);
+            return;
+        }
+        int slot = this.fieldSlots.getSlot(fldName);
+        if (slot < 0) {
+            // not part of this field set
+            if (this.extraMap == null) {
+                this.extraMap = new OrderedMap<String,Object>();
+            }
+            this.extraMap.put(fldName, val);
+            return;
+        }
+        int ndx = this.fieldSlots.slotIndex[slot];
+        this.setMask[slot >> 6] |= (1L << slot);
+        if (val == null) {
+            this.valMask[slot >> 6] &= ~(1L << slot);
+            if (this.fieldSlots.slotType[slot] == SLOT_OBJECT) {
+                this.objectVals[ndx] = null;
+            }
+            return;
+        }
+        switch (this.fieldSlots.slotType[slot]) {
+            case SLOT_LONG:
+                this.longVals[ndx] = (val instanceof Boolean)?
+                    (((Boolean)val).booleanValue()? 1L : 0L) :
+                    ((Number)val).longValue();
+                break;
+            case SLOT_DOUBLE:
+                this.doubleVals[ndx] = ((Number)val).doubleValue();
+                break;
+            default:
+                this.objectVals[ndx] = val;
+                break;
+        }
+        this.valMask[slot >> 6] |= (1L << slot);
+    }
+
+    /**
+    *** Returns true if the specified slot has been assigned a value
+    **/
+    private boolean _isSlotSet(int slot)
+    {
+        return ((this.setMask[slot >> 6] & (1L << slot)) != 0L);
+    }
+
+    /**
+    *** Returns true if the specified slot has been assigned a non-null value
+    **/
+    private boolean _isSlotValue(int slot)
+    {
+        return ((this.valMask[slot >> 6] & (1L << slot)) != 0L);
+    }
+
+    /**
+    *** Gets the (boxed) value for the specified slot
+    *** @param slot  The slot index
+    *** @return The slot value, or null if not assigned
+    **/
+    private Object _getSlotValue(int slot)
+    {
+        if (!this._isSlotValue(slot)) {
+            return null;
+        }
+        int ndx = this.fieldSlots.slotIndex[slot];
+        switch (this.fieldSlots.slotType[slot]) {
+            case SLOT_LONG: {
+                long  v  = this.longVals[ndx];
+                Class tc = this.fieldSlots.fields[slot].getTypeClass();
+                if ((tc == Long.class   ) || (tc == Long.TYPE   )) { return new Long(v); }
+                if ((tc == Integer.class) || (tc == Integer.TYPE)) { return new Integer((int)v); }
+                if ((tc == Boolean.class) || (tc == Boolean.TYPE)) { return (v != 0L)? Boolean.TRUE : Boolean.FALSE; }
+                if ((tc == Short.class  ) || (tc == Short.TYPE  )) { return new Short((short)v); }
+                return new Byte((byte)v);
+            }
+            case SLOT_DOUBLE: {
+                double v  = this.doubleVals[ndx];
+                Class  tc = this.fieldSlots.fields[slot].getTypeClass();
+                if ((tc == Float.class) || (tc == Float.TYPE)) { return new Float((float)v); }
+                return new Double(v);
+            }
+            default:
+                return this.objectVals[ndx];
+        }
+    }
+
+    /**
+    *** Returns the slot holding a non-null primitive value for the specified field name,
+    *** or -1 if the value is not stored as a primitive in this instance.
+    **/
+    private int _getPrimitiveSlot(String fldName)
+    {
+        if (this.valueMap != null) {
+            return -1;
+        }
+        int slot = this.fieldSlots.getSlot(fldName);
+        if ((slot < 0) || !this._isSlotValue(slot) || (this.fieldSlots.slotType[slot] == SLOT_OBJECT)) {
+            return -1;
+        }
+        return slot;
+    }
+
+    /**
+    *** Returns the slot to which a primitive value of the specified Java type may be
+    *** stored directly (without boxing), or -1 if the generic setter must be used.
+    **/
+    private int _getPrimitiveSetSlot(String fldName, Class<?> type, Class<?> wrapper)
+    {
+        if ((this.valueMap != null) || (this.fieldDelegate != null) || this.deferredLoad) {
+            return -1;
+        }
+        int slot = this.fieldSlots.getSlot(fldName);
+        if (slot < 0) {
+            return -1;
+        }
+        Class tc = this.fieldSlots.fields[slot].getTypeClass();
+        return ((tc == type) || (tc == wrapper))? slot : -1;
+    }
+
+    /**
+    *** Stores a primitive value in the specified slot, and updates the DBRecord changed state
+    *** @param slot     The slot index (as returned by "_getPrimitiveSetSlot")
+    *** @param longVal  The value to store, if a SLOT_LONG slot
+    *** @param dblVal   The value to store, if a SLOT_DOUBLE slot
+    *** @param isFloat  True if the field is a 'float' field (change test uses float precision)
+    **/
+    private void _setSlotPrimitive(int slot, long longVal, double dblVal, boolean isFloat)
+    {
+        int     ndx     = this.fieldSlots.slotIndex[slot];
+        boolean hadVal  = this._isSlotValue(slot);
+        boolean changed;
+        if (this.fieldSlots.slotType[slot] == SLOT_LONG) {
+            changed = !hadVal || (this.longVals[ndx] != longVal);
+            this.longVals[ndx] = longVal;
+        } else
+        if (isFloat) {
+            changed = !hadVal || (Float.floatToIntBits((float)this.doubleVals[ndx]) != Float.floatToIntBits((float)dblVal));
+            this.doubleVals[ndx] = dblVal;
+        } else {
+            changed = !hadVal || (Double.doubleToLongBits(this.doubleVals[ndx]) != Double.doubleToLongBits(dblVal));
+            this.doubleVals[ndx] = dblVal;
+        }
+        this.setMask[slot >> 6] |= (1L << slot);
+        this.valMask[slot >> 6] |= (1L << slot);
+
+        /* update DBRecord changed flag */
+        DBField fld = this.fieldSlots.fields[slot];
+        DBRecord rcd = (this.recordKey != null)? this.recordKey._getDBRecord() : null;
+        if (rcd != null) {
+            if (changed) {
+                rcd.setChanged(fld.getName());
+            }
+        } else
+        if (!fld.isKeyField()) {
+            // should not be setting a non-key field if there is no associated DBRecord
+            Print.logStackTrace("DBRecordKey does not point to a DBRecord! ...");
+        }
+
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Sets the value for the specified optional field name
     *** @param fldName   The field name to set
@@ -418,6 +737,11 @@ public class DBFieldValues
     **/
     public boolean setOptionalFieldValue(String fldName, int val) 
     {
+        int slot = this._getPrimitiveSetSlot(fldName, Integer.TYPE, Integer.class);
+        if (slot >= 0) {
+            this._setSlotPrimitive(slot, (long)val, 0.0, false);
+            return true;
+        }
         return this._setFieldValue(fldName, false, (Object)(new Integer(val)));
     }
 
@@ -429,6 +753,11 @@ public class DBFieldValues
     **/
     public boolean setFieldValue(String fldName, int val) 
     {
+        int slot = this._getPrimitiveSetSlot(fldName, Integer.TYPE, Integer.class);
+        if (slot >= 0) {
+            this._setSlotPrimitive(slot, (long)val, 0.0, false);
+            return true;
+        }
         return this._setFieldValue(fldName, true, (Object)(new Integer(val)));
     }
 
@@ -440,6 +769,11 @@ public class DBFieldValues
     **/
     public boolean setOptionalFieldValue(String fldName, long val) 
     {
+        int slot = this._getPrimitiveSetSlot(fldName, Long.TYPE, Long.class);
+        if (slot >= 0) {
+            this._setSlotPrimitive(slot, val, 0.0, false);
+            return true;
+        }
         return this._setFieldValue(fldName, false, (Object)(new Long(val)));
     }
           /**
@@ -450,6 +784,11 @@ public class DBFieldValues
     **/
     public boolean setFieldValue(String fldName, long val) 
     {
+        int slot = this._getPrimitiveSetSlot(fldName, Long.TYPE, Long.class);
+        if (slot >= 0) {
+            this._setSlotPrimitive(slot, val, 0.0, false);
+            return true;
+        }
         return this._setFieldValue(fldName, true, (Object)(new Long(val)));
     }
 
@@ -461,6 +800,11 @@ public class DBFieldValues
     **/
     public boolean setOptionalFieldValue(String fldName, float val) 
     {
+        int slot = this._getPrimitiveSetSlot(fldName, Float.TYPE, Float.class);
+        if (slot >= 0) {
+            this._setSlotPrimitive(slot, 0L, (double)val, true);
+            return true;
+        }
         return this._setFieldValue(fldName, false, (Object)(new Float(val)));
     }
 
@@ -472,6 +816,11 @@ public class DBFieldValues
     **/
     public boolean setFieldValue(String fldName, float val) 
     {
+        int slot = this._getPrimitiveSetSlot(fldName, Float.TYPE, Float.class);
+        if (slot >= 0) {
+            this._setSlotPrimitive(slot, 0L, (double)val, true);
+            return true;
+        }
         return this._setFieldValue(fldName, true, (Object)(new Float(val)));
     }
 
@@ -483,6 +832,11 @@ public class DBFieldValues
     **/
     public boolean setOptionalFieldValue(String fldName, double val) 
     {
+        int slot = this._getPrimitiveSetSlot(fldName, Double.TYPE, Double.class);
+        if (slot >= 0) {
+            this._setSlotPrimitive(slot, 0L, val, false);
+            return true;
+        }
         return this._setFieldValue(fldName, false, (Object)(new Double(val)));
     }
 
@@ -494,6 +848,11 @@ public class DBFieldValues
     **/
     public boolean setFieldValue(String fldName, double val) 
     {
+        int slot = this._getPrimitiveSetSlot(fldName, Double.TYPE, Double.class);
+        if (slot >= 0) {
+            this._setSlotPrimitive(slot, 0L, val, false);
+            return true;
+        }
         return this._setFieldValue(fldName, true, (Object)(new Double(val)));
     }
 
@@ -505,6 +864,11 @@ public class DBFieldValues
     **/
     public boolean setOptionalFieldValue(String fldName, boolean val) 
     {
+        int slot = this._getPrimitiveSetSlot(fldName, Boolean.TYPE, Boolean.class);
+        if (slot >= 0) {
+            this._setSlotPrimitive(slot, (val? 1L : 0L), 0.0, false);
+            return true;
+        }
         return this._setFieldValue(fldName, false, (Object)(new Boolean(val)));
     }
 
@@ -516,6 +880,11 @@ public class DBFieldValues
     **/
     public boolean setFieldValue(String fldName, boolean val) 
     {
+        int slot = this._getPrimitiveSetSlot(fldName, Boolean.TYPE, Boolean.class);
+        if (slot >= 0) {
+            this._setSlotPrimitive(slot, (val? 1L : 0L), 0.0, false);
+            return true;
+        }
         return this._setFieldValue(fldName, true, (Object)(new Boolean(val)));
     }
 
@@ -767,7 +1136,7 @@ public class DBFieldValues
     public String getFieldName(String fldName)
     {
         if (fldName != null) {
-            return this.caseMap.get(fldName.toLowerCase());
+            return this.fieldSlots.getFieldName(fldName);
         } else {
             return null;
         }
@@ -786,7 +1155,39 @@ public class DBFieldValues
             return false;
         } else {
             String fn = DBProvider.translateColumnName(fldName);
-            return this.fieldMap.containsKey(fn);
+            return this.fieldSlots.hasField(fn);
+        }
+    }
+
+    /**
+    *** Returns true if a value (possibly null) has been stored in this instance
+    **/
+    private boolean _containsValue(String fldName)
+    {
+        if (this.valueMap != null) {
+            return this.valueMap.containsKey(fldName);
+        }
+        int slot = this.fieldSlots.getSlot(fldName);
+        if (slot >= 0) {
+            return this._isSlotSet(slot);
+        } else {
+            return (this.extraMap != null) && this.extraMap.containsKey(fldName);
+        }
+    }
+
+    /**
+    *** Gets the value stored in this instance (does not check the delegate)
+    **/
+    private Object _getValue(String fldName)
+    {
+        if (this.valueMap != null) {
+            return this.valueMap.get(fldName);
+        }
+        int slot = this.fieldSlots.getSlot(fldName);
+        if (slot >= 0) {
+            return this._getSlotValue(slot);
+        } else {
+            return (this.extraMap != null)? this.extraMap.get(fldName) : null;
         }
     }
 
@@ -801,8 +1202,9 @@ public class DBFieldValues
         if (fldName == null) {
             // no field name, no field value
             return false;
-        } else
-        if (this.valueMap.containsKey(fldName)) {
+        }
+        this._checkDeferredLoad(fldName);
+        if (this._containsValue(fldName)) {
             // found in this value map
             return true;
         } else
@@ -831,8 +1233,11 @@ public class DBFieldValues
             return null;
         }
 
+        /* load remaining fields, if only partially selected */
+        this._checkDeferredLoad(fldName);
+
         /* get value, return if found */
-        Object val = this.valueMap.get(fldName);
+        Object val = this._getValue(fldName);
         if (val != null) {
             // field value found
             //Print.logInfo("("+this.getName() + ") " + fldName + " value: " + val);
@@ -961,6 +1366,142 @@ public class DBFieldValues
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** Gets the 'long' value for the specified field name.  When compact storage is
+    *** in use, primitive field values are returned without boxing.
+    *** @param fldName        The field name for the value retrieved
+    *** @param requiredField  True to indicate that this field is required (warnings displayed if field is not found)
+    *** @param dft            The default value returned if the field does not exist, or has not been set
+    *** @return The field value
+    **/
+    public long getFieldLong(String fldName, boolean requiredField, long dft)
+    {
+        int slot = this._getPrimitiveSlot(fldName);
+        if (slot >= 0) {
+            int ndx = this.fieldSlots.slotIndex[slot];
+            if (this.fieldSlots.slotType[slot] == SLOT_DOUBLE) {
+                return (long)this.doubleVals[ndx];
+            } else
+            if (!this.fieldSlots.fields[slot].isTypeBoolean()) {
+                return this.longVals[ndx];
+            } else {
+                return dft; // Boolean is not a Number
+            }
+        }
+        Object obj = this._getFieldValue(fldName, requiredField);
+        return (obj instanceof Number)? ((Number)obj).longValue() : dft;
+    }
+
+    /**
+    *** Gets the 'int' value for the specified field name.  When compact storage is
+    *** in use, primitive field values are returned without boxing.
+    *** @param fldName        The field name for the value retrieved
+    *** @param requiredField  True to indicate that this field is required (warnings displayed if field is not found)
+    *** @param dft            The default value returned if the field does not exist, or has not been set
+    *** @return The field value
+    **/
+    public int getFieldInt(String fldName, boolean requiredField, int dft)
+    {
+        int slot = this._getPrimitiveSlot(fldName);
+        if (slot >= 0) {
+            int ndx = this.fieldSlots.slotIndex[slot];
+            if (this.fieldSlots.slotType[slot] == SLOT_DOUBLE) {
+                return (int)this.doubleVals[ndx];
+            } else
+            if (!this.fieldSlots.fields[slot].isTypeBoolean()) {
+                return (int)this.longVals[ndx];
+            } else {
+                return dft; // Boolean is not a Number
+            }
+        }
+        Object obj = this._getFieldValue(fldName, requiredField);
+        return (obj instanceof Number)? ((Number)obj).intValue() : dft;
+    }
+
+    /**
+    *** Gets the 'double' value for the specified field name.  When compact storage is
+    *** in use, primitive field values are returned without boxing.
+    *** @param fldName        The field name for the value retrieved
+    *** @param requiredField  True to indicate that this field is required (warnings displayed if field is not found)
+    *** @param dft            The default value returned if the field does not exist, or has not been set
+    *** @return The field value
+    **/
+    public double getFieldDouble(String fldName, boolean requiredField, double dft)
+    {
+        int slot = this._getPrimitiveSlot(fldName);
+        if (slot >= 0) {
+            int ndx = this.fieldSlots.slotIndex[slot];
+            if (this.fieldSlots.slotType[slot] == SLOT_DOUBLE) {
+                return this.doubleVals[ndx];
+            } else
+            if (!this.fieldSlots.fields[slot].isTypeBoolean()) {
+                return (double)this.longVals[ndx];
+            } else {
+                return dft; // Boolean is not a Number
+            }
+        }
+        Object obj = this._getFieldValue(fldName, requiredField);
+        return (obj instanceof Number)? ((Number)obj).doubleValue() : dft;
+    }
+
+    /**
+    *** Gets the 'float' value for the specified field name.  When compact storage is
+    *** in use, primitive field values are returned without boxing.
+    *** @param fldName        The field name for the value retrieved
+    *** @param requiredField  True to indicate that this field is required (warnings displayed if field is not found)
+    *** @param dft            The default value returned if the field does not exist, or has not been set
+    *** @return The field value
+    **/
+    public float getFieldFloat(String fldName, boolean requiredField, float dft)
+    {
+        int slot = this._getPrimitiveSlot(fldName);
+        if (slot >= 0) {
+            int ndx = this.fieldSlots.slotIndex[slot];
+            if (this.fieldSlots.slotType[slot] == SLOT_DOUBLE) {
+                return (float)this.doubleVals[ndx];
+            } else
+            if (!this.fieldSlots.fields[slot].isTypeBoolean()) {
+                return (float)this.longVals[ndx];
+            } else {
+                return dft; // Boolean is not a Number
+            }
+        }
+        Object obj = this._getFieldValue(fldName, requiredField);
+        return (obj instanceof Number)? ((Number)obj).floatValue() : dft;
+    }
+
+    /**
+    *** Gets the 'boolean' value for the specified field name.  Numeric fields return
+    *** true if their (int) value is non-zero.
+    *** @param fldName        The field name for the value retrieved
+    *** @param requiredField  True to indicate that this field is required (warnings displayed if field is not found)
+    *** @param dft            The default value returned if the field does not exist, or has not been set
+    *** @return The field value
+    **/
+    public boolean getFieldBoolean(String fldName, boolean requiredField, boolean dft)
+    {
+        int slot = this._getPrimitiveSlot(fldName);
+        if (slot >= 0) {
+            int ndx = this.fieldSlots.slotIndex[slot];
+            if (this.fieldSlots.slotType[slot] == SLOT_DOUBLE) {
+                return ((int)this.doubleVals[ndx] != 0);
+            } else {
+                return ((int)this.longVals[ndx] != 0);
+            }
+        }
+        Object obj = this._getFieldValue(fldName, requiredField);
+        if (obj instanceof Boolean) {
+            return ((Boolean)obj).booleanValue();
+        } else 
+        if (obj instanceof Number) {
+            return (((Number)obj).intValue() != 0)? true : false;
+        } else {
+            return dft;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Gets a string representation of this instance
     **/
@@ -970,10 +1511,27 @@ public class DBFieldValues
         String utableName = this.getUntranslatedTableName();
         sb.append(this.getName()).append(" ");
         sb.append("[").append(utableName).append("]");
-        for (String fld : this.valueMap.keySet()) {
-            Object val = this.valueMap.get(fld);
-            sb.append(" ");
-            sb.append(fld).append("=").append(StringTools.trim(val));
+        if (this.valueMap != null) {
+            for (String fld : this.valueMap.keySet()) {
+                Object val = this.valueMap.get(fld);
+                sb.append(" ");
+                sb.append(fld).append("=").append(StringTools.trim(val));
+            }
+        } else {
+            for (int slot = 0; slot < this.fieldSlots.getSlotCount(); slot++) {
+                if (this._isSlotSet(slot)) {
+                    Object val = this._getSlotValue(slot);
+                    sb.append(" ");
+                    sb.append(this.fieldSlots.fields[slot].getName()).append("=").append(StringTools.trim(val));
+                }
+            }
+            if (this.extraMap != null) {
+                for (String fld : this.extraMap.keySet()) {
+                    Object val = this.extraMap.get(fld);
+                    sb.append(" ");
+                    sb.append(fld).append("=").append(StringTools.trim(val));
+                }
+            }
         }
         return sb.toString();
     }
@@ -0,0 +1,180 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.dbtools;
+
+import java.lang.*;
+import java.util.*;
+
+import org.opengts.util.*;
+
+/**
+*** <code>DBKeysetSelect</code> is a DBSelect which pages through a selection by "seeking"
+*** past the last retrieved record (ie. "keyset" pagination), rather than by using the
+*** OFFSET keyword.  The selection is ordered by the specified key fields, and each
+*** subsequent block is selected with a "WHERE (keys) &gt; (last keys)" condition, so the
+*** cost of retrieving each block does not increase with the position in the selection.<br>
+*** The specified key fields must uniquely identify a record within the base selection.
+**/
+
+public class DBKeysetSelect<gDBR extends DBRecord>
+    extends DBSelect<gDBR>
+{
+
+    // ------------------------------------------------------------------------
+
+    private String      keyFields[]     = null;
+    private Object      seekValues[]    = null;
+
+    /**
+    *** Constructor
+    *** @param fact       The table DBFactory instance
+    *** @param keyFields  The ordered list of key fields used for seeking
+    *** @param ascending  True to select in ascending key order, false for descending
+    **/
+    public DBKeysetSelect(DBFactory<gDBR> fact, String keyFields[], boolean ascending)
+    {
+        super(fact);
+        this.keyFields = keyFields;
+        super.setOrderByFields(keyFields);
+        super.setOrderAscending(ascending);
+        super.setOrderAllFields(true);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the key fields used for seeking
+    *** @return The key fields
+    **/
+    public String[] getKeyFields()
+    {
+        return this.keyFields;
+    }
+
+    /**
+    *** Sets the key values of the record after which (in the selection order) the
+    *** next block of records will be selected.
+    *** @param values  The key values (one per key field), or null to start at the beginning
+    **/
+    public void setSeekValues(Object... values)
+    {
+        if (ListTools.isEmpty(values)) {
+            this.seekValues = null;
+        } else
+        if (values.length != this.keyFields.length) {
+            Print.logError("Invalid seek value count: " + values.length + " (expected " + this.keyFields.length + ")");
+            this.seekValues = null;
+        } else {
+            this.seekValues = values;
+        }
+    }
+
+    /**
+    *** Gets the current seek key values
+    *** @return The seek key values, or null if starting at the beginning
+    **/
+    public Object[] getSeekValues()
+    {
+        return this.seekValues;
+    }
+
+    /**
+    *** Sets the DBRecordKey of the last record retrieved by this DBSelect.<br>
+    *** The next block of records will be selected following this record key.
+    *** @param rcdKey  The DBRecordKey of the last record retrieved by this DBSelect.
+    **/
+    public void setLastRecordKey(DBRecordKey<gDBR> rcdKey)
+    {
+        if (rcdKey != null) {
+            Object vals[] = new Object[this.keyFields.length];
+            for (int i = 0; i < this.keyFields.length; i++) {
+                vals[i] = rcdKey.getFieldValue(this.keyFields[i]);
+            }
+            this.setSeekValues(vals);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Ignored.  Keyset pagination does not use the OFFSET keyword.
+    *** @param offset  The record offset (ignored)
+    **/
+    public void setOffset(long offset)
+    {
+        super.setOffset(0L);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns the "seek" condition for the current seek key values.<br>
+    *** ie. "(k1 &gt; v1) OR ((k1 = v1) AND (k2 &gt; v2))"
+    **/
+    protected String getSeekCondition()
+    {
+        if (this.seekValues == null) {
+            return null;
+        }
+        boolean asc = this.isOrderAscending();
+        DBWhere dwh = this.createDBWhere();
+        String or[] = new String[this.keyFields.length];
+        for (int k = 0; k < this.keyFields.length; k++) {
+            String and[] = new String[k + 1];
+            for (int e = 0; e < k; e++) {
+                and[e] = dwh.EQ(this.keyFields[e], this.seekValues[e]);
+            }
+            and[k] = asc?
+                dwh.GT(this.keyFields[k], this.seekValues[k]) :
+                dwh.LT(this.keyFields[k], this.seekValues[k]);
+            or[k] = (and.length == 1)? and[0] : dwh.AND(and);
+        }
+        return (or.length == 1)? or[0] : dwh.OR(or);
+    }
+
+    /**
+    *** Returns true if this DBSelect has a defined where clause
+    *** @return True if this DBSelect has a defined where clause
+    **/
+    public boolean hasWhere()
+    {
+        return super.hasWhere() || (this.seekValues != null);
+    }
+
+    /**
+    *** Gets the where clause for this DBSelect, including the seek condition
+    *** @return The where clause for this DBSelect
+    **/
+    public String getWhere()
+    {
+        String wh   = super.getWhere(); // "WHERE ( ... )"
+        String seek = this.getSeekCondition();
+        if (seek == null) {
+            return wh;
+        } else
+        if (wh == null) {
+            return "WHERE ( " + seek + " )";
+        } else {
+            return wh + " AND ( " + seek + " )";
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+}
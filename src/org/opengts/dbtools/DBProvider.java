@@ -980,6 +980,11 @@ public class DBProvider
                 }
                 if (inclDBName) {
                     uri.append(getDBName());
+                    if (RTConfig.getBoolean(RTKey.DB_MYSQL_REWRITE_BATCH,true) && (uri.indexOf("?") < 0)) {
+                        // -- without this, Connector/J sends each batched statement in its own
+                        // -  round trip (see "insertRecordsIntoTable")
+                        uri.append("?rewriteBatchedStatements=true");
+                    }
                 }
                 break;
             }
@@ -1883,6 +1888,7 @@ public class DBProvider
             dbc.executeUpdate(sb.toString());
         } finally {
             DBConnection.release(dbc);
+            DBSchemaSnapshot.Invalidate(utableName); // DDL
         }
 
         /* alternate index (created separately) */
@@ -1977,6 +1983,7 @@ public class DBProvider
                 dbc.executeUpdate(altSB.toString());
             } finally {
                 DBConnection.release(dbc);
+                DBSchemaSnapshot.Invalidate(utableName); // DDL
             }
 
         } else {
@@ -2029,6 +2036,7 @@ public class DBProvider
             dbc.executeUpdate(sb.toString());
         } finally {
             DBConnection.release(dbc);
+            DBSchemaSnapshot.Invalidate(utableName); // DDL
         }
 
     }
@@ -2075,6 +2083,7 @@ public class DBProvider
                 dbc.executeUpdate(sb.toString());
             } finally {
                 DBConnection.release(dbc);
+                DBSchemaSnapshot.Invalidate(dbFact.getUntranslatedTableName()); // DDL
             }
 
         }
@@ -2110,6 +2119,7 @@ public class DBProvider
             dbc.executeUpdate(altSB.toString());
         } finally {
             DBConnection.release(dbc);
+            DBSchemaSnapshot.Invalidate(utableName); // DDL
         }
 
     }
@@ -2170,6 +2180,7 @@ public class DBProvider
                 }
             } finally {
                 DBConnection.release(dbc);
+                DBSchemaSnapshot.Invalidate(utableName); // DDL
             }
         } else {
             Print.logError("SQL 'DROP' not supported");
@@ -2181,21 +2192,35 @@ public class DBProvider
     // ------------------------------------------------------------------------
 
     /**
-    *** Insert record into table
+    *** Returns the auto-increment field from the specified field list (if any)
+    **/
+    private static DBField _getAutoIncrementField(DBField field[])
+    {
+        if (field != null) {
+            for (int i = 0; i < field.length; i++) {
+                if (field[i].isAutoIncrement()) {
+                    return field[i]; // "There must be only one"
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+    *** Assembles the insert statement for the specified record
     *** @param rec The record to insert
-    *** @throws SQLException  If an SQL error occurs
+    *** @return The insert statement, or null if the record has no columns to insert
     *** @throws DBException   If a database error occurs
     **/
-    public static boolean insertRecordIntoTable(DBRecord rec)
-        throws SQLException, DBException
+    private static String _getInsertStatement(DBRecord rec)
+        throws DBException
     {
         DBRecordKey  recKey   = rec.getRecordKey();
         StringBuffer sb       = new StringBuffer();
-        String xtableName     = recKey.getTranslatedTableName();
+        String xtableName     = recKey.getTranslatedInsertTableName();
         DBFactory recFact     = recKey.getFactory();
         Map existingColumns   = recFact.getExistingColumnMap(false);
         DBField field[]       = recKey.getFields();
-        DBField autoIncrField = null;
         DBFieldValues fieldValues = recKey.getFieldValues();
 
         /* insert */
@@ -2204,7 +2229,7 @@ public class DBProvider
         // Derby:      INSERT INTO <table> (<column>,<column>,...) VALUES (<value>,<value>,...)
         // PostgreSQL: INSERT INTO <table> (<column>,<column>,...) VALUES (<value>,<value>,...)
         boolean addedField = false;
-        sb.append("INSERT INTO ").append(recKey.getTranslatedTableName());
+        sb.append("INSERT INTO ").append(xtableName);
         StringBuffer colSB = new StringBuffer();
         StringBuffer valSB = new StringBuffer();
         for (int i = 0; i < field.length; i++) {
@@ -2212,7 +2237,6 @@ public class DBProvider
             String xFldName = DBProvider.translateColumnName(fldName);
             if (field[i].isAutoIncrement()) {
                 // we skip 'auto_increment' fields on INSERT
-                autoIncrField = field[i]; // "There must be only one"
                 continue;
             }
             if ((existingColumns == null) || existingColumns.containsKey(xFldName)) {
@@ -2258,7 +2282,30 @@ public class DBProvider
             }
         }
         */
-        
+
+        return addedField? sb.toString() : null;
+    }
+
+    /**
+    *** Insert record into table
+    *** @param rec The record to insert
+    *** @throws SQLException  If an SQL error occurs
+    *** @throws DBException   If a database error occurs
+    **/
+    public static boolean insertRecordIntoTable(DBRecord rec)
+        throws SQLException, DBException
+    {
+        DBRecordKey  recKey   = rec.getRecordKey();
+        String xtableName     = recKey.getTranslatedInsertTableName();
+        DBFactory recFact     = recKey.getFactory();
+        Map existingColumns   = recFact.getExistingColumnMap(false);
+        DBField autoIncrField = DBProvider._getAutoIncrementField(recKey.getFields());
+        DBFieldValues fieldValues = recKey.getFieldValues();
+
+        /* insert */
+        String insertSQL = DBProvider._getInsertStatement(rec);
+        boolean addedField = (insertSQL != null);
+
         /* execute */
         if (addedField) {
             // ResultSet rs = <Statement>.getGeneratedKeys();
@@ -2266,13 +2313,13 @@ public class DBProvider
             try {
                 dbc = DBConnection.getDefaultConnection();
                 if (autoIncrField != null) {
-                    long autoIncrVal = dbc.executeUpdate(sb.toString(), true);
+                    long autoIncrVal = dbc.executeUpdate(insertSQL, true);
                     if (autoIncrVal >= 0) {
                         Print.logDebug("Auto-Increment value: " + autoIncrVal);
                         fieldValues.setFieldValue(autoIncrField.getName(), autoIncrVal);
                     }
                 } else {
-                    dbc.executeUpdate(sb.toString());
+                    dbc.executeUpdate(insertSQL);
                 }
             } finally {
                 DBConnection.release(dbc);
@@ -2290,6 +2337,131 @@ public class DBProvider
         }
         
     }
+
+    /**
+    *** Insert the specified records using a single JDBC statement batch.<br>
+    *** Records containing an auto-increment field are not supported (use "insertRecordIntoTable").
+    *** If the batch fails (ie. a duplicate key), some records may have been inserted.
+    *** @param recList The records to insert
+    *** @return The number of records submitted in the batch
+    *** @throws SQLException  If an SQL error occurs
+    *** @throws DBException   If a database error occurs
+    **/
+    public static int insertRecordsIntoTable(java.util.List<? extends DBRecord> recList)
+        throws SQLException, DBException
+    {
+        return DBProvider.insertRecordsIntoTable(recList, null);
+    }
+
+    /**
+    *** Insert the specified records using a single JDBC statement batch.<br>
+    *** If the batch fails, the records which were inserted before the failure (as reported
+    *** by the JDBC driver) are indicated in the 'inserted' array.
+    *** @param recList  The records to insert
+    *** @param inserted On batch failure, set to true for each record which was inserted (may be null)
+    *** @return The number of records submitted in the batch
+    *** @throws SQLException  If an SQL error occurs
+    *** @throws DBException   If a database error occurs
+    **/
+    public static int insertRecordsIntoTable(java.util.List<? extends DBRecord> recList, boolean inserted[])
+        throws SQLException, DBException
+    {
+        DBConnection dbc = null;
+        try {
+            dbc = DBConnection.getDefaultConnection();
+            return DBProvider.insertRecordsIntoTable(dbc, recList, inserted);
+        } finally {
+            DBConnection.release(dbc);
+        }
+    }
+
+    /**
+    *** Insert the specified records using a single JDBC statement batch on the specified
+    *** connection.  The auto-commit state of the connection is not changed, allowing the caller
+    *** to commit several batches in a single transaction.<br>
+    *** Records containing an auto-increment field are not supported (use "insertRecordIntoTable").<br>
+    *** Note: MySQL Connector/J sends each statement of a batch in a separate round trip unless
+    *** the connection URL includes "rewriteBatchedStatements=true".  This is appended to the
+    *** MySQL URL constructed by "getDBUri" (see "db.mysql.rewriteBatchedStatements"), and should
+    *** be added to an explicitly configured "db.sql.url.db".
+    *** @param dbc     The DBConnection (must be held by the caller)
+    *** @param recList The records to insert
+    *** @return The number of records submitted in the batch
+    *** @throws SQLException  If an SQL error occurs
+    *** @throws DBException   If a database error occurs
+    **/
+    public static int insertRecordsIntoTable(DBConnection dbc, java.util.List<? extends DBRecord> recList)
+        throws SQLException, DBException
+    {
+        return DBProvider.insertRecordsIntoTable(dbc, recList, null);
+    }
+
+    /**
+    *** Insert the specified records using a single JDBC statement batch on the specified
+    *** connection (see "insertRecordsIntoTable(DBConnection,List)").<br>
+    *** If the batch fails, the records which were inserted before the failure (as reported
+    *** by the JDBC driver) are indicated in the 'inserted' array.
+    *** @param dbc      The DBConnection (must be held by the caller)
+    *** @param recList  The records to insert
+    *** @param inserted On batch failure, set to true for each record which was inserted (may be null)
+    *** @return The number of records submitted in the batch
+    *** @throws SQLException  If an SQL error occurs
+    *** @throws DBException   If a database error occurs
+    **/
+    public static int insertRecordsIntoTable(DBConnection dbc, java.util.List<? extends DBRecord> recList,
+        boolean inserted[])
+        throws SQLException, DBException
+    {
+
+        /* nothing to insert? */
+        if ((recList == null) || recList.isEmpty()) {
+            return 0;
+        } else
+        if (dbc == null) {
+            throw new DBException("DBConnection not specified");
+        }
+
+        /* assemble/execute batch */
+        Statement stmt = null;
+        int batchNdx[] = new int[recList.size()]; // batch statement index => record index
+        int count = 0;
+        try {
+            stmt = dbc.createStatement();
+            for (int r = 0; r < recList.size(); r++) {
+                DBRecord rec = recList.get(r);
+                if (DBProvider._getAutoIncrementField(rec.getRecordKey().getFields()) != null) {
+                    throw new DBException("Batch insert not supported for auto-increment records: " + 
+                        rec.getRecordKey().getUntranslatedTableName());
+                }
+                String insertSQL = DBProvider._getInsertStatement(rec);
+                if (insertSQL == null) {
+                    continue;
+                }
+                if (DBConnection.getShowExecutedSQL()) {
+                    Print.logInfo("SQL(batch): " + insertSQL);
+                }
+                stmt.addBatch(insertSQL);
+                batchNdx[count++] = r;
+            }
+            if (count > 0) {
+                stmt.executeBatch();
+            }
+            return count;
+        } catch (BatchUpdateException bue) {
+            if (inserted != null) {
+                int updCounts[] = bue.getUpdateCounts();
+                for (int b = 0; (updCounts != null) && (b < updCounts.length) && (b < count); b++) {
+                    if ((updCounts[b] > 0) || (updCounts[b] == Statement.SUCCESS_NO_INFO)) {
+                        inserted[batchNdx[b]] = true;
+                    }
+                }
+            }
+            throw bue;
+        } finally {
+            if (stmt != null) { try { stmt.close(); } catch (Throwable t) {} }
+        }
+
+    }
     
     /**
     *** Assemble an update statement (and execute) for the specified record and
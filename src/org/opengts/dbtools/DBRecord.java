@@ -737,52 +737,17 @@ public abstract class DBRecord<gDBR extends DBRecord>
                 DBRecordKey<T> rcdKey = fact.createKey(rs); // may throw DBException
                 if (rcdKey != null) {
                     T rcd = rcdKey.getDBRecord();
-                    rcd.setAllFieldValues(rs); // TODO: possible bug
-                    //rcd.setAllFieldValues(rs, dsel.getSelectedFields());
-                    if (rcdHandler != null) {
-                        int rcdStatus = rcdHandler.handleDBRecord(rcd);
-                        if (rcdStatus == DBRecordHandler.DBRH_SKIP) {
-                            // -- skip current, continue
-                            // continue;
-                        } else 
-                        if (rcdStatus == DBRecordHandler.DBRH_STOP) {
-                            // -- skip current, stop
-                            break; // stop
-                        } else 
-                        if (rcdStatus == DBRecordHandler.DBRH_SAVE) {
-                            // -- save current, continue
-                            rcdList.add(rcd);
-                            // continue;
-                        } else 
-                        if (rcdStatus == DBRecordHandler.DBRH_SAVE_STOP) {
-                            // -- save current, stop
-                            rcdList.add(rcd);
-                            break; // stop
-                        } else 
-                        if (rcdStatus == DBRecordHandler.DBRH_SAVE_LAST) {
-                            // -- save last, continue
-                            if (lastRcd != null) {
-                                rcdList.add(lastRcd);
-                            } else {
-                                // -- no last record available
-                            }
-                            // continue;
-                        } else 
-                        if (rcdStatus == DBRecordHandler.DBRH_SAVE_LAST_STOP) {
-                            // -- save last, stop
-                            if (lastRcd != null) {
-                                rcdList.add(lastRcd);
-                            } else {
-                                // -- no last record available
-                            }
-                            break; // stop
-                        } else {
-                            // -- unrecognized return type: assume skip current, continue
-                            // continue;
-                        }
+                    if (dsel.hasSelectedFields() && dsel.getDeferUnselectedFields()) {
+                        // -- partial select, remaining fields loaded on first access
+                        rcd.setAllFieldValues(rs, dsel.getSelectedFields());
+                        rcd.getRecordKey().getFieldValues().setDeferredLoad(true);
                     } else {
-                        // -- no recordHandler, save, continue
-                        rcdList.add(rcd);
+                        rcd.setAllFieldValues(rs); // TODO: possible bug
+                        //rcd.setAllFieldValues(rs, dsel.getSelectedFields());
+                    }
+                    boolean stop = DBRecord._handleRecord(rcd, lastRcd, rcdHandler, rcdList);
+                    if (stop) {
+                        break; // stop
                     }
                     // -- save last record
                     lastRcd = rcd;
@@ -818,6 +783,86 @@ public abstract class DBRecord<gDBR extends DBRecord>
 
     }
 
+
+    /**
+    *** Passes the specified record to the record handler, and saves the record to the
+    *** specified list as indicated by the handler return value.
+    *** @param rcd        The current record
+    *** @param lastRcd    The prior record (may be null)
+    *** @param rcdHandler The record handler (if null, the current record is saved)
+    *** @param rcdList    The list of saved records
+    *** @return True if the record selection loop should stop
+    *** @throws DBException If thrown by the record handler
+    **/
+    private static <T extends DBRecord> boolean _handleRecord(T rcd, T lastRcd,
+        DBRecordHandler<T> rcdHandler, java.util.List<T> rcdList)
+        throws DBException
+    {
+        if (rcdHandler != null) {
+            int rcdStatus = rcdHandler.handleDBRecord(rcd);
+            if (rcdStatus == DBRecordHandler.DBRH_SKIP) {
+                // -- skip current, continue
+                return false;
+            } else 
+            if (rcdStatus == DBRecordHandler.DBRH_STOP) {
+                // -- skip current, stop
+                return true; // stop
+            } else 
+            if (rcdStatus == DBRecordHandler.DBRH_SAVE) {
+                // -- save current, continue
+                rcdList.add(rcd);
+                return false;
+            } else 
+            if (rcdStatus == DBRecordHandler.DBRH_SAVE_STOP) {
+                // -- save current, stop
+                rcdList.add(rcd);
+                return true; // stop
+            } else 
+            if (rcdStatus == DBRecordHandler.DBRH_SAVE_LAST) {
+                // -- save last, continue
+                if (lastRcd != null) {
+                    rcdList.add(lastRcd);
+                } else {
+                    // -- no last record available
+                }
+                return false;
+            } else 
+            if (rcdStatus == DBRecordHandler.DBRH_SAVE_LAST_STOP) {
+                // -- save last, stop
+                if (lastRcd != null) {
+                    rcdList.add(lastRcd);
+                } else {
+                    // -- no last record available
+                }
+                return true; // stop
+            } else {
+                // -- unrecognized return type: assume skip current, continue
+                return false;
+            }
+        } else {
+            // -- no recordHandler, save, continue
+            rcdList.add(rcd);
+            return false;
+        }
+    }
+
+    /**
+    *** Passes a previously selected record to the record handler, in the same manner as 
+    *** records read by "select(DBSelect,DBRecordHandler)".
+    *** @param rcd        The current record
+    *** @param lastRcd    The prior record (may be null)
+    *** @param rcdHandler The record handler (if null, the current record is saved)
+    *** @param rcdList    The list of saved records
+    *** @return True if the record handler indicated that the selection loop should stop
+    *** @throws DBException If thrown by the record handler
+    **/
+    public static <T extends DBRecord> boolean handleRecord(T rcd, T lastRcd,
+        DBRecordHandler<T> rcdHandler, java.util.List<T> rcdList)
+        throws DBException
+    {
+        return DBRecord._handleRecord(rcd, lastRcd, rcdHandler, rcdList);
+    }
+
     // ------------------------------------------------------------------------
     
     /**
@@ -1020,6 +1065,7 @@ public abstract class DBRecord<gDBR extends DBRecord>
             DBRecordKey<gDBR> recKey = this.getRecordKey();
             // DBSelect: SELECT * FROM <table> <where>
             DBSelect<gDBR> dsel = new DBSelect<gDBR>(recKey.getFactory());
+            dsel.setUntranslatedTableName(recKey.getRecordTableName());
             if (!ListTools.isEmpty(fldNames)) {
                 dsel.setSelectedFields(fldNames);
             }
@@ -1051,6 +1097,30 @@ public abstract class DBRecord<gDBR extends DBRecord>
         }
     }
     
+    /**
+    *** Loads the fields which were omitted from a partial (projected) select.<br>
+    *** Called by DBFieldValues when a field which was not included in the selected 
+    *** columns is first accessed.  The 'changed' state of this record is preserved.
+    *** @param fldName  The name of the field which triggered the load (for logging)
+    **/
+    /* package */ void _loadDeferredFields(String fldName)
+    {
+        DBFieldValues fldVals = this.getRecordKey().getFieldValues();
+        String fldNames[] = fldVals.getUnloadedFieldNames();
+        if (!ListTools.isEmpty(fldNames)) {
+            String utableName = this.getRecordKey().getUntranslatedTableName();
+            Print.logDebug("Loading deferred fields: " + utableName + " [accessed " + fldName + "]");
+            boolean wasChanged = this.changed;
+            try {
+                this._reload(fldNames);
+            } catch (DBException dbe) {
+                Print.logException("Unable to load deferred fields: " + utableName, dbe);
+            } finally {
+                this.changed = wasChanged;
+            }
+        }
+    }
+
     // ------------------------------------------------------------------------
     
     /**
@@ -1476,6 +1546,17 @@ public abstract class DBRecord<gDBR extends DBRecord>
     public void insert()
         throws DBException
     {
+        this._insert();
+    }
+
+    /** 
+    *** Insert this DBRecord in the database
+    *** @return True if the record was inserted, false if the record already exists
+    *** @throws DBException if a database error occurs.
+    **/
+    private boolean _insert()
+        throws DBException
+    {
 
         /* save allowed? */
         if (!this.isOkToSave()) {
@@ -1485,16 +1566,8 @@ public abstract class DBRecord<gDBR extends DBRecord>
         /* insert */
         try {
 
-            /* creation time/user */
-            long nowTimeMS = DateTime.getCurrentTimeMillis();
-            long nowTime   = nowTimeMS / 1000L;
-            this.setCreationMillis(nowTimeMS);
-            this.setCreationTime(nowTime);
-
-            /* last update time */
-            this.setLastUpdateTime(nowTime);
-            this.setLastUpdateAccount(DBRecord.GetCurrentAccount(),true);
-            this.setLastUpdateUser(DBRecord.GetCurrentUser(),true);
+            /* creation/last-update time/user */
+            this._setInsertTimes(DateTime.getCurrentTimeMillis());
 
             /* insert */
             this.recordWillInsert();
@@ -1503,6 +1576,7 @@ public abstract class DBRecord<gDBR extends DBRecord>
 
             /* clear changes */
             this.clearChanged();
+            return true;
 
         } catch (SQLException sqe) {
             this.setLastCaughtSQLException(sqe); // insert()
@@ -1511,12 +1585,113 @@ public abstract class DBRecord<gDBR extends DBRecord>
                 //throw new DBException("Duplicate Key '" + dbKey + "'", sqe);
                 Print.logInfo("Insert duplicate key ignored: [" + dbKey.getUntranslatedTableName() + "] " + dbKey);
                 //Print.logStackTrace("Duplicate key on insert");
+                return false;
             } else {
                 throw new DBException("Unable to insert record  [" + dbKey.getUntranslatedTableName() + "] '" + dbKey + "'", sqe);
             }
         }
     }
 
+    /**
+    *** Sets the creation and last update time/user prior to inserting this record
+    **/
+    private void _setInsertTimes(long nowTimeMS)
+    {
+        long nowTime = nowTimeMS / 1000L;
+
+        /* creation time/user */
+        this.setCreationMillis(nowTimeMS);
+        this.setCreationTime(nowTime);
+
+        /* last update time */
+        this.setLastUpdateTime(nowTime);
+        this.setLastUpdateAccount(DBRecord.GetCurrentAccount(),true);
+        this.setLastUpdateUser(DBRecord.GetCurrentUser(),true);
+
+    }
+
+    /** 
+    *** Inserts the specified DBRecords into the database using a single JDBC statement batch.<br>
+    *** If the batch insert fails (ie. one of the records already exists), the records which
+    *** were not inserted by the batch are inserted one at a time (duplicate keys are ignored,
+    *** as with "insert").
+    *** @param recList  The list of records to insert
+    *** @return The number of records inserted (records ignored as duplicates are not counted)
+    *** @throws DBException if a database error occurs.
+    **/
+    public static int insertRecords(java.util.List<? extends DBRecord> recList)
+        throws DBException
+    {
+
+        /* nothing to insert? */
+        if ((recList == null) || recList.isEmpty()) {
+            return 0;
+        }
+
+        /* prepare records */
+        DBRecord._prepareInsertRecords(recList);
+
+        /* batch insert */
+        int count;
+        boolean inserted[] = new boolean[recList.size()];
+        try {
+            count = DBProvider.insertRecordsIntoTable(recList, inserted);
+        } catch (SQLException sqe) {
+            // -- some records may have been inserted by the batch, retry the others individually
+            Print.logWarn("Batch insert failed, inserting records individually: " + sqe);
+            count = 0;
+            for (int r = 0; r < recList.size(); r++) {
+                DBRecord rec = recList.get(r);
+                if (inserted[r]) {
+                    rec.recordDidInsert();
+                    rec.clearChanged();
+                    count++;
+                } else
+                if (rec._insert()) { // duplicate keys ignored
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /* post insert */
+        DBRecord._didInsertRecords(recList);
+        return count;
+
+    }
+
+    /**
+    *** Sets the creation/last-update times of the specified records, and calls "recordWillInsert",
+    *** prior to inserting the records in a batch.
+    *** @param recList  The list of records to be inserted
+    *** @throws DBException if a record may not be saved
+    **/
+    protected static void _prepareInsertRecords(java.util.List<? extends DBRecord> recList)
+        throws DBException
+    {
+        long nowTimeMS = DateTime.getCurrentTimeMillis();
+        for (DBRecord rec : recList) {
+            if (!rec.isOkToSave()) {
+                throw new DBException("Update not allowed");
+            }
+            rec._setInsertTimes(nowTimeMS);
+            rec.recordWillInsert();
+        }
+    }
+
+    /**
+    *** Calls "recordDidInsert", and clears the changed state, of the specified records after
+    *** the records have been inserted in a batch.
+    *** @param recList  The list of inserted records
+    **/
+    protected static void _didInsertRecords(java.util.List<? extends DBRecord> recList)
+    {
+        for (DBRecord rec : recList) {
+            rec.recordDidInsert();
+            rec.clearChanged();
+        }
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -2232,15 +2407,7 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public boolean getOptionalFieldValue(String fldName, boolean dft)
     {
-        Object obj = this.getOptionalFieldValue(fldName);
-        if (obj instanceof Boolean) {
-            return ((Boolean)obj).booleanValue();
-        } else 
-        if (obj instanceof Number) {
-            return (((Number)obj).intValue() != 0)? true : false;
-        } else {
-            return dft;
-        }
+        return this.getRecordKey().getFieldValues().getFieldBoolean(fldName, false, dft);
     }
 
     /**
@@ -2253,15 +2420,7 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public boolean getFieldValue(String fldName, boolean dft)
     {
-        Object obj = this.getFieldValue(fldName);
-        if (obj instanceof Boolean) {
-            return ((Boolean)obj).booleanValue();
-        } else 
-        if (obj instanceof Number) {
-            return (((Number)obj).intValue() != 0)? true : false;
-        } else {
-            return dft;
-        }
+        return this.getRecordKey().getFieldValues().getFieldBoolean(fldName, true, dft);
     }
 
     /**
@@ -2325,8 +2484,7 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public int getOptionalFieldValue(String fldName, int dft)
     {
-        Object obj = this.getOptionalFieldValue(fldName);
-        return (obj instanceof Number)? ((Number)obj).intValue() : dft;
+        return this.getRecordKey().getFieldValues().getFieldInt(fldName, false, dft);
     }
 
     /**
@@ -2339,8 +2497,7 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public int getFieldValue(String fldName, int dft)
     {
-        Object obj = this.getFieldValue(fldName);
-        return (obj instanceof Number)? ((Number)obj).intValue() : dft;
+        return this.getRecordKey().getFieldValues().getFieldInt(fldName, true, dft);
     }
 
     /**
@@ -2404,8 +2561,7 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public long getOptionalFieldValue(String fldName, long dft)
     {
-        Object obj = this.getOptionalFieldValue(fldName);
-        return (obj instanceof Number)? ((Number)obj).longValue() : dft;
+        return this.getRecordKey().getFieldValues().getFieldLong(fldName, false, dft);
     }
 
     /**
@@ -2418,8 +2574,7 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public long getFieldValue(String fldName, long dft)
     {
-        Object obj = this.getFieldValue(fldName);
-        return (obj instanceof Number)? ((Number)obj).longValue() : dft;
+        return this.getRecordKey().getFieldValues().getFieldLong(fldName, true, dft);
     }
 
     /**
@@ -2483,8 +2638,7 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public float getOptionalFieldValue(String fldName, float dft)
     {
-        Object obj = this.getOptionalFieldValue(fldName);
-        return (obj instanceof Number)? ((Number)obj).floatValue() : dft;
+        return this.getRecordKey().getFieldValues().getFieldFloat(fldName, false, dft);
     }
 
     /**
@@ -2497,8 +2651,7 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public float getFieldValue(String fldName, float dft)
     {
-        Object obj = this.getFieldValue(fldName);
-        return (obj instanceof Number)? ((Number)obj).floatValue() : dft;
+        return this.getRecordKey().getFieldValues().getFieldFloat(fldName, true, dft);
     }
 
     /**
@@ -2562,8 +2715,7 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public double getOptionalFieldValue(String fldName, double dft)
     {
-        Object obj = this.getOptionalFieldValue(fldName);
-        return (obj instanceof Number)? ((Number)obj).doubleValue() : dft;
+        return this.getRecordKey().getFieldValues().getFieldDouble(fldName, false, dft);
     }
 
     /**
@@ -2576,8 +2728,7 @@ public abstract class DBRecord<gDBR extends DBRecord>
     **/
     public double getFieldValue(String fldName, double dft)
     {
-        Object obj = this.getFieldValue(fldName);
-        return (obj instanceof Number)? ((Number)obj).doubleValue() : dft;
+        return this.getRecordKey().getFieldValues().getFieldDouble(fldName, true, dft);
     }
 
     /**
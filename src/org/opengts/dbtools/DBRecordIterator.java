@@ -34,7 +34,11 @@ import org.opengts.util.*;
 *** iterate through a selection, and thus is only supported by DB providers that support
 *** these keywords.  This method has the disadvantage that record insertions/deletions 
 *** occurring while this DBRecordIterator is in use may cause this iterator to possibly 
-*** miss some records, or produce duplicate records.
+*** miss some records, or produce duplicate records.<br>
+*** When constructed with a DBKeysetSelect, each block is instead selected following the
+*** key of the last retrieved record, and the OFFSET keyword is not used.  A DBKeysetSelect
+*** may also be iterated over several physical tables (ie. EventData time-shards), which are
+*** read in turn, in the specified order.
 **/
 
 public class DBRecordIterator<DBR extends DBRecord>
@@ -53,6 +57,8 @@ public class DBRecordIterator<DBR extends DBRecord>
     private long                limit           = DEFAULT_LIMIT;
     
     private DBRecordKey<DBR>    lastRecordKey   = null;
+
+    private Iterator<String>    tableIter       = null;
     
     // ------------------------------------------------------------------------
 
@@ -104,12 +110,28 @@ public class DBRecordIterator<DBR extends DBRecord>
             if (!this.dbSelector.supportsLimit()) {
                 throw new DBException("DB provider does not support LIMIT");
             } else
-            if (!this.dbSelector.supportsOffset()) {
+            if (!this.dbSelector.supportsOffset() && !(this.dbSelector instanceof DBKeysetSelect)) {
                 throw new DBException("DB provider does not support OFFSET");
             }
         }
     }
 
+    /**
+    *** Constructor
+    *** @param dbSel  The DBKeysetSelect instance
+    *** @param tables The untranslated names of the physical tables to read, in order
+    *** @throws DBException if the DBProvider does not support limit.
+    **/
+    public DBRecordIterator(DBKeysetSelect<DBR> dbSel, java.util.List<String> tables)
+        throws DBException
+    {
+        this(dbSel);
+        if ((this.dbSelector != null) && !ListTools.isEmpty(tables)) {
+            this.tableIter = tables.iterator();
+            this.dbSelector.setUntranslatedTableName(this.tableIter.next());
+        }
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -206,12 +228,24 @@ public class DBRecordIterator<DBR extends DBRecord>
 
         /* get records */
         DBR rcdArry[] = null;
-        try {
-            //Print.logInfo("Fetch ... " + this.offset + ":" + this.limit);
-            //DBProvider.lockTables(new String[] { this.dbSelector.getTableName() }, null);
-            rcdArry = DBRecord.select(this.dbSelector, null); // "unchecked cast"
-        } finally {
-            //DBProvider.unlockTables();
+        for (;;) {
+            try {
+                //Print.logInfo("Fetch ... " + this.offset + ":" + this.limit);
+                //DBProvider.lockTables(new String[] { this.dbSelector.getTableName() }, null);
+                rcdArry = DBRecord.select(this.dbSelector, null); // "unchecked cast"
+            } finally {
+                //DBProvider.unlockTables();
+            }
+            if ((rcdArry != null) && (rcdArry.length > 0)) {
+                break;
+            } else
+            if ((this.tableIter == null) || !this.tableIter.hasNext()) {
+                break;
+            }
+            // -- end of this table, continue at the beginning of the next table
+            this.dbSelector.setUntranslatedTableName(this.tableIter.next());
+            ((DBKeysetSelect<DBR>)this.dbSelector).setSeekValues((Object[])null);
+            this.lastRecordKey = null;
         }
 
         /* end of data? */
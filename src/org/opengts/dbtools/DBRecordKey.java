@@ -110,13 +110,61 @@ public abstract class DBRecordKey<gDBR extends DBRecord>
         return this.getFactory().getUntranslatedTableName();
     }
 
+    /**
+    *** Gets the untranslated name of the physical table which holds the record for this key.
+    *** This is the DBFactory table name, unless overridden by a table which is partitioned
+    *** over several physical tables (see EventData time-shards).
+    *** @return The untranslated physical table name
+    **/
+    public String getRecordTableName()
+    {
+        return this.getUntranslatedTableName();
+    }
+
     /**
     *** Gets the table name for this DBSelect
     *** @return The defined table name
     **/
     public String getTranslatedTableName()
     {
-        return this.getFactory().getTranslatedTableName();
+        return DBProvider.translateTableName(this.getRecordTableName());
+    }
+
+    /**
+    *** Gets the untranslated names of all physical tables which hold records of this table.
+    *** This is only the DBFactory table name, unless overridden by a table which is 
+    *** partitioned over several physical tables (see EventData time-shards).
+    *** @return The list of untranslated physical table names
+    *** @throws DBException If the physical tables cannot be determined
+    **/
+    public java.util.List<String> getReadTableNames()
+        throws DBException
+    {
+        java.util.List<String> tables = new Vector<String>();
+        tables.add(this.getUntranslatedTableName());
+        return tables;
+    }
+
+    /**
+    *** Gets the untranslated name of the physical table into which a new record for this key
+    *** is inserted.  This is the same as "getRecordTableName", unless overridden by a table
+    *** which is partitioned over several physical tables, where an existing record may be
+    *** found in a different table than the one a new record is inserted into.
+    *** @return The untranslated physical table name for inserts
+    **/
+    public String getInsertTableName()
+    {
+        return this.getRecordTableName();
+    }
+
+    /**
+    *** Gets the translated name of the physical table into which a new record for this key
+    *** is inserted.
+    *** @return The translated physical table name for inserts
+    **/
+    public String getTranslatedInsertTableName()
+    {
+        return DBProvider.translateTableName(this.getInsertTableName());
     }
 
     /**
@@ -448,6 +496,45 @@ public abstract class DBRecordKey<gDBR extends DBRecord>
         }
     }
 
+    /**
+    *** Gets the "lastUpdateTime" of the record with this full Primary Key, without reading
+    *** the remaining record fields.  Useful for cheaply validating a cached record.
+    *** @return The record "lastUpdateTime", 0 if the table does not define a "lastUpdateTime" 
+    ***         field, or -1 if the record does not exist.
+    **/
+    public long getLastUpdateTime()
+        throws DBException
+    {
+        String fldUpdTime = DBRecord.FLD_lastUpdateTime;
+        if (this.getField(fldUpdTime) == null) {
+            return 0L;
+        }
+
+        // DBSelect: SELECT lastUpdateTime FROM <TableName> <KeyWhere>
+        DBSelect<gDBR> dsel = new DBSelect<gDBR>(this.getFactory());
+        dsel.setUntranslatedTableName(this.getRecordTableName());
+        dsel.setSelectedFields(fldUpdTime);
+        dsel.setWhere(this._getWhereClause(null, DBWhere.KEY_FULL));
+
+        /* read lastUpdateTime */
+        DBConnection dbc  = null;
+        Statement    stmt = null;
+        ResultSet    rs   = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(dsel.toString()); // may throw DBException
+            rs   = stmt.getResultSet();
+            return rs.next()? rs.getLong(fldUpdTime) : -1L;
+        } catch (SQLException sqe) {
+            String tn = this.getUntranslatedTableName();
+            throw new DBException("Record lastUpdateTime " + tn + "='" + this + "'", sqe);
+        } finally {
+            if (rs   != null) { try { rs.close();   } catch (Throwable t) {} }
+            if (stmt != null) { try { stmt.close(); } catch (Throwable t) {} }
+            DBConnection.release(dbc);
+        }
+    }
+
     /**
     *** Returns true if the full Alternate Key exists in the table
     *** @return True if the full Alternate key exists in the table, false otherwise
@@ -473,6 +560,19 @@ public abstract class DBRecordKey<gDBR extends DBRecord>
     protected boolean _exists(String altIndexName, int whereKeyType)
         throws SQLException, DBException
     {
+        return this._exists(this.getRecordTableName(), altIndexName, whereKeyType);
+    }
+
+    /**
+    *** Returns true if the specified key attribute exists in the specified physical table
+    *** @param utableName     The untranslated physical table name
+    *** @param altIndexName   The alternate index name, or null to use the primary index
+    *** @param whereKeyType   The partial key match type
+    *** @return True if the specified key attribute exists in the table, false otherwise
+    **/
+    protected boolean _exists(String utableName, String altIndexName, int whereKeyType)
+        throws SQLException, DBException
+    {
 
         /* key fields */
         boolean usePrimaryKey = StringTools.isBlank(altIndexName);
@@ -493,6 +593,7 @@ public abstract class DBRecordKey<gDBR extends DBRecord>
         // DBSelect: SELECT <Keys> FROM <TableName> <KeyWhere>
         String firstKey = kfld[0].getName();
         DBSelect<gDBR> dsel = new DBSelect<gDBR>(this.getFactory());
+        dsel.setUntranslatedTableName(utableName);
         dsel.setSelectedFields(firstKey);
         dsel.setWhere(this._getWhereClause(altIndexName, whereKeyType));
 
@@ -648,6 +749,7 @@ public abstract class DBRecordKey<gDBR extends DBRecord>
     {
         // DBDelete: DELETE FROM <table> WHERE <where>
         DBDelete ddel = new DBDelete(this.getFactory());
+        ddel.setUntranslatedTableName(this.getRecordTableName());
         ddel.setWhere(this._getWhereClause(altIndexName, whereKeyType));
         //Print.logInfo("DBDelete: " + ddel);
         DBConnection dbc = null;
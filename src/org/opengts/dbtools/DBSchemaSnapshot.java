@@ -0,0 +1,490 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.dbtools;
+
+import java.lang.*;
+import java.util.*;
+import java.io.*;
+import java.sql.*;
+
+import org.opengts.util.*;
+
+/**
+*** <code>DBSchemaSnapshot</code> is an immutable snapshot of the existing (actual) table
+*** columns, as read from the database.<br>
+*** The current snapshot is published through a volatile reference, so that reading the
+*** existing columns of a table (ie. on every record insert/update) does not require a lock.
+*** When the columns of a table are not yet in the snapshot, or are explicitly refreshed, the
+*** columns are read from the database and a new snapshot containing them is published.  DDL
+*** statements executed through DBProvider/DBFactory remove the altered table from the snapshot.<br>
+*** If the runtime property "db.schemaCache.file" is specified, the snapshot is also saved to
+*** that file, keyed by the database schema version, and is loaded from that file at startup
+*** (when the schema version still matches), so that the columns of each table need not be
+*** read from the database.  The schema version is a checksum of the column definitions of all
+*** tables (MySQL only), or the value of the property "db.schemaCache.version" if specified.
+**/
+
+public class DBSchemaSnapshot
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final String CACHE_HEADER            = "# DBSchemaSnapshot";
+    private static final String CACHE_VERSION           = "version=";
+    private static final String CACHE_DATABASE          = "database=";
+    private static final char   CACHE_SEP               = '\t';
+
+    // ------------------------------------------------------------------------
+
+    private static final DBSchemaSnapshot EMPTY_SNAPSHOT =
+        new DBSchemaSnapshot(new HashMap<String,DBField[]>(), new HashMap<String,java.util.List<String[]>>());
+
+    private static volatile DBSchemaSnapshot currentSnapshot = EMPTY_SNAPSHOT;
+
+    private static final Object             snapshotLock    = new Object();
+    private static boolean                  cacheLoaded     = false;
+    private static boolean                  cacheDirty      = false;
+
+    /**
+    *** Gets the current schema snapshot
+    **/
+    public static DBSchemaSnapshot GetSnapshot()
+    {
+        return currentSnapshot;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the existing columns of the specified table
+    *** @param utableName  The untranslated table name
+    *** @param refresh     True to re-read the columns from the database
+    *** @return The existing columns, or null if not supported by the DBProvider
+    *** @throws DBException   If a database error occurs
+    **/
+    public static DBField[] GetColumns(String utableName, boolean refresh)
+        throws DBException
+    {
+
+        /* lock-free read */
+        if (!refresh) {
+            DBField cols[] = currentSnapshot.getColumns(utableName);
+            if (cols != null) {
+                return cols;
+            }
+        }
+
+        /* load columns */
+        synchronized (DBSchemaSnapshot.snapshotLock) {
+            DBSchemaSnapshot._loadCacheFile();
+            DBSchemaSnapshot snap = currentSnapshot;
+            if (!refresh) {
+                DBField cols[] = snap.getColumns(utableName);
+                if (cols != null) {
+                    return cols; // loaded by another thread
+                }
+                java.util.List<String[]> rows = snap.cacheRows.get(utableName);
+                if (rows != null) {
+                    // -- columns from the cache file
+                    cols = DBSchemaSnapshot._createColumns(utableName, rows);
+                    currentSnapshot = snap._setColumns(utableName, cols);
+                    return cols;
+                }
+            }
+            DBField cols[] = DBProvider.getActualTableFields(utableName); // may throw DBException
+            if (cols != null) {
+                currentSnapshot = snap._setColumns(utableName, cols);
+                DBSchemaSnapshot.cacheDirty = true;
+            }
+            return cols;
+        }
+
+    }
+
+    /**
+    *** Gets the existing columns of the specified table, keyed by column name
+    *** @param utableName  The untranslated table name
+    *** @param refresh     True to re-read the columns from the database
+    *** @return The existing (read-only) column map, or null if not supported by the DBProvider
+    *** @throws DBException   If a database error occurs
+    **/
+    public static Map<String,DBField> GetColumnMap(String utableName, boolean refresh)
+        throws DBException
+    {
+        if (!refresh) {
+            Map<String,DBField> colMap = currentSnapshot.getColumnMap(utableName);
+            if (colMap != null) {
+                return colMap;
+            }
+        }
+        DBField cols[] = DBSchemaSnapshot.GetColumns(utableName, refresh);
+        return (cols != null)? currentSnapshot.getColumnMap(utableName) : null;
+    }
+
+    /**
+    *** Removes the specified table from the snapshot (ie. after a DDL statement on the table)
+    *** @param utableName  The untranslated table name
+    **/
+    public static void Invalidate(String utableName)
+    {
+        synchronized (DBSchemaSnapshot.snapshotLock) {
+            DBSchemaSnapshot snap = currentSnapshot;
+            if (snap.columns.containsKey(utableName) || snap.cacheRows.containsKey(utableName)) {
+                currentSnapshot = snap._removeTable(utableName);
+                DBSchemaSnapshot.cacheDirty = true;
+            }
+        }
+    }
+
+    /**
+    *** Removes all tables from the snapshot
+    **/
+    public static void InvalidateAll()
+    {
+        synchronized (DBSchemaSnapshot.snapshotLock) {
+            currentSnapshot = EMPTY_SNAPSHOT;
+            DBSchemaSnapshot.cacheDirty = true;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Loads the columns of the specified tables into the snapshot (from the cache file if
+    *** the schema version matches), and saves the cache file if any table columns had to be
+    *** read from the database.  Does nothing if no cache file is configured.
+    *** @param utableNames  The untranslated table names
+    **/
+    public static void Preload(Collection<String> utableNames)
+    {
+        if (DBSchemaSnapshot.GetCacheFile() == null) {
+            return;
+        }
+        long startMS = DateTime.getCurrentTimeMillis();
+        for (String utableName : utableNames) {
+            try {
+                DBSchemaSnapshot.GetColumns(utableName, false);
+            } catch (DBException dbe) {
+                Print.logDebug("Unable to read table columns: " + utableName + " [" + dbe.getMessage() + "]");
+            }
+        }
+        DBSchemaSnapshot.SaveCacheFile();
+        Print.logDebug("Schema snapshot loaded: " + currentSnapshot.columns.size() + " tables [" +
+            (DateTime.getCurrentTimeMillis() - startMS) + " ms]");
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the schema cache file ("db.schemaCache.file"), or null if not configured
+    **/
+    public static File GetCacheFile()
+    {
+        String fileName = RTConfig.getString(RTKey.DB_SCHEMA_CACHE_FILE, null);
+        return !StringTools.isBlank(fileName)? new File(fileName) : null;
+    }
+
+    /**
+    *** Gets the current database schema version, or null if not available
+    **/
+    public static String GetSchemaVersion()
+    {
+
+        /* configured version */
+        String version = RTConfig.getString(RTKey.DB_SCHEMA_CACHE_VERSION, null);
+        if (!StringTools.isBlank(version)) {
+            return version.trim();
+        }
+
+        /* checksum of all column definitions (MySQL only) */
+        if (DBProvider.getProvider().getID() != DBProvider.DB_MYSQL) {
+            return null;
+        }
+        String sql =
+            "SELECT COUNT(*),SUM(CRC32(CONCAT_WS('|',TABLE_NAME,COLUMN_NAME,COLUMN_TYPE," +
+            "IFNULL(COLLATION_NAME,''),COLUMN_KEY,EXTRA))) " +
+            "FROM information_schema.COLUMNS WHERE TABLE_SCHEMA=DATABASE()";
+        DBConnection dbc = null;
+        Statement   stmt = null;
+        ResultSet     rs = null;
+        try {
+            dbc  = DBConnection.getDefaultConnection();
+            stmt = dbc.execute(sql);
+            rs   = stmt.getResultSet();
+            if (rs.next()) {
+                return rs.getLong(1) + ":" + rs.getLong(2);
+            }
+            return null;
+        } catch (Throwable th) {
+            Print.logWarn("Unable to read schema version: " + th);
+            return null;
+        } finally {
+            DBConnection.release(dbc, stmt, rs);
+        }
+
+    }
+
+    /**
+    *** Loads the cache file (once), if configured and the schema version matches
+    **/
+    private static void _loadCacheFile()
+    {
+        // "DBSchemaSnapshot.snapshotLock" lock required
+        if (DBSchemaSnapshot.cacheLoaded) {
+            return;
+        }
+        DBSchemaSnapshot.cacheLoaded = true;
+        File cacheFile = DBSchemaSnapshot.GetCacheFile();
+        if ((cacheFile == null) || !cacheFile.isFile()) {
+            return;
+        }
+        String version = DBSchemaSnapshot.GetSchemaVersion();
+        if (version == null) {
+            return;
+        }
+
+        /* read cache file */
+        Map<String,java.util.List<String[]>> rows = new HashMap<String,java.util.List<String[]>>();
+        BufferedReader br = null;
+        try {
+            br = new BufferedReader(new InputStreamReader(new FileInputStream(cacheFile), StringTools.CharEncoding_UTF_8));
+            String header = br.readLine();
+            String fileVers = br.readLine();
+            String fileDB   = br.readLine();
+            if ((header == null) || !header.equals(CACHE_HEADER) ||
+                (fileVers == null) || !fileVers.equals(CACHE_VERSION + version) ||
+                (fileDB == null) || !fileDB.equals(CACHE_DATABASE + DBProvider.getDBUri(true))) {
+                Print.logInfo("Schema cache file is out of date: " + cacheFile);
+                return;
+            }
+            for (;;) {
+                String line = br.readLine();
+                if (line == null) { break; }
+                String r[] = StringTools.split(line, CACHE_SEP, false);
+                if (r.length < 6) { continue; }
+                java.util.List<String[]> tableRows = rows.get(r[0]);
+                if (tableRows == null) {
+                    tableRows = new Vector<String[]>();
+                    rows.put(r[0], tableRows);
+                }
+                tableRows.add(r);
+            }
+        } catch (IOException ioe) {
+            Print.logWarn("Unable to read schema cache file: " + cacheFile + " [" + ioe + "]");
+            return;
+        } finally {
+            if (br != null) { try { br.close(); } catch (Throwable t) {} }
+        }
+
+        /* publish */
+        DBSchemaSnapshot snap = currentSnapshot;
+        Map<String,java.util.List<String[]>> cacheRows = new HashMap<String,java.util.List<String[]>>(rows);
+        for (String utableName : snap.columns.keySet()) {
+            cacheRows.remove(utableName);
+        }
+        currentSnapshot = new DBSchemaSnapshot(snap.columns, cacheRows);
+        Print.logInfo("Loaded schema cache file: " + cacheFile + " [" + rows.size() + " tables]");
+
+    }
+
+    /**
+    *** Saves the current snapshot to the cache file, if configured and changed since it was loaded
+    *** @return True if the cache file was written
+    **/
+    public static boolean SaveCacheFile()
+    {
+        File cacheFile = DBSchemaSnapshot.GetCacheFile();
+        if (cacheFile == null) {
+            return false;
+        }
+        synchronized (DBSchemaSnapshot.snapshotLock) {
+            if (!DBSchemaSnapshot.cacheDirty) {
+                return false;
+            }
+            String version = DBSchemaSnapshot.GetSchemaVersion();
+            if (version == null) {
+                return false;
+            }
+            DBSchemaSnapshot snap = currentSnapshot;
+            File tmpFile = new File(cacheFile.getPath() + ".tmp");
+            PrintWriter pw = null;
+            try {
+                pw = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmpFile), StringTools.CharEncoding_UTF_8)));
+                pw.println(CACHE_HEADER);
+                pw.println(CACHE_VERSION + version);
+                pw.println(CACHE_DATABASE + DBProvider.getDBUri(true));
+                for (String utableName : snap.columns.keySet()) {
+                    DBField cols[] = snap.columns.get(utableName);
+                    for (int i = 0; i < cols.length; i++) {
+                        pw.println(DBSchemaSnapshot._formatColumn(utableName, cols[i]));
+                    }
+                }
+                for (java.util.List<String[]> tableRows : snap.cacheRows.values()) {
+                    for (String r[] : tableRows) {
+                        pw.println(StringTools.join(r, CACHE_SEP));
+                    }
+                }
+                pw.close();
+                pw = null;
+                if (cacheFile.exists() && !cacheFile.delete()) {
+                    Print.logWarn("Unable to replace schema cache file: " + cacheFile);
+                    return false;
+                }
+                if (!tmpFile.renameTo(cacheFile)) {
+                    Print.logWarn("Unable to rename schema cache file: " + tmpFile);
+                    return false;
+                }
+                DBSchemaSnapshot.cacheDirty = false;
+                Print.logInfo("Saved schema cache file: " + cacheFile);
+                return true;
+            } catch (IOException ioe) {
+                Print.logWarn("Unable to write schema cache file: " + cacheFile + " [" + ioe + "]");
+                return false;
+            } finally {
+                if (pw != null) { try { pw.close(); } catch (Throwable t) {} }
+            }
+        }
+    }
+
+    /**
+    *** Formats the specified column as a cache file row:
+    ***   table, column, sqlType, autoIncrement, characterSet, indexNames
+    **/
+    private static String _formatColumn(String utableName, DBField col)
+    {
+        Set<String> ndx = new OrderedSet<String>();
+        if (col.isPrimaryKey())   { ndx.add(DBProvider.PRIMARY_INDEX_NAME); }
+        if (col.isUniqueAltKey()) { ndx.add(DBProvider.UNIQUE_INDEX_NAME); }
+        String altNdx[] = col.getAlternateIndexes();
+        if (altNdx != null) {
+            ndx.addAll(Arrays.asList(altNdx));
+        }
+        StringBuffer sb = new StringBuffer();
+        sb.append(utableName).append(CACHE_SEP);
+        sb.append(col.getName()).append(CACHE_SEP);
+        sb.append(col.getSqlType(true)).append(CACHE_SEP);
+        sb.append(col.isAutoIncrement()).append(CACHE_SEP);
+        sb.append(col.getCharacterSet()).append(CACHE_SEP);
+        sb.append(StringTools.join(ndx.toArray(new String[ndx.size()]), ','));
+        return sb.toString();
+    }
+
+    /**
+    *** Creates the existing columns from the specified cache file rows
+    **/
+    private static DBField[] _createColumns(String utableName, java.util.List<String[]> rows)
+    {
+        DBField cols[] = new DBField[rows.size()];
+        for (int i = 0; i < cols.length; i++) {
+            String r[] = rows.get(i);
+            Set<String> ndxSet = null;
+            if (!StringTools.isBlank(r[5])) {
+                ndxSet = new HashSet<String>(Arrays.asList(StringTools.split(r[5], ',')));
+            }
+            boolean autoIncr = StringTools.parseBoolean(r[3], false);
+            cols[i] = new DBField(utableName, r[1], r[2], autoIncr, r[4], ndxSet);
+        }
+        return cols;
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private final Map<String,DBField[]>                 columns;
+    private final Map<String,Map<String,DBField>>       columnMaps;
+    private final Map<String,java.util.List<String[]>>  cacheRows;
+
+    /**
+    *** Constructor
+    *** @param columns    The existing columns, keyed by untranslated table name
+    *** @param cacheRows  The cache file rows of tables not yet converted to columns
+    **/
+    private DBSchemaSnapshot(Map<String,DBField[]> columns, Map<String,java.util.List<String[]>> cacheRows)
+    {
+        Map<String,Map<String,DBField>> colMaps = new HashMap<String,Map<String,DBField>>();
+        for (String utableName : columns.keySet()) {
+            DBField cols[] = columns.get(utableName);
+            Map<String,DBField> colMap = new HashMap<String,DBField>();
+            for (int i = 0; i < cols.length; i++) {
+                colMap.put(cols[i].getName(), cols[i]);
+            }
+            colMaps.put(utableName, Collections.unmodifiableMap(colMap));
+        }
+        this.columns    = Collections.unmodifiableMap(new HashMap<String,DBField[]>(columns));
+        this.columnMaps = Collections.unmodifiableMap(colMaps);
+        this.cacheRows  = Collections.unmodifiableMap(new HashMap<String,java.util.List<String[]>>(cacheRows));
+    }
+
+    /**
+    *** Returns a copy of this snapshot with the specified table columns
+    **/
+    private DBSchemaSnapshot _setColumns(String utableName, DBField cols[])
+    {
+        Map<String,DBField[]> colCopy = new HashMap<String,DBField[]>(this.columns);
+        colCopy.put(utableName, cols);
+        Map<String,java.util.List<String[]>> rowCopy = new HashMap<String,java.util.List<String[]>>(this.cacheRows);
+        rowCopy.remove(utableName);
+        return new DBSchemaSnapshot(colCopy, rowCopy);
+    }
+
+    /**
+    *** Returns a copy of this snapshot without the specified table
+    **/
+    private DBSchemaSnapshot _removeTable(String utableName)
+    {
+        Map<String,DBField[]> colCopy = new HashMap<String,DBField[]>(this.columns);
+        colCopy.remove(utableName);
+        Map<String,java.util.List<String[]>> rowCopy = new HashMap<String,java.util.List<String[]>>(this.cacheRows);
+        rowCopy.remove(utableName);
+        return new DBSchemaSnapshot(colCopy, rowCopy);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the existing columns of the specified table in this snapshot
+    *** @param utableName  The untranslated table name
+    *** @return The existing columns, or null if the table is not in this snapshot
+    **/
+    public DBField[] getColumns(String utableName)
+    {
+        return this.columns.get(utableName);
+    }
+
+    /**
+    *** Gets the existing columns of the specified table in this snapshot, keyed by column name
+    *** @param utableName  The untranslated table name
+    *** @return The existing (read-only) column map, or null if the table is not in this snapshot
+    **/
+    public Map<String,DBField> getColumnMap(String utableName)
+    {
+        return this.columnMaps.get(utableName);
+    }
+
+    /**
+    *** Gets the untranslated names of the tables in this snapshot
+    **/
+    public Set<String> getTableNames()
+    {
+        return this.columns.keySet();
+    }
+
+    // ------------------------------------------------------------------------
+
+}
@@ -59,8 +59,10 @@ public class DBSelect<gDBR extends DBRecord>
     private String          where           = null;
     private String          orderByFields[] = null;
     private boolean         ascending       = true; // default ascending
+    private boolean         orderAllFields  = false; // apply DESC to all order-by fields
     private long            limit           = 0L;   // no limit
     private long            offset          = 0L;   // beginning of list
+    private boolean         deferUnselected = false; // load unselected fields on first access
 
     /**
     *** Constructor
@@ -177,6 +179,27 @@ public class DBSelect<gDBR extends DBRecord>
         return ((this.selectFields != null) && (this.selectFields.length > 0))? this.selectFields : null;
     }
 
+    /**
+    *** Sets whether the fields omitted from the selected field list should be loaded 
+    *** from the DB when first accessed on a returned DBRecord.  If false (the default), 
+    *** unselected fields of returned records will remain unset.
+    *** @param defer  True to load unselected fields on first access
+    **/
+    public void setDeferUnselectedFields(boolean defer)
+    {
+        this.deferUnselected = defer;
+    }
+
+    /**
+    *** Returns true if the fields omitted from the selected field list should be loaded
+    *** from the DB when first accessed on a returned DBRecord.
+    *** @return True if unselected fields are loaded on first access
+    **/
+    public boolean getDeferUnselectedFields()
+    {
+        return this.deferUnselected;
+    }
+
     // ------------------------------------------------------------------------
     // Table name
 
@@ -342,6 +365,25 @@ public class DBSelect<gDBR extends DBRecord>
         return this.ascending;
     }
     
+    /**
+    *** Sets whether the ascending/descending sort order applies to all order-by fields.
+    *** By default, the "DESC" qualifier is applied only to the last order-by field.
+    *** @param allFields True to apply the sort order to all order-by fields
+    **/
+    public void setOrderAllFields(boolean allFields)
+    {
+        this.orderAllFields = allFields;
+    }
+
+    /**
+    *** Returns true if the ascending/descending sort order applies to all order-by fields
+    *** @return True if the sort order applies to all order-by fields, false if only to the last
+    **/
+    public boolean isOrderAllFields()
+    {
+        return this.orderAllFields;
+    }
+
     /**
     *** Gets the order-byte fields
     *** @return An array of order-by fields, or null if no order-by fields have been defined
@@ -558,6 +600,9 @@ public class DBSelect<gDBR extends DBRecord>
                 //sb.append(fld[i]);
                 //sb.append(dbp.getEndColumnChar());
                 sb.append(dbp.quoteColumnName(fld[i]));
+                if (this.orderAllFields && !this.isOrderAscending() && (i < (fld.length - 1))) {
+                    sb.append(" DESC");
+                }
             }
             if (!this.isOrderAscending()) {
                 sb.append(" DESC");
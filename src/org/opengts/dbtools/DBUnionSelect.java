@@ -0,0 +1,133 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.dbtools;
+
+import java.lang.*;
+import java.util.*;
+
+import org.opengts.util.*;
+
+/**
+*** <code>DBUnionSelect</code> combines several DBSelect statements on the same table into a
+*** single "(SELECT ...) UNION ALL (SELECT ...)" statement, allowing each component select
+*** to specify its own ORDER BY/LIMIT.  The order of the combined result rows is not defined,
+*** unless order-by fields are set on the union itself, in which case the ORDER BY (and LIMIT)
+*** of the union are applied to the combined result rows.<br>
+*** Only supported by DB providers which support LIMIT within a parenthesized UNION component
+*** (MySQL, PostgreSQL).
+**/
+
+public class DBUnionSelect<gDBR extends DBRecord>
+    extends DBSelect<gDBR>
+{
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if the current DBProvider supports UNION ALL of limited selects
+    *** @return True if the current DBProvider supports UNION ALL of limited selects
+    **/
+    public static boolean isSupported()
+    {
+        int dbid = DBProvider.getProvider().getID();
+        return (dbid == DBProvider.DB_MYSQL) || (dbid == DBProvider.DB_POSTGRESQL);
+    }
+
+    // ------------------------------------------------------------------------
+
+    private java.util.List<DBSelect<gDBR>> selects = new Vector<DBSelect<gDBR>>();
+
+    /**
+    *** Constructor
+    *** @param fact  The table DBFactory instance
+    **/
+    public DBUnionSelect(DBFactory<gDBR> fact)
+    {
+        super(fact);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Adds a component DBSelect to this union.  The component DBSelect must select the
+    *** same columns as all other components.
+    *** @param dsel  The component DBSelect
+    **/
+    public void addSelect(DBSelect<gDBR> dsel)
+    {
+        if (dsel != null) {
+            this.selects.add(dsel);
+        }
+    }
+
+    /**
+    *** Gets the number of component DBSelects in this union
+    *** @return The number of component DBSelects
+    **/
+    public int getSelectCount()
+    {
+        return this.selects.size();
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns the union statement as a String representation
+    *** @return The union statement as a String representation
+    **/
+    public String toString()
+    {
+        if ((this.selects.size() == 1) && !this.hasOrderByFields() && !this.hasLimit()) {
+            return this.selects.get(0).toString();
+        }
+        StringBuffer sb = new StringBuffer();
+        for (DBSelect<gDBR> dsel : this.selects) {
+            if (sb.length() > 0) {
+                sb.append(" UNION ALL ");
+            }
+            sb.append("(").append(dsel.toString()).append(")");
+        }
+
+        /* ORDER BY (combined rows) */
+        DBProvider dbp = DBProvider.getProvider();
+        if (this.hasOrderByFields()) {
+            sb.append(" ORDER BY ");
+            String fld[] = this.getOrderByFields();
+            for (int i = 0; i < fld.length; i++) {
+                if (i > 0) {
+                    sb.append(",");
+                }
+                sb.append(dbp.quoteColumnName(fld[i]));
+                if (!this.isOrderAscending()) {
+                    sb.append(" DESC");
+                }
+            }
+        }
+
+        /* LIMIT (combined rows, MySQL/PostgreSQL only) */
+        if (this.hasLimit()) {
+            sb.append(" LIMIT ").append(this.getLimit());
+        }
+
+        return sb.toString();
+    }
+
+    // ------------------------------------------------------------------------
+
+}
@@ -0,0 +1,397 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.servers;
+
+import java.lang.*;
+import java.util.*;
+
+import org.opengts.util.*;
+
+import org.opengts.db.*;
+
+/**
+*** <code>EventIngestQueue</code> moves event insertion (EventData insert, rule checks,
+*** geozone checks, Device update) out of the DCS session thread which reads the client
+*** socket.  Events are queued to one of a fixed number of shards, selected by the device
+*** unique-id, and each shard inserts its events in order on its own thread, so the order
+*** of events for any one device is preserved.<br>
+*** Enabled by setting the runtime property "EventIngestQueue.shardCount" greater than zero.
+*** An event which is not acknowledged on queue, and which is not started within the
+*** insertion timeout (see "EventIngestQueue.insertTimeoutMS"), is cancelled and will
+*** not be inserted.  Queued events are held in memory only, so events which have been acknowledged on queue
+*** (see "EventIngestQueue.ackOnQueue") will be lost if the DCS is stopped before they are
+*** inserted.
+**/
+
+public class EventIngestQueue
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final int    DFT_QUEUE_SIZE          = 1000;
+    private static final long   DFT_INSERT_TIMEOUT_MS   = 30000L;
+    private static final long   STATS_INTERVAL_MS       = 5L * 60L * 1000L;
+
+    // ------------------------------------------------------------------------
+
+    private static boolean          didInit     = false;
+    private static EventIngestQueue instance    = null;
+
+    /**
+    *** Gets the EventIngestQueue instance
+    *** @return The EventIngestQueue, or null if event ingest shards are not enabled
+    **/
+    public static EventIngestQueue GetInstance()
+    {
+        synchronized (EventIngestQueue.class) {
+            if (!EventIngestQueue.didInit) {
+                EventIngestQueue.didInit = true;
+                int shards = RTConfig.getInt(DBConfig.PROP_EventIngestQueue_shardCount,0);
+                if (shards > 0) {
+                    EventIngestQueue.instance = new EventIngestQueue(shards);
+                }
+            }
+            return EventIngestQueue.instance;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** IngestTask: a queued event insertion
+    **/
+    public static class IngestTask
+    {
+        private String      key         = null;
+        private Runnable    job         = null;
+        private long        queueTimeMS = 0L;
+        private boolean     started     = false;
+        private boolean     cancelled   = false;
+        private boolean     done        = false;
+        private boolean     success     = false;
+        private IngestTask(String key, Runnable job) {
+            this.key         = key;
+            this.job         = job;
+            this.queueTimeMS = DateTime.getCurrentTimeMillis();
+        }
+        /* returns false if the task was cancelled before it was started */
+        private boolean run() {
+            synchronized (this) {
+                if (this.cancelled) {
+                    return false;
+                }
+                this.started = true;
+            }
+            boolean ok = false;
+            try {
+                this.job.run();
+                ok = true;
+            } catch (Throwable th) {
+                Print.logException("Event ingest error: " + this.key, th);
+            }
+            synchronized (this) {
+                this.success = ok;
+                this.done    = true;
+                this.notifyAll();
+            }
+            return true;
+        }
+        /**
+        *** Cancels the event insertion, if it has not yet been started
+        *** @return True if the event insertion was cancelled and will not be run
+        **/
+        public synchronized boolean cancel() {
+            if (!this.started) {
+                this.cancelled = true;
+            }
+            return this.cancelled;
+        }
+        /**
+        *** Returns true if the event insertion has completed
+        **/
+        public synchronized boolean isDone() {
+            return this.done;
+        }
+        /**
+        *** Waits for the event insertion to complete.<br>
+        *** If the timeout expires before the insertion has been started, the insertion is
+        *** cancelled and false is returned.  If the insertion is already running when the
+        *** timeout expires, this method waits for it to finish, so that a negative
+        *** acknowledgement is never returned for an event which is still inserted.
+        *** @param timeoutMS  The maximum time to wait for the insertion to start, in milliseconds
+        *** @return True if the event insertion completed successfully
+        **/
+        public boolean waitForCompletion(long timeoutMS) {
+            long untilMS = DateTime.getCurrentTimeMillis() + timeoutMS;
+            boolean warned = false;
+            synchronized (this) {
+                while (!this.done) {
+                    long waitMS = untilMS - DateTime.getCurrentTimeMillis();
+                    if (waitMS <= 0L) {
+                        if (this.cancel()) {
+                            Print.logWarn("Timeout waiting for event insertion (cancelled): " + this.key);
+                            return false;
+                        } else
+                        if (!warned) {
+                            Print.logWarn("Timeout waiting for event insertion (in progress): " + this.key);
+                            warned = true;
+                        }
+                        waitMS = 1000L; // already running, wait for completion
+                    }
+                    try {
+                        this.wait(waitMS);
+                    } catch (InterruptedException ie) {
+                        untilMS = 0L; // cancel if not yet started
+                    }
+                }
+                return this.success;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Shard: a worker thread which inserts its queued events in order
+    **/
+    private class Shard
+        extends Thread
+    {
+        private int                     ndx             = 0;
+        private LinkedList<IngestTask>  queue           = new LinkedList<IngestTask>();
+        private int                     maxDepth        = 0;
+        private long                    processCount    = 0L;
+        private long                    errorCount      = 0L;
+        private long                    rejectCount     = 0L;
+        private long                    totalWaitMS     = 0L;
+        private long                    totalServiceMS  = 0L;
+        private long                    maxServiceMS    = 0L;
+        public Shard(int ndx) {
+            super("EventIngest_" + ndx);
+            this.ndx = ndx;
+            this.setDaemon(true);
+        }
+        public boolean add(IngestTask task) {
+            synchronized (this.queue) {
+                if (this.queue.size() >= EventIngestQueue.this.queueSize) {
+                    this.rejectCount++;
+                    return false;
+                }
+                this.queue.add(task);
+                if (this.queue.size() > this.maxDepth) {
+                    this.maxDepth = this.queue.size();
+                }
+                this.queue.notify();
+                return true;
+            }
+        }
+        public void run() {
+            for (;;) {
+                IngestTask task;
+                synchronized (this.queue) {
+                    while (this.queue.isEmpty()) {
+                        try { this.queue.wait(); } catch (InterruptedException ie) { /* ignore */ }
+                    }
+                    task = this.queue.removeFirst();
+                }
+                long startMS = DateTime.getCurrentTimeMillis();
+                if (!task.run()) {
+                    continue; // cancelled while queued
+                }
+                long stopMS  = DateTime.getCurrentTimeMillis();
+                synchronized (this.queue) {
+                    long svcMS = stopMS - startMS;
+                    this.processCount++;
+                    if (!task.success) { this.errorCount++; }
+                    this.totalWaitMS    += startMS - task.queueTimeMS;
+                    this.totalServiceMS += svcMS;
+                    if (svcMS > this.maxServiceMS) { this.maxServiceMS = svcMS; }
+                }
+                EventIngestQueue.this._checkLogStatistics(stopMS);
+            }
+        }
+        public int getQueueDepth() {
+            synchronized (this.queue) {
+                return this.queue.size();
+            }
+        }
+        public void appendStatistics(StringBuffer sb) {
+            synchronized (this.queue) {
+                long avgWaitMS = (this.processCount > 0L)? (this.totalWaitMS    / this.processCount) : 0L;
+                long avgSvcMS  = (this.processCount > 0L)? (this.totalServiceMS / this.processCount) : 0L;
+                sb.append("#").append(this.ndx);
+                sb.append(" depth=").append(this.queue.size());
+                sb.append(" maxDepth=").append(this.maxDepth);
+                sb.append(" processed=").append(this.processCount);
+                sb.append(" errors=").append(this.errorCount);
+                sb.append(" rejected=").append(this.rejectCount);
+                sb.append(" avgWaitMS=").append(avgWaitMS);
+                sb.append(" avgServiceMS=").append(avgSvcMS);
+                sb.append(" maxServiceMS=").append(this.maxServiceMS);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private Shard       shards[]        = null;
+    private int         queueSize       = DFT_QUEUE_SIZE;
+    private boolean     ackOnQueue      = false;
+    private long        insertTimeoutMS = DFT_INSERT_TIMEOUT_MS;
+    private long        lastStatsMS     = 0L;
+
+    /**
+    *** Constructor
+    *** @param shardCount  The number of ingest shards
+    **/
+    private EventIngestQueue(int shardCount)
+    {
+        int qsz = RTConfig.getInt(DBConfig.PROP_EventIngestQueue_queueSize,DFT_QUEUE_SIZE);
+        long tmo = RTConfig.getLong(DBConfig.PROP_EventIngestQueue_insertTimeoutMS,DFT_INSERT_TIMEOUT_MS);
+        this.queueSize       = (qsz > 0)? qsz : DFT_QUEUE_SIZE;
+        this.ackOnQueue      = RTConfig.getBoolean(DBConfig.PROP_EventIngestQueue_ackOnQueue,false);
+        this.insertTimeoutMS = (tmo > 0L)? tmo : DFT_INSERT_TIMEOUT_MS;
+        this.lastStatsMS     = DateTime.getCurrentTimeMillis();
+        this.shards          = new Shard[shardCount];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard(i);
+            this.shards[i].start();
+        }
+        Print.logInfo("Started event ingest shards=" + shardCount + ", queueSize=" + this.queueSize + ", ackOnQueue=" + this.ackOnQueue);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if events should be acknowledged as soon as they are queued
+    *** @return True to acknowledge on queue, false to acknowledge after insertion
+    **/
+    public boolean getAckOnQueue()
+    {
+        return this.ackOnQueue;
+    }
+
+    /**
+    *** Gets the maximum time to wait for a queued event to be inserted
+    *** @return The insertion timeout, in milliseconds
+    **/
+    public long getInsertTimeoutMS()
+    {
+        return this.insertTimeoutMS;
+    }
+
+    /**
+    *** Gets the number of ingest shards
+    *** @return The number of ingest shards
+    **/
+    public int getShardCount()
+    {
+        return this.shards.length;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Queues the specified event insertion to the shard for the specified device
+    *** @param uniqueID  The device unique-id (all events for the same unique-id are
+    ***                  inserted in the order queued)
+    *** @param job       The event insertion
+    *** @return The queued IngestTask, or null if the shard queue is full
+    **/
+    public IngestTask submit(String uniqueID, Runnable job)
+    {
+        String key = StringTools.trim(uniqueID);
+        int ndx = (key.hashCode() & 0x7FFFFFFF) % this.shards.length;
+        IngestTask task = new IngestTask(key, job);
+        if (this.shards[ndx].add(task)) {
+            return task;
+        } else {
+            Print.logWarn("Event ingest shard #" + ndx + " is full, rejecting event: " + key);
+            return null;
+        }
+    }
+
+    /**
+    *** Queues the specified event insertion, and waits for the insertion to complete
+    *** if events are not acknowledged on queue.
+    *** @param uniqueID  The device unique-id
+    *** @param job       The event insertion
+    *** @return True if the event may be acknowledged to the device
+    **/
+    public boolean submitAndWait(String uniqueID, Runnable job)
+    {
+        IngestTask task = this.submit(uniqueID, job);
+        if (task == null) {
+            return false; // queue full, do not acknowledge
+        } else
+        if (this.getAckOnQueue()) {
+            return true;
+        } else {
+            return task.waitForCompletion(this.getInsertTimeoutMS());
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the total number of events queued on all shards
+    *** @return The total queue depth
+    **/
+    public int getQueueDepth()
+    {
+        int depth = 0;
+        for (Shard s : this.shards) {
+            depth += s.getQueueDepth();
+        }
+        return depth;
+    }
+
+    /**
+    *** Gets the per-shard queue depth and service time statistics
+    *** @return The statistics String
+    **/
+    public String getStatistics()
+    {
+        StringBuffer sb = new StringBuffer();
+        for (Shard s : this.shards) {
+            if (sb.length() > 0) { sb.append("\n"); }
+            s.appendStatistics(sb);
+        }
+        return sb.toString();
+    }
+
+    /**
+    *** Logs the shard statistics if the statistics interval has elapsed
+    **/
+    private void _checkLogStatistics(long nowMS)
+    {
+        synchronized (this) {
+            if ((nowMS - this.lastStatsMS) < STATS_INTERVAL_MS) {
+                return;
+            }
+            this.lastStatsMS = nowMS;
+        }
+        Print.logInfo("Event ingest statistics:\n" + this.getStatistics());
+    }
+
+    // ------------------------------------------------------------------------
+
+}
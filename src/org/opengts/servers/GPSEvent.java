@@ -174,6 +174,16 @@ public class GPSEvent
 
     }
     
+    /**
+    *** Sets the Device for this event.  Used when the event is handed to another thread
+    *** (ie. an event ingest shard) which maintains its own copy of the Device record.
+    *** @return True if the Device was set, false if the Device is null or the IP address is invalid
+    **/
+    public boolean setDevice(Device device, String ipAddress, int clientPort)
+    {
+        return this._setDevice(device, ipAddress, clientPort);
+    }
+
     public boolean hasDevice()
     {
         return (this.device != null);
@@ -452,7 +452,7 @@ public class DeviceDBImpl
         }
 
         /* simulate Geozones? */
-        if (SIMEVENT_GEOZONES && evdb.isValidGeoPoint() && 
+        if (SIMEVENT_GEOZONES && !evdb.getIsDuplicateEvent() && evdb.isValidGeoPoint() && 
             (statusCode != StatusCodes.STATUS_GEOFENCE_ARRIVE) && 
             (statusCode != StatusCodes.STATUS_GEOFENCE_DEPART)   ) {
             EventData prevEv = DCServerFactory.getPreviousEventData(device, timestamp);
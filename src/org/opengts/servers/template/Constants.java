@@ -103,6 +103,15 @@ public class Constants
     // The entire session must complete within this timeframe
     public static final long    TIMEOUT_UDP_SESSION     = 60000L;
 
+    /* Command port Timeouts (milliseconds) */
+    // The time to wait for the next command on a command session
+    public static final long    TIMEOUT_CMD_IDLE        = 1000L;
+    // The entire command session must complete within this timeframe
+    public static final long    TIMEOUT_CMD_SESSION     = 10000L;
+    // Defaults when pipelined commands are enabled ("DCServerFactory.commandChannel")
+    public static final long    TIMEOUT_CMD_IDLE_PIPELINED    = 5000L;
+    public static final long    TIMEOUT_CMD_SESSION_PIPELINED = 300000L;
+
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
@@ -253,6 +253,10 @@ public class TrackClientPacketHandler
     private Device          gpsDevice                   = null;
     private String          lastModemID                 = null;
 
+    /* Device record copy used by the event ingest shard */
+    // The ingest shard thread never uses 'gpsDevice', which is owned by the session thread.
+    private Device          ingestDevice                = null;
+
     /* Session 'terminate' indicator */
     // This value should be set to 'true' when this server has determined that the
     // session should be terminated.  For instance, if this server finishes communication
@@ -617,6 +621,45 @@ public class TrackClientPacketHandler
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
+    /* insert data record on the device ingest shard (if enabled), otherwise inline */
+    private boolean queueInsertRecord_Common(final GPSEvent gpsEv)
+    {
+        EventIngestQueue eiq = EventIngestQueue.GetInstance(); // null if not enabled
+        if (eiq == null) {
+            return this.parseInsertRecord_Common(gpsEv);
+        }
+
+        /* Device copy owned by the ingest shard */
+        Device dev = gpsEv.getDevice();
+        if ((this.ingestDevice == null) || 
+            !this.ingestDevice.getAccountID().equals(dev.getAccountID()) ||
+            !this.ingestDevice.getDeviceID().equals(dev.getDeviceID())     ) {
+            try {
+                Device devCopy = new Device.Key(dev.getAccountID(), dev.getDeviceID()).getDBRecord();
+                devCopy.setAllFieldValues(dev); // copy all non-key fields from session Device
+                this.ingestDevice = devCopy;
+            } catch (DBException dbe) {
+                // -- will not occur
+                Print.logError("Unable to create copy of Device record: " + dbe);
+                return false;
+            }
+        }
+
+        /* queue */
+        // -- returns true once queued (ackOnQueue), otherwise once inserted
+        final Device ingestDev = this.ingestDevice;
+        final String ipAddr    = this.ipAddress;
+        final int    port      = this.clientPort;
+        return eiq.submitAndWait(gpsEv.getUniqueID(), new Runnable() {
+            public void run() {
+                if (gpsEv.setDevice(ingestDev, ipAddr, port)) {
+                    TrackClientPacketHandler.this.parseInsertRecord_Common(gpsEv);
+                }
+            }
+        });
+
+    }
+
     /* parse and insert data record (common) */
     private boolean parseInsertRecord_Common(GPSEvent gpsEv)
     {
@@ -647,11 +690,11 @@ public class TrackClientPacketHandler
 
         /* estimate GPS-based odometer */
         double odomKM = 0.0; // set to available odometer from event record
-        //if (this.gpsDevice.getLastEventTimestamp() < fixtime) {
+        //if (dev.getLastEventTimestamp() < fixtime) {
         if (odomKM <= 0.0) {
             odomKM = (ESTIMATE_ODOMETER && geoPoint.isValid())? 
-                this.gpsDevice.getNextOdometerKM(geoPoint) : 
-                this.gpsDevice.getLastOdometerKM();
+                dev.getNextOdometerKM(geoPoint) : 
+                dev.getLastOdometerKM();
         } else {
             odomKM = dev.adjustOdometerKM(odomKM);
         }
@@ -770,7 +813,7 @@ public class TrackClientPacketHandler
         this.gpsEvent.setAltitude(altitudeM);
         
         /* insert/return */
-        if (this.parseInsertRecord_Common(this.gpsEvent)) {
+        if (this.queueInsertRecord_Common(this.gpsEvent)) {
             // change this to return any required acknowledgement (ACK) packets back to the Device
             return null;
         } else {
@@ -922,7 +965,7 @@ public class TrackClientPacketHandler
         this.gpsEvent.setAltitude(altitudeM);
 
         /* insert/return */
-        if (this.parseInsertRecord_Common(this.gpsEvent)) {
+        if (this.queueInsertRecord_Common(this.gpsEvent)) {
             // change this to return any required acknowledgement (ACK) packets back to the Device
             return null;
         } else {
@@ -1002,7 +1045,7 @@ public class TrackClientPacketHandler
         this.gpsEvent.setAltitude(altitudeM);
 
         /* insert/return */
-        if (this.parseInsertRecord_Common(this.gpsEvent)) {
+        if (this.queueInsertRecord_Common(this.gpsEvent)) {
             // change this to return any required acknowledgement (ACK) packets back to the Device
             return null;
         } else {
@@ -1138,7 +1181,7 @@ public class TrackClientPacketHandler
         if (gpioInput >= 0L) { this.gpsEvent.setInputMask(gpioInput); }
 
         /* insert/return */
-        if (this.parseInsertRecord_Common(this.gpsEvent)) {
+        if (this.queueInsertRecord_Common(this.gpsEvent)) {
             return (ack != null)? (ack+"\n").getBytes() : null;
         } else {
             return (nak != null)? (nak+"\n").getBytes() : null;
@@ -1244,7 +1287,7 @@ public class TrackClientPacketHandler
         this.gpsEvent.setAltitude(altitudeM);
 
         /* insert/return */
-        if (this.parseInsertRecord_Common(this.gpsEvent)) {
+        if (this.queueInsertRecord_Common(this.gpsEvent)) {
             // change this to return any required acknowledgement (ACK) packets back to the Device
             return null;
         } else {
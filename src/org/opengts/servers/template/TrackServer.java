@@ -58,6 +58,11 @@ public class TrackServer
             TrackServer.setUdpIdleTimeout(   dcs.getUdpIdleTimeoutMS(   Constants.TIMEOUT_UDP_IDLE   ));
             TrackServer.setUdpPacketTimeout( dcs.getUdpPacketTimeoutMS( Constants.TIMEOUT_UDP_PACKET ));
             TrackServer.setUdpSessionTimeout(dcs.getUdpSessionTimeoutMS(Constants.TIMEOUT_UDP_SESSION));
+            boolean pipelined = DCServerCommandChannel.IsEnabled();
+            TrackServer.setCommandIdleTimeout(   dcs.getCommandIdleTimeoutMS(
+                pipelined? Constants.TIMEOUT_CMD_IDLE_PIPELINED    : Constants.TIMEOUT_CMD_IDLE   ));
+            TrackServer.setCommandSessionTimeout(dcs.getCommandSessionTimeoutMS(
+                pipelined? Constants.TIMEOUT_CMD_SESSION_PIPELINED : Constants.TIMEOUT_CMD_SESSION));
         } else {
             Print.logWarn("DCServer not found: " + Main.getServerName());
         }
@@ -155,6 +160,31 @@ public class TrackServer
         return TrackServer.udpTimeout_session;
     }
 
+    // ------------------------------------------------------------------------
+    // Command Session timeouts
+
+    /* idle timeout */
+    private static long cmdTimeout_idle = Constants.TIMEOUT_CMD_IDLE;
+    public static void setCommandIdleTimeout(long timeout)
+    {
+        TrackServer.cmdTimeout_idle = timeout;
+    }
+    public static long getCommandIdleTimeout()
+    {
+        return TrackServer.cmdTimeout_idle;
+    }
+
+    /* total session timeout */
+    private static long cmdTimeout_session = Constants.TIMEOUT_CMD_SESSION;
+    public static void setCommandSessionTimeout(long timeout)
+    {
+        TrackServer.cmdTimeout_session = timeout;
+    }
+    public static long getCommandSessionTimeout()
+    {
+        return TrackServer.cmdTimeout_session;
+    }
+
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
@@ -378,9 +408,9 @@ public class TrackServer
         sst.setIgnoreChar(null);
         sst.setMaximumPacketLength(1200);       // safety net
         sst.setMinimumPacketLength(1);
-        sst.setIdleTimeout(1000L);              // time between packets
+        sst.setIdleTimeout(TrackServer.getCommandIdleTimeout());       // time between packets
         sst.setPacketTimeout(1000L);            // time from start of packet to packet completion
-        sst.setSessionTimeout(10000L);          // time for entire session
+        sst.setSessionTimeout(TrackServer.getCommandSessionTimeout()); // time for entire session
         sst.setLingerTimeoutSec(5);
         sst.setTerminateOnTimeout(true);
         sst.setClientPacketHandlerClass(cmdPktClass);
@@ -393,6 +393,23 @@ public class RTConfig
         
     }
 
+    /**
+    *** Gets a copy of the temporary <code>RTProperties</code> stack for the current thread
+    *** (bottom of the stack first), which may be pushed onto the stack of another thread
+    *** @return The list of temporary <code>RTProperties</code> instances (does not return null)
+    **/
+    public static java.util.List<RTProperties> getTemporaryPropertiesStack()
+    {
+        java.util.List<RTProperties> list = new Vector<RTProperties>();
+        if (CFG_THREAD_TEMPORARY != null) {
+            Stack<RTProperties> rtpStack = CFG_THREAD_TEMPORARY.get();
+            if (rtpStack != null) {
+                list.addAll(rtpStack);
+            }
+        }
+        return list;
+    }
+
     /**
     *** Gets the temporary <code>RTProperties</code> stack size (for current
     *** thread)
@@ -114,6 +114,15 @@ public class RTKey
     public static final String SMTP_THREAD_MODEL_SHOW       = "smtp.threadModel.show";
     public static final String SMTP_IGNORED_EMAIL_FILE      = "smtp.ignoredEmail.file";
     public static final String SMTP_SERVER_SYSADMIN_EMAIL   = "smtp.sysadmin.emailAddress";
+    public static final String SMTP_POOL_MAX_IDLE           = "smtp.pool.maximumIdle";
+    public static final String SMTP_POOL_MAX_IDLE_SEC       = "smtp.pool.maximumIdleSeconds";
+    public static final String SMTP_POOL_MAX_MESSAGES       = "smtp.pool.maximumMessages";
+    public static final String SMTP_BATCH_THREADS           = "smtp.batch.threads";
+    public static final String SMTP_BATCH_SIZE              = "smtp.batch.size";
+    public static final String SMTP_BATCH_MERGE_RECIPIENTS  = "smtp.batch.mergeRecipients";
+    public static final String SMTP_OUTBOX_DIR              = "smtp.outbox.dir";
+    public static final String SMTP_OUTBOX_RETRY_SEC        = "smtp.outbox.retryIntervalSeconds";
+    public static final String SMTP_OUTBOX_MAX_RETRIES      = "smtp.outbox.maximumRetries";
     public static final String SMTP_PROPERTIES[] = {
         SMTP_DEBUG                ,
         SMTP_SERVER_HOST          ,
@@ -173,12 +182,17 @@ public class RTKey
     public static final String DB_ALLOW_UPDATE_KEY_FIELDS   = "db.allowUpdateKeyFields";            // Boolean
     public static final String DB_INACTIVE_TIMEOUT          = "db.inactiveTimeout";                 // Long (sec)
     public static final String DB_MYSQL_TBLEXIST_SEL_COUNT  = "db.mysql.tableExistsSelectCount";    // Boolean
+    public static final String DB_MYSQL_REWRITE_BATCH       = "db.mysql.rewriteBatchedStatements";  // Boolean
+    public static final String DB_COMPACT_FIELD_VALUES      = "db.compactFieldValues";              // Boolean
+    public static final String DB_SCHEMA_CACHE_FILE         = "db.schemaCache.file";                // String
+    public static final String DB_SCHEMA_CACHE_VERSION      = "db.schemaCache.version";             // String
 
     public static final String DB_TYPESIZE_                 = "db.typeSize.";                       // Integer
     public static final String DB_TYPEINT_                  = "db.typeInt.";                        // String (INT8|UINT8|INT16|UINT16|...)
     public static final String DB_IGNORE_COLUMN_ERROR_      = "db.ignoreColumnError.";              // Boolean 
     
     public static final String _DB_LOG_MISSING_COLUMNS      = ".logMissingColumns";                 // Boolean (Suffix)
+    public static final String _DB_COMPACT_FIELD_VALUES     = ".compactFieldValues";                // Boolean (Suffix)
 
     public static final String OSTOOLS_MEMORY_CHECK_ENABLE  = "OSTools.memoryCheckEnabled";         // Boolean
     public static final String OSTOOLS_MEMORY_TREND_WEIGHT  = "OSTools.memoryTrendWeight";          // Double (percent 0.0 .. 1.0)
@@ -188,8 +202,13 @@ public class RTKey
     public static final String ThreadPool_SendMail_         = "SendMail.ThreadPool.";               // prefix
     public static final String ThreadPool_EventRuleAction_  = "Rule.ThreadPool.EventRuleAction.";   // prefix
     public static final String ThreadPool_DeviceEventUpdate_= "Device.ThreadPool.DeviceEventUpdate.";// prefix
+    public static final String ThreadPool_ReportDevice_     = "Report.ThreadPool.ReportDevice.";    // prefix
+    public static final String ThreadPool_SessionWrite_     = "ServerSocketThread.ThreadPool.SessionWrite."; // prefix
 
     public static final String ServerSockeThread_maximumClientThreadPoolSize = "ServerSockeThread.maximumClientThreadPoolSize"; // Integer
+    public static final String ServerSockeThread_udpWorkerThreadCount        = "ServerSockeThread.udpWorkerThreadCount";        // Integer
+    public static final String ServerSockeThread_udpReceiverThreadCount      = "ServerSockeThread.udpReceiverThreadCount";      // Integer
+    public static final String ServerSockeThread_udpWorkerQueueSize          = "ServerSockeThread.udpWorkerQueueSize";          // Integer
 
     // ------------------------------------------------------------------------
 
@@ -268,6 +287,15 @@ public class RTKey
         new Entry(SMTP_IGNORED_EMAIL_FILE    , null                             , "File containing ignored email addresses"),
         new Entry(SMTP_DEBUG                 , false                            , "Sendmail debug mode"),
         new Entry(SMTP_SERVER_SYSADMIN_EMAIL , null                             , "SMTP System Admin Email address"),           // APP|WEB
+        new Entry(SMTP_POOL_MAX_IDLE         , 2                                , "SMTP idle connections per server (0=no pooling)"),
+        new Entry(SMTP_POOL_MAX_IDLE_SEC     , 30                               , "SMTP idle connection timeout (sec)"),
+        new Entry(SMTP_POOL_MAX_MESSAGES     , 100                              , "SMTP maximum messages per connection"),
+        new Entry(SMTP_BATCH_THREADS         , 2                                , "Send-Mail 'batch' thread model delivery threads"),
+        new Entry(SMTP_BATCH_SIZE            , 50                               , "Send-Mail 'batch' maximum messages per batch"),
+        new Entry(SMTP_BATCH_MERGE_RECIPIENTS, false                            , "Send-Mail 'batch' merge identical messages (Bcc)"),
+        new Entry(SMTP_OUTBOX_DIR            , null                             , "Send-Mail outbox directory (retry queue)"),
+        new Entry(SMTP_OUTBOX_RETRY_SEC      , 60                               , "Send-Mail outbox initial retry interval (sec)"),
+        new Entry(SMTP_OUTBOX_MAX_RETRIES    , 10                               , "Send-Mail outbox maximum retries"),
 
         new Entry("'Print' util attributes"),
         new Entry(LOG_NAME                   , null                             , "log name"),                                  // APP|WEB
@@ -313,6 +341,10 @@ public class RTKey
         new Entry(DB_ALLOW_UPDATE_KEY_FIELDS , false                            , "Allow updating key fields"),                 // APP|WEB
         new Entry(DB_INACTIVE_TIMEOUT        , (6L*3600L) /*6hrs*/              , "Inactive connection timeout"),               // APP|WEB
         new Entry(DB_MYSQL_TBLEXIST_SEL_COUNT, true                             , "MySQL tableExist use SELECT COUNT(*)"),      // APP|WEB
+        new Entry(DB_MYSQL_REWRITE_BATCH     , true                             , "MySQL send JDBC batches in one round trip"), // APP|WEB
+        new Entry(DB_COMPACT_FIELD_VALUES    , false                            , "Compact record field storage"),              // APP|WEB
+        new Entry(DB_SCHEMA_CACHE_FILE       , ""                               , "Schema snapshot cache file"),                // APP|WEB
+        new Entry(DB_SCHEMA_CACHE_VERSION    , ""                               , "Schema snapshot version override"),          // APP|WEB
 
         new Entry("OSTools attributes"),
         new Entry(OSTOOLS_MEMORY_CHECK_ENABLE, false                            , "Enable memory checks"),                      // APP|WEB
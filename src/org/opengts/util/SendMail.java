@@ -183,9 +183,8 @@ public class SendMail
         String attachStr    = (attach    != null)? attach.toString() : "";
         String smtpPropsStr = (smtpProps != null)? smtpProps.toString() : "";
         String headersStr   = (headers   != null)? (new RTProperties(headers)).toString() : "";
-        // -- save to outbox
-        // -  TODO:
-        return false;
+        // -- save to outbox (if "smtp.outbox.dir" is defined)
+        return SendMailOutbox.Save(args);
     }
 
     // ------------------------------------------------------------------------
@@ -250,6 +249,8 @@ public class SendMail
     public  static final int    _THREAD_NEW             = 2;
     public  static final String THREAD_DEBUG            = "debug";
     public  static final int    _THREAD_DEBUG           = 3;
+    public  static final String THREAD_BATCH            = "batch"; // see SendMailOutbox
+    public  static final int    _THREAD_BATCH           = 4;
 
     /**
     *** Returns true if the SendMail thread-model should be displayed when in debug mode.
@@ -326,6 +327,9 @@ public class SendMail
         } else
         if (model.equalsIgnoreCase(THREAD_DEBUG)) {
             return _THREAD_DEBUG;
+        } else
+        if (model.equalsIgnoreCase(THREAD_BATCH)) {
+            return _THREAD_BATCH;
         } else {
             return _THREAD_POOL;
         }
@@ -609,16 +613,52 @@ public class SendMail
                 Print.logDebug("Debug SendMail (email not sent)");
                 Print.logDebug(smr.getArgs().toString());
                 return false;
+            case _THREAD_BATCH :
+                if (showThreadModel) {
+                    Print.logDebug("Queueing SendMail for batched delivery");
+                }
+                return SendMailOutbox.Queue(args);
             case _THREAD_POOL  :
             default :
                 if (showThreadModel) {
                     Print.logDebug("Running SendMail in thread pool");
                 }
+                SendMailOutbox.StartRetry(); // resend emails saved to the outbox
                 ThreadPool_SendMail.run(smr);
                 return true;
         }
     }
 
+    /**
+    *** Sends a batch of emails over pooled SMTP connections (see "SendMailArgs.sendBatch").
+    *** Emails are not retried.
+    *** @param batch  The emails to send
+    *** @return An array containing the error for each email which could not be sent (null
+    ***         for each email sent successfully)
+    **/
+    public static Throwable[] SendBatch(Args batch[])
+    {
+        Throwable errors[] = new Throwable[batch.length];
+        try {
+            //SendMailArgs.sendBatch(batch, errors);
+            Class sendMailArgs = GetSendMailArgs_class();
+            if (sendMailArgs != null) {
+                MethodAction ma = new MethodAction(sendMailArgs, "sendBatch", Args[].class, Throwable[].class);
+                ma.invoke(batch, errors);
+                return errors;
+            } else {
+                throw new SendMail.SendMailException("SendMailArgs: 'javax.mail.jar' may not be properly installed");
+            }
+        } catch (Throwable th) {
+            // -- catch-all, should not occur
+            Print.logWarn("Email 'sendBatch' failed: " + th);
+            for (int i = 0; i < errors.length; i++) {
+                if (errors[i] == null) { errors[i] = th; }
+            }
+            return errors;
+        }
+    }
+
     /**
     *** SendMailRunnable class.
     **/
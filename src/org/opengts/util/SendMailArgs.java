@@ -189,194 +189,412 @@ public class SendMailArgs
     public static void send(SendMail.Args args)
         throws SendMail.SendMailException
     {
-        String                       from = args.getFrom();
-        String                       to[] = args.getTo();
-        String                       cc[] = args.getCc();
-        String                      bcc[] = args.getBcc();
-        String                    subject = args.getSubject();
-        String                    msgBody = args.getBody();
-        Properties                headers = args.getHeaders();
-        SendMail.Attachment        attach = args.getAttachment();
-        SendMail.SmtpProperties smtpProps = args.getSmtpProperties(); // never null
-        boolean                queueRetry = args.getQueueRetry();
-
-        /* SMTP properties */
-        // http://www.j2ee.me/products/javamail/javadocs/com/sun/mail/smtp/package-summary.html
-        // mail.smtp.host (String)
-        // mail.smtp.port (int)
-        // mail.smtp.user (String)
-        // mail.smtp.auth (boolean)
-        // mail.smtp.connectiontimeout (int)  [miliseconds]
-        // mail.smtp.timeout (int)  [miliseconds]
-        // mail.smtp.socketFactory.class (String)
-        // mail.smtp.socketFactory.port (int)
-        // mail.smtp.socketFactory.fallback (boolean)
-        // mail.smtp.starttls.enable (boolean)
-        // mail.smtp.sendpartial (boolean)
-        Properties props = new Properties();
-
-        // Debug
-        if (smtpProps.getDebug()) {
-            props.put("mail.debug", "true");
-            Print.logDebug("SendMail debug mode");
-        }
-
-        // SMTP Credentials
-        final String smtpHost  = smtpProps.getHost();
-        final int    smtpPort  = smtpProps.getPort();
-        final String smtpUser  = smtpProps.getUser();
-        final String smtpEmail = smtpProps.getUserEmail();
-        final String smtpPass  = smtpProps.getPassword();
-        final String enableSSL = smtpProps.getEnableSSL();
-        final String enableTLS = smtpProps.getEnableTLS();
-        final int    smtpTMO   = smtpProps.getTimeoutMS();
-
-        // SMTP host:port
-        if (StringTools.isBlank(smtpHost) || smtpHost.endsWith("example.com")) {
-            Print.logError("Null/Invalid SMTP host, not sending email");
-            //return false;
-            throw new SendMail.SendMailException("Null/Invalid SMTP host");
+        SendMail.Args   batch[]  = new SendMail.Args[] { args };
+        Throwable       errors[] = new Throwable[1];
+        SendMailArgs.sendBatch(batch, errors);
+        if (errors[0] instanceof SendMail.SendMailException) {
+            throw (SendMail.SendMailException)errors[0];
         } else
-        if (smtpPort <= 0) {
-            Print.logError("Invalid SMTP port, not sending email");
-            //return false;
-            throw new SendMail.SendMailException("Invalid SMTP port");
-        }
-
-        /* timeout */
-        int timeout = (smtpTMO > 0)? smtpTMO : 60000;
-
-        /* set SendMail/SMTP properties */
-        props.put("mail.smtp.host"                          , smtpHost);
-        props.put("mail.smtp.port"                          , String.valueOf(smtpPort));
-        props.put("mail.smtp.connectiontimeout"             , String.valueOf(timeout)); // 60000
-        props.put("mail.smtp.timeout"                       , String.valueOf(timeout)); // 60000
-      //props.put("mail.smtp.auth"                          , "true");
-      //props.put("mail.smtp.auth.mechanisms"               , "LOGIN PLAIN DIGEST-MD5 NTLM");
-      
-        // The following can be used as a replacement for the value returned by
-        // "InetAddress.getLocalHost().getHostName()".
-      //props.put("mail.smtp.localhost"                     , "mydomain.example.com");
-
-        // SSL
-        if (enableSSL.equals("only") || enableSSL.equals("true")) {
-            props.put("mail.smtp.socketFactory.port"        , String.valueOf(smtpPort));
-            props.put("mail.smtp.socketFactory.class"       , SSL_FACTORY);
-            props.put("mail.smtp.socketFactory.fallback"    , "false");
-          //props.put("mail.smtp.socketFactory.fallback"    , "true");
-            if (enableSSL.equals("only")) {
-                props.put("mail.smtp.ssl.enable"            , "true");
-                props.put("mail.smtp.ssl.socketFactory.port", String.valueOf(smtpPort));
-            }
+        if (errors[0] != null) {
+            throw new SendMail.SendMailException(errors[0]);
         }
+    }
 
-        // TLS
-        if (enableTLS.equals("only") || enableTLS.equals("true")) {
-            props.put("mail.smtp.starttls.required"         , "true");
-            props.put("mail.smtp.starttls.enable"           , "true");
+    /**
+    *** Internal method to send a batch of emails.  Emails are grouped by SMTP server, and each
+    *** group is sent over pooled (already connected/authenticated) SMTP connections.  If
+    *** "smtp.batch.mergeRecipients" is true, identical emails (same sender, subject, headers,
+    *** body, and attachment) are sent once, to all recipients of the group, as 'Bcc'.
+    *** @param batch   The emails to send
+    *** @param errors  On return, contains the error for each email which could not be sent
+    ***                (null for each email sent successfully).  Must be the same length as
+    ***                'batch'.
+    **/
+    public static void sendBatch(SendMail.Args batch[], Throwable errors[])
+    {
+
+        /* group by SMTP server */
+        Map<String,java.util.List<Integer>> serverGroups = new OrderedMap<String,java.util.List<Integer>>();
+        for (int i = 0; i < batch.length; i++) {
+            try {
+                String key = SmtpServer.getServer(batch[i].getSmtpProperties()).getKey();
+                java.util.List<Integer> group = serverGroups.get(key);
+                if (group == null) {
+                    group = new Vector<Integer>();
+                    serverGroups.put(key, group);
+                }
+                group.add(new Integer(i));
+            } catch (SendMail.SendMailException sme) {
+                errors[i] = sme;
+            }
         }
 
-        /* SMTP Authenticator */
-        javax.mail.Authenticator auth = null;
-        if (USE_AUTHENTICATOR && !StringTools.isBlank(smtpUser)) {
-            auth = new javax.mail.Authenticator() {
-                public javax.mail.PasswordAuthentication getPasswordAuthentication() {
-                    return new javax.mail.PasswordAuthentication(smtpUser, smtpPass);
+        /* send each group */
+        boolean merge = RTConfig.getBoolean(RTKey.SMTP_BATCH_MERGE_RECIPIENTS,false);
+        for (java.util.List<Integer> group : serverGroups.values()) {
+            SmtpServer server = null;
+            try {
+                server = SmtpServer.getServer(batch[group.get(0).intValue()].getSmtpProperties());
+            } catch (SendMail.SendMailException sme) {
+                // -- should not occur (already checked above)
+                for (Integer n : group) { errors[n.intValue()] = sme; }
+                continue;
+            }
+            // -- merge identical emails
+            java.util.List<java.util.List<Integer>> sends = new Vector<java.util.List<Integer>>();
+            if (merge) {
+                Map<String,java.util.List<Integer>> contentGroups = new OrderedMap<String,java.util.List<Integer>>();
+                for (Integer n : group) {
+                    String ck = SendMailArgs._getContentKey(batch[n.intValue()]);
+                    java.util.List<Integer> cg = contentGroups.get(ck);
+                    if (cg == null) {
+                        cg = new Vector<Integer>();
+                        contentGroups.put(ck, cg);
+                    }
+                    cg.add(n);
+                }
+                sends.addAll(contentGroups.values());
+            } else {
+                for (Integer n : group) {
+                    java.util.List<Integer> single = new Vector<Integer>();
+                    single.add(n);
+                    sends.add(single);
+                }
+            }
+            // -- send over pooled connection(s)
+            PooledTransport pt = null;
+            Throwable connectError = null;
+            for (java.util.List<Integer> send : sends) {
+                if ((pt == null) && (connectError == null)) {
+                    try {
+                        pt = server.borrowTransport();
+                    } catch (MessagingException me) {
+                        // -- SMTP server unavailable, fail all remaining emails in this group
+                        connectError = server.getSendMailException(me);
+                    } catch (Throwable th) {
+                        Print.logException("Unable to connect to SMTP server [" + server + "]", th);
+                        connectError = new SendMail.SendMailException(th);
+                    }
+                }
+                if (connectError != null) {
+                    for (Integer n : send) { errors[n.intValue()] = connectError; }
+                    continue;
+                }
+                Throwable error = null;
+                try {
+                    server.sendMessage(pt, batch, send);
+                } catch (SendMail.SendMailException sme) {
+                    error = sme;
+                } catch (MessagingException me) {
+                    error = server.getSendMailException(me);
+                } catch (Throwable th) {
+                    Print.logException("Unable to send email [" + server + "]", th);
+                    error = new SendMail.SendMailException(th);
                 }
-            };
-            props.put("mail.smtp.user", smtpUser);
-            props.put("mail.smtp.auth", "true"); // SSL
+                if (error != null) {
+                    for (Integer n : send) { errors[n.intValue()] = error; }
+                    if (!pt.isConnected()) {
+                        // -- connection lost, open a new connection for the next email
+                        server.releaseTransport(pt, false);
+                        pt = null;
+                    }
+                }
+            }
+            if (pt != null) {
+                server.releaseTransport(pt, true);
+            }
         }
 
-        /* SMTP Session */
-        //props.list(System.out);
-        Session session = Session.getInstance(props, auth);
+    }
+
+    /**
+    *** Returns a key identifying the contents (excluding recipients) of the specified email
+    **/
+    private static String _getContentKey(SendMail.Args args)
+    {
+        StringBuffer sb = new StringBuffer();
+        SendMail.Attachment attach = args.getAttachment();
+        sb.append(args.getFrom()).append("\n");
+        sb.append(args.getSubject()).append("\n");
+        sb.append((new RTProperties(args.getHeaders())).toString()).append("\n");
+        sb.append((attach != null)? attach.toString() : "").append("\n");
+        sb.append(args.getBody());
+        return sb.toString();
+    }
 
-        try {
-            MimeMessage msg = new MimeMessage(session);
+    // ------------------------------------------------------------------------
 
-            /* 'From' address */
-            if (StringTools.isBlank(from) || from.equalsIgnoreCase("default")) {
-                msg.setFrom(new InternetAddress(smtpEmail));
-            } else {
-                msg.setFrom(new InternetAddress(from));
+    /**
+    *** PooledTransport: a connected SMTP Transport
+    **/
+    private static class PooledTransport
+    {
+        private Transport   transport   = null;
+        private long        lastUsedMS  = 0L;
+        private int         sendCount   = 0;
+        public PooledTransport(Transport transport) {
+            this.transport  = transport;
+            this.lastUsedMS = DateTime.getCurrentTimeMillis();
+        }
+        public boolean isConnected() {
+            try {
+                return this.transport.isConnected(); // sends "NOOP" to the SMTP server
+            } catch (Throwable th) {
+                return false;
             }
+        }
+        public void close() {
+            try { this.transport.close(); } catch (Throwable th) {/*ignore*/}
+        }
+    }
+
+    /**
+    *** SmtpServer: the JavaMail Session, and idle connected Transports, for a specific
+    *** SMTP server/user configuration
+    **/
+    private static class SmtpServer
+    {
 
-            /* destination email addresses */
-            InternetAddress toAddr[]  = _convertRecipients(to);
-            InternetAddress ccAddr[]  = _convertRecipients(cc);
-            InternetAddress bccAddr[] = _convertRecipients(bcc);
-            if ((toAddr == null) || (toAddr.length <= 0)) {
-                // -- no 'To' email address
-                Print.logError("No 'To' address specified, not sending email");
-                //return false;
-                throw new SendMail.SendMailException("No 'To' address specified");
+        private static Map<String,SmtpServer> ServerMap = new HashMap<String,SmtpServer>();
+
+        /**
+        *** Gets the SmtpServer for the specified SMTP properties
+        **/
+        public static SmtpServer getServer(SendMail.SmtpProperties smtpProps)
+            throws SendMail.SendMailException
+        {
+            String smtpHost = smtpProps.getHost();
+            int    smtpPort = smtpProps.getPort();
+            if (StringTools.isBlank(smtpHost) || smtpHost.endsWith("example.com")) {
+                Print.logError("Null/Invalid SMTP host, not sending email");
+                throw new SendMail.SendMailException("Null/Invalid SMTP host");
+            } else
+            if (smtpPort <= 0) {
+                Print.logError("Invalid SMTP port, not sending email");
+                throw new SendMail.SendMailException("Invalid SMTP port");
             }
+            String pass = smtpProps.getPassword();
+            StringBuffer key = new StringBuffer();
+            key.append(smtpHost).append(":").append(smtpPort);
+            key.append("|").append(smtpProps.getUser());
+            key.append("|").append((pass != null)? pass.hashCode() : 0);
+            key.append("|").append(smtpProps.getUserEmail());
+            key.append("|").append(smtpProps.getEnableSSL());
+            key.append("|").append(smtpProps.getEnableTLS());
+            key.append("|").append(smtpProps.getTimeoutMS());
+            key.append("|").append(smtpProps.getDebug());
+            synchronized (SmtpServer.ServerMap) {
+                SmtpServer server = SmtpServer.ServerMap.get(key.toString());
+                if (server == null) {
+                    server = new SmtpServer(key.toString(), smtpProps);
+                    SmtpServer.ServerMap.put(server.getKey(), server);
+                }
+                return server;
+            }
+        }
 
-            /* set headers */
-            for (Iterator i = headers.keySet().iterator(); i.hasNext();) {
-                String k = (String)i.next();
-                String v = headers.getProperty(k);
-                if (v != null) {
-                    msg.setHeader(k, v);
+        // --------------------------------
+
+        private String                      key         = null;
+        private String                      smtpHost    = null;
+        private int                         smtpPort    = 0;
+        private String                      smtpUser    = null;
+        private String                      smtpPass    = null;
+        private String                      smtpEmail   = null;
+        private Session                     session     = null;
+        private LinkedList<PooledTransport> idle        = new LinkedList<PooledTransport>();
+
+        private SmtpServer(String key, SendMail.SmtpProperties smtpProps) {
+            this.key = key;
+
+            /* SMTP properties */
+            // http://www.j2ee.me/products/javamail/javadocs/com/sun/mail/smtp/package-summary.html
+            // mail.smtp.host (String)
+            // mail.smtp.port (int)
+            // mail.smtp.user (String)
+            // mail.smtp.auth (boolean)
+            // mail.smtp.connectiontimeout (int)  [miliseconds]
+            // mail.smtp.timeout (int)  [miliseconds]
+            // mail.smtp.socketFactory.class (String)
+            // mail.smtp.socketFactory.port (int)
+            // mail.smtp.socketFactory.fallback (boolean)
+            // mail.smtp.starttls.enable (boolean)
+            // mail.smtp.sendpartial (boolean)
+            Properties props = new Properties();
+
+            // Debug
+            if (smtpProps.getDebug()) {
+                props.put("mail.debug", "true");
+                Print.logDebug("SendMail debug mode");
+            }
+
+            // SMTP Credentials
+            final String smtpUser  = smtpProps.getUser();
+            final String smtpPass  = smtpProps.getPassword();
+            final String enableSSL = smtpProps.getEnableSSL();
+            final String enableTLS = smtpProps.getEnableTLS();
+            final int    smtpTMO   = smtpProps.getTimeoutMS();
+            this.smtpHost  = smtpProps.getHost();
+            this.smtpPort  = smtpProps.getPort();
+            this.smtpUser  = smtpUser;
+            this.smtpPass  = smtpPass;
+            this.smtpEmail = smtpProps.getUserEmail();
+
+            /* timeout */
+            int timeout = (smtpTMO > 0)? smtpTMO : 60000;
+
+            /* set SendMail/SMTP properties */
+            props.put("mail.smtp.host"                          , this.smtpHost);
+            props.put("mail.smtp.port"                          , String.valueOf(this.smtpPort));
+            props.put("mail.smtp.connectiontimeout"             , String.valueOf(timeout)); // 60000
+            props.put("mail.smtp.timeout"                       , String.valueOf(timeout)); // 60000
+          //props.put("mail.smtp.auth"                          , "true");
+          //props.put("mail.smtp.auth.mechanisms"               , "LOGIN PLAIN DIGEST-MD5 NTLM");
+
+            // The following can be used as a replacement for the value returned by
+            // "InetAddress.getLocalHost().getHostName()".
+          //props.put("mail.smtp.localhost"                     , "mydomain.example.com");
+
+            // SSL
+            if (enableSSL.equals("only") || enableSSL.equals("true")) {
+                props.put("mail.smtp.socketFactory.port"        , String.valueOf(this.smtpPort));
+                props.put("mail.smtp.socketFactory.class"       , SSL_FACTORY);
+                props.put("mail.smtp.socketFactory.fallback"    , "false");
+              //props.put("mail.smtp.socketFactory.fallback"    , "true");
+                if (enableSSL.equals("only")) {
+                    props.put("mail.smtp.ssl.enable"            , "true");
+                    props.put("mail.smtp.ssl.socketFactory.port", String.valueOf(this.smtpPort));
                 }
             }
 
-            /* set recipients */
-            msg.setRecipients(Message.RecipientType.TO , toAddr);
-            msg.setRecipients(Message.RecipientType.CC , ccAddr);
-            msg.setRecipients(Message.RecipientType.BCC, bccAddr);
+            // TLS
+            if (enableTLS.equals("only") || enableTLS.equals("true")) {
+                props.put("mail.smtp.starttls.required"         , "true");
+                props.put("mail.smtp.starttls.enable"           , "true");
+            }
+
+            /* SMTP Authenticator */
+            javax.mail.Authenticator auth = null;
+            if (USE_AUTHENTICATOR && !StringTools.isBlank(smtpUser)) {
+                auth = new javax.mail.Authenticator() {
+                    public javax.mail.PasswordAuthentication getPasswordAuthentication() {
+                        return new javax.mail.PasswordAuthentication(smtpUser, smtpPass);
+                    }
+                };
+                props.put("mail.smtp.user", smtpUser);
+                props.put("mail.smtp.auth", "true"); // SSL
+            }
+
+            /* SMTP Session */
+            //props.list(System.out);
+            this.session = Session.getInstance(props, auth);
 
-            /* subject */
-            msg.setSubject(subject, StringTools.CharEncoding_UTF_8);
+        }
 
-            /* date */
-            msg.setSentDate(new Date());
+        public String getKey() {
+            return this.key;
+        }
 
-            /* message body/content */
-            if ((attach != null) && (attach.getSize() > 0)) {
-                Multipart multipart = new MimeMultipart();
-                if ((msgBody != null) && !msgBody.equals("")) {
-                    MimeBodyPart textBodyPart = new MimeBodyPart();
-                    textBodyPart.setText(msgBody, StringTools.CharEncoding_UTF_8);
-                    multipart.addBodyPart(textBodyPart);
+        // --------------------------------
+
+        /**
+        *** Gets an idle connected Transport, or connects a new Transport
+        **/
+        public PooledTransport borrowTransport()
+            throws MessagingException
+        {
+            long maxIdleMS = RTConfig.getLong(RTKey.SMTP_POOL_MAX_IDLE_SEC,30L) * 1000L;
+            long nowMS     = DateTime.getCurrentTimeMillis();
+            for (;;) {
+                PooledTransport pt;
+                synchronized (this.idle) {
+                    pt = !this.idle.isEmpty()? this.idle.removeFirst() : null;
+                }
+                if (pt == null) {
+                    break;
+                } else
+                if (((nowMS - pt.lastUsedMS) <= maxIdleMS) && pt.isConnected()) {
+                    return pt;
+                } else {
+                    pt.close(); // expired, or closed by the SMTP server
                 }
-                // add attachment
-                BodyPart attachBodyPart = new MimeBodyPart();
-                DataSource source = new ByteArrayDataSource(attach.getName(), attach.getType(), attach.getBytes());
-                attachBodyPart.setDataHandler(new DataHandler(source));
-                attachBodyPart.setFileName(source.getName());
-                multipart.addBodyPart(attachBodyPart);
-                // set content 
-                msg.setContent(multipart);
+            }
+            Transport transport = this.session.getTransport("smtp");
+            if (USE_AUTHENTICATOR || StringTools.isBlank(this.smtpUser)) {
+                transport.connect(); // Session properties (and Authenticator)
             } else {
-                msg.setText(msgBody, StringTools.CharEncoding_UTF_8);
-                //msg.setText(msgBody); // setContent(msgBody, CONTENT_TYPE_PLAIN);
+                transport.connect(this.smtpHost, this.smtpUser, ((this.smtpPass!=null)?this.smtpPass:""));
             }
+            return new PooledTransport(transport);
+        }
 
-            /* send email */
-            msg.saveChanges(); // implicit with send()
-            if (!USE_AUTHENTICATOR && !StringTools.isBlank(smtpUser)) {
-                Transport transport = session.getTransport("smtp");
-                transport.connect(smtpHost, smtpUser, (smtpPass!=null?smtpPass:""));
-                transport.sendMessage(msg, msg.getAllRecipients());
-                transport.close();
+        /**
+        *** Returns the Transport to the idle pool (or closes it)
+        **/
+        public void releaseTransport(PooledTransport pt, boolean reuse)
+        {
+            int maxIdle = RTConfig.getInt(RTKey.SMTP_POOL_MAX_IDLE,2);
+            int maxSend = RTConfig.getInt(RTKey.SMTP_POOL_MAX_MESSAGES,100);
+            if (reuse && (maxIdle > 0) && ((maxSend <= 0) || (pt.sendCount < maxSend))) {
+                pt.lastUsedMS = DateTime.getCurrentTimeMillis();
+                synchronized (this.idle) {
+                    if (this.idle.size() < maxIdle) {
+                        this.idle.addFirst(pt);
+                        return;
+                    }
+                }
+            }
+            pt.close();
+        }
+
+        // --------------------------------
+
+        /**
+        *** Sends the specified email(s) as a single message.  If more than one email is
+        *** specified, the emails must have identical contents, and are sent to all recipients
+        *** as 'Bcc'.
+        **/
+        public void sendMessage(PooledTransport pt, SendMail.Args batch[], java.util.List<Integer> send)
+            throws MessagingException, SendMail.SendMailException
+        {
+            SendMail.Args args = batch[send.get(0).intValue()];
+            MimeMessage msg = SendMailArgs._createMessage(this.session, this.smtpEmail, args);
+
+            /* recipients */
+            Address rcpts[];
+            if (send.size() == 1) {
+                rcpts = msg.getAllRecipients();
             } else {
-                Transport.send(msg);
-                // java.net.ConnectException: Connection timed out
+                java.util.List<Address> addrList = new Vector<Address>();
+                for (Integer n : send) {
+                    SendMail.Args a = batch[n.intValue()];
+                    ListTools.toList(_convertRecipients(a.getTo()) , addrList);
+                    ListTools.toList(_convertRecipients(a.getCc()) , addrList);
+                    ListTools.toList(_convertRecipients(a.getBcc()), addrList);
+                }
+                rcpts = addrList.toArray(new Address[addrList.size()]);
+                msg.setRecipients(Message.RecipientType.TO , new InternetAddress[0]);
+                msg.setRecipients(Message.RecipientType.CC , new InternetAddress[0]);
+                msg.setRecipients(Message.RecipientType.BCC, new InternetAddress[0]);
+                msg.setHeader("To", "undisclosed-recipients:;");
+                msg.saveChanges();
             }
 
-            /* success (if we get here) */
+            /* send email */
+            pt.transport.sendMessage(msg, rcpts);
+            pt.sendCount++;
             Print.logDebug("Email sent ...");
-            return /*true*/;
 
-        } catch (MessagingException me) {
+        }
 
-            /* error */
+        /**
+        *** Converts a MessagingException to a SendMailException
+        **/
+        public SendMail.SendMailException getSendMailException(MessagingException me)
+        {
             String message = null;
             boolean retry = false;
-            SendMail.SendMailException rtn = null;
-            Print.logStackTrace("Unable to send email [host="+smtpHost+"; port="+smtpPort+"]", me);
+            Print.logStackTrace("Unable to send email [host="+this.smtpHost+"; port="+this.smtpPort+"]", me);
             for (Exception ex = me; ex != null;) {
                 if (ex instanceof SendFailedException) {
                     // javax.mail.SendFailedException
@@ -403,17 +621,98 @@ public class SendMailArgs
                 // -- next exception
                 ex = (ex instanceof MessagingException)? ((MessagingException)ex).getNextException() : null;
             }
-
-            /* did not send email */
-            //return false;
             if (!StringTools.isBlank(message)) {
-                throw new SendMail.SendMailException(message,me).setRetry(retry);
+                return new SendMail.SendMailException(message,me).setRetry(retry);
             } else {
-                throw new SendMail.SendMailException(me).setRetry(retry);
+                return new SendMail.SendMailException(me).setRetry(retry);
+            }
+        }
+
+        public String toString() {
+            return this.smtpHost + ":" + this.smtpPort;
+        }
+
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Creates the MimeMessage for the specified email
+    **/
+    private static MimeMessage _createMessage(Session session, String smtpEmail, SendMail.Args args)
+        throws MessagingException, SendMail.SendMailException
+    {
+        String                       from = args.getFrom();
+        String                       to[] = args.getTo();
+        String                       cc[] = args.getCc();
+        String                      bcc[] = args.getBcc();
+        String                    subject = args.getSubject();
+        String                    msgBody = args.getBody();
+        Properties                headers = args.getHeaders();
+        SendMail.Attachment        attach = args.getAttachment();
+
+        MimeMessage msg = new MimeMessage(session);
+
+        /* 'From' address */
+        if (StringTools.isBlank(from) || from.equalsIgnoreCase("default")) {
+            msg.setFrom(new InternetAddress(smtpEmail));
+        } else {
+            msg.setFrom(new InternetAddress(from));
+        }
+
+        /* destination email addresses */
+        InternetAddress toAddr[]  = _convertRecipients(to);
+        InternetAddress ccAddr[]  = _convertRecipients(cc);
+        InternetAddress bccAddr[] = _convertRecipients(bcc);
+        if ((toAddr == null) || (toAddr.length <= 0)) {
+            // -- no 'To' email address
+            Print.logError("No 'To' address specified, not sending email");
+            throw new SendMail.SendMailException("No 'To' address specified");
+        }
+
+        /* set headers */
+        for (Iterator i = headers.keySet().iterator(); i.hasNext();) {
+            String k = (String)i.next();
+            String v = headers.getProperty(k);
+            if (v != null) {
+                msg.setHeader(k, v);
             }
+        }
+
+        /* set recipients */
+        msg.setRecipients(Message.RecipientType.TO , toAddr);
+        msg.setRecipients(Message.RecipientType.CC , ccAddr);
+        msg.setRecipients(Message.RecipientType.BCC, bccAddr);
+
+        /* subject */
+        msg.setSubject(subject, StringTools.CharEncoding_UTF_8);
 
+        /* date */
+        msg.setSentDate(new Date());
+
+        /* message body/content */
+        if ((attach != null) && (attach.getSize() > 0)) {
+            Multipart multipart = new MimeMultipart();
+            if ((msgBody != null) && !msgBody.equals("")) {
+                MimeBodyPart textBodyPart = new MimeBodyPart();
+                textBodyPart.setText(msgBody, StringTools.CharEncoding_UTF_8);
+                multipart.addBodyPart(textBodyPart);
+            }
+            // add attachment
+            BodyPart attachBodyPart = new MimeBodyPart();
+            DataSource source = new ByteArrayDataSource(attach.getName(), attach.getType(), attach.getBytes());
+            attachBodyPart.setDataHandler(new DataHandler(source));
+            attachBodyPart.setFileName(source.getName());
+            multipart.addBodyPart(attachBodyPart);
+            // set content 
+            msg.setContent(multipart);
+        } else {
+            msg.setText(msgBody, StringTools.CharEncoding_UTF_8);
+            //msg.setText(msgBody); // setContent(msgBody, CONTENT_TYPE_PLAIN);
         }
 
+        msg.saveChanges();
+        return msg;
     }
 
     // ------------------------------------------------------------------------
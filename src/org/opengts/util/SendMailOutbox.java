@@ -0,0 +1,437 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+// Description:
+//  Batched email delivery, and persistent outbox (retry queue)
+// ----------------------------------------------------------------------------
+package org.opengts.util;
+
+import java.io.*;
+import java.util.*;
+
+/**
+*** <code>SendMailOutbox</code> provides batched email delivery for the "batch" SendMail
+*** thread model, and the persistent outbox used to retry emails which could not be sent.<br>
+*** Batched delivery: emails are queued in memory, and a small number of delivery threads
+*** send them in batches over pooled SMTP connections (see "SendMailArgs.sendBatch").<br>
+*** Outbox: if "smtp.outbox.dir" is defined, emails which failed with a retryable error (and
+*** which were sent with 'queRetry' true) are saved to the outbox directory, one file per email.
+*** A retry thread resends due emails with exponential backoff, starting at
+*** "smtp.outbox.retryIntervalSeconds".  After "smtp.outbox.maximumRetries" attempts
+*** (or a non-retryable error) the file is renamed with a ".failed" extension.<br>
+*** Outbox files are readable only by the owner, and do not contain the SMTP password.  Emails
+*** are resent with the SMTP password from the runtime configuration.
+**/
+
+public class SendMailOutbox
+{
+
+    // ------------------------------------------------------------------------
+
+    private static final String OUTBOX_EXTN             = ".outbox";
+    private static final String FAILED_EXTN             = ".failed";
+
+    private static final long   MAX_RETRY_INTERVAL_MS   = 60L * 60L * 1000L; // 1 hour
+
+    /* outbox file keys */
+    private static final String KEY_FROM                = "from";
+    private static final String KEY_TO                  = "to";
+    private static final String KEY_CC                  = "cc";
+    private static final String KEY_BCC                 = "bcc";
+    private static final String KEY_SUBJECT             = "subject";
+    private static final String KEY_BODY                = "body";
+    private static final String KEY_HEADERS             = "headers";
+    private static final String KEY_ATTACHMENT          = "attachment";
+    private static final String KEY_SMTP                = "smtp";
+    private static final String KEY_ATTEMPTS            = "attempts";
+    private static final String KEY_NEXT_RETRY          = "nextRetryMS";
+
+    // ------------------------------------------------------------------------
+    // Batched delivery
+
+    private static LinkedList<SendMail.Args>    DeliveryQueue   = new LinkedList<SendMail.Args>();
+    private static int                          DeliveryThreads = 0;
+
+    /**
+    *** Queues the specified email for batched delivery
+    *** @param args  The email
+    *** @return True if the email was queued
+    **/
+    public static boolean Queue(SendMail.Args args)
+    {
+        if (args == null) {
+            return false;
+        }
+        synchronized (SendMailOutbox.DeliveryQueue) {
+            SendMailOutbox.DeliveryQueue.add(args);
+            int maxThreads = Math.max(RTConfig.getInt(RTKey.SMTP_BATCH_THREADS,2), 1);
+            if (SendMailOutbox.DeliveryThreads < maxThreads) {
+                SendMailOutbox.DeliveryThreads++;
+                Thread th = new Thread("SendMailBatch_" + SendMailOutbox.DeliveryThreads) {
+                    public void run() {
+                        SendMailOutbox._deliverQueued();
+                    }
+                };
+                th.setDaemon(true);
+                th.start();
+            }
+            SendMailOutbox.DeliveryQueue.notify();
+        }
+        SendMailOutbox.StartRetry();
+        return true;
+    }
+
+    /**
+    *** Gets the number of emails waiting for batched delivery
+    *** @return The number of emails waiting for batched delivery
+    **/
+    public static int GetQueueSize()
+    {
+        synchronized (SendMailOutbox.DeliveryQueue) {
+            return SendMailOutbox.DeliveryQueue.size();
+        }
+    }
+
+    /**
+    *** Delivery thread: sends queued emails in batches
+    **/
+    private static void _deliverQueued()
+    {
+        for (;;) {
+            SendMail.Args batch[];
+            synchronized (SendMailOutbox.DeliveryQueue) {
+                while (SendMailOutbox.DeliveryQueue.isEmpty()) {
+                    try { SendMailOutbox.DeliveryQueue.wait(); } catch (InterruptedException ie) {/*ignore*/}
+                }
+                int batchSize = Math.max(RTConfig.getInt(RTKey.SMTP_BATCH_SIZE,50), 1);
+                int count = Math.min(SendMailOutbox.DeliveryQueue.size(), batchSize);
+                batch = new SendMail.Args[count];
+                for (int i = 0; i < count; i++) {
+                    batch[i] = SendMailOutbox.DeliveryQueue.removeFirst();
+                }
+            }
+            try {
+                Throwable errors[] = SendMail.SendBatch(batch);
+                for (int i = 0; i < batch.length; i++) {
+                    if (errors[i] != null) {
+                        Print.logWarn("Email 'send' failed: " + errors[i]);
+                        if (SendMailOutbox._isRetry(errors[i]) && batch[i].getQueueRetry()) {
+                            SendMail.SaveToOutbox(batch[i]);
+                        }
+                    }
+                }
+            } catch (Throwable th) {
+                Print.logException("Batched email delivery", th);
+            }
+        }
+    }
+
+    /**
+    *** Returns true if the specified send error is retryable
+    **/
+    private static boolean _isRetry(Throwable error)
+    {
+        return (error instanceof SendMail.SendMailException) && ((SendMail.SendMailException)error).getRetry();
+    }
+
+    // ------------------------------------------------------------------------
+    // Outbox
+
+    private static long         OutboxSequence  = 0L;
+    private static Thread       RetryThread     = null;
+
+    /**
+    *** Gets the outbox directory
+    *** @return The outbox directory, or null if the outbox is not enabled
+    **/
+    public static File GetOutboxDirectory()
+    {
+        File dir = RTConfig.getFile(RTKey.SMTP_OUTBOX_DIR, null);
+        if (dir == null) {
+            return null;
+        } else
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            Print.logError("Unable to create outbox directory: " + dir);
+            return null;
+        } else {
+            return dir;
+        }
+    }
+
+    /**
+    *** Saves the specified email to the outbox
+    *** @param args  The email
+    *** @return True if the email was saved, false if the outbox is not enabled, or the email
+    ***         could not be saved.
+    **/
+    public static boolean Save(SendMail.Args args)
+    {
+        File dir = SendMailOutbox.GetOutboxDirectory();
+        if (dir == null) {
+            return false;
+        }
+        long seq;
+        synchronized (SendMailOutbox.class) {
+            seq = ++SendMailOutbox.OutboxSequence;
+        }
+        long   nowMS = DateTime.getCurrentTimeMillis();
+        String name  = nowMS + "_" + seq + "_" + Integer.toHexString(Thread.currentThread().hashCode());
+        File   file  = new File(dir, name + OUTBOX_EXTN);
+        if (!SendMailOutbox._write(file, args, 0, nowMS + SendMailOutbox._getRetryIntervalMS(0))) {
+            return false;
+        }
+        Print.logInfo("Email saved to outbox: " + file);
+        SendMailOutbox.StartRetry();
+        return true;
+    }
+
+    /**
+    *** Starts the outbox retry thread, if the outbox is enabled (resends emails saved by a
+    *** previous instance of this process)
+    **/
+    public static void StartRetry()
+    {
+        synchronized (SendMailOutbox.class) {
+            if ((SendMailOutbox.RetryThread != null) || (SendMailOutbox.GetOutboxDirectory() == null)) {
+                return;
+            }
+            SendMailOutbox.RetryThread = new Thread("SendMailOutbox") {
+                public void run() {
+                    for (;;) {
+                        try {
+                            SendMailOutbox.RetryDue();
+                        } catch (Throwable th) {
+                            Print.logException("Email outbox retry", th);
+                        }
+                        try { Thread.sleep(SendMailOutbox._getRetryIntervalMS(0)); } catch (InterruptedException ie) {/*ignore*/}
+                    }
+                }
+            };
+            SendMailOutbox.RetryThread.setDaemon(true);
+            SendMailOutbox.RetryThread.start();
+        }
+    }
+
+    /**
+    *** Resends all outbox emails for which the retry time has arrived
+    *** @return The number of emails sent
+    **/
+    public static int RetryDue()
+    {
+        File dir = SendMailOutbox.GetOutboxDirectory();
+        File files[] = (dir != null)? dir.listFiles() : null;
+        if (ListTools.isEmpty(files)) {
+            return 0;
+        }
+        Arrays.sort(files); // oldest first
+        long nowMS      = DateTime.getCurrentTimeMillis();
+        int  maxRetries = RTConfig.getInt(RTKey.SMTP_OUTBOX_MAX_RETRIES,10);
+        int  batchSize  = Math.max(RTConfig.getInt(RTKey.SMTP_BATCH_SIZE,50), 1);
+        int  sentCount  = 0;
+
+        /* collect due emails */
+        java.util.List<File>           dueFiles = new Vector<File>();
+        java.util.List<SendMail.Args>  dueArgs  = new Vector<SendMail.Args>();
+        java.util.List<Integer>        dueTries = new Vector<Integer>();
+        for (int f = 0; f <= files.length; f++) {
+            if (f < files.length) {
+                File file = files[f];
+                if (!file.isFile() || !file.getName().endsWith(OUTBOX_EXTN)) {
+                    continue;
+                }
+                Properties p = SendMailOutbox._read(file);
+                if (p == null) {
+                    SendMailOutbox._fail(file, "unreadable");
+                    continue;
+                } else
+                if (StringTools.parseLong(p.getProperty(KEY_NEXT_RETRY),0L) > nowMS) {
+                    continue; // not yet due
+                }
+                dueFiles.add(file);
+                dueArgs.add(SendMailOutbox._toArgs(p));
+                dueTries.add(new Integer(StringTools.parseInt(p.getProperty(KEY_ATTEMPTS),0)));
+                if (dueFiles.size() < batchSize) {
+                    continue;
+                }
+            }
+            if (dueFiles.isEmpty()) {
+                continue;
+            }
+
+            /* send batch */
+            SendMail.Args batch[] = dueArgs.toArray(new SendMail.Args[dueArgs.size()]);
+            Throwable errors[] = SendMail.SendBatch(batch);
+            for (int i = 0; i < batch.length; i++) {
+                File file     = dueFiles.get(i);
+                int  attempts = dueTries.get(i).intValue() + 1;
+                if (errors[i] == null) {
+                    Print.logInfo("Outbox email sent: " + file);
+                    if (!file.delete()) {
+                        Print.logError("Unable to delete outbox file: " + file);
+                    }
+                    sentCount++;
+                } else
+                if (!SendMailOutbox._isRetry(errors[i])) {
+                    SendMailOutbox._fail(file, errors[i].toString());
+                } else
+                if (attempts >= maxRetries) {
+                    SendMailOutbox._fail(file, "maximum retries: " + errors[i]);
+                } else {
+                    long retryMS = nowMS + SendMailOutbox._getRetryIntervalMS(attempts);
+                    SendMailOutbox._write(file, batch[i], attempts, retryMS);
+                }
+            }
+            dueFiles.clear();
+            dueArgs.clear();
+            dueTries.clear();
+
+        }
+        return sentCount;
+    }
+
+    /**
+    *** Gets the retry interval after the specified number of attempts (exponential backoff)
+    **/
+    private static long _getRetryIntervalMS(int attempts)
+    {
+        long baseMS = Math.max(RTConfig.getLong(RTKey.SMTP_OUTBOX_RETRY_SEC,60L), 1L) * 1000L;
+        long intvMS = baseMS << Math.min(attempts, 16);
+        return Math.min(intvMS, Math.max(baseMS, MAX_RETRY_INTERVAL_MS));
+    }
+
+    /**
+    *** Renames the specified outbox file to indicate that it will not be retried
+    **/
+    private static void _fail(File file, String reason)
+    {
+        String name = file.getName();
+        File failed = new File(file.getParentFile(), name.substring(0, name.length() - OUTBOX_EXTN.length()) + FAILED_EXTN);
+        Print.logError("Outbox email failed (" + reason + "): " + failed);
+        if (!file.renameTo(failed)) {
+            Print.logError("Unable to rename outbox file: " + file);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Writes the specified email to the specified outbox file
+    **/
+    private static boolean _write(File file, SendMail.Args args, int attempts, long nextRetryMS)
+    {
+        Properties headers = args.getHeaders();
+        SendMail.Attachment attach = args.getAttachment();
+        Properties p = new Properties();
+        p.setProperty(KEY_FROM      , args.getFrom());
+        p.setProperty(KEY_TO        , StringTools.join(args.getTo() ,","));
+        p.setProperty(KEY_CC        , StringTools.join(args.getCc() ,","));
+        p.setProperty(KEY_BCC       , StringTools.join(args.getBcc(),","));
+        p.setProperty(KEY_SUBJECT   , args.getSubject());
+        p.setProperty(KEY_BODY      , args.getBody());
+        p.setProperty(KEY_HEADERS   , (headers != null)? (new RTProperties(headers)).toString() : "");
+        p.setProperty(KEY_ATTACHMENT, (attach  != null)? attach.toString() : "");
+        p.setProperty(KEY_SMTP      , SendMailOutbox._getSmtpOverrides(args.getSmtpProperties()));
+        p.setProperty(KEY_ATTEMPTS  , String.valueOf(attempts));
+        p.setProperty(KEY_NEXT_RETRY, String.valueOf(nextRetryMS));
+        // -- write to temporary file, then rename
+        File tmp = new File(file.getPath() + ".tmp");
+        OutputStream out = null;
+        try {
+            // -- owner read/write only (created before any content is written)
+            if (tmp.exists() && !tmp.delete()) {
+                throw new IOException("Unable to delete existing file");
+            }
+            tmp.createNewFile();
+            tmp.setReadable(false, false);
+            tmp.setWritable(false, false);
+            tmp.setReadable(true, true);
+            tmp.setWritable(true, true);
+            out = new FileOutputStream(tmp);
+            p.store(out, "SendMail outbox");
+        } catch (IOException ioe) {
+            Print.logError("Unable to write outbox file: " + tmp + " - " + ioe);
+            return false;
+        } finally {
+            if (out != null) { try { out.close(); } catch (Throwable th) {/*ignore*/} }
+        }
+        if (file.exists() && !file.delete()) {
+            Print.logError("Unable to replace outbox file: " + file);
+            return false;
+        }
+        return tmp.renameTo(file);
+    }
+
+    /**
+    *** Gets the SMTP property overrides saved in an outbox file, excluding the password
+    **/
+    private static String _getSmtpOverrides(SendMail.SmtpProperties smtpProps)
+    {
+        RTProperties rtp = new RTProperties(smtpProps.toString());
+        rtp.removeProperty(RTKey.SMTP_SERVER_PASSWORD);
+        return rtp.toString();
+    }
+
+    /**
+    *** Reads the specified outbox file
+    **/
+    private static Properties _read(File file)
+    {
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            Properties p = new Properties();
+            p.load(in);
+            return p;
+        } catch (IOException ioe) {
+            Print.logError("Unable to read outbox file: " + file + " - " + ioe);
+            return null;
+        } finally {
+            if (in != null) { try { in.close(); } catch (Throwable th) {/*ignore*/} }
+        }
+    }
+
+    /**
+    *** Converts the outbox file properties to a SendMail.Args instance
+    **/
+    private static SendMail.Args _toArgs(Properties p)
+    {
+        String from      = p.getProperty(KEY_FROM, "");
+        String to[]      = StringTools.parseStringArray(p.getProperty(KEY_TO ,""),',');
+        String cc[]      = StringTools.parseStringArray(p.getProperty(KEY_CC ,""),',');
+        String bcc[]     = StringTools.parseStringArray(p.getProperty(KEY_BCC,""),',');
+        String subject   = p.getProperty(KEY_SUBJECT, "");
+        String body      = p.getProperty(KEY_BODY, "");
+        // -- headers
+        Properties headers = new Properties();
+        RTProperties hdrProps = new RTProperties(p.getProperty(KEY_HEADERS, ""));
+        for (Object k : hdrProps.getPropertyKeys()) {
+            String v = hdrProps.getString(k.toString(), null);
+            if (v != null) {
+                headers.setProperty(k.toString(), v);
+            }
+        }
+        // -- attachment/smtp
+        String attachStr = p.getProperty(KEY_ATTACHMENT, "");
+        SendMail.Attachment attach = !StringTools.isBlank(attachStr)? new SendMail.Attachment(attachStr) : null;
+        SendMail.SmtpProperties smtpProps = new SendMail.SmtpProperties(new RTProperties(p.getProperty(KEY_SMTP, "")));
+        return new SendMail.Args(headers, from, to, cc, bcc, subject, body, attach, smtpProps, true/*queRetry*/);
+    }
+
+    // ------------------------------------------------------------------------
+
+}
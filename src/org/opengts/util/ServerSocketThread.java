@@ -155,6 +155,34 @@ public class ServerSocketThread
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
+    /* SessionWrite ThreadPool (asynchronous writes to client sessions) */
+    // ServerSocketThread.ThreadPool.SessionWrite.maximumPoolSize=10
+    // ServerSocketThread.ThreadPool.SessionWrite.maximumIdleSeconds=0
+    // ServerSocketThread.ThreadPool.SessionWrite.maximumQueueSize=0
+    private static final RTKey PROP_ThreadPool_SessionWrite_ = RTKey.valueOf(RTKey.ThreadPool_SessionWrite_);
+    private static final int   ThreadPool_SessionWrite_Size    = 10;   // max threads
+    private static final int   ThreadPool_SessionWrite_IdleSec =  0;   // trim idle threads
+    private static final int   ThreadPool_SessionWrite_QueSize =  0;   // max queue size
+    private static ThreadPool  ThreadPool_SessionWrite         = new ThreadPool(
+        "SessionWrite",
+        PROP_ThreadPool_SessionWrite_, // property allowing default override
+        ThreadPool_SessionWrite_Size, 
+        ThreadPool_SessionWrite_IdleSec, 
+        ThreadPool_SessionWrite_QueSize);
+
+    /* maximum number of pending queued writes per session */
+    private static final int    MAX_QUEUED_SESSION_WRITES           = 50;
+
+    // ------------------------------------------------------------------------
+
+    /* default maximum number of datagrams queued per UDP worker thread */
+    private static final int    DFT_UDP_WORKER_QUEUE_SIZE           = 1000;
+
+    /* UDP worker statistics logging interval */
+    private static final long   UDP_STATS_INTERVAL_MS               = 5L * 60L * 1000L;
+
+    // ------------------------------------------------------------------------
+
     /* per "ServerSocket.java", the default 'backlog' is "50" */
     private static      int         ListenBacklog                       = 50;
     private static      InetAddress LocalBindAddress                    = null;
@@ -436,6 +464,9 @@ public class ServerSocketThread
     private java.util.List<ServerSessionThread> clientThreadPool        = null;
     private int                                 maxClientPoolSize       = 0;
     private java.util.List<ClientPacketHandler> activeSessionList       = null;
+    private int                                 unindexedSessionCount   = 0;
+    private Map<String,java.util.List<ClientPacketHandler>> sessionIDIndex = null;
+    private Map<ClientPacketHandler,String>     sessionIDReverse        = null;
 
     private ClientPacketHandler                 clientPacketHandler     = null;
     private Class                               clientPacketHandlerClass = null;
@@ -466,6 +497,16 @@ public class ServerSocketThread
 
     private java.util.List<ActionListener>      actionListeners         = null;
 
+    private int                                 udpWorkerCount          = 0;
+    private int                                 udpReceiverCount        = 1;
+    private int                                 udpWorkerQueueSize      = DFT_UDP_WORKER_QUEUE_SIZE;
+    private boolean                             udpReuseHandlers        = false;
+    private UDPWorker                           udpWorkers[]            = null;
+    private java.util.List<byte[]>              udpBufferPool           = new Vector<byte[]>();
+    private Object                              udpStatsLock            = new Object();
+    private long                                udpReceiveCount         = 0L;
+    private long                                udpDropCount            = 0L;
+
     private boolean                             LogEnable               = true;
 
     // ------------------------------------------------------------------------
@@ -480,9 +521,15 @@ public class ServerSocketThread
         this.bindAddress       = ServerSocketThread.getDefaultBindAddress();
         this.clientThreadPool  = new Vector<ServerSessionThread>();
         this.activeSessionList = new Vector<ClientPacketHandler>();
+        this.sessionIDIndex    = new HashMap<String,java.util.List<ClientPacketHandler>>();
+        this.sessionIDReverse  = new HashMap<ClientPacketHandler,String>();
         this.actionListeners   = new Vector<ActionListener>();
         // -- apply maximum allowed client threads
         this.setMaximumClientThreadPoolSize(RTConfig.getInt(RTKey.ServerSockeThread_maximumClientThreadPoolSize,0));
+        // -- UDP worker threads
+        this.setUDPWorkerThreadCount(RTConfig.getInt(RTKey.ServerSockeThread_udpWorkerThreadCount,0));
+        this.setUDPReceiverThreadCount(RTConfig.getInt(RTKey.ServerSockeThread_udpReceiverThreadCount,1));
+        this.setUDPWorkerQueueSize(RTConfig.getInt(RTKey.ServerSockeThread_udpWorkerQueueSize,DFT_UDP_WORKER_QUEUE_SIZE));
         // -- save a pointer to this instance
         _AddSST(this);
     }
@@ -644,6 +691,87 @@ public class ServerSocketThread
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** Sets the number of UDP worker threads.  If greater than zero, received datagrams
+    *** are dispatched directly to one of these worker threads (selected by the remote
+    *** client address, so that datagrams from the same client are handled in order),
+    *** rather than to a ServerSessionThread from the client thread pool.
+    *** @param count  The number of UDP worker threads (&lt;= 0 to disable)
+    **/
+    public void setUDPWorkerThreadCount(int count)
+    {
+        this.udpWorkerCount = (count > 0)? count : 0;
+    }
+
+    /**
+    *** Gets the number of UDP worker threads
+    *** @return The number of UDP worker threads (0 if disabled)
+    **/
+    public int getUDPWorkerThreadCount()
+    {
+        return this.udpWorkerCount;
+    }
+
+    /**
+    *** Sets the number of threads receiving datagrams from the UDP socket
+    *** (only used if UDP worker threads are enabled)
+    *** @param count  The number of UDP receiver threads
+    **/
+    public void setUDPReceiverThreadCount(int count)
+    {
+        this.udpReceiverCount = (count > 0)? count : 1;
+    }
+
+    /**
+    *** Gets the number of threads receiving datagrams from the UDP socket
+    *** @return The number of UDP receiver threads
+    **/
+    public int getUDPReceiverThreadCount()
+    {
+        return this.udpReceiverCount;
+    }
+
+    /**
+    *** Sets the maximum number of datagrams queued per UDP worker thread.
+    *** Datagrams received while the worker queue is full are dropped.
+    *** @param size  The maximum queue size per UDP worker thread
+    **/
+    public void setUDPWorkerQueueSize(int size)
+    {
+        this.udpWorkerQueueSize = (size > 0)? size : DFT_UDP_WORKER_QUEUE_SIZE;
+    }
+
+    /**
+    *** Gets the maximum number of datagrams queued per UDP worker thread
+    *** @return The maximum queue size per UDP worker thread
+    **/
+    public int getUDPWorkerQueueSize()
+    {
+        return this.udpWorkerQueueSize;
+    }
+
+    /**
+    *** Sets whether each UDP worker thread should reuse a single ClientPacketHandler 
+    *** instance for all datagrams it handles.  Should only be enabled if the 
+    *** ClientPacketHandler fully re-initializes its state in "sessionStarted".
+    *** @param reuse  True to reuse ClientPacketHandler instances
+    **/
+    public void setUDPReuseClientPacketHandler(boolean reuse)
+    {
+        this.udpReuseHandlers = reuse;
+    }
+
+    /**
+    *** Returns true if UDP worker threads reuse ClientPacketHandler instances
+    *** @return True if UDP worker threads reuse ClientPacketHandler instances
+    **/
+    public boolean getUDPReuseClientPacketHandler()
+    {
+        return this.udpReuseHandlers;
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Gets the bound UDP DatagramSocket for this server handler.  Will 
     *** return null if this server handler does not handle UDP connections.
@@ -775,6 +903,14 @@ public class ServerSocketThread
     **/
     public void run() 
     {
+
+        /* UDP worker threads */
+        if ((this.datagramSocket != null) && (this.getUDPWorkerThreadCount() > 0)) {
+            this._runUDPWorkers();
+            _RemoveSST(this);
+            return;
+        }
+
         while (true) {
             ClientSocket clientSocket = null;
 
@@ -904,6 +1040,191 @@ public class ServerSocketThread
 
     } // run()
 
+    // ------------------------------------------------------------------------
+    // UDP worker threads
+
+    /**
+    *** Receives datagrams from the UDP socket, and dispatches them to the UDP worker 
+    *** threads, until the UDP socket is closed.
+    **/
+    private void _runUDPWorkers()
+    {
+
+        /* start worker threads */
+        int workerCount = this.getUDPWorkerThreadCount();
+        this.udpWorkers = new UDPWorker[workerCount];
+        for (int w = 0; w < workerCount; w++) {
+            this.udpWorkers[w] = new UDPWorker(w);
+            this.udpWorkers[w].start();
+        }
+
+        /* start additional receiver threads */
+        int rcvCount = this.getUDPReceiverThreadCount();
+        java.util.List<Thread> rcvThreads = new Vector<Thread>();
+        for (int r = 1; r < rcvCount; r++) {
+            Thread rt = new Thread(this.getName() + "_UDPReceiver_" + r) {
+                public void run() {
+                    ServerSocketThread.this._receiveUDP();
+                }
+            };
+            rt.start();
+            rcvThreads.add(rt);
+        }
+        if (LogEnable) { Print.logInfo("Started UDP workers=" + workerCount + ", receivers=" + rcvCount + " on port " + this.getLocalPort()); }
+
+        /* receive in this thread */
+        this._receiveUDP();
+
+        /* wait for other receivers to stop */
+        for (Thread rt : rcvThreads) {
+            try { rt.join(); } catch (InterruptedException ie) { /* ignore */ }
+        }
+
+        /* stop worker threads */
+        for (UDPWorker uw : this.udpWorkers) {
+            uw.stopWorker();
+        }
+        if (LogEnable) { Print.logInfo("Shutdown UDP server on port " + this.getLocalPort() + " [" + this.getUDPStatistics() + "]"); }
+
+    }
+
+    /**
+    *** Receives datagrams into pooled buffers, and dispatches them to the UDP worker threads
+    *** (may be called by several threads concurrently).
+    **/
+    private void _receiveUDP()
+    {
+        long lastStatsMS = DateTime.getCurrentTimeMillis();
+        for (;;) {
+
+            /* receive */
+            byte b[] = this._getUDPBuffer();
+            DatagramPacket dp = new DatagramPacket(b, b.length);
+            try {
+                this.datagramSocket.receive(dp); // (block)
+            } catch (SocketException se) {
+                // -- shutdown support (socket closed)
+                break;
+            } catch (IOException ioe) {
+                Print.logError("Connection - " + ioe);
+                this._releaseUDPBuffer(b);
+                continue;
+            }
+
+            /* dispatch to worker (same remote address always uses same worker) */
+            SocketAddress remote = dp.getSocketAddress();
+            int w = ((remote != null)? (remote.hashCode() & 0x7FFFFFFF) : 0) % this.udpWorkers.length;
+            boolean queued = this.udpWorkers[w].add(new ClientSocket(dp));
+            synchronized (this.udpStatsLock) {
+                this.udpReceiveCount++;
+                if (!queued) { this.udpDropCount++; }
+            }
+            if (!queued) {
+                this._releaseUDPBuffer(b);
+            }
+
+            /* periodic statistics */
+            long nowMS = DateTime.getCurrentTimeMillis();
+            if ((nowMS - lastStatsMS) >= UDP_STATS_INTERVAL_MS) {
+                lastStatsMS = nowMS;
+                if (LogEnable) { Print.logInfo("UDP port " + this.getLocalPort() + ": " + this.getUDPStatistics()); }
+            }
+
+        }
+    }
+
+    /**
+    *** Gets a datagram receive buffer from the buffer pool
+    **/
+    private byte[] _getUDPBuffer()
+    {
+        int len = this.getMaximumPacketLength();
+        synchronized (this.udpBufferPool) {
+            while (!this.udpBufferPool.isEmpty()) {
+                byte b[] = this.udpBufferPool.remove(this.udpBufferPool.size() - 1);
+                if (b.length == len) {
+                    return b;
+                }
+            }
+        }
+        return new byte[len];
+    }
+
+    /**
+    *** Returns a datagram receive buffer to the buffer pool
+    **/
+    private void _releaseUDPBuffer(byte b[])
+    {
+        if (b != null) {
+            synchronized (this.udpBufferPool) {
+                int maxPool = (this.getUDPWorkerThreadCount() + 1) * this.getUDPWorkerQueueSize();
+                if (this.udpBufferPool.size() < maxPool) {
+                    this.udpBufferPool.add(b);
+                }
+            }
+        }
+    }
+
+    /**
+    *** Gets the number of datagrams received by the UDP worker threads
+    *** @return The number of received datagrams
+    **/
+    public long getUDPReceiveCount()
+    {
+        synchronized (this.udpStatsLock) {
+            return this.udpReceiveCount;
+        }
+    }
+
+    /**
+    *** Gets the number of received datagrams dropped because the UDP worker queue was full
+    *** @return The number of dropped datagrams
+    **/
+    public long getUDPDropCount()
+    {
+        synchronized (this.udpStatsLock) {
+            return this.udpDropCount;
+        }
+    }
+
+    /**
+    *** Gets the current number of datagrams queued to the UDP worker threads
+    *** @return The number of queued datagrams
+    **/
+    public int getUDPQueueDepth()
+    {
+        int depth = 0;
+        UDPWorker workers[] = this.udpWorkers;
+        if (workers != null) {
+            for (UDPWorker uw : workers) {
+                depth += uw.getQueueSize();
+            }
+        }
+        return depth;
+    }
+
+    /**
+    *** Gets the UDP worker thread statistics
+    *** @return The UDP statistics String
+    **/
+    public String getUDPStatistics()
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append("received=").append(this.getUDPReceiveCount());
+        sb.append(" dropped=").append(this.getUDPDropCount());
+        sb.append(" queued=").append(this.getUDPQueueDepth());
+        UDPWorker workers[] = this.udpWorkers;
+        if (workers != null) {
+            sb.append(" [");
+            for (int w = 0; w < workers.length; w++) {
+                if (w > 0) { sb.append(","); }
+                sb.append(workers[w].getQueueSize());
+            }
+            sb.append("]");
+        }
+        return sb.toString();
+    }
+
     /**
     *** Shuts down the server 
     **/
@@ -1632,12 +1953,170 @@ public class ServerSocketThread
 
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
+    // SessionID index
 
     /**
-    *** Find the named TCP session and write the specified bytes TCP output stream
+    *** Returns true if the session ID of the specified ClientPacketHandler can be indexed
+    *** (ie. is an AbstractClientPacketHandler, which provides "getSessionID()")
+    **/
+    private static boolean _isIndexable(ClientPacketHandler cph)
+    {
+        return (cph instanceof AbstractClientPacketHandler);
+    }
+
+    /**
+    *** Adds the specified ClientPacketHandler to the active session list
+    **/
+    private void _sessionStarted(ClientPacketHandler cph)
+    {
+        synchronized (this.activeSessionList) {
+            this.activeSessionList.add(cph);
+            if (!_isIndexable(cph)) {
+                this.unindexedSessionCount++;
+            }
+        }
+    }
+
+    /**
+    *** Removes the specified ClientPacketHandler from the active session list and
+    *** from the session ID index
+    **/
+    private void _sessionTerminated(ClientPacketHandler cph)
+    {
+        synchronized (this.activeSessionList) {
+            if (this.activeSessionList.remove(cph) && !_isIndexable(cph)) {
+                this.unindexedSessionCount--;
+            }
+        }
+        this._unindexSessionID(cph);
+    }
+
+    /**
+    *** Updates the session ID index for the specified ClientPacketHandler.  Called after
+    *** each packet has been handled, since the session ID is typically not known until
+    *** the client device has identified itself.
+    **/
+    private void _indexSessionID(ClientPacketHandler cph)
+    {
+        if (_isIndexable(cph)) {
+            String sessID = ((AbstractClientPacketHandler)cph).getSessionID();
+            if (!StringTools.isBlank(sessID)) {
+                this.registerSessionID(sessID, cph);
+            }
+        }
+    }
+
+    /**
+    *** Adds the specified ClientPacketHandler to the session ID index for the specified
+    *** session ID (removing any previous session ID index for this ClientPacketHandler).
+    *** ClientPacketHandlers which do not extend AbstractClientPacketHandler may call this
+    *** method directly once the session ID is known.
+    *** @param sessionID  The session ID
+    *** @param cph        The ClientPacketHandler
+    **/
+    public void registerSessionID(String sessionID, ClientPacketHandler cph)
+    {
+        if (StringTools.isBlank(sessionID) || (cph == null)) {
+            return;
+        }
+        synchronized (this.sessionIDIndex) {
+            String oldSessID = this.sessionIDReverse.get(cph);
+            if (sessionID.equals(oldSessID)) {
+                return; // already indexed
+            } else
+            if (oldSessID != null) {
+                this._removeIndexEntry(oldSessID, cph);
+            }
+            java.util.List<ClientPacketHandler> cphList = this.sessionIDIndex.get(sessionID);
+            if (cphList == null) {
+                cphList = new Vector<ClientPacketHandler>(1);
+                this.sessionIDIndex.put(sessionID, cphList);
+            }
+            cphList.add(cph);
+            this.sessionIDReverse.put(cph, sessionID);
+        }
+    }
+
+    /**
+    *** Removes the specified ClientPacketHandler from the session ID index
+    **/
+    private void _unindexSessionID(ClientPacketHandler cph)
+    {
+        synchronized (this.sessionIDIndex) {
+            String oldSessID = this.sessionIDReverse.remove(cph);
+            if (oldSessID != null) {
+                this._removeIndexEntry(oldSessID, cph);
+            }
+        }
+    }
+
+    /**
+    *** Removes the session ID index entry (must be called while "sessionIDIndex" is locked)
+    **/
+    private void _removeIndexEntry(String sessionID, ClientPacketHandler cph)
+    {
+        java.util.List<ClientPacketHandler> cphList = this.sessionIDIndex.get(sessionID);
+        if (cphList != null) {
+            cphList.remove(cph);
+            if (cphList.isEmpty()) {
+                this.sessionIDIndex.remove(sessionID);
+            }
+        }
+    }
+
+    /**
+    *** Gets a list of active ClientPacketHandlers matching the specified session ID.<br>
+    *** The session ID index is used to locate the matching sessions.  The active session
+    *** list is scanned only if there are active sessions which cannot be indexed.
+    *** @param sessionID  The session ID
+    *** @return The list of matching ClientPacketHandlers (may be empty, but not null)
+    **/
+    protected java.util.List<ClientPacketHandler> getSessionsForID(String sessionID)
+    {
+        java.util.List<ClientPacketHandler> cphList = new Vector<ClientPacketHandler>();
+
+        /* indexed sessions */
+        synchronized (this.sessionIDIndex) {
+            java.util.List<ClientPacketHandler> ndxList = this.sessionIDIndex.get(sessionID);
+            if (ndxList != null) {
+                cphList.addAll(ndxList);
+            }
+        }
+
+        /* unindexed sessions */
+        java.util.List<ClientPacketHandler> scanList = null;
+        synchronized (this.activeSessionList) {
+            if (this.unindexedSessionCount > 0) {
+                scanList = new Vector<ClientPacketHandler>(this.activeSessionList);
+            }
+        }
+        if (scanList != null) {
+            for (ClientPacketHandler cph : scanList) {
+                if (!_isIndexable(cph) && cph.equalsSessionID(sessionID)) {
+                    cphList.add(cph);
+                }
+            }
+        }
+
+        /* verify that the session ID still matches */
+        for (Iterator<ClientPacketHandler> i = cphList.iterator(); i.hasNext();) {
+            if (!i.next().equalsSessionID(sessionID)) {
+                i.remove();
+            }
+        }
+        return cphList;
+
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Find the named TCP session and queue the specified bytes for writing to the TCP 
+    *** output stream.  The bytes are written asynchronously by the session write queue, 
+    *** so this method does not block on a slow client socket.
     *** @param sessionID  The session ID
     *** @param data       The bytes to write
-    *** @return True if the bytes were written, false otherwise
+    *** @return True if the bytes were queued to at least one matching session, false otherwise
     **/
     public boolean tcpWriteToSessionID(String sessionID, byte data[])
     {
@@ -1655,70 +2134,106 @@ public class ServerSocketThread
         }
 
         /* find matching TCP SessionID and send packet */
-        int     sidCount = 0;
-        int     rtnOK    = 0;
-        synchronized (this.activeSessionList) {
-            for (ClientPacketHandler cph : this.activeSessionList) {
-                if (cph.equalsSessionID(sessionID)) {
-                    // log that we found the SessionID
-                    SessionInfo sessInfo = cph.getSessionInfo();
-                    if (LogEnable && (sessInfo != null)) {
-                        // Found TCP SessionID #0 'demo/demo': 192.168.1.1:30123, 1365450028, 1365450032
-                        InetAddress clIP = sessInfo.getInetAddress();
-                        int       clPort = sessInfo.getRemotePort();
-                        long    sessTime = sessInfo.getSessionStartTime();
-                        long    recvTime = sessInfo.getSessionReceiveTime();
-                        StringBuffer sb = new StringBuffer();
-                        sb.append("Found TCP SessionID #");
-                        sb.append(sidCount);
-                        sb.append(" '").append(sessionID).append("': ");
-                        sb.append(StringTools.trim(clIP)).append(":").append(clPort);
-                        sb.append(", ");
-                        sb.append(sessTime);
-                        sb.append(", ");
-                        sb.append(recvTime);
-                        Print.logInfo(sb.toString());
-                    }
-                    // write command
-                    if (cph.tcpWrite(data)) { rtnOK++; }
-                    // log success/fail
-                    if (LogEnable) {
-                        // Write TCP SessionID #0 'demo/demo': 0xABCDEF0123456789 (success)
-                        StringBuffer sb = new StringBuffer();
-                        sb.append("Write TCP SessionID #");
-                        sb.append(sidCount);
-                        sb.append(" '").append(sessionID).append("': ");
-                        sb.append("0x").append(StringTools.toHexString(data));
-                        sb.append((rtnOK > 0)?" (success)":" (failed)");
-                        Print.logInfo(sb.toString());
-                    }
-                    // count 
-                    sidCount++;
-                    // debug test terminate session
-                    /* * /
-                    byte DEBUG_CLOSE_SESSION[] = "@@CloseSession\r\n".getBytes();
-                    if (StringTools.compare(data,DEBUG_CLOSE_SESSION) == 0) {
-                        Print.logInfo("Attempting to close client TCP session");
-                        cph.forceCloseTCPSession();
-                    }
-                    / * */
-                    // break; (stop at first matching session)
-                    // if (rtnOK > 0) { break; } (stop at first successful matching session)
-                    // else send to all matching sessions
-                    // NOTE: consider the case where a device establishes a TCP session,
-                    // then abandons the session and create another.  In this case it is
-                    // possible that the first command-write to the matched session above
-                    // may be the abandonded/incorrect session.  To get around this, we
-                    // should write to the latest active session.  For now write to all
-                    // matching sessions.
-                }
+        return (this._tcpWriteToSessionID(sessionID, data) > 0)? true : false;
+
+    }
+
+    /**
+    *** Find the named TCP sessions and queue the specified bytes for writing to the TCP 
+    *** output stream of each session.
+    *** @param sessionIDs  The list of session IDs
+    *** @param data        The bytes to write
+    *** @return The number of sessions to which the bytes were queued
+    **/
+    public int tcpWriteToSessionIDs(Collection<String> sessionIDs, byte data[])
+    {
+
+        /* no SessionIDs specified? */
+        if (ListTools.isEmpty(sessionIDs)) {
+            Print.logError("No TCP SessionIDs specified");
+            return 0;
+        }
+
+        /* no data to write? */
+        if (ListTools.isEmpty(data)) {
+            Print.logWarn("No data to write to TCP sessions");
+            return 0;
+        }
+
+        /* send packet to each SessionID */
+        int rtnOK = 0;
+        for (String sessionID : sessionIDs) {
+            if (!StringTools.isBlank(sessionID)) {
+                rtnOK += this._tcpWriteToSessionID(sessionID, data);
+            }
+        }
+        return rtnOK;
+
+    }
+
+    /**
+    *** Queues the specified bytes to all sessions matching the specified session ID
+    *** @return The number of sessions to which the bytes were queued
+    **/
+    private int _tcpWriteToSessionID(String sessionID, byte data[])
+    {
+        int sidCount = 0;
+        int rtnOK    = 0;
+        for (ClientPacketHandler cph : this.getSessionsForID(sessionID)) {
+            SessionInfo sessInfo = cph.getSessionInfo();
+            if (sessInfo == null) {
+                continue; // session terminated
+            }
+            // log that we found the SessionID
+            if (LogEnable) {
+                // Found TCP SessionID #0 'demo/demo': 192.168.1.1:30123, 1365450028, 1365450032
+                InetAddress clIP = sessInfo.getInetAddress();
+                int       clPort = sessInfo.getRemotePort();
+                long    sessTime = sessInfo.getSessionStartTime();
+                long    recvTime = sessInfo.getSessionReceiveTime();
+                StringBuffer sb = new StringBuffer();
+                sb.append("Found TCP SessionID #");
+                sb.append(sidCount);
+                sb.append(" '").append(sessionID).append("': ");
+                sb.append(StringTools.trim(clIP)).append(":").append(clPort);
+                sb.append(", ");
+                sb.append(sessTime);
+                sb.append(", ");
+                sb.append(recvTime);
+                Print.logInfo(sb.toString());
             }
+            // queue command
+            boolean ok;
+            if (sessInfo instanceof ServerSessionThread) {
+                ok = ((ServerSessionThread)sessInfo).tcpWriteQueued(data);
+            } else {
+                ok = sessInfo.tcpWrite(data);
+            }
+            if (ok) { rtnOK++; }
+            // log success/fail
+            if (LogEnable) {
+                // Write TCP SessionID #0 'demo/demo': 0xABCDEF0123456789 (queued)
+                StringBuffer sb = new StringBuffer();
+                sb.append("Write TCP SessionID #");
+                sb.append(sidCount);
+                sb.append(" '").append(sessionID).append("': ");
+                sb.append("0x").append(StringTools.toHexString(data));
+                sb.append(ok?" (queued)":" (failed)");
+                Print.logInfo(sb.toString());
+            }
+            // count 
+            sidCount++;
+            // NOTE: consider the case where a device establishes a TCP session,
+            // then abandons the session and create another.  In this case it is
+            // possible that the first command-write to the matched session above
+            // may be the abandonded/incorrect session.  To get around this, we
+            // should write to the latest active session.  For now write to all
+            // matching sessions.
         }
         if (LogEnable && (sidCount <= 0)) {
             Print.logWarn("TCP SessionID not found: " + sessionID); 
         }
-        return (rtnOK > 0)? true : false;
-
+        return rtnOK;
     }
 
     // ------------------------------------------------------------------------
@@ -1857,6 +2372,10 @@ public class ServerSocketThread
             this.mimicTCP    = mimicTCP;
             this.mimicUDP    = mimicUDP;
         }
+        // -- datagram buffer (UDP only)
+        public byte[] getDatagramBuffer() {
+            return (this.udpClient != null)? this.udpClient.getData() : null;
+        }
         // -- true if TCP
         public boolean isTCP() {
             return (this.tcpClient != null)? true : false;
@@ -2188,6 +2707,86 @@ public class ServerSocketThread
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
 
+    /**
+    *** UDPWorker (handles datagrams, in the order received, on a ServerSessionThread
+    *** which is not started as a separate thread)
+    **/
+    private class UDPWorker
+        extends Thread
+    {
+        private LinkedList<ClientSocket> queue       = new LinkedList<ClientSocket>();
+        private ServerSessionThread      session     = null;
+        private ClientPacketHandler      handler     = null;
+        private boolean                  stop        = false;
+        public UDPWorker(int ndx) {
+            super(ServerSocketThread.this.getName() + "_UDPWorker_" + ndx);
+            this.session = new ServerSessionThread(); // not started
+            if (ServerSocketThread.this.getUDPReuseClientPacketHandler()) {
+                this.handler = ServerSocketThread.this.getClientPacketHandler();
+            }
+        }
+        public boolean add(ClientSocket cs) {
+            synchronized (this.queue) {
+                if (this.stop || (this.queue.size() >= ServerSocketThread.this.getUDPWorkerQueueSize())) {
+                    return false;
+                }
+                this.queue.add(cs);
+                this.queue.notify();
+                return true;
+            }
+        }
+        public int getQueueSize() {
+            synchronized (this.queue) {
+                return this.queue.size();
+            }
+        }
+        public void stopWorker() {
+            synchronized (this.queue) {
+                this.stop = true;
+                this.queue.notifyAll();
+            }
+        }
+        public void run() {
+            for (;;) {
+                ClientSocket cs;
+                synchronized (this.queue) {
+                    while (this.queue.isEmpty() && !this.stop) {
+                        try { this.queue.wait(); } catch (InterruptedException ie) { /* ignore */ }
+                    }
+                    if (this.queue.isEmpty()) {
+                        break; // stopped
+                    }
+                    cs = this.queue.removeFirst();
+                }
+                try {
+                    this.session.handleDatagram(cs, this.handler);
+                } catch (Throwable th) {
+                    Print.logException("UDP worker error", th);
+                }
+                ServerSocketThread.this._releaseUDPBuffer(cs.getDatagramBuffer());
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    /**
+    *** PendingWrite (bytes queued for writing to a specific client session)
+    **/
+    private static class PendingWrite
+    {
+        private ClientSocket client = null;
+        private byte         data[] = null;
+        public PendingWrite(ClientSocket client, byte data[]) {
+            this.client = client;
+            this.data   = data;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
     private static long ServeSocketThread_counter   = 0L;
     private static long ServerSessionThread_counter = 0L;
 
@@ -2213,6 +2812,11 @@ public class ServerSocketThread
         
         private boolean      shutdown           = false;
 
+        private java.util.List<PendingWrite> writeQueue = new Vector<PendingWrite>();
+        private boolean      writeScheduled     = false;
+
+        private ClientPacketHandler reuseHandler = null; // UDP worker
+
         //public ServerSessionThread(Socket client) {
         //    super("ClientSession");
         //    this.client = new ClientSocket(client); // TCP?
@@ -2389,6 +2993,87 @@ public class ServerSocketThread
             return rtn;
         }
 
+        /**
+        *** Queues the specified bytes for writing to the TCP output stream of the current
+        *** session.  The queued bytes are written by the "SessionWrite" ThreadPool, so the
+        *** caller does not block on a slow client socket.
+        *** @param data  The bytes to write
+        *** @return True if the bytes were queued, false otherwise
+        **/
+        public boolean tcpWriteQueued(byte data[]) {
+            // -- this is intended to be called by a external thread/handler
+            if ((data == null) || (data.length <= 0)) {
+                return false;
+            }
+            ClientSocket cs;
+            synchronized (this.runLock) {
+                cs = this.client;
+            }
+            if ((cs == null) || !cs.isTCP()) {
+                return false;
+            }
+            synchronized (this.writeQueue) {
+                if (this.writeQueue.size() >= MAX_QUEUED_SESSION_WRITES) {
+                    Print.logWarn("Session write queue is full: " + this.getName());
+                    return false;
+                }
+                this.writeQueue.add(new PendingWrite(cs, data));
+                if (this.writeScheduled) {
+                    return true; // already scheduled
+                }
+                this.writeScheduled = true;
+            }
+            if (!ThreadPool_SessionWrite.run(new Runnable() {
+                public void run() {
+                    ServerSessionThread.this._drainWriteQueue();
+                }
+            })) {
+                Print.logError("Unable to schedule session write: " + this.getName());
+                synchronized (this.writeQueue) {
+                    this.writeQueue.clear();
+                    this.writeScheduled = false;
+                }
+                return false;
+            }
+            return true;
+        }
+
+        /**
+        *** Writes all queued bytes to the TCP output stream (run from the "SessionWrite" ThreadPool)
+        **/
+        private void _drainWriteQueue() {
+            for (;;) {
+                PendingWrite pw;
+                synchronized (this.writeQueue) {
+                    if (this.writeQueue.isEmpty()) {
+                        this.writeScheduled = false;
+                        return;
+                    }
+                    pw = this.writeQueue.remove(0);
+                }
+                // -- write only if the session which queued the bytes is still active
+                OutputStream output = null;
+                synchronized (this.runLock) {
+                    if (this.client == pw.client) {
+                        try {
+                            output = this.client.getOutputStream();
+                        } catch (Throwable th) {
+                            output = null;
+                        }
+                    }
+                }
+                if (output == null) {
+                    if (LogEnable) { Print.logWarn("Session closed, discarding queued write: 0x" + StringTools.toHexString(pw.data)); }
+                    continue;
+                }
+                try {
+                    this._tcpWrite(output, pw.data);
+                } catch (Throwable th) {
+                    // -- error already logged
+                }
+            }
+        }
+
         /* EXPERIMENTAL */
         public boolean udpWrite(byte data[]) {
             // -- this is intended to be called by a external thread/hndler
@@ -2448,6 +3133,9 @@ public class ServerSocketThread
         *** Close the current session
         **/
         public void close() throws IOException {
+            synchronized (this.writeQueue) {
+                this.writeQueue.clear();
+            }
             IOException rethrowIOE = null;
             synchronized (this.runLock) {
                 if (this.client != null) {
@@ -2547,6 +3235,26 @@ public class ServerSocketThread
 
         // --------------------------------------------------------------------
 
+        /**
+        *** Handles a single datagram in the calling (UDPWorker) thread
+        *** @param clientSock  The UDP ClientSocket
+        *** @param handler     The ClientPacketHandler to reuse (null to create a new instance)
+        **/
+        public void handleDatagram(ClientSocket clientSock, ClientPacketHandler handler) {
+            synchronized (this.runLock) {
+                this.client = clientSock;
+            }
+            this.reuseHandler = handler;
+            try {
+                this.handleClientSession(clientSock);
+            } finally {
+                this.reuseHandler = null;
+                synchronized (this.runLock) {
+                    this.client = null;
+                }
+            }
+        }
+
         public void handleClientSession(ClientSocket clientSock) {
 
             /* session start/recieve time */
@@ -2578,13 +3286,12 @@ public class ServerSocketThread
                 -1L;
 
             /* client session handler (creates new instance if necessary) */
-            ClientPacketHandler clientHandler = ServerSocketThread.this.getClientPacketHandler();
+            ClientPacketHandler clientHandler = (this.reuseHandler != null)?
+                this.reuseHandler : ServerSocketThread.this.getClientPacketHandler();
             if (clientHandler != null) {
                 // -- set a handle to this session thread
                 clientHandler.setSessionInfo(this);
-                synchronized (ServerSocketThread.this.activeSessionList) {
-                    ServerSocketThread.this.activeSessionList.add(clientHandler);
-                }
+                ServerSocketThread.this._sessionStarted(clientHandler);
                 boolean isDuplex = clientSock.isTCP() || clientSock.isInputStreamTCP();
                 clientHandler.sessionStarted(inetAddr, isDuplex, ServerSocketThread.this.isTextPackets());
             }
@@ -2670,6 +3377,7 @@ public class ServerSocketThread
                         if ((line != null) && (clientHandler != null)) {
                             try {
                                 byte response[] = clientHandler.getHandlePacket(line);
+                                ServerSocketThread.this._indexSessionID(clientHandler);
                                 if ((response != null) && (response.length > 0)) {
                                     if (clientSock.isTCP()) {
                                         // -- TCP: Send response over socket connection
@@ -2825,9 +3533,7 @@ public class ServerSocketThread
                     Print.logException("Final packet transmission", t);
                 }
                 clientHandler.sessionTerminated(termError, this.readByteCount, this.writeByteCount);
-                synchronized (ServerSocketThread.this.activeSessionList) {
-                    ServerSocketThread.this.activeSessionList.remove(clientHandler);
-                }
+                ServerSocketThread.this._sessionTerminated(clientHandler);
                 // clear the session so that it doesn't hold on to an instance of this class
                 clientHandler.setSessionInfo(null);
             }
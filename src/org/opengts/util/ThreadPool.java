@@ -39,6 +39,14 @@
 package org.opengts.util;
 
 import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
 *** Thread pool manager
@@ -60,6 +68,18 @@ public class ThreadPool
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** RejectPolicy: action taken when a job is submitted to a full ThreadPool
+    *** (ie. all threads busy, and "maximumQueueSize" jobs already waiting)
+    **/
+    public enum RejectPolicy {
+        REJECT,         // "run" returns false, job is not run (default)
+        CALLER_RUNS,    // job is run in the calling thread
+        DISCARD_OLDEST; // oldest waiting job is discarded, and this job is queued
+    };
+
+    // ------------------------------------------------------------------------
+
     private static boolean                globalStopThreadsNow = false;
     private static Map<ThreadPool,String> threadPoolList       = new WeakHashMap<ThreadPool,String>();
 
@@ -157,6 +177,10 @@ public class ThreadPool
                     sb.append("Active="      ).append(active  ).append("  ");
                     sb.append("MaxQueueSize=").append(maxQSize).append("  ");
                     sb.append("QueueSize="   ).append(qSize   ).append("  ");
+                    sb.append("Completed="   ).append(tp.getCompletedCount()).append("  ");
+                    sb.append("Rejected="    ).append(tp.getRejectedCount() ).append("  ");
+                    sb.append("AvgWaitMS="   ).append(tp.getAverageWaitMS() ).append("  ");
+                    sb.append("MaxWaitMS="   ).append(tp.getMaxWaitMS()     ).append("  ");
                     sb.append("\n");
                 }
             } else {
@@ -179,24 +203,31 @@ public class ThreadPool
     /* the maximum allowed idle time of a thread before it is removed from the pool */
     private long                        maxIdleAgeMS    = DFT_MAX_IDLE_AGE_MS;
 
-    /* the list of threads in this pool */
-    private java.util.List<ThreadJob>   jobThreadPool   = null;
-
     /* the sequence id used for naming individual threads */
-    private int                         threadId        = 1;
+    private AtomicInteger               threadId        = new AtomicInteger(1);
+
+    /* the executor which runs the jobs */
+    private ThreadPoolExecutor          executor        = null;
 
     /* the list of yet-to-be-processed jobs */
-    private java.util.List<Runnable>    jobQueue        = null;
+    private JobQueue                    jobQueue        = null;
 
     /* the maximum number of waiting jobs (ie. in "jobQueue") */
     private int                         maxQueueSize    = DFT_MAX_QUEUE_SIZE;
 
-    /* semiphore used to indicate waiting for job */
-    private int                         waitingCount    = 0;
+    /* the action taken when the pool is full */
+    private RejectPolicy                rejectPolicy    = RejectPolicy.REJECT;
 
     /* true to gracefully stop/remove threads from this pool */
     private int                         stopThreads     = STOP_NEVER;
 
+    /* metrics */
+    private AtomicLong                  submitCount     = new AtomicLong(0L);
+    private AtomicLong                  completeCount   = new AtomicLong(0L);
+    private AtomicLong                  rejectCount     = new AtomicLong(0L);
+    private AtomicLong                  totalWaitMS     = new AtomicLong(0L);
+    private AtomicLong                  maxWaitMS       = new AtomicLong(0L);
+
     /**
     *** Constuctor
     *** @param name The name of the thread pool
@@ -254,8 +285,6 @@ public class ThreadPool
         /* init vars */
         String groupName   = !StringTools.isBlank(name)? name.trim() : "ThreadPool";
         this.poolGroup     = new ThreadGroup(groupName);
-        this.jobThreadPool = new Vector<ThreadJob>();
-        this.jobQueue      = new Vector<Runnable>();
         this.stopThreads   = ThreadPool.globalStopThreadsNow? STOP_NOW : STOP_NEVER;
 
         /* set maxPoolSize/maxIdleSec */
@@ -264,20 +293,57 @@ public class ThreadPool
             //  ThreadPool.PoolName.maximumPoolSize=50
             //  ThreadPool.PoolName.maximumIdleSeconds=0
             //  ThreadPool.PoolName.maximumQueueSize=0
+            //  ThreadPool.PoolName.rejectPolicy=REJECT
             this.setMaxPoolSize( propPfx_.rtSuffix("maximumPoolSize"   ), maxPoolSize );
             this.setMaxIdleSec(  propPfx_.rtSuffix("maximumIdleSeconds"), maxIdleSec  );
             this.setMaxQueueSize(propPfx_.rtSuffix("maximumQueueSize"  ), maxQueueSize);
+            this.setRejectPolicy(propPfx_.rtSuffix("rejectPolicy"      ), RejectPolicy.REJECT);
         } else {
             this.setMaxPoolSize( maxPoolSize );
             this.setMaxIdleSec(  maxIdleSec  );
             this.setMaxQueueSize(maxQueueSize);
         }
 
+        /* executor */
+        // -- there are no core threads: a job is handed to an idle thread if one is waiting,
+        // -  otherwise a new thread is started (up to the maximum) before the job is queued
+        // -  (see "JobQueue").  Idle threads expire per "maximumIdleSeconds".
+        this.jobQueue = new JobQueue((this.maxQueueSize > 0)? this.maxQueueSize : Integer.MAX_VALUE);
+        this.executor = new ThreadPoolExecutor(
+            0, this.maxPoolSize,
+            Long.MAX_VALUE, TimeUnit.NANOSECONDS,
+            this.jobQueue,
+            new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    return ThreadPool.this._newThread(r);
+                }
+            },
+            new RejectedExecutionHandler() {
+                public void rejectedExecution(Runnable r, ThreadPoolExecutor tpe) {
+                    // -- pool is at its maximum size, queue the job
+                    if (tpe.isShutdown() || !ThreadPool.this.jobQueue.force(r)) {
+                        throw new RejectedExecutionException("ThreadPool full: " + ThreadPool.this.getName());
+                    }
+                }
+            });
+        this._updateExecutorIdleTime();
+
         /* add to global manager */
         ThreadPool._AddThreadPool(this);
 
     }
 
+    /**
+    *** Creates a new thread for this pool
+    **/
+    private Thread _newThread(Runnable r)
+    {
+        String tn = StringTools.format(this.threadId.getAndIncrement(),"000").trim();
+        Thread th = new Thread(this.getThreadGroup(), r, (this.getName() + "_" + tn));
+        Print.logDebug("New Thread: " + th.getName() + " [" + this.getMaxPoolSize() + "]");
+        return th;
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -327,29 +393,16 @@ public class ThreadPool
     **/
     public int getActiveCount()
     {
-        int cnt = 0;
-        synchronized (this.jobThreadPool) {
-            for (ThreadJob tj : this.jobThreadPool) {
-                if (tj.isRunning()) {
-                    cnt++;
-                }
-            }
-        }
-        return cnt;
+        return (this.executor != null)? this.executor.getActiveCount() : 0;
     }
 
-
     /**
     *** Gets the current size of this thread pool
     *** @return The number of thread jobs in this thread pool
     **/
     public int getPoolSize()
     {
-        int size = 0;
-        synchronized (this.jobThreadPool) {
-            size = this.jobThreadPool.size();
-        }
-        return size;
+        return (this.executor != null)? this.executor.getPoolSize() : 0;
     }
 
     // ------------------------------------------------------------------------
@@ -361,6 +414,7 @@ public class ThreadPool
     public void setMaxPoolSize(int maxSize)
     {
         this.maxPoolSize = (maxSize > 0)? maxSize : DFT_POOL_SIZE;
+        this._updateExecutorPoolSize();
     }
 
     /**
@@ -380,6 +434,7 @@ public class ThreadPool
         } else {
             this.maxPoolSize = DFT_POOL_SIZE;
         }
+        this._updateExecutorPoolSize();
         Print.logDebug("["+this.getName()+"] ThreadPool 'maximumPoolSize': " + this.maxPoolSize);
     }
 
@@ -392,6 +447,18 @@ public class ThreadPool
         return this.maxPoolSize;
     }
 
+    /**
+    *** Applies the current maximum pool size to the executor
+    **/
+    private void _updateExecutorPoolSize()
+    {
+        if (this.executor != null) {
+            synchronized (this.executor) {
+                this.executor.setMaximumPoolSize(this.maxPoolSize);
+            }
+        }
+    }
+
     // ------------------------------------------------------------------------
 
     /**
@@ -433,6 +500,7 @@ public class ThreadPool
     public void setMaxIdleMS(long maxIdleMS)
     {
         this.maxIdleAgeMS = (maxIdleMS >= 0L)? maxIdleMS : DFT_MAX_IDLE_AGE_MS;
+        this._updateExecutorIdleTime();
     }
 
     /**
@@ -445,10 +513,32 @@ public class ThreadPool
         return this.maxIdleAgeMS;
     }
 
+    /**
+    *** Applies the current maximum idle time to the executor
+    **/
+    private void _updateExecutorIdleTime()
+    {
+        if (this.executor != null) {
+            synchronized (this.executor) {
+                if (this.stopThreads == STOP_WAITING) {
+                    // -- stopping, threads exit as soon as they are idle
+                    this.executor.setKeepAliveTime(1L, TimeUnit.MILLISECONDS);
+                } else
+                if (this.maxIdleAgeMS > 0L) {
+                    this.executor.setKeepAliveTime(this.maxIdleAgeMS, TimeUnit.MILLISECONDS);
+                } else {
+                    // -- threads never expire (but are only started when no idle thread is waiting)
+                    this.executor.setKeepAliveTime(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
+
     // ------------------------------------------------------------------------
 
     /**
-    *** Sets the maximum allowed number of waiting jobs (in "jobQueue")
+    *** Sets the maximum allowed number of waiting jobs (in "jobQueue").
+    *** Once the pool has been created, the maximum may only be reduced below its initial value.
     *** @param maxQSize The maximum allowed number of waiting jobs
     **/
     public void setMaxQueueSize(int maxQSize)
@@ -487,9 +577,43 @@ public class ThreadPool
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** Sets the action taken when a job is submitted to a full ThreadPool
+    *** @param policy  The RejectPolicy
+    **/
+    public void setRejectPolicy(RejectPolicy policy)
+    {
+        this.rejectPolicy = (policy != null)? policy : RejectPolicy.REJECT;
+    }
+
+    /**
+    *** Sets the action taken when a job is submitted to a full ThreadPool
+    *** @param propKey    The property key name to use for looking up the overriding 
+    ***                   value in the runtime configuration properties.
+    *** @param dftPolicy  The default RejectPolicy
+    **/
+    public void setRejectPolicy(RTKey propKey, RejectPolicy dftPolicy)
+    {
+        String propRp = (propKey != null)? RTConfig.getString(propKey.toString(),null) : null;
+        this.setRejectPolicy(EnumTools.getValueOf(RejectPolicy.class, propRp, dftPolicy));
+        Print.logDebug("["+this.getName()+"] ThreadPool 'rejectPolicy': " + this.rejectPolicy);
+    }
+
+    /**
+    *** Gets the action taken when a job is submitted to a full ThreadPool
+    *** @return The RejectPolicy
+    **/
+    public RejectPolicy getRejectPolicy()
+    {
+        return this.rejectPolicy;
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Adds a new job to the thread pool's queue
     *** @param job The job to add to the queue
+    *** @return True if the job was queued (or run per the RejectPolicy), false if rejected
     **/
     public boolean run(Runnable job)
     {
@@ -500,28 +624,54 @@ public class ThreadPool
         if (this.stopThreads == STOP_NOW) {
             // ignore job if this ThreadPool is in the process of stopping now.
             return false;
-        } else {
-            int maxQueueSize = this.getMaxQueueSize();
-            boolean addedJob = false;
-            synchronized (this.jobThreadPool) { // <-- modification of threadPool is likely
-                synchronized (this.jobQueue) { // <-- modification of job queue mandatory
-                    if ((maxQueueSize <= 0) || (this.jobQueue.size() < maxQueueSize)) {
-                        // It's possible that we may end up adding more threads than we need if this
-                        // section executes multiple times before the newly added thread has a chance 
-                        // to pull a job off the queue.
-                        this.jobQueue.add(job);
-                        if ((this.waitingCount == 0) && (this.jobThreadPool.size() < this.maxPoolSize)) {
-                            String    tn = StringTools.format(this.threadId++,"000").trim();
-                            ThreadJob tj = new ThreadJob(this, (this.getName() + "_" + tn));
-                            this.jobThreadPool.add(tj);
-                            Print.logDebug("New Thread: " + tj.getName() + " [" + this.getMaxPoolSize() + "]");
-                        }
-                        this.jobQueue.notify(); // notify a waiting thread
-                        addedJob = true;
-                    }
+        }
+
+        /* queue */
+        QueuedJob qj = new QueuedJob(job);
+        if (this._execute(qj)) {
+            return true;
+        }
+
+        /* pool full */
+        switch (this.getRejectPolicy()) {
+            case CALLER_RUNS:
+                qj.run();
+                return true;
+            case DISCARD_OLDEST:
+                Runnable oldest = this.jobQueue.poll();
+                if (oldest != null) {
+                    this.rejectCount.incrementAndGet();
+                    Print.logWarn("["+this.getName()+"] ThreadPool full, discarded oldest job");
                 }
-            }
-            return addedJob;
+                if (this._execute(qj)) {
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        this.rejectCount.incrementAndGet();
+        return false;
+
+    }
+
+    /**
+    *** Submits the job to the executor
+    *** @return True if the job was accepted, false if the pool is full (or stopped)
+    **/
+    private boolean _execute(QueuedJob qj)
+    {
+        int maxQSize = this.getMaxQueueSize();
+        if ((maxQSize > 0) && (this.jobQueue.size() >= maxQSize)) {
+            // -- "maximumQueueSize" reduced after the queue was created
+            return false;
+        }
+        try {
+            this.executor.execute(qj);
+            this.submitCount.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException ree) {
+            return false;
         }
     }
 
@@ -530,11 +680,50 @@ public class ThreadPool
     **/
     public int getQueueSize()
     {
-        int qsize = 0;
-        synchronized (this.jobQueue) {
-            qsize = this.jobQueue.size();
-        }
-        return qsize;
+        return this.jobQueue.size();
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the number of jobs accepted by this pool
+    **/
+    public long getSubmittedCount()
+    {
+        return this.submitCount.get();
+    }
+
+    /**
+    *** Gets the number of jobs completed by this pool
+    **/
+    public long getCompletedCount()
+    {
+        return this.completeCount.get();
+    }
+
+    /**
+    *** Gets the number of jobs rejected (or discarded) because this pool was full
+    **/
+    public long getRejectedCount()
+    {
+        return this.rejectCount.get();
+    }
+
+    /**
+    *** Gets the average time (in milliseconds) that completed jobs waited in queue
+    **/
+    public long getAverageWaitMS()
+    {
+        long count = this.completeCount.get();
+        return (count > 0L)? (this.totalWaitMS.get() / count) : 0L;
+    }
+
+    /**
+    *** Gets the maximum time (in milliseconds) that a job waited in queue
+    **/
+    public long getMaxWaitMS()
+    {
+        return this.maxWaitMS.get();
     }
 
     // ------------------------------------------------------------------------
@@ -556,117 +745,116 @@ public class ThreadPool
     **/
     public void stopThreads(boolean stopNow)
     {
-        synchronized (this.jobQueue) {
-            this.stopThreads = stopNow? STOP_NOW : STOP_WAITING;
-            this.jobQueue.notifyAll();
-        }
-    }
-    
-    /**
-    *** Removes the specified worker thread from the pool
-    *** @param thread The thread to remove from the pool
-    **/
-    protected void _removeThreadJob(ThreadJob thread)
-    {
-        if (thread != null) {
-            synchronized (this.jobThreadPool) {
-                //Print.logDebug("Removing thread: " + thread.getName());
-                this.jobThreadPool.remove(thread);
+        synchronized (this.executor) {
+            if (stopNow) {
+                this.stopThreads = STOP_NOW;
+                this.jobQueue.clear();
+                this.executor.shutdown();
+            } else
+            if (this.stopThreads != STOP_NOW) {
+                // -- threads exit once the queue is empty (jobs may still be added)
+                this.stopThreads = STOP_WAITING;
+                this._updateExecutorIdleTime();
             }
         }
     }
 
     // ------------------------------------------------------------------------
 
-    private static class ThreadJob
-        extends Thread
+    /**
+    *** JobQueue: the executor job queue.  A job is only accepted by "offer" if an idle thread
+    *** is waiting to take it, or if the pool is at its maximum size, otherwise the executor
+    *** starts a new thread for the job.
+    **/
+    private class JobQueue
+        extends LinkedBlockingQueue<Runnable>
     {
 
-        /* ThreadPool to which this thread belongs */
-        private ThreadPool  threadPool = null;
+        /* number of threads waiting for a job */
+        private AtomicInteger idleCount = new AtomicInteger(0);
 
-        /* the current job being executed */
-        private Runnable    job = null;
+        public JobQueue(int capacity) {
+            super(capacity);
+        }
 
-        /* timestamps */
-        private long        creationTimeMS = 0L;
-        private long        lastUsedTimeMS = 0L;
+        public boolean offer(Runnable job) {
+            if (this.idleCount.get() > this.size()) {
+                // -- an idle thread will take this job
+                return super.offer(job);
+            } else
+            if (ThreadPool.this.executor.getPoolSize() < ThreadPool.this.getMaxPoolSize()) {
+                // -- no idle thread, have the executor start a new thread
+                return false;
+            } else {
+                // -- pool is at its maximum size
+                return super.offer(job);
+            }
+        }
 
-        public ThreadJob(ThreadPool pool, String name) {
-            super(pool.getThreadGroup(), name);
-            this.threadPool = pool;
-            this.creationTimeMS = DateTime.getCurrentTimeMillis();
-            this.lastUsedTimeMS = this.creationTimeMS;
-            this.start(); // auto start thread
+        public boolean force(Runnable job) {
+            return super.offer(job);
         }
 
-        public void run() {
+        public Runnable take() throws InterruptedException {
+            this.idleCount.incrementAndGet();
+            try {
+                return super.take();
+            } finally {
+                this.idleCount.decrementAndGet();
+            }
+        }
 
-            /* loop forever (or until stopped) */
-            while (true) {
-
-                /* get next job */
-                // 'this.job' is always null here
-                boolean stop = false;
-                synchronized (this.threadPool.jobQueue) {
-                    //Print.logDebug("Thread checking for jobs: " + this.getName());
-                    while (this.job == null) {
-                        if (this.threadPool.stopThreads == STOP_NOW) {
-                            // stop now, no more jobs
-                            stop = true;
-                            break;
-                        } else
-                        if (this.threadPool.jobQueue.size() > 0) { // this.jobQueue
-                            // run next job
-                            this.job = this.threadPool.jobQueue.remove(0); // Runnable
-                        } else
-                        if (this.threadPool.stopThreads == STOP_WAITING) {
-                            // stop after all jobs have completed
-                            stop = true;
-                            break;
-                        } else
-                        if ((this.threadPool.maxIdleAgeMS > 0L) &&
-                            ((DateTime.getCurrentTimeMillis() - this.lastUsedTimeMS) > this.threadPool.maxIdleAgeMS)) {
-                            // stop due to excess idle time
-                            stop = true;
-                            break;
-                        } else {
-                            // wait for next job notification
-                            int tmoMS = 20000; // maximum wait (should probably be higher)
-                            // TODO: adjust 'tmpMS' to coincide with remaining 'maxIdleAgeMS'
-                            this.threadPool.waitingCount++;
-                            try { this.threadPool.jobQueue.wait(tmoMS); } catch (InterruptedException ie) {}
-                            this.threadPool.waitingCount--;
-                            // continue next loop
-                        }
-                    } // while (this.job == null)
-                }
-                if (stop) { break; }
+        public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+            Runnable job;
+            this.idleCount.incrementAndGet();
+            try {
+                job = super.poll(timeout, unit);
+            } finally {
+                this.idleCount.decrementAndGet();
+            }
+            // -- a job may have been queued for this thread just as it expired
+            return (job != null)? job : super.poll();
+        }
 
-                /* run job */
-                //Print.logDebug("Thread running: " + this.getName());
-                this.job.run();
-                synchronized (this.threadPool.jobQueue) {
-                    this.job = null;
-                }
-                this.lastUsedTimeMS = DateTime.getCurrentTimeMillis();
+    } // class JobQueue
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** QueuedJob: a job with the time at which it was queued
+    **/
+    private class QueuedJob
+        implements Runnable
+    {
 
-            } // while (true)
+        /* the job to execute */
+        private Runnable    job         = null;
 
-            /* remove thread from pool */
-            this.threadPool._removeThreadJob(this);
+        /* time queued */
+        private long        queueTimeMS = 0L;
 
+        public QueuedJob(Runnable job) {
+            this.job         = job;
+            this.queueTimeMS = DateTime.getCurrentTimeMillis();
         }
 
-        public boolean isRunning() {
-            boolean rtn = false;
-            synchronized (this.threadPool.jobQueue) {
-                rtn = (this.job != null)? true : false;
+        public void run() {
+            ThreadPool pool = ThreadPool.this;
+            long waitMS = DateTime.getCurrentTimeMillis() - this.queueTimeMS;
+            pool.totalWaitMS.addAndGet(waitMS);
+            for (long max = pool.maxWaitMS.get(); waitMS > max; max = pool.maxWaitMS.get()) {
+                if (pool.maxWaitMS.compareAndSet(max, waitMS)) { break; }
+            }
+            try {
+                this.job.run();
+            } catch (Throwable th) {
+                Print.logException("["+pool.getName()+"] ThreadPool job error", th);
+            } finally {
+                pool.completeCount.incrementAndGet();
             }
-            return rtn;
         }
 
-    } // class ThreadJob
+    } // class QueuedJob
     
     // ------------------------------------------------------------------------
 
@@ -108,6 +108,7 @@ public class Events
     // http://localhost:8080/events/data.csv?a=demo&d=demo
     // http://localhost:8080/events/data.json?a=demo&d=demo
     // http://localhost:8080/events/data.jsonx?a=demo&g=all&limit=1
+    // http://localhost:8080/events/data.csv?a=demo&d=demo&l=100&cursor=D:demo/1400000000/61472
 
     /* authentication */
     private static final String  PARM_ACCOUNT[]     = new String[] { "account"    ,         "a"  };  // Constants.PARM_ACCOUNT;
@@ -128,6 +129,12 @@ public class Events
     private static final String  PARM_ALL_TAGS[]    = new String[] { "alltags"    ,         "at" };
     private static final String  PARM_OLD_XML[]     = new String[] { "oldxml"     , "old" , "ox" };
     private static final String  PARM_EXPIRE[]      = new String[] { "expire"     , "exp" , "ex" };
+    private static final String  PARM_CURSOR[]      = new String[] { "cursor"     , "cur" , "cs" };
+
+    /* resume cursor response header */
+    // -- returned when more events are available for at least one device.  The next page is
+    // -  retrieved by repeating the request with "&cursor=<token>".
+    public  static final String  HEADER_CURSOR      = "X-Events-Cursor";
 
     // ------------------------------------------------------------------------
     // ------------------------------------------------------------------------
@@ -234,6 +241,7 @@ public class Events
         boolean allTags    = Events.getRequestBoolean(request, PARM_ALL_TAGS , false);
         boolean oldXMLFmt  = Events.getRequestBoolean(request, PARM_OLD_XML  , OLD_XML_FORMAT);
         String  expireStr  = Events.getRequestString (request, PARM_EXPIRE   , "");
+        String  cursorStr  = Events.getRequestString (request, PARM_CURSOR   , "");
 
         /* default to 'admin' user */
         if (StringTools.isBlank(userID)) {
@@ -467,10 +475,20 @@ public class Events
             }
         }
 
+        /* resume cursor */
+        // -- forward traversal when a start time is specified, otherwise backwards from the end
+        boolean ascending = (startTime > 0L);
+        Map<String,EventData.RangeCursor> cursorMap = null;
+        if (!StringTools.isBlank(cursorStr)) {
+            cursorMap = new HashMap<String,EventData.RangeCursor>();
+            ascending = Events.parseCursorToken(cursorStr, cursorMap);
+        }
+
         /* extract records */
-        // NOT CURRENTLY SCALABLE!
-        // this version assumes that the number of returned records is reasonable and fits in memory
+        // -- each request returns at most 'limit' events per device.  If more events are
+        // -  available, a resume cursor token is returned in the "X-Events-Cursor" header.
         Collection<Device> devList = new Vector<Device>();
+        Map<String,EventData.RangeCursor> nextCursorMap = new OrderedMap<String,EventData.RangeCursor>();
         //java.util.List<EventData> evList = new Vector<EventData>();
         try {
             // Note: 'dateFr' and/or 'dateTo' may be null
@@ -479,9 +497,23 @@ public class Events
                 Device dev = Device._getDevice(account, devID);
                 if (dev != null) {
                     if (limit > 0) {
-                        EventData ed[] = this.getDeviceRangeEvents(dev, startTime, endTime, limit, validGPS);
+                        EventData ed[];
+                        if (cursorMap == null) {
+                            ed = this.getDeviceRangeEvents(dev, startTime, endTime, limit, validGPS, ascending, null);
+                        } else
+                        if (cursorMap.containsKey(devID)) {
+                            ed = this.getDeviceRangeEvents(dev, startTime, endTime, limit, validGPS, ascending, cursorMap.get(devID));
+                        } else {
+                            // -- all events for this device were returned by prior requests
+                            ed = EventData.EMPTY_ARRAY;
+                        }
                         //ListTools.toList(evList,ed);
                         dev.setSavedRangeEvents(ed);
+                        if ((ed != null) && (ed.length >= limit)) {
+                            // -- more events may be available (events are in ascending order)
+                            EventData lastEv = ascending? ed[ed.length - 1] : ed[0];
+                            nextCursorMap.put(devID, new EventData.RangeCursor(lastEv));
+                        }
                     }
                     devList.add(dev);
                 } else {
@@ -494,6 +526,11 @@ public class Events
             return;
         }
 
+        /* next cursor */
+        if (!nextCursorMap.isEmpty()) {
+            response.setHeader(HEADER_CURSOR, Events.createCursorToken(ascending, nextCursorMap));
+        }
+
         /* mime content type */
         this.setContentMimeType(response, outFmt);
         if ((outFmt == EventUtil.FORMAT_XML) && oldXMLFmt) {
@@ -559,24 +596,71 @@ public class Events
 
     // ------------------------------------------------------------------------
 
-    private EventData[] getDeviceRangeEvents(Device device, long startTime, long endTime, long limit, boolean validGPS)
+    // -- ascending: the first 'limit' events following 'startTime' (or following the cursor)
+    // -  descending: the last 'limit' events preceding 'endTime' (or preceding the cursor)
+    // -  returned events are always in ascending order
+    private EventData[] getDeviceRangeEvents(Device device, long startTime, long endTime, long limit, boolean validGPS,
+        boolean ascending, EventData.RangeCursor cursor)
         throws DBException
     {
-        EventData evdata[] = null;
-        if (device != null) {
-            if ((startTime <= 0L) && (endTime <= 0L)) {
-                // date range not specified
-                evdata = device.getLatestEvents(limit, validGPS);
-            } else
-            if (startTime <= 0L) {
-                // start date range not specified
-                evdata = device.getRangeEvents(startTime, endTime, validGPS, EventData.LimitType.LAST, limit);
+        EventData evdata[] = EventData.getRangeEventsAfter(
+            device.getAccountID(), device.getDeviceID(),
+            startTime, endTime,
+            null/*statusCodes*/,
+            validGPS,
+            ascending, limit,
+            cursor,
+            null/*addtnlSelect*/);
+        if (!ascending) {
+            // -- events were selected in descending order, return in ascending order
+            ListTools.reverseOrder(evdata);
+        }
+        for (EventData ev : evdata) {
+            ev.setDevice(device);
+        }
+        return evdata;
+    }
+
+    // ------------------------------------------------------------------------
+    // Cursor token: "<A|D>:<deviceID>/<timestamp>/<statusCode>[,<deviceID>/<timestamp>/<statusCode>...]"
+
+    /* create resume cursor token */
+    private static String createCursorToken(boolean ascending, Map<String,EventData.RangeCursor> cursorMap)
+    {
+        StringBuffer sb = new StringBuffer();
+        sb.append(ascending? "A" : "D").append(":");
+        boolean first = true;
+        for (String devID : cursorMap.keySet()) {
+            if (!first) { sb.append(","); }
+            sb.append(devID).append("/").append(cursorMap.get(devID).toString());
+            first = false;
+        }
+        return sb.toString();
+    }
+
+    /* parse resume cursor token, returns true if ascending */
+    private static boolean parseCursorToken(String token, Map<String,EventData.RangeCursor> cursorMap)
+    {
+        String t = StringTools.trim(token);
+        boolean ascending = !t.startsWith("D");
+        int p = t.indexOf(":");
+        String devCursors[] = StringTools.split(((p >= 0)? t.substring(p + 1) : t), ',');
+        for (String dc : devCursors) {
+            // -- "<deviceID>/<timestamp>/<statusCode>"
+            int c = dc.lastIndexOf('/');
+            int d = (c > 0)? dc.lastIndexOf('/', c - 1) : -1;
+            if (d <= 0) {
+                Print.logWarn("Invalid cursor: " + dc);
+                continue;
+            }
+            EventData.RangeCursor rc = EventData.RangeCursor.parseCursor(dc.substring(d + 1));
+            if (rc != null) {
+                cursorMap.put(dc.substring(0,d), rc);
             } else {
-                // end date range MAY not have been specified
-                evdata = device.getRangeEvents(startTime, endTime, validGPS, EventData.LimitType.FIRST, limit);
+                Print.logWarn("Invalid cursor: " + dc);
             }
         }
-        return evdata;
+        return ascending;
     }
 
     // ------------------------------------------------------------------------
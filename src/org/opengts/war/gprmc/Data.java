@@ -370,6 +370,9 @@ public class Data
     /* check device auth/pin code */
     private static boolean  CHECK_AUTH_CODE                 = false;
 
+    /* maximum number of records per batch ("&cmd=batch") */
+    private static int      BATCH_MAX_RECORDS               = EventBatchIngest.DFT_MAX_RECORDS;
+
     /* Default time zone */
     private static TimeZone gmtTimeZone                     = DateTime.getGMTTimeZone();
    
@@ -488,6 +491,7 @@ public class Data
     public static final String  CONFIG_ESTIMATE_ODOMETER    = DEVICE_CODE + ".estimateOdometer";
     public static final String  CONFIG_SIMEVENT_GEOZONES    = DEVICE_CODE + ".simulateGeozones";
     public static final String  CONFIG_CHECK_AUTH_CODE      = DEVICE_CODE + ".checkAuthCode";
+    public static final String  CONFIG_BATCH_MAX_RECORDS    = DEVICE_CODE + ".batch.maxRecords";
     public static final String  CONFIG_DATE_FORMAT          = DEVICE_CODE + ".dateFormat";       // "YMD", "DMY", "MDY"
     public static final String  CONFIG_RESPONSE_OK          = DEVICE_CODE + ".response.ok";
     public static final String  CONFIG_RESPONSE_ERROR       = DEVICE_CODE + ".response.error";
@@ -600,6 +604,7 @@ public class Data
         ESTIMATE_ODOMETER  = RTConfig.getBoolean(CONFIG_ESTIMATE_ODOMETER, ESTIMATE_ODOMETER);
         SIMEVENT_GEOZONES  = RTConfig.getBoolean(CONFIG_SIMEVENT_GEOZONES, SIMEVENT_GEOZONES);
         CHECK_AUTH_CODE    = RTConfig.getBoolean(CONFIG_CHECK_AUTH_CODE  , CHECK_AUTH_CODE);
+        BATCH_MAX_RECORDS  = RTConfig.getInt(    CONFIG_BATCH_MAX_RECORDS, BATCH_MAX_RECORDS);
         String dateFmt     = RTConfig.getString( CONFIG_DATE_FORMAT      , "YMD");
         if (dateFmt.equalsIgnoreCase("NONE")) {
             DateFormat = DATE_FORMAT_NONE;
@@ -683,6 +688,7 @@ public class Data
         Data.printHeaderLine("Simulate Geozones"      , SIMEVENT_GEOZONES+""  , CONFIG_SIMEVENT_GEOZONES);
         Data.printHeaderLine("Check Auth Code"        , CHECK_AUTH_CODE+""    , CONFIG_CHECK_AUTH_CODE);
         Data.printHeaderLine("Estimate Odometer"      , ESTIMATE_ODOMETER+""  , CONFIG_ESTIMATE_ODOMETER);
+        Data.printHeaderLine("Batch max records"      , BATCH_MAX_RECORDS+""  , CONFIG_BATCH_MAX_RECORDS);
         Data.printHeaderLine("Date Format"            , GetDateFormatString() , CONFIG_DATE_FORMAT);
         Data.printHeaderLine("UniqueID prefix"        , UniqueIDPrefix        , CONFIG_UNIQUE_PREFIX);
         Data.printHeaderLine("MobileID parameter"     , PARM_MOBILE           , CONFIG_PARM_MOBILE);
@@ -919,6 +925,18 @@ public class Data
         throws ServletException, IOException
     {
         String ipAddr     = request.getRemoteAddr();
+
+        /* batch of buffered records in the POST body? ("&cmd=batch" in the query string) */
+        // -- checked before any request parameter is read, since reading the parameters of a
+        // -  form encoded POST would consume the body
+        if (isPost) {
+            URIArg queryArgs = new URIArg(request.getRequestURL(), request.getQueryString());
+            if (Data._getQueryString(queryArgs,PARM_COMMAND,"").equalsIgnoreCase("batch")) {
+                this._doBatch(ipAddr, queryArgs, request, response);
+                return;
+            }
+        }
+
         String phoneID    = AttributeTools.getRequestString(request, PARM_PHONE     , null);
         String mobileID   = AttributeTools.getRequestString(request, PARM_MOBILE    , phoneID);
         String accountID  = AttributeTools.getRequestString(request, PARM_ACCOUNT   , null);
@@ -951,6 +969,12 @@ public class Data
             if (StringTools.isBlank(cmd)) {
                 // -- no command requested (fixed 2.5.4-B10)
             } else
+            if (cmd.equalsIgnoreCase("batch")) {
+                // -- "&cmd=batch" must be specified in the query string (handled above)
+                Print.logInfo("Batch command not specified in query string");
+                this.plainTextResponse(response, "ERROR:command:"+cmd);
+                return;
+            } else
             if (ListTools.contains(PARM_VERSION,cmd)) {
                 // -- version requested
                 String vers = DEVICE_CODE+"-"+VERSION;
@@ -1383,6 +1407,93 @@ public class Data
 
     }
 
+    /* returns the (decoded) value of the first specified query string argument */
+    private static String _getQueryString(URIArg queryArgs, String keys[], String dft)
+    {
+        String val = queryArgs.getArgValue(keys);
+        return (val != null)? URIArg.decodeArg(null,val).toString() : dft;
+    }
+
+    /**
+    *** Inserts a batch of buffered records.  The device is identified by the query string
+    *** arguments, and the records are read from the POST body (optionally gzip compressed, see
+    *** EventBatchIngest for the supported formats).  The response contains the status of each
+    *** record.  Records which already exist are reported as duplicates, so a batch may be
+    *** safely re-sent.  Form encoded bodies are rejected, since the servlet container may
+    *** parse them as request parameters.
+    *** Example:
+    ***   curl --data-binary @points.csv.gz -H "Content-Type: application/octet-stream" \
+    ***       "http://localhost:8080/gprmc/Data?cmd=batch&id=123456789012345"
+    **/
+    private void _doBatch(String ipAddr, URIArg queryArgs, HttpServletRequest request, HttpServletResponse response)
+        throws ServletException, IOException
+    {
+        String contentType = AttributeTools.getContentType(request);
+        Data.logInfo("[" + ipAddr + "] POST: " + request.getRequestURL() + " " + request.getQueryString() + " [" + contentType + "]");
+
+        /* content type */
+        if (HTMLTools.isContentMultipartForm(contentType) ||
+            contentType.toLowerCase().startsWith(HTMLTools.CONTENT_FORM_URLENCODED)) {
+            Data.logError(null, "Unexpected batch content type: " + contentType);
+            this.plainTextResponse(response, RESPONSE_ERROR);
+            return;
+        }
+
+        /* Device */
+        String phoneID   = Data._getQueryString(queryArgs, PARM_PHONE  , null);
+        String mobileID  = Data._getQueryString(queryArgs, PARM_MOBILE , phoneID);
+        String accountID = Data._getQueryString(queryArgs, PARM_ACCOUNT, null);
+        String deviceID  = Data._getQueryString(queryArgs, PARM_DEVICE , "");
+        String authCode  = Data._getQueryString(queryArgs, PARM_AUTH   , "");
+        Device device = this.loadDevice(ipAddr, mobileID, accountID, deviceID, authCode);
+        if (device == null) {
+            this.plainTextResponse(response, RESPONSE_NOT_AUTH);
+            return;
+        } else
+        if (device.getAccount() == null) {
+            Data.logError(null, "Account record not found!");
+            this.plainTextResponse(response, RESPONSE_ERROR);
+            return;
+        }
+        String devKey = device.getAccountID() + "/" + device.getDeviceID();
+
+        /* ingest */
+        EventBatchIngest ingest = new EventBatchIngest(device);
+        ingest.setMaximumRecords(BATCH_MAX_RECORDS);
+        ingest.setMinimumSpeedKPH(MinimumReqSpeedKPH);
+        ingest.setEstimateOdometer(ESTIMATE_ODOMETER);
+        ingest.setStatusCodeTranslator(new EventBatchIngest.StatusCodeTranslator() {
+            public int translateStatusCode(String code) {
+                return Data.TranslateStatusCode(code);
+            }
+        });
+
+        /* read/parse batch */
+        try {
+            String batch = EventBatchIngest.ReadBatch(request.getInputStream(), -1);
+            if (StringTools.isBlank(batch)) {
+                Data.logError(null, "Empty batch: " + devKey);
+                this.plainTextResponse(response, RESPONSE_ERROR);
+                return;
+            }
+            ingest.parse(batch);
+        } catch (IOException ioe) {
+            Data.logError(null, "Unable to read batch: " + devKey + " [" + ioe + "]");
+            this.plainTextResponse(response, RESPONSE_ERROR);
+            return;
+        }
+
+        /* insert */
+        long startMS = DateTime.getCurrentTimeMillis();
+        ingest.insert();
+        long deltaMS = DateTime.getCurrentTimeMillis() - startMS;
+        Data.logInfo("Batch    : " + devKey + " " + ingest.getSummary() + " [" + deltaMS + " ms]");
+
+        /* per-record response */
+        this.plainTextResponse(response, ingest.getResponse(RESPONSE_OK).trim());
+
+    }
+
     private long _parseFixtime(String dateStr, String timeStr)
     {
         // Examples:
@@ -40,15 +40,29 @@ public abstract class DataColumnTemplate
 
     // ------------------------------------------------------------------------
 
+    /* column requires no EventData fields other than the primary key fields */
+    public static final String NO_EVENT_FIELDS[] = new String[0];
+
+    // ------------------------------------------------------------------------
+
     private String                  keyName = "";
     private String                  dftArg = null;
     
     private String                  colTitle = "";
 
+    private String                  eventFields[] = null; // null: unknown
+
     public DataColumnTemplate(String key) 
     {
         this(key, null, null);
     }
+
+    /* 'evFields' are the EventData fields accessed by this column (excluding primary keys) */
+    public DataColumnTemplate(String key, String... evFields) 
+    {
+        this(key, null, null);
+        this.eventFields = (evFields != null)? evFields : NO_EVENT_FIELDS;
+    }
     
     private DataColumnTemplate(String key, String arg, String title) 
     {
@@ -74,6 +88,22 @@ public abstract class DataColumnTemplate
 
     // ------------------------------------------------------------------------
 
+    /* return true if the EventData fields used by this column have been declared */
+    public boolean hasEventDataFields()
+    {
+        return (this.eventFields != null);
+    }
+
+    /* return the EventData fields used by this column (null if unknown) */
+    // Used to limit the columns retrieved from the EventData table when generating reports.
+    // Primary key fields are always retrieved and need not be included.
+    public String[] getEventDataFields()
+    {
+        return this.eventFields;
+    }
+
+    // ------------------------------------------------------------------------
+
     /* return displayable help for this data column */
     public String getHelp()
     {
@@ -112,6 +112,26 @@ public abstract class DataRowTemplate
         }
     }
     
+    /* return the EventData fields used by the specified report columns */
+    // Returns null if any column does not declare the EventData fields it uses.
+    public Set<String> getEventDataFields(ReportColumn rptCols[])
+    {
+        if (ListTools.isEmpty(rptCols)) {
+            return null;
+        }
+        Set<String> fields = new HashSet<String>();
+        for (ReportColumn rc : rptCols) {
+            DataColumnTemplate dct = (rc != null)? this.getColumnTemplate(rc.getKey()) : null;
+            if ((dct == null) || !dct.hasEventDataFields()) {
+                return null; // unknown column fields
+            }
+            for (String fn : dct.getEventDataFields()) {
+                fields.add(fn);
+            }
+        }
+        return fields;
+    }
+    
     /* return a list of available columns names */
     public Set<String> getColumnNames()
     {
@@ -57,6 +57,7 @@ import org.opengts.war.report.ReportFactory;
 import org.opengts.war.report.ReportColumn;
 
 public abstract class ReportData
+    implements Cloneable
 {
 
     // ------------------------------------------------------------------------
@@ -68,6 +69,15 @@ public abstract class ReportData
     private static final boolean REPORT_DATA_FIELDS_ENABLED        = false;
     private static final String  PROP_reportDataFieldEnabled       = "reportDataFieldEnabled";
 
+    private static final boolean EVENT_FIELD_PROJECTION            = true;
+    private static final String  PROP_eventFieldProjection         = "eventFieldProjection";
+
+    private static final boolean MULTI_DEVICE_SELECT               = true;
+    private static final String  PROP_multiDeviceSelect            = "multiDeviceSelect";
+
+    private static final int     MAX_PARALLEL_DEVICES              = 4;
+    private static final String  PROP_maximumParallelDevices       = "maximumParallelDevices";
+
     private static final String  PROP_gpsAgeColorRange             = "gpsAgeColorRange";
     private static final String  PROP_gpsAgeColorRange_array       = "gpsAgeColorRange.array";
 
@@ -143,6 +153,7 @@ public abstract class ReportData
     private int                 eventDataCount      = 0; // per device
     private int                 eventMatchCount     = 0; // per device
     private int                 maxEventDataCount   = 0; // max device counted events
+    private java.util.List<ReportData> deviceWorkers = null; // see "createDeviceWorker"
 
     private int                 rptRecordCount      = 0;
     private boolean             rptIsPartial        = false;
@@ -166,6 +177,8 @@ public abstract class ReportData
     
     private ReportCallback      rptCallback         = null;
 
+    private boolean             eventFieldProjection = true;
+
     // ------------------------------------------------------------------------
 
     /* OBSOLETE: create an instance of a report */
@@ -999,8 +1012,21 @@ public abstract class ReportData
         ReportDeviceList devList = this.getReportDeviceList();
         java.util.List<EventData> edList = new Vector<EventData>();
         this.maxEventDataCount = 0;
+        java.util.List<String> devIDList = new Vector<String>();
         for (Iterator i = devList.iterator(); i.hasNext();) {
-            String devID = (String)i.next();
+            devIDList.add((String)i.next());
+        }
+
+        /* read multiple devices with a single selection? */
+        if (this.getMultiDeviceSelectEnabled() && (devIDList.size() > 1) &&
+            (EventData.GetMultiDeviceBatchSize() > 1)) {
+            this._getMultiDeviceEventData(devIDList, rptLimit, rcdHandler, edList);
+            return edList.toArray(new EventData[edList.size()]);
+        }
+
+        /* read each device */
+        for (int d = 0; d < devIDList.size(); d++) {
+            String devID = devIDList.get(d);
             this.eventDataCount  = 0; // per device
             this.eventMatchCount = 0; // per device
 
@@ -1040,6 +1066,379 @@ public abstract class ReportData
         return edList.toArray(new EventData[edList.size()]);
     }
 
+    /**
+    *** Returns true if EventData records for multiple devices should be read with a single
+    *** selection per batch of devices (see "EventData.getRangeEvents(String,Collection,...)").
+    **/
+    protected boolean getMultiDeviceSelectEnabled()
+    {
+        return this.getProperties().getBoolean(PROP_multiDeviceSelect,MULTI_DEVICE_SELECT);
+    }
+
+    /**
+    *** Reads the EventData records, based on the current report constraints, for the 
+    *** specified list of devices with a single selection per batch of devices (see 
+    *** "EventData.getRangeEvents(String,Collection,...,DBRecordHandler)").  The records of 
+    *** each device are passed to the same record handler used by "_getEventData" as they 
+    *** are read, and only the records saved by the handler are retained.<br>
+    *** Batches are taken from the device list in order, and since each batch is selected in 
+    *** DeviceID order, the saved records of a batch are added to the report list in device 
+    *** list order (and clipped to the report limit) once the batch has been read.
+    *** @param devIDs      The list of device IDs
+    *** @param rptLimit    The report record limit (-1 for no limit)
+    *** @param rcdHandler  The callback DBRecordHandler (may be null)
+    *** @param edList      The list to which the selected EventData records are added
+    **/
+    protected void _getMultiDeviceEventData(java.util.List<String> devIDs, 
+        long rptLimit, DBRecordHandler<EventData> rcdHandler, 
+        java.util.List<EventData> edList)
+    {
+        boolean ascending = this.getOrderAscending();
+        boolean selAscend = EventData.isRangeSelectionAscending(
+            this.getSelectionLimitType(), this.getSelectionLimit(), ascending);
+        int     batchSize = EventData.GetMultiDeviceBatchSize();
+
+        /* read events, one batch of devices at a time */
+        // -- a statement LIMIT is not used, since it would clip devices in DeviceID order
+        MultiDeviceHandler mdh = new MultiDeviceHandler(rcdHandler, (selAscend != ascending));
+        for (int b = 0; b < devIDs.size(); b += batchSize) {
+
+            /* have we reached our limit? */
+            long remaining = (rptLimit >= 0L)? (rptLimit - edList.size()) : -1L;
+            if ((rptLimit >= 0L) && (remaining <= 0L)) {
+                break;
+            }
+
+            /* read batch */
+            java.util.List<String> batchIDs = devIDs.subList(b, Math.min(b + batchSize, devIDs.size()));
+            mdh.startBatch(remaining);
+            try {
+                EventData.getRangeEvents(
+                    this.getAccountID(), batchIDs,
+                    this.getTimeStart(), this.getTimeEnd(),
+                    this.getStatusCodes(),
+                    this.getValidGPSRequired(),
+                    this.getSelectionLimitType(), this.getSelectionLimit(), ascending,
+                    this.getWhereSelector(),
+                    this.getEventDataFields(),
+                    -1L/*maxRecords*/,
+                    mdh);
+            } catch (DBException dbe) {
+                Print.logException("Unable to obtain multi-device EventData records", dbe);
+            }
+
+            /* add saved records in device list order */
+            mdh.endBatch(batchIDs, rptLimit, edList);
+
+        }
+
+    }
+
+    /**
+    *** Multi-device record handler.  Passes the records of each device to a new per-device 
+    *** record handler (see "_createEventRecordHandler"), and retains the records saved for 
+    *** each device until the end of the batch, when they are added to the report list in the
+    *** requested order, in device list order, up to the report limit.
+    **/
+    private class MultiDeviceHandler
+        implements DBRecordHandler<EventData>
+    {
+        private DBRecordHandler<EventData>  rcdHandler  = null;
+        private boolean                     reverse     = false;
+        private long                        devLimit    = -1L;
+        private Map<String,EventData[]>     batchEvents = new HashMap<String,EventData[]>();
+        private String                      devID       = null;
+        private Device                      device      = null;
+        private DBRecordHandler<EventData>  devHandler  = null;
+        private boolean                     devStopped  = false;
+        private EventData                   lastEvent   = null;
+        private java.util.List<EventData>   devEvents   = new Vector<EventData>();
+        public MultiDeviceHandler(DBRecordHandler<EventData> rcdHandler, boolean reverse) {
+            this.rcdHandler = rcdHandler;
+            this.reverse    = reverse;
+        }
+        public void startBatch(long remaining) {
+            // -- no single device can add more than the remaining report records
+            this.devLimit = remaining;
+            this.batchEvents.clear();
+        }
+        public int handleDBRecord(EventData ev) throws DBException {
+            if (!ev.getDeviceID().equals(this.devID)) {
+                // -- first record of the next device
+                this.endDevice();
+                this.startDevice(ev.getDeviceID());
+            }
+            if ((this.devHandler == null) || this.devStopped) {
+                // -- skip the remaining records for this device
+                return DBRH_SKIP;
+            }
+            this.devStopped = DBRecord.handleRecord(ev, this.lastEvent, this.devHandler, this.devEvents);
+            this.lastEvent  = ev;
+            if (!this.reverse && (this.devLimit >= 0L) && (this.devEvents.size() >= this.devLimit)) {
+                // -- any further records for this device would be clipped
+                this.devStopped = true;
+            }
+            return DBRH_SKIP;
+        }
+        private void startDevice(String devID) {
+            ReportData.this.eventDataCount  = 0; // per device
+            ReportData.this.eventMatchCount = 0; // per device
+            this.devID      = devID;
+            this.devStopped = false;
+            this.lastEvent  = null;
+            this.devEvents.clear();
+            try {
+                this.device = ReportData.this.getReportDeviceList().getDevice(devID);
+            } catch (DBException dbe) {
+                Print.logError("Error retrieving EventData for Device: " + devID);
+                this.device = null;
+            }
+            this.devHandler = (this.device != null)? 
+                ReportData.this._createEventRecordHandler(this.device, this.rcdHandler) : null;
+        }
+        private void endDevice() {
+            if (this.devID == null) {
+                return;
+            }
+            EventData ed[] = this.devEvents.toArray(new EventData[this.devEvents.size()]);
+            if (this.reverse) {
+                ListTools.reverseOrder(ed);
+            }
+            for (int i = 0; i < ed.length; i++) {
+                ed[i].setDevice(this.device);
+            }
+            this.batchEvents.put(this.devID, ed);
+            if (ReportData.this.eventDataCount > ReportData.this.maxEventDataCount) {
+                ReportData.this.maxEventDataCount = ReportData.this.eventDataCount;
+            }
+            this.devID      = null;
+            this.device     = null;
+            this.devHandler = null;
+            this.lastEvent  = null;
+            this.devEvents.clear();
+        }
+        public void endBatch(java.util.List<String> batchIDs, long rptLimit, java.util.List<EventData> edList) {
+            this.endDevice();
+            for (String devID : batchIDs) {
+                EventData ed[] = this.batchEvents.get(devID);
+                if (ListTools.isEmpty(ed)) {
+                    continue;
+                }
+                if (rptLimit < 0L) {
+                    // -- no limit: add all of new EventData records to list
+                    ListTools.toList(ed, edList);
+                } else {
+                    int maxRcds = (int)rptLimit - edList.size();
+                    if (maxRcds <= 0) {
+                        break;
+                    } else
+                    if (ed.length <= maxRcds) {
+                        // -- under limit: add all of new EventData records to list
+                        ListTools.toList(ed, edList);
+                    } else {
+                        // -- clip to limit
+                        ListTools.toList(ed, 0, maxRcds, edList);
+                    }
+                }
+            }
+            this.batchEvents.clear();
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Parallel per-device processing
+
+    /* per-device report processing ThreadPool (shared by all reports) */
+    // Report.ThreadPool.ReportDevice.maximumPoolSize=10
+    // Report.ThreadPool.ReportDevice.maximumIdleSeconds=60
+    // Report.ThreadPool.ReportDevice.maximumQueueSize=0
+    private static final RTKey PROP_ThreadPool_ReportDevice_    = RTKey.valueOf(RTKey.ThreadPool_ReportDevice_);
+    private static final int   ThreadPool_ReportDevice_Size     = 10;   // max threads
+    private static final int   ThreadPool_ReportDevice_IdleSec  = 60;   // trim idle threads
+    private static final int   ThreadPool_ReportDevice_QueSize  =  0;   // max queue size
+    private static ThreadPool  ThreadPool_ReportDevice          = new ThreadPool(
+        "ReportDevice",
+        PROP_ThreadPool_ReportDevice_, // property allowing default override
+        ThreadPool_ReportDevice_Size, 
+        ThreadPool_ReportDevice_IdleSec, 
+        ThreadPool_ReportDevice_QueSize);
+
+    /**
+    *** ReportDeviceProcessor interface.<br>
+    *** Implementations must not modify report state shared with other devices (see 
+    *** "createDeviceWorker").
+    **/
+    public interface ReportDeviceProcessor<T>
+    {
+        public T processDevice(String devID) throws DBException;
+    }
+
+    /**
+    *** Parallel per-device job.  The calling thread, and up to the specified number of 
+    *** additional ThreadPool threads, take the next device from the list until all devices 
+    *** have been processed.  Since the calling thread also processes devices, the job
+    *** completes even if no ThreadPool thread is currently available.  The temporary
+    *** RTProperties of the calling thread (ie. private-label/locale properties) are pushed
+    *** onto the ThreadPool thread while each device is processed.
+    **/
+    private static class ParallelDeviceJob<T>
+        implements Runnable
+    {
+        private java.util.List<String>       devIDs    = null;
+        private ReportDeviceProcessor<T>     processor = null;
+        private Thread                       caller    = null;
+        private java.util.List<RTProperties> tempProps = null;
+        private Object                       results[] = null;
+        private int                          nextNdx   = 0;
+        private int                          doneCount = 0;
+        public ParallelDeviceJob(java.util.List<String> devIDs, ReportDeviceProcessor<T> processor) {
+            this.devIDs    = devIDs;
+            this.processor = processor;
+            this.caller    = Thread.currentThread();
+            this.tempProps = RTConfig.getTemporaryPropertiesStack();
+            this.results   = new Object[devIDs.size()];
+        }
+        private synchronized int _nextIndex() {
+            return (this.nextNdx < this.results.length)? this.nextNdx++ : -1;
+        }
+        private synchronized void _setResult(int ndx, Object result) {
+            this.results[ndx] = result;
+            this.doneCount++;
+            if (this.doneCount >= this.results.length) {
+                this.notifyAll();
+            }
+        }
+        public void run() {
+            boolean pushProps = (Thread.currentThread() != this.caller);
+            for (int ndx = this._nextIndex(); ndx >= 0; ndx = this._nextIndex()) {
+                String devID  = this.devIDs.get(ndx);
+                Object result = null;
+                if (pushProps) {
+                    for (RTProperties rtp : this.tempProps) {
+                        RTConfig.pushTemporaryProperties(rtp);
+                    }
+                }
+                try {
+                    result = this.processor.processDevice(devID);
+                } catch (DBException dbe) {
+                    Print.logError("Error processing report Device: " + devID + " [" + dbe + "]");
+                } catch (Throwable th) {
+                    Print.logException("Error processing report Device: " + devID, th);
+                } finally {
+                    if (pushProps) {
+                        for (int p = this.tempProps.size() - 1; p >= 0; p--) {
+                            RTConfig.popTemporaryProperties(this.tempProps.get(p));
+                        }
+                    }
+                    this._setResult(ndx, result);
+                }
+            }
+        }
+        @SuppressWarnings("unchecked")
+        public synchronized java.util.List<T> waitForResults() {
+            boolean interrupted = false;
+            while (this.doneCount < this.results.length) {
+                try {
+                    this.wait();
+                } catch (InterruptedException ie) {
+                    interrupted = true; // devices in progress must still complete
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            java.util.List<T> list = new Vector<T>();
+            for (int i = 0; i < this.results.length; i++) {
+                if (this.results[i] != null) {
+                    list.add((T)this.results[i]);
+                }
+            }
+            return list;
+        }
+    }
+
+    /**
+    *** Gets the maximum number of devices which this report may process concurrently.
+    *** This limits the number of database connections used by a single report.
+    *** @return The maximum number of devices processed concurrently (1 for sequential)
+    **/
+    public int getMaximumParallelDevices()
+    {
+        int max = this.getProperties().getInt(PROP_maximumParallelDevices, MAX_PARALLEL_DEVICES);
+        return (max > 1)? max : 1;
+    }
+
+    /**
+    *** Creates a copy of this report which may be used to process a single device on a
+    *** separate thread.  The copy has its own ReportConstraints and per-device counters, and
+    *** shares all other (read-only) report state with this report.  The copy counters are
+    *** merged into this report when "processReportDevices" completes.
+    *** @return The report copy, or null if this report could not be copied
+    **/
+    protected ReportData createDeviceWorker()
+    {
+        try {
+            ReportData rd = (ReportData)super.clone();
+            rd.rptConstraints    = (ReportConstraints)this.getReportConstraints().clone();
+            rd.eventDataCount    = 0;
+            rd.eventMatchCount   = 0;
+            rd.maxEventDataCount = 0;
+            rd.deviceWorkers     = null;
+            synchronized (this) {
+                if (this.deviceWorkers == null) {
+                    this.deviceWorkers = new Vector<ReportData>();
+                }
+                this.deviceWorkers.add(rd);
+            }
+            return rd;
+        } catch (CloneNotSupportedException cnse) {
+            Print.logException("Unable to copy report", cnse); // unlikely
+            return null;
+        }
+    }
+
+    /**
+    *** Processes each device in the specified list with the specified ReportDeviceProcessor,
+    *** using up to "getMaximumParallelDevices()" threads concurrently.  The event counters of
+    *** any device workers (see "createDeviceWorker") are then merged into this report: the
+    *** event data/match counts are summed, and the maximum event data count is retained.
+    *** @param devIDs     The list of device IDs to process
+    *** @param processor  The ReportDeviceProcessor
+    *** @return The list of non-null results, in the same order as the specified device list
+    **/
+    protected <T> java.util.List<T> processReportDevices(java.util.List<String> devIDs, 
+        ReportDeviceProcessor<T> processor)
+    {
+        ParallelDeviceJob<T> job = new ParallelDeviceJob<T>(devIDs, processor);
+        int helpers = Math.min(this.getMaximumParallelDevices(), ListTools.size(devIDs)) - 1;
+        for (int h = 0; h < helpers; h++) {
+            if (!ThreadPool_ReportDevice.run(job)) {
+                break; // ThreadPool queue is full, or stopping
+            }
+        }
+        job.run(); // process devices in this thread as well
+        java.util.List<T> results = job.waitForResults();
+
+        /* merge device worker counters */
+        synchronized (this) {
+            if (this.deviceWorkers != null) {
+                int dataCount = 0, matchCount = 0;
+                for (ReportData rd : this.deviceWorkers) {
+                    dataCount  += rd.eventDataCount;
+                    matchCount += rd.eventMatchCount;
+                    if (rd.maxEventDataCount > this.maxEventDataCount) {
+                        this.maxEventDataCount = rd.maxEventDataCount;
+                    }
+                }
+                this.eventDataCount  = dataCount;
+                this.eventMatchCount = matchCount;
+                this.deviceWorkers   = null;
+            }
+        }
+
+        return results;
+    }
+
     /**
     *** Returns an array EventData records for the specified Device
     *** @param deviceDB     The Device for which EventData records will be selected
@@ -1080,6 +1479,68 @@ public abstract class ReportData
         return ed;
     }
 
+    /**
+    *** Returns true if this report supports retrieving only the EventData fields required
+    *** by the displayed report columns.  Subclasses which access EventData fields outside
+    *** of the report columns (ie. in "isEventDataMatch") should return false (the default), 
+    *** or should override "getEventDataFields" to include the additional fields.
+    *** @return True if this report supports EventData field projection
+    **/
+    protected boolean getEventFieldProjectionSupported()
+    {
+        return false;
+    }
+
+    /**
+    *** Enables/Disables EventData field projection for this report instance.  Should be
+    *** disabled when the retrieved EventData records will be used for purposes other than 
+    *** displaying the report columns (ie. maps, KML, graphs).
+    *** @param enable  True to allow EventData field projection, false to retrieve all fields
+    **/
+    public void setEventFieldProjection(boolean enable)
+    {
+        this.eventFieldProjection = enable;
+    }
+
+    /**
+    *** Gets the set of EventData fields required by the columns of this report.  The 
+    *** returned set is used to limit the columns retrieved from the EventData table.  
+    *** Fields not included in this set are loaded on first access.
+    *** @return The required EventData fields, or null to retrieve all fields
+    **/
+    protected Set<String> getEventDataFields()
+    {
+
+        /* projection enabled? */
+        if (!this.eventFieldProjection || !this.getEventFieldProjectionSupported()) {
+            return null;
+        } else
+        if (!this.getProperties().getBoolean(PROP_eventFieldProjection,EVENT_FIELD_PROJECTION)) {
+            return null;
+        } else
+        if (!StringTools.isBlank(this.getRuleSelector())) {
+            // -- the rule selector may reference any field
+            return null;
+        }
+
+        /* report column fields */
+        ReportLayout rl = this.getReportLayout();
+        DataRowTemplate drt = (rl != null)? rl.getDataRowTemplate() : null;
+        Set<String> fields = (drt != null)? drt.getEventDataFields(this.getReportColumns()) : null;
+        if (fields == null) {
+            // -- one or more columns do not declare the fields used
+            return null;
+        }
+
+        /* report distance location */
+        fields.add(EventData.FLD_latitude);
+        fields.add(EventData.FLD_longitude);
+        return fields;
+
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Callback for each EventData record selected.  This method can be overridden by
     *** the subclass to allow for additional criteria selection.
@@ -1091,6 +1552,17 @@ public abstract class ReportData
         return true;
     }
 
+    /**
+    *** Returns true if "isEventDataMatch" accepts every EventData record (the default).
+    *** Subclasses which override "isEventDataMatch" must also override this method to
+    *** return false.  When true, the report limit may be applied to the EventData selection.
+    *** @return True if "isEventDataMatch" accepts every EventData record
+    **/
+    protected boolean isEventDataMatchAll()
+    {
+        return true;
+    }
+
     // ------------------------------------------------------------------------
     // read EventData records
 
@@ -1118,27 +1590,16 @@ public abstract class ReportData
     }
 
     /**
-    *** Returns an array EventData records for the specified Device
+    *** Creates the record handler which applies the report event matching, and the rule 
+    *** selector, to the selected EventData records for the specified Device
     *** @param deviceDB     The Device for which EventData records will be selected
-    *** @param rcdHandler   The callback DBRecordHandler.  If specified, the returned EventData
-    ***                     array may be null.
-    *** @return An array of EventData records for the device (may be null if a callback
-    ***         DBRecordHandler has been specified).
+    *** @param rcdHandler   The callback DBRecordHandler (may be null)
+    *** @return The EventData record handler
     **/
-    protected EventData[] _getEventData(final Device deviceDB, 
-        long timeStart, long timeEnd,
+    protected DBRecordHandler<EventData> _createEventRecordHandler(final Device deviceDB, 
         final DBRecordHandler<EventData> rcdHandler)
     {
 
-        /* Device */
-        if (deviceDB == null) {
-            return EventData.EMPTY_ARRAY;
-        }
-
-        /* Account */
-        String accountID = this.getAccountID();
-         //Print.logInfo("Getting EventData for " + accountID + "/" + deviceID);
-
         /* EventData rule selector (RuleFactory support required) */
         final String ruleSelector = this.getRuleSelector();
         final RuleFactory ruleFact;
@@ -1155,7 +1616,7 @@ public abstract class ReportData
 
         /* create record handler */
         final LastEventData lastEDR = new LastEventData(); 
-        DBRecordHandler<EventData> evRcdHandler = new DBRecordHandler<EventData>() {
+        return new DBRecordHandler<EventData>() {
             public int handleDBRecord(EventData rcd) throws DBException {
                 //Print.logInfo("Read EventData: " + rcd);
                 ReportData.this.eventDataCount++;
@@ -1203,10 +1664,37 @@ public abstract class ReportData
             }
         };
 
+    }
+
+    /**
+    *** Returns an array EventData records for the specified Device
+    *** @param deviceDB     The Device for which EventData records will be selected
+    *** @param rcdHandler   The callback DBRecordHandler.  If specified, the returned EventData
+    ***                     array may be null.
+    *** @return An array of EventData records for the device (may be null if a callback
+    ***         DBRecordHandler has been specified).
+    **/
+    protected EventData[] _getEventData(final Device deviceDB, 
+        long timeStart, long timeEnd,
+        final DBRecordHandler<EventData> rcdHandler)
+    {
+
+        /* Device */
+        if (deviceDB == null) {
+            return EventData.EMPTY_ARRAY;
+        }
+
+        /* Account */
+        String accountID = this.getAccountID();
+         //Print.logInfo("Getting EventData for " + accountID + "/" + deviceID);
+
+        /* record handler */
+        String devID = deviceDB.getDeviceID();
+        DBRecordHandler<EventData> evRcdHandler = this._createEventRecordHandler(deviceDB, rcdHandler);
+
         /* get events */
         EventData ed[] = null;
         try {
-            String devID = deviceDB.getDeviceID();
             //Print.logInfo("Reading EventData: dev="+deviceDB +", ts="+timeStart +", te="+timeEnd);
             ed = EventData.getRangeEvents(
                 accountID, devID,
@@ -1215,6 +1703,7 @@ public abstract class ReportData
                 this.getValidGPSRequired(),
                 this.getSelectionLimitType(), this.getSelectionLimit(), this.getOrderAscending(),
                 this.getWhereSelector(),
+                this.getEventDataFields(),
                 evRcdHandler);
         } catch (DBException dbe) {
             Print.logException("Unable to obtain EventData records", dbe);
@@ -504,7 +504,7 @@ public class EventDataLayout
             super();
 
             // -- Index
-            this.addColumnTemplate(new DataColumnTemplate(DATA_INDEX) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_INDEX, EventData.FLD_latitude, EventData.FLD_longitude) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     if (rowNdx >= 0) {
                         String arg = rc.getArg();
@@ -762,7 +762,7 @@ public class EventDataLayout
             });
 
             // -- Device-ID
-            this.addColumnTemplate(new DataColumnTemplate(DATA_DEVICE_ID) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_DEVICE_ID, DataColumnTemplate.NO_EVENT_FIELDS) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -793,7 +793,7 @@ public class EventDataLayout
             });
 
             // -- Device Description
-            this.addColumnTemplate(new DataColumnTemplate(DATA_DEVICE_DESC) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_DEVICE_DESC, DataColumnTemplate.NO_EVENT_FIELDS) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -814,7 +814,7 @@ public class EventDataLayout
             });
 
             // -- Device Display Name
-            this.addColumnTemplate(new DataColumnTemplate(DATA_DEVICE_NAME) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_DEVICE_NAME, DataColumnTemplate.NO_EVENT_FIELDS) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -930,7 +930,7 @@ public class EventDataLayout
             });
 
             // -- Event timestamp Date/Time
-            this.addColumnTemplate(new DataColumnTemplate(DATA_DATE) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_DATE, DataColumnTemplate.NO_EVENT_FIELDS) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -952,7 +952,7 @@ public class EventDataLayout
                     return i18n.getString("EventDataLayout.date","Date");
                 }
             });
-            this.addColumnTemplate(new DataColumnTemplate(DATA_TIME) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_TIME, DataColumnTemplate.NO_EVENT_FIELDS) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -973,7 +973,7 @@ public class EventDataLayout
                     return i18n.getString("EventDataLayout.time","Time");
                 }
             });
-            this.addColumnTemplate(new DataColumnTemplate(DATA_DATETIME) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_DATETIME, DataColumnTemplate.NO_EVENT_FIELDS) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -995,7 +995,7 @@ public class EventDataLayout
                     return i18n.getString("EventDataLayout.dateTime","Date/Time") + "\n${timezone}";
                 }
             });
-            this.addColumnTemplate(new DataColumnTemplate(DATA_TIMESTAMP) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_TIMESTAMP, DataColumnTemplate.NO_EVENT_FIELDS) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -1138,7 +1138,7 @@ public class EventDataLayout
             });
 
             // -- Status Code/Description
-            this.addColumnTemplate(new DataColumnTemplate(DATA_STATUS_CODE) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_STATUS_CODE, DataColumnTemplate.NO_EVENT_FIELDS) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String   arg = StringTools.trim(rc.getArg()).toLowerCase();
                     EventData ed = (EventData)obj;
@@ -1175,7 +1175,7 @@ public class EventDataLayout
                     return i18n.getString("EventDataLayout.statusCode","Status#");
                 }
             });
-            this.addColumnTemplate(new DataColumnTemplate(DATA_STATUS_DESC) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_STATUS_DESC, DataColumnTemplate.NO_EVENT_FIELDS) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -1232,7 +1232,7 @@ public class EventDataLayout
             });
 
             // -- Entity ID
-            this.addColumnTemplate(new DataColumnTemplate(DATA_ENTITY_ID) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_ENTITY_ID, EventData.FLD_entityID) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -1260,7 +1260,7 @@ public class EventDataLayout
             });
 
             // -- Driver
-            this.addColumnTemplate(new DataColumnTemplate(DATA_DRIVER_ID) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_DRIVER_ID, EventData.FLD_driverID) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -1713,7 +1713,7 @@ public class EventDataLayout
             */
 
             // -- GPS Age
-            this.addColumnTemplate(new DataColumnTemplate(DATA_GPS_AGE) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_GPS_AGE, EventData.FLD_gpsAge) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -1739,7 +1739,7 @@ public class EventDataLayout
             });
 
             // -- Latitude
-            this.addColumnTemplate(new DataColumnTemplate(DATA_LATITUDE) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_LATITUDE, EventData.FLD_gpsAge, EventData.FLD_latitude) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -1782,7 +1782,7 @@ public class EventDataLayout
             });
             
             // -- Longitude
-            this.addColumnTemplate(new DataColumnTemplate(DATA_LONGITUDE) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_LONGITUDE, EventData.FLD_gpsAge, EventData.FLD_longitude) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -1825,7 +1825,7 @@ public class EventDataLayout
             });
 
             // -- Latitude/Longitude
-            this.addColumnTemplate(new DataColumnTemplate(DATA_GEOPOINT) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_GEOPOINT, EventData.FLD_gpsAge, EventData.FLD_latitude, EventData.FLD_longitude) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -1918,7 +1918,7 @@ public class EventDataLayout
             });
 
             // -- Accuracy
-            this.addColumnTemplate(new DataColumnTemplate(DATA_ACCURACY) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_ACCURACY, EventData.FLD_horzAccuracy) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -1939,7 +1939,7 @@ public class EventDataLayout
             });
 
             // -- Altitude
-            this.addColumnTemplate(new DataColumnTemplate(DATA_ALTITUDE) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_ALTITUDE, EventData.FLD_altitude) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -1994,7 +1994,7 @@ public class EventDataLayout
                 }
             });
             // -- Speed
-            this.addColumnTemplate(new DataColumnTemplate(DATA_SPEED) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_SPEED, EventData.FLD_speedKPH) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2013,7 +2013,7 @@ public class EventDataLayout
                 }
             });
             // -- Speed/Heading
-            this.addColumnTemplate(new DataColumnTemplate(DATA_SPEED_HEADING) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_SPEED_HEADING, EventData.FLD_speedKPH, EventData.FLD_heading) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2037,7 +2037,7 @@ public class EventDataLayout
                 }
             });
             // -- Speed with units
-            this.addColumnTemplate(new DataColumnTemplate(DATA_SPEED_UNITS) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_SPEED_UNITS, EventData.FLD_speedKPH, EventData.FLD_heading) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2063,7 +2063,7 @@ public class EventDataLayout
             });
 
             // -- Heading
-            this.addColumnTemplate(new DataColumnTemplate(DATA_HEADING) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_HEADING, EventData.FLD_speedKPH, EventData.FLD_heading) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2085,7 +2085,7 @@ public class EventDataLayout
             });
 
             // -- #Satellites
-            this.addColumnTemplate(new DataColumnTemplate(DATA_SATELLITES) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_SATELLITES, EventData.FLD_satelliteCount) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2103,7 +2103,7 @@ public class EventDataLayout
             });
 
             // -- Distance
-            this.addColumnTemplate(new DataColumnTemplate(DATA_DISTANCE) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_DISTANCE, EventData.FLD_distanceKM) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2121,7 +2121,7 @@ public class EventDataLayout
             });
 
             // -- Odometer
-            this.addColumnTemplate(new DataColumnTemplate(DATA_ODOMETER) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_ODOMETER, EventData.FLD_odometerKM, EventData.FLD_odometerOffsetKM, EventData.FLD_distanceKM) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String   arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2144,7 +2144,7 @@ public class EventDataLayout
             });
 
             // -- Report distance
-            this.addColumnTemplate(new DataColumnTemplate(DATA_REPORT_DISTANCE) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_REPORT_DISTANCE, DataColumnTemplate.NO_EVENT_FIELDS) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2470,7 +2470,7 @@ public class EventDataLayout
             });
 
             // -- Input Mask/State
-            this.addColumnTemplate(new DataColumnTemplate(DATA_INPUT_STATE) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_INPUT_STATE, EventData.FLD_inputMask) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2486,7 +2486,7 @@ public class EventDataLayout
                     return i18n.getString("EventDataLayout.inputBitMask","Inputs\n(BitMask)");
                 }
             });
-            this.addColumnTemplate(new DataColumnTemplate(DATA_INPUT_BIT) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_INPUT_BIT, EventData.FLD_inputMask) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     int argBit = StringTools.parseInt(rc.getArg(),0);
                     EventData ed = (EventData)obj;
@@ -2581,7 +2581,7 @@ public class EventDataLayout
             });
 
             // -- Geozone-ID
-            this.addColumnTemplate(new DataColumnTemplate(DATA_GEOZONE_ID) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_GEOZONE_ID, EventData.FLD_geozoneID) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2594,7 +2594,7 @@ public class EventDataLayout
             });
 
             // -- Geozone Description
-            this.addColumnTemplate(new DataColumnTemplate(DATA_GEOZONE_DESC) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_GEOZONE_DESC, EventData.FLD_geozoneID) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2607,7 +2607,7 @@ public class EventDataLayout
             });
 
             // -- Address
-            this.addColumnTemplate(new DataColumnTemplate(DATA_ADDRESS) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_ADDRESS, EventData.FLD_address) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2628,7 +2628,7 @@ public class EventDataLayout
             });
             
             // -- City
-            this.addColumnTemplate(new DataColumnTemplate(DATA_CITY) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_CITY, EventData.FLD_city) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2641,7 +2641,7 @@ public class EventDataLayout
             });
             
             // -- State/Province
-            this.addColumnTemplate(new DataColumnTemplate(DATA_STATE) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_STATE, EventData.FLD_stateProvince) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2654,7 +2654,7 @@ public class EventDataLayout
             });
 
             // -- Country
-            this.addColumnTemplate(new DataColumnTemplate(DATA_COUNTRY) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_COUNTRY, EventData.FLD_country) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -2868,7 +2868,7 @@ public class EventDataLayout
                     return i18n.getString("EventDataLayout.BatteryLevel","Battery\nLevel");
                 }
             });
-            this.addColumnTemplate(new DataColumnTemplate(DATA_BATTERY_VOLTS) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_BATTERY_VOLTS, EventData.FLD_batteryVolts) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -3021,7 +3021,7 @@ public class EventDataLayout
             });
 
             // -- Fuel
-            this.addColumnTemplate(new DataColumnTemplate(DATA_FUEL_LEVEL) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_FUEL_LEVEL, EventData.FLD_fuelLevel) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -3873,7 +3873,7 @@ public class EventDataLayout
             });
 
             // -- Engine
-            this.addColumnTemplate(new DataColumnTemplate(DATA_ENGINE_RPM) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_ENGINE_RPM, EventData.FLD_engineRpm) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -4366,7 +4366,7 @@ public class EventDataLayout
             });
 
             // -- DataSource/RawData (unparsed event packet)
-            this.addColumnTemplate(new DataColumnTemplate(DATA_DATA_SOURCE) {
+            this.addColumnTemplate(new DataColumnTemplate(DATA_DATA_SOURCE, EventData.FLD_dataSource) {
                 public Object getColumnValue(int rowNdx, ReportData rd, ReportColumn rc, Object obj) {
                     String arg = rc.getArg();
                     EventData ed = (EventData)obj;
@@ -128,6 +128,18 @@ public class EventDetailReport
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** Returns true if this report supports retrieving only the EventData fields required
+    *** by the displayed report columns.
+    *** @return True, EventData records are only used to display the report columns
+    **/
+    protected boolean getEventFieldProjectionSupported()
+    {
+        return true;
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Creates and returns an iterator for the row data displayed in the body of this report.
     *** @return The body row data iterator
@@ -198,6 +198,28 @@ public class EventSummaryReport
 
     }
 
+    /**
+    *** Returns false, "isEventDataMatch" selects at most one EventData record per device
+    *** @return False
+    **/
+    @Override
+    protected boolean isEventDataMatchAll()
+    {
+        return false;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if this report supports retrieving only the EventData fields required
+    *** by the displayed report columns.
+    *** @return True, "isEventDataMatch" does not access EventData fields
+    **/
+    protected boolean getEventFieldProjectionSupported()
+    {
+        return true;
+    }
+
     // ------------------------------------------------------------------------
 
     /**
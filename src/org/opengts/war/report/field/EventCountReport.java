@@ -145,74 +145,90 @@ public class EventCountReport
         /* init */
         this.rowData = new Vector<FieldData>();
 
-        /* loop through devices */
-        String devID = "";
-        ReportDeviceList devList = this.getReportDeviceList();
+        /* list of devices */
+        final ReportDeviceList devList = this.getReportDeviceList();
+        java.util.List<String> devIDList = new Vector<String>();
         for (Iterator i = devList.iterator(); i.hasNext();) {
-            devID = (String)i.next();
-            try {
-
-                /* get Device record */
-                Device device = devList.getDevice(devID);
-                if (device == null) {
-                    // unlikely
-                    Print.logError("Returned DeviceList 'Device' is null: " + devID);
-                    continue;
-                }
+            devIDList.add((String)i.next());
+        }
 
-                /* report date range */
-                long startTime = this.getTimeStart();
-                long   endTime = this.getTimeEnd();
-                TimeZone    tz = this.getTimeZone();
-
-                /* summarize type? */
-                if (this.summarizeByDay) {
-
-                    // summarize by day
-                    // count events by day between date-range
-                    for (long dayStart = startTime; dayStart < endTime;) {
-                        // calculate start/end time for current day
-                        DateTime dayDT = new DateTime(dayStart,tz);
-                        long dayEnd = dayDT.getDayEnd(tz); // 23:59:59
-                        if (dayEnd > endTime) { dayEnd = endTime; } // will exit on next iteration
-                        // get counts
-                        long rcdCount = this.countEventData(device, dayStart, dayEnd);
-                        // create report record
-                        FieldData fd = new FieldData();
-                        fd.setDevice(device);
-                        fd.setString(FieldLayout.DATA_DEVICE_ID, devID);
-                        fd.setLong(  FieldLayout.DATA_DATE     , dayDT.getDayNumber(tz));
-                        fd.setLong(  FieldLayout.DATA_COUNT    , rcdCount);
-                        this.rowData.add(fd); // single record per device
-                        // next day
-                        dayStart = dayEnd + 1; // beginning of next day
-                    }
-
-                } else {
-
-                    /* count total events for date-range */
-                    long rcdCount = this.countEventData(device, startTime, endTime);
-                    FieldData fd = new FieldData();
-                    fd.setDevice(device);
-                    fd.setString(FieldLayout.DATA_DEVICE_ID, devID);
-                    fd.setLong(  FieldLayout.DATA_COUNT    , rcdCount);
-                    this.rowData.add(fd); // single record per device
-                    
+        /* count events for each device (in parallel) */
+        java.util.List<java.util.List<FieldData>> devRows = this.processReportDevices(devIDList,
+            new ReportDeviceProcessor<java.util.List<FieldData>>() {
+                public java.util.List<FieldData> processDevice(String devID) throws DBException {
+                    return EventCountReport.this._getDeviceRows(devList, devID);
                 }
+            });
+        for (java.util.List<FieldData> rows : devRows) {
+            this.rowData.addAll(rows);
+        }
+
+        /* return data iterator */
+        FieldData.sortByDeviceDescription(this.rowData);
+        return new ListDataIterator(this.rowData);
+        
+    }
 
-            } catch (DBException dbe) {
+    /**
+    *** Returns the report rows for the specified device
+    *** @param devList  The ReportDeviceList
+    *** @param devID    The device ID
+    *** @return The device report rows, or null if the device was not found
+    **/
+    private java.util.List<FieldData> _getDeviceRows(ReportDeviceList devList, String devID)
+        throws DBException
+    {
 
-                // error encountered
-                Print.logError("Error retrieving EventData count for Device: " + devID);
+        /* get Device record */
+        Device device = devList.getDevice(devID);
+        if (device == null) {
+            // unlikely
+            Print.logError("Returned DeviceList 'Device' is null: " + devID);
+            return null;
+        }
 
+        /* report date range */
+        long startTime = this.getTimeStart();
+        long   endTime = this.getTimeEnd();
+        TimeZone    tz = this.getTimeZone();
+
+        /* summarize type? */
+        java.util.List<FieldData> rows = new Vector<FieldData>();
+        if (this.summarizeByDay) {
+
+            // summarize by day
+            // count events by day between date-range
+            for (long dayStart = startTime; dayStart < endTime;) {
+                // calculate start/end time for current day
+                DateTime dayDT = new DateTime(dayStart,tz);
+                long dayEnd = dayDT.getDayEnd(tz); // 23:59:59
+                if (dayEnd > endTime) { dayEnd = endTime; } // will exit on next iteration
+                // get counts
+                long rcdCount = this.countEventData(device, dayStart, dayEnd);
+                // create report record
+                FieldData fd = new FieldData();
+                fd.setDevice(device);
+                fd.setString(FieldLayout.DATA_DEVICE_ID, devID);
+                fd.setLong(  FieldLayout.DATA_DATE     , dayDT.getDayNumber(tz));
+                fd.setLong(  FieldLayout.DATA_COUNT    , rcdCount);
+                rows.add(fd); // single record per device
+                // next day
+                dayStart = dayEnd + 1; // beginning of next day
             }
 
+        } else {
+
+            /* count total events for date-range */
+            long rcdCount = this.countEventData(device, startTime, endTime);
+            FieldData fd = new FieldData();
+            fd.setDevice(device);
+            fd.setString(FieldLayout.DATA_DEVICE_ID, devID);
+            fd.setLong(  FieldLayout.DATA_COUNT    , rcdCount);
+            rows.add(fd); // single record per device
+            
         }
+        return rows;
 
-        /* return data iterator */
-        FieldData.sortByDeviceDescription(this.rowData);
-        return new ListDataIterator(this.rowData);
-        
     }
 
     /**
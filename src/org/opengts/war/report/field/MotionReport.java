@@ -601,248 +601,61 @@ public class MotionReport
         this.deviceTotalData = new Vector<FieldData>();
 
         /* device list */
-        Account account   = this.getAccount();
-        String  accountID = account.getAccountID();
-        ReportDeviceList devList = this.getReportDeviceList();
-
-        /* loop through devices */
-        deviceListIterator:
+        final Account account = this.getAccount();
+        final ReportDeviceList devList = this.getReportDeviceList();
+        java.util.List<String> devIDList = new Vector<String>();
         for (Iterator i = devList.iterator(); i.hasNext();) {
-            String devID = (String)i.next();
-            //Print.logInfo("Processing events for device: " + devID);
-
-            /* init detail data iterator */
-            this.deviceDetailData    = new Vector<FieldData>();
-
-            /* reset device totals */
-            this.totalOdomKM         = 0.0;
-            this.totalDriveSec       = 0L ;
-            this.totalDriveFuel      = 0.0;
-            this.totalStopCount      = 0;
-            this.totalStopSec        = 0L ;
-            this.totalIdleSec        = 0L ;
-            this.totalIdleFuel       = 0.0;
-            this.tworkOdomKM         = 0.0;
-            this.tworkDriveSec       = 0L;
-            this.tworkDriveFuel      = 0.0;
-            this.tworkStopCount      = 0;
-            this.tworkIdleFuel       = 0.0;
-
-            // reset ignition state
-            this.isIgnitionOn        = false;
-            this.lastIgnitionEvent   = null;
-            this.ignitionCodes       = null;
-            // reset idle state
-            this.idleStartEvent      = null;
-            this.idleStopEvent       = null;
-            this.idleAccumulator     = 0L;
-            // reset motion
-            this.isInMotion          = false;
-            this.lastMotionEvent     = null;
-            // reset start
-            this.lastStartTime       = 0L;
-            this.lastStartPoint      = null;
-            this.lastStartAddress    = "";
-            this.lastStartOdometer   = 0.0;
-            this.lastStartOdomOfs    = 0.0;
-            this.lastStartFuelUsed   = 0.0;
-            this.lastStartFuelLevel  = 0.0;
-            this.lastStartFuelRemain = 0.0;
-            // reset stop
-            this.lastStopTime        = 0L;
-            this.lastStopPoint       = null;
-            this.lastStopAddress     = "";
-            this.lastStopOdometer    = 0.0;
-            this.lastStopOdomOfs     = 0.0;
-            this.lastStopFuelUsed    = 0.0;
-            this.lastStopFuelLevel   = 0.0;
-            this.lastStopFuelRemain  = 0.0;
-            // reset state
-            this.lastStateChange     = STATE_UNKNOWN;
-            // reset last valid odometer
-            this.lastValidOdometerKM = 0.0;
-            this.lastValidOdomOfsKM  = 0.0;
-
-            try {
-
-                /* get device */
-                Device device = devList.getDevice(devID);
-                if (device == null) {
-                    continue; // deviceListIterator
-                }
+            devIDList.add((String)i.next());
+        }
 
-                // Device ignition statusCodes
-                this.ignitionCodes = device.getIgnitionStatusCodes();
-                boolean hasIgnition = (this.ignitionCodes != null);
-
-                // -- trip start/stop type
-                RTProperties rtp = this.getProperties();
-                String tt = rtp.getString(PROP_tripStartType,MOTION_SPEED[0]).toLowerCase();
-                //Print.logInfo("Trip type: " + tt);
-                if (ListTools.contains(MOTION_DEFAULT,tt)) {
-                    // -- "default" (TRIP_ON_ENGINE not selected when using "default")
-                    String devCode = device.getDeviceCode();
-                    DCServerConfig dcs = DCServerFactory.getServerConfig(devCode);
-                    if ((dcs == null) && StringTools.isBlank(devCode) && Account.IsDemoAccount(accountID)) {
-                        // -- special case for "demo" account when 'deviceCode' is blank
-                        dcs = DCServerFactory.getServerConfig(DCServerFactory.OPENDMTP_NAME);
-                        if (dcs == null) {
-                            Print.logWarn("Account 'demo' DCServerConfig not found: " + DCServerFactory.OPENDMTP_NAME);
-                        }
-                    }
-                    if (dcs != null) {
-                        // -- DCServerConfig found
-                        if (dcs.getStartStopSupported(false)) {
-                            // Device supports start/stop
-                            this.tripStartType = TRIP_ON_START;
-                        } else
-                        if (hasIgnition) {
-                            // -- Device supports ignition state
-                            this.tripStartType = TRIP_ON_IGNITION;
-                        } else {
-                            // -- Default to speed
-                            this.tripStartType = TRIP_ON_SPEED;
-                        }
-                    } else {
-                        // -- DCServerConfig not found ('deviceCode' is either blank or invalid)
-                        if (hasIgnition) {
-                            // -- Device supports ignition state
-                            this.tripStartType = TRIP_ON_IGNITION;
-                        } else {
-                            // -- Default
-                            this.tripStartType = TRIP_ON_SPEED;
-                        }
-                    }
-                    this.tripTypeDefault = true;
-                } else
-                if (ListTools.contains(MOTION_STARTSTOP,tt)) {
-                    // "startstop"
-                    this.tripStartType = TRIP_ON_START;
-                    this.tripTypeDefault = false;
-                } else
-                if (ListTools.contains(MOTION_IGNITION,tt)/* && hasIgnition */) {
-                    // "ignition"
-                    this.tripStartType   = TRIP_ON_IGNITION;
-                    this.tripTypeDefault = false;
-                    if (!hasIgnition) {
-                        this.ignitionCodes = new int[] { StatusCodes.STATUS_IGNITION_OFF, StatusCodes.STATUS_IGNITION_ON };
-                        hasIgnition = true;
-                    }
-                } else
-                if (ListTools.contains(MOTION_ENGINE,tt)) {
-                    // "ignition"
-                    this.tripStartType   = TRIP_ON_ENGINE;
-                    this.tripTypeDefault = false;
-                } else {
-                    // "speed", "motion"
-                    this.tripStartType   = TRIP_ON_SPEED;
-                    this.tripTypeDefault = true;
+        /* process devices */
+        java.util.List<FieldData> devTotals;
+        if (this.isFleetReport && (devIDList.size() > 1)) {
+            // -- each device is processed on a separate copy of this report (in parallel)
+            devTotals = this.processReportDevices(devIDList, new ReportDeviceProcessor<FieldData>() {
+                public FieldData processDevice(String devID) throws DBException {
+                    MotionReport worker = (MotionReport)MotionReport.this.createDeviceWorker();
+                    return (worker != null)? worker._processDevice(account, devList, devID) : null;
                 }
-
-                /* debug */
-                if (RTConfig.isDebugMode()) {
-                    Print.logDebug("Trip Start Type: [" + this.tripStartType + "] " + TripTypeName(this.tripStartType));
-                    if (hasIgnition) {
-                        String ignOff = StatusCodes.GetHex(this.ignitionCodes[0]);
-                        String ignOn  = StatusCodes.GetHex(this.ignitionCodes[1]);
-                        Print.logDebug("Device Ignition Codes "+ignOff+":"+ignOn+" [" + accountID + "/" + devID + "]");
-                    } else {
-                        Print.logDebug("No defined Device ignition codes [" + accountID + "/" + devID + "]");
+            });
+        } else {
+            devTotals = new Vector<FieldData>();
+            for (String devID : devIDList) {
+                try {
+                    FieldData fd = this._processDevice(account, devList, devID);
+                    if (fd != null) {
+                        devTotals.add(fd);
                     }
+                } catch (DBException dbe) {
+                    Print.logError("Error retrieving EventData for Device: " + devID);
                 }
-
-                // get events
-                // this.lastValidOdometerKM = 0.0; <-- already reset above
-                this.deviceEventIndex = 0L; // provide an index to all events read
-                this.getEventData(device, this); // <== callback to 'handleDBRecord'
-                //Print.logInfo("Total Accumulated Idle Time: " + this.totalIdleSec + " seconds");
-
-                // -- handle final record here
-                if (this.lastStopTime > 0) {
-                    // -- we are stopped
-                    long   driveTime = (this.lastStartTime > 0L)? (this.lastStopTime     - this.lastStartTime    ) : -1L;
-                    double driveDist = (this.lastStartTime > 0L)? (this.lastStopOdometer - this.lastStartOdometer) : -1.0; // kilometers
-                    double fuelTrip  = (this.lastStartTime > 0L)? (this.lastStopFuelUsed - this.lastStartFuelUsed) : -1.0; // liter
-                    double driveEcon = (fuelTrip > 0.0)? (driveDist / fuelTrip) : 0.0; // kilometers per liter
-                    Device.FuelEconomyType driveEconType = Device.FuelEconomyType.FUEL_CONSUMED;
-                    long   stopElaps = -1L;
-                    long   idleElaps = (this.idleAccumulator > 0L)? this.idleAccumulator : -1L;
-                    double fuelIdle  = -1.0;
-                    this._addRecord(accountID, devID, device,
-                        this.lastStartTime  , this.lastStartPoint, this.lastStartAddress, this.lastStartOdometer, this.lastStartOdomOfs, this.lastStartFuelUsed,
-                        this.lastStopTime   , this.lastStopPoint , this.lastStopAddress , this.lastStopOdometer , this.lastStopOdomOfs , this.lastStopFuelUsed ,
-                        driveTime, driveDist, fuelTrip, driveEcon, driveEconType,
-                        stopElaps, idleElaps, fuelIdle);
-                } else
-                if (this.lastStartTime > 0) {
-                    // -- we haven't stopped during the range of this report
-                    long   driveTime = -1L;
-                    double driveDist = -1.0; // kilometers
-                    double fuelTrip  = -1.0; // liters
-                    double driveEcon = -1.0; // kilometers per liter
-                    Device.FuelEconomyType driveEconType = Device.FuelEconomyType.UNKNOWN;
-                    long   stopElaps = -1L;
-                    long   idleElaps = -1L;
-                    double fuelIdle  = -1.0;
-                    this._addRecord(accountID, devID, device,
-                        this.lastStartTime  , this.lastStartPoint, this.lastStartAddress, this.lastStartOdometer, this.lastStartOdomOfs, this.lastStartFuelUsed,
-                        -1L                 , null               , ""                   , -1.0                  , 0.0                  , -1.0                  ,
-                        driveTime, driveDist, fuelTrip, driveEcon, driveEconType,
-                        stopElaps, idleElaps, fuelIdle);
-                }
-                
-                /* fuel economy */
-                double driveEcon = (this.totalDriveFuel > 0.0)? (this.totalOdomKM / this.totalDriveFuel) : 0.0;
-                Device.FuelEconomyType driveEconType = Device.FuelEconomyType.FUEL_CONSUMED;
-
-                /* device total record */
-                FieldData fd = new FieldData();
-                fd.setRowType(DBDataRow.RowType.TOTAL);
-                long   idleElaps = (this.totalIdleSec > 0L)? this.totalIdleSec : -1L;
-                fd.setAccount(account);
-                fd.setDevice(device);
-                fd.setString(FieldLayout.DATA_ACCOUNT_ID        , this.getAccountID());
-                fd.setString(FieldLayout.DATA_DEVICE_ID         , devID);
-                fd.setDouble(FieldLayout.DATA_ODOMETER_DELTA    , this.totalOdomKM); // odomDelta
-                fd.setLong(  FieldLayout.DATA_DRIVING_ELAPSED   , this.totalDriveSec);
-                fd.setDouble(FieldLayout.DATA_FUEL_TRIP         , this.totalDriveFuel);
-                fd.setDouble(FieldLayout.DATA_FUEL_ECONOMY      , driveEcon);
-                fd.setValue( FieldLayout.DATA_FUEL_ECONOMY_TYPE , driveEconType);
-                fd.setLong(  FieldLayout.DATA_STOP_COUNT        , this.totalStopCount);
-                fd.setLong(  FieldLayout.DATA_STOP_ELAPSED      , this.totalStopSec);
-                fd.setLong(  FieldLayout.DATA_IDLE_ELAPSED      , idleElaps);
-                fd.setDouble(FieldLayout.DATA_FUEL_IDLE         , this.totalIdleFuel);
-                // Work Hours
-                fd.setLong(  FieldLayout.DATA_DRIVING_ELAPSED_WH, this.tworkDriveSec);
-                fd.setDouble(FieldLayout.DATA_ODOMETER_DELTA_WH , this.tworkOdomKM);
-                fd.setDouble(FieldLayout.DATA_FUEL_TRIP_WH      , this.tworkDriveFuel);
-                fd.setDouble(FieldLayout.DATA_FUEL_IDLE_WH      , this.tworkIdleFuel);
-                fd.setLong(  FieldLayout.DATA_STOP_COUNT_WH     , this.tworkStopCount);
-                // After Hours
-                fd.setLong(  FieldLayout.DATA_DRIVING_ELAPSED_AH, (this.totalDriveSec - this.tworkDriveSec));
-                fd.setDouble(FieldLayout.DATA_ODOMETER_DELTA_AH , (this.totalOdomKM - this.tworkOdomKM));
-                this.deviceTotalData.add(fd);
-
-                /* grand totals */
-                grandTotalOdomKM    += this.totalOdomKM;
-                grandTotalDriveSec  += this.totalDriveSec;
-                grandTotalDriveFuel += this.totalDriveFuel;
-                grandTotalStopCount += this.totalStopCount;
-                grandTotalStopSec   += this.totalStopSec;
-                grandTotalIdleSec   += this.totalIdleSec;
-                grandTotalIdleFuel  += this.totalIdleFuel;
-                // Work Hours
-                gworkTotalOdomKM    += this.tworkOdomKM;
-                gworkTotalDriveSec  += this.tworkDriveSec;
-                // After Hours
-                gafterTotalOdomKM   += (this.totalOdomKM - this.tworkOdomKM);
-                gafterTotalDriveSec += (this.totalDriveSec - this.tworkDriveSec);
-
-            } catch (DBException dbe) {
-                Print.logError("Error retrieving EventData for Device: " + devID);
             }
+        }
 
-        } // Device list iterator
+        /* device totals (in device list order) */
+        for (FieldData fd : devTotals) {
+            this.deviceTotalData.add(fd);
+
+            /* grand totals */
+            double totalOdomKM   = fd.getDouble(FieldLayout.DATA_ODOMETER_DELTA);
+            long   totalDriveSec = fd.getLong(  FieldLayout.DATA_DRIVING_ELAPSED);
+            double tworkOdomKM   = fd.getDouble(FieldLayout.DATA_ODOMETER_DELTA_WH);
+            long   tworkDriveSec = fd.getLong(  FieldLayout.DATA_DRIVING_ELAPSED_WH);
+            grandTotalOdomKM    += totalOdomKM;
+            grandTotalDriveSec  += totalDriveSec;
+            grandTotalDriveFuel += fd.getDouble(FieldLayout.DATA_FUEL_TRIP);
+            grandTotalStopCount += (int)fd.getLong(FieldLayout.DATA_STOP_COUNT);
+            grandTotalStopSec   += fd.getLong(  FieldLayout.DATA_STOP_ELAPSED);
+            grandTotalIdleSec   += Math.max(fd.getLong(FieldLayout.DATA_IDLE_ELAPSED), 0L); // -1 if none
+            grandTotalIdleFuel  += fd.getDouble(FieldLayout.DATA_FUEL_IDLE);
+            // Work Hours
+            gworkTotalOdomKM    += tworkOdomKM;
+            gworkTotalDriveSec  += tworkDriveSec;
+            // After Hours
+            gafterTotalOdomKM   += (totalOdomKM - tworkOdomKM);
+            gafterTotalDriveSec += (totalDriveSec - tworkDriveSec);
+
+        }
 
         /* return row iterator */
         if (this.isFleetReport) {
@@ -905,6 +718,234 @@ public class MotionReport
         
     }
 
+    /**
+    *** Processes the EventData records for the specified device and returns the device
+    *** total row.  Detail rows are added to "deviceDetailData".
+    *** @param account  The report Account
+    *** @param devList  The ReportDeviceList
+    *** @param devID    The device ID
+    *** @return The device total row, or null if the device was not found
+    **/
+    private FieldData _processDevice(Account account, ReportDeviceList devList, String devID)
+        throws DBException
+    {
+        String accountID = account.getAccountID();
+        //Print.logInfo("Processing events for device: " + devID);
+
+        /* init detail data iterator */
+        this.deviceDetailData    = new Vector<FieldData>();
+
+        /* reset device totals */
+        this.totalOdomKM         = 0.0;
+        this.totalDriveSec       = 0L ;
+        this.totalDriveFuel      = 0.0;
+        this.totalStopCount      = 0;
+        this.totalStopSec        = 0L ;
+        this.totalIdleSec        = 0L ;
+        this.totalIdleFuel       = 0.0;
+        this.tworkOdomKM         = 0.0;
+        this.tworkDriveSec       = 0L;
+        this.tworkDriveFuel      = 0.0;
+        this.tworkStopCount      = 0;
+        this.tworkIdleFuel       = 0.0;
+
+        // reset ignition state
+        this.isIgnitionOn        = false;
+        this.lastIgnitionEvent   = null;
+        this.ignitionCodes       = null;
+        // reset idle state
+        this.idleStartEvent      = null;
+        this.idleStopEvent       = null;
+        this.idleAccumulator     = 0L;
+        // reset motion
+        this.isInMotion          = false;
+        this.lastMotionEvent     = null;
+        // reset start
+        this.lastStartTime       = 0L;
+        this.lastStartPoint      = null;
+        this.lastStartAddress    = "";
+        this.lastStartOdometer   = 0.0;
+        this.lastStartOdomOfs    = 0.0;
+        this.lastStartFuelUsed   = 0.0;
+        this.lastStartFuelLevel  = 0.0;
+        this.lastStartFuelRemain = 0.0;
+        // reset stop
+        this.lastStopTime        = 0L;
+        this.lastStopPoint       = null;
+        this.lastStopAddress     = "";
+        this.lastStopOdometer    = 0.0;
+        this.lastStopOdomOfs     = 0.0;
+        this.lastStopFuelUsed    = 0.0;
+        this.lastStopFuelLevel   = 0.0;
+        this.lastStopFuelRemain  = 0.0;
+        // reset state
+        this.lastStateChange     = STATE_UNKNOWN;
+        // reset last valid odometer
+        this.lastValidOdometerKM = 0.0;
+        this.lastValidOdomOfsKM  = 0.0;
+
+        /* get device */
+        Device device = devList.getDevice(devID);
+        if (device == null) {
+            return null;
+        }
+
+        // Device ignition statusCodes
+        this.ignitionCodes = device.getIgnitionStatusCodes();
+        boolean hasIgnition = (this.ignitionCodes != null);
+
+        // -- trip start/stop type
+        RTProperties rtp = this.getProperties();
+        String tt = rtp.getString(PROP_tripStartType,MOTION_SPEED[0]).toLowerCase();
+        //Print.logInfo("Trip type: " + tt);
+        if (ListTools.contains(MOTION_DEFAULT,tt)) {
+            // -- "default" (TRIP_ON_ENGINE not selected when using "default")
+            String devCode = device.getDeviceCode();
+            DCServerConfig dcs = DCServerFactory.getServerConfig(devCode);
+            if ((dcs == null) && StringTools.isBlank(devCode) && Account.IsDemoAccount(accountID)) {
+                // -- special case for "demo" account when 'deviceCode' is blank
+                dcs = DCServerFactory.getServerConfig(DCServerFactory.OPENDMTP_NAME);
+                if (dcs == null) {
+                    Print.logWarn("Account 'demo' DCServerConfig not found: " + DCServerFactory.OPENDMTP_NAME);
+                }
+            }
+            if (dcs != null) {
+                // -- DCServerConfig found
+                if (dcs.getStartStopSupported(false)) {
+                    // Device supports start/stop
+                    this.tripStartType = TRIP_ON_START;
+                } else
+                if (hasIgnition) {
+                    // -- Device supports ignition state
+                    this.tripStartType = TRIP_ON_IGNITION;
+                } else {
+                    // -- Default to speed
+                    this.tripStartType = TRIP_ON_SPEED;
+                }
+            } else {
+                // -- DCServerConfig not found ('deviceCode' is either blank or invalid)
+                if (hasIgnition) {
+                    // -- Device supports ignition state
+                    this.tripStartType = TRIP_ON_IGNITION;
+                } else {
+                    // -- Default
+                    this.tripStartType = TRIP_ON_SPEED;
+                }
+            }
+            this.tripTypeDefault = true;
+        } else
+        if (ListTools.contains(MOTION_STARTSTOP,tt)) {
+            // "startstop"
+            this.tripStartType = TRIP_ON_START;
+            this.tripTypeDefault = false;
+        } else
+        if (ListTools.contains(MOTION_IGNITION,tt)/* && hasIgnition */) {
+            // "ignition"
+            this.tripStartType   = TRIP_ON_IGNITION;
+            this.tripTypeDefault = false;
+            if (!hasIgnition) {
+                this.ignitionCodes = new int[] { StatusCodes.STATUS_IGNITION_OFF, StatusCodes.STATUS_IGNITION_ON };
+                hasIgnition = true;
+            }
+        } else
+        if (ListTools.contains(MOTION_ENGINE,tt)) {
+            // "ignition"
+            this.tripStartType   = TRIP_ON_ENGINE;
+            this.tripTypeDefault = false;
+        } else {
+            // "speed", "motion"
+            this.tripStartType   = TRIP_ON_SPEED;
+            this.tripTypeDefault = true;
+        }
+
+        /* debug */
+        if (RTConfig.isDebugMode()) {
+            Print.logDebug("Trip Start Type: [" + this.tripStartType + "] " + TripTypeName(this.tripStartType));
+            if (hasIgnition) {
+                String ignOff = StatusCodes.GetHex(this.ignitionCodes[0]);
+                String ignOn  = StatusCodes.GetHex(this.ignitionCodes[1]);
+                Print.logDebug("Device Ignition Codes "+ignOff+":"+ignOn+" [" + accountID + "/" + devID + "]");
+            } else {
+                Print.logDebug("No defined Device ignition codes [" + accountID + "/" + devID + "]");
+            }
+        }
+
+        // get events
+        // this.lastValidOdometerKM = 0.0; <-- already reset above
+        this.deviceEventIndex = 0L; // provide an index to all events read
+        this.getEventData(device, this); // <== callback to 'handleDBRecord'
+        //Print.logInfo("Total Accumulated Idle Time: " + this.totalIdleSec + " seconds");
+
+        // -- handle final record here
+        if (this.lastStopTime > 0) {
+            // -- we are stopped
+            long   driveTime = (this.lastStartTime > 0L)? (this.lastStopTime     - this.lastStartTime    ) : -1L;
+            double driveDist = (this.lastStartTime > 0L)? (this.lastStopOdometer - this.lastStartOdometer) : -1.0; // kilometers
+            double fuelTrip  = (this.lastStartTime > 0L)? (this.lastStopFuelUsed - this.lastStartFuelUsed) : -1.0; // liter
+            double driveEcon = (fuelTrip > 0.0)? (driveDist / fuelTrip) : 0.0; // kilometers per liter
+            Device.FuelEconomyType driveEconType = Device.FuelEconomyType.FUEL_CONSUMED;
+            long   stopElaps = -1L;
+            long   idleElaps = (this.idleAccumulator > 0L)? this.idleAccumulator : -1L;
+            double fuelIdle  = -1.0;
+            this._addRecord(accountID, devID, device,
+                this.lastStartTime  , this.lastStartPoint, this.lastStartAddress, this.lastStartOdometer, this.lastStartOdomOfs, this.lastStartFuelUsed,
+                this.lastStopTime   , this.lastStopPoint , this.lastStopAddress , this.lastStopOdometer , this.lastStopOdomOfs , this.lastStopFuelUsed ,
+                driveTime, driveDist, fuelTrip, driveEcon, driveEconType,
+                stopElaps, idleElaps, fuelIdle);
+        } else
+        if (this.lastStartTime > 0) {
+            // -- we haven't stopped during the range of this report
+            long   driveTime = -1L;
+            double driveDist = -1.0; // kilometers
+            double fuelTrip  = -1.0; // liters
+            double driveEcon = -1.0; // kilometers per liter
+            Device.FuelEconomyType driveEconType = Device.FuelEconomyType.UNKNOWN;
+            long   stopElaps = -1L;
+            long   idleElaps = -1L;
+            double fuelIdle  = -1.0;
+            this._addRecord(accountID, devID, device,
+                this.lastStartTime  , this.lastStartPoint, this.lastStartAddress, this.lastStartOdometer, this.lastStartOdomOfs, this.lastStartFuelUsed,
+                -1L                 , null               , ""                   , -1.0                  , 0.0                  , -1.0                  ,
+                driveTime, driveDist, fuelTrip, driveEcon, driveEconType,
+                stopElaps, idleElaps, fuelIdle);
+        }
+        
+        /* fuel economy */
+        double driveEcon = (this.totalDriveFuel > 0.0)? (this.totalOdomKM / this.totalDriveFuel) : 0.0;
+        Device.FuelEconomyType driveEconType = Device.FuelEconomyType.FUEL_CONSUMED;
+
+        /* device total record */
+        FieldData fd = new FieldData();
+        fd.setRowType(DBDataRow.RowType.TOTAL);
+        long   idleElaps = (this.totalIdleSec > 0L)? this.totalIdleSec : -1L;
+        fd.setAccount(account);
+        fd.setDevice(device);
+        fd.setString(FieldLayout.DATA_ACCOUNT_ID        , this.getAccountID());
+        fd.setString(FieldLayout.DATA_DEVICE_ID         , devID);
+        fd.setDouble(FieldLayout.DATA_ODOMETER_DELTA    , this.totalOdomKM); // odomDelta
+        fd.setLong(  FieldLayout.DATA_DRIVING_ELAPSED   , this.totalDriveSec);
+        fd.setDouble(FieldLayout.DATA_FUEL_TRIP         , this.totalDriveFuel);
+        fd.setDouble(FieldLayout.DATA_FUEL_ECONOMY      , driveEcon);
+        fd.setValue( FieldLayout.DATA_FUEL_ECONOMY_TYPE , driveEconType);
+        fd.setLong(  FieldLayout.DATA_STOP_COUNT        , this.totalStopCount);
+        fd.setLong(  FieldLayout.DATA_STOP_ELAPSED      , this.totalStopSec);
+        fd.setLong(  FieldLayout.DATA_IDLE_ELAPSED      , idleElaps);
+        fd.setDouble(FieldLayout.DATA_FUEL_IDLE         , this.totalIdleFuel);
+        // Work Hours
+        fd.setLong(  FieldLayout.DATA_DRIVING_ELAPSED_WH, this.tworkDriveSec);
+        fd.setDouble(FieldLayout.DATA_ODOMETER_DELTA_WH , this.tworkOdomKM);
+        fd.setDouble(FieldLayout.DATA_FUEL_TRIP_WH      , this.tworkDriveFuel);
+        fd.setDouble(FieldLayout.DATA_FUEL_IDLE_WH      , this.tworkIdleFuel);
+        fd.setLong(  FieldLayout.DATA_STOP_COUNT_WH     , this.tworkStopCount);
+        // After Hours
+        fd.setLong(  FieldLayout.DATA_DRIVING_ELAPSED_AH, (this.totalDriveSec - this.tworkDriveSec));
+        fd.setDouble(FieldLayout.DATA_ODOMETER_DELTA_AH , (this.totalOdomKM - this.tworkOdomKM));
+        return fd;
+
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Creates and returns an iterator for the row data displayed in the total rows of this report.
     *** @return The total row data iterator
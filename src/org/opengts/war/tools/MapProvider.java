@@ -94,6 +94,11 @@ public interface MapProvider
     public static final String  ID_ZONE_LATITUDE_               = "trackMapZoneLatitude_";
     public static final String  ID_ZONE_LONGITUDE_              = "trackMapZoneLongitude_";
 
+    // ------------------------------------------------------------------------
+
+    /* map update request parameters */
+    public static final String  PARM_MAP_SIMPLIFY               = "simplify";   // "true"|"false"
+
     // ------------------------------------------------------------------------
     // Preferred/Default map width/height
     // Note: 'contentTableFrame' in 'private.xml' should have dimensions based on the map size,
@@ -132,6 +137,8 @@ public interface MapProvider
     public static final String  PROP_map_view[]                 = new String[] { "map.view"                                          };  // String  (road|satellite|hybrid)
     public static final String  PROP_map_minProximity[]         = new String[] { "map.minProximity" /*meters*/                       };  // double  (mim meters between events)
     public static final String  PROP_map_includeGeozones[]      = new String[] { "map.includeGeozones"    , "includeGeozones"        };  // boolean (include traversed Geozones)
+    public static final String  PROP_map_simplify[]             = new String[] { "map.simplify"                                      };  // boolean (simplify device route-line)
+    public static final String  PROP_map_simplify_pixels[]      = new String[] { "map.simplify.pixels"                               };  // double  (route simplification tolerance pixels)
     public static final String  PROP_pushpin_zoom[]             = new String[] { "pushpin.zoom"                                      };  // dbl/int (default zoom with points)
     public static final String  PROP_default_zoom[]             = new String[] { "default.zoom"                                      };  // dbl/int (default zoom without points)
     public static final String  PROP_default_latitude[]         = new String[] { "default.lat"            , "default.latitude"       };  // double  (default latitude)
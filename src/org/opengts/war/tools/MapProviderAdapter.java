@@ -1045,6 +1045,7 @@ public abstract class MapProviderAdapter
         boolean      fleetRoute = (reqState.getFleetDeviceEventCount() > 1L);
         boolean      inclZones  = this.getProperties().getBoolean(MapProvider.PROP_map_includeGeozones, false);
         OrderedSet<String> iconKeys = (OrderedSet<String>)this.getPushpinIconMap(reqState).keySet();
+        RouteSimplifier simplifier  = isFleet? null : this.getRouteSimplifier(reqState, evdata);
 
         /* return events */
         try {
@@ -1073,7 +1074,8 @@ public abstract class MapProviderAdapter
                 isFleet, fleetRoute, selID,
                 tmz, 
                 acct, user,
-                latest, lastBatt, lastSig, proximityM);
+                latest, lastBatt, lastSig, proximityM,
+                simplifier);
         } catch (IOException ioe) {
             Print.logException("Error writing events", ioe);
             out.println("\nError writing Events"); // output is Mime type plain
@@ -1083,6 +1085,55 @@ public abstract class MapProviderAdapter
 
     // ------------------------------------------------------------------------
 
+    /**
+    *** Returns the RouteSimplifier for the current map update request, or null if the route
+    *** should not be simplified.  Simplification is enabled by the "map.simplify" property,
+    *** and may be overridden per request with the "simplify" parameter.  The tolerance is
+    *** derived from the bounds of the displayed events (which the map will be zoomed to fit)
+    *** and the map dimensions.  The simplified route is only used for the route-line, all
+    *** events are still displayed as pushpins.
+    *** @param reqState  The RequestProperties state from the current session
+    *** @param evdata    The events to be displayed on the map
+    *** @return The RouteSimplifier, or null
+    **/
+    protected RouteSimplifier getRouteSimplifier(RequestProperties reqState, EventData evdata[])
+    {
+        HttpServletRequest request = reqState.getHttpServletRequest();
+        if (request == null) {
+            return null;
+        }
+        RTProperties rtp = this.getProperties();
+
+        /* enabled? */
+        boolean dftSimplify = rtp.getBoolean(MapProvider.PROP_map_simplify, false);
+        if (!AttributeTools.getRequestBoolean(request, MapProvider.PARM_MAP_SIMPLIFY, dftSimplify)) {
+            return null;
+        }
+        double pixelTol = rtp.getDouble(MapProvider.PROP_map_simplify_pixels, RouteSimplifier.DFT_PIXEL_TOLERANCE);
+
+        /* map dimensions */
+        MapDimension md = this.getDimension();
+        int W = (md != null)? md.getWidth()  : MapProvider.MAP_WIDTH;
+        int H = (md != null)? md.getHeight() : MapProvider.MAP_HEIGHT;
+        if (W <= 0) { W = MapProvider.MAP_WIDTH;  }
+        if (H <= 0) { H = MapProvider.MAP_HEIGHT; }
+
+        /* bounds of the displayed events */
+        if (ListTools.isEmpty(evdata)) {
+            return null;
+        }
+        GeoBounds evBounds = new GeoBounds();
+        for (EventData ev : evdata) {
+            if ((ev != null) && ev.isValidGeoPoint()) {
+                evBounds.extendByPoint(ev);
+            }
+        }
+        return RouteSimplifier.ForBounds(evBounds, W, H, pixelTol); // null if invalid/single point
+
+    }
+
+    // ------------------------------------------------------------------------
+
     /**
     *** Returns the PushpinIcon map
     *** @param reqState  The RequestProperties state from the current session
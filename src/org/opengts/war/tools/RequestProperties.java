@@ -183,6 +183,7 @@ public class RequestProperties
 
     private Account             account                 = null;
     private User                user                    = null;
+    private SessionPrincipal    sessionPrincipal        = null;
     
     private Account             sysadmin                = null;
     
@@ -857,6 +858,20 @@ public class RequestProperties
 
     // ------------------------------------------------------------------------
 
+    /* set the session principal (logged-in Account/User context) */
+    public void setSessionPrincipal(SessionPrincipal principal)
+    {
+        this.sessionPrincipal = principal;
+    }
+
+    /* get the session principal (null if not logged in) */
+    public SessionPrincipal getSessionPrincipal()
+    {
+        return this.sessionPrincipal;
+    }
+
+    // ------------------------------------------------------------------------
+
     /* set the current User */
     public void setCurrentUser(User user)
     {
@@ -1448,11 +1463,21 @@ public class RequestProperties
                 return EventData.EMPTY_ARRAY;
             }
 
+            // -- read events for multiple devices per selection (if no per-device constraints)
+            int batchSize = (!notifyEventsOnly && !this.hasStatusMarkers())? EventData.GetMultiDeviceBatchSize() : 0;
+            Map<String,EventData[]> batchEvents = null;
+
             // -- not every device may have an event
             java.util.List<EventData> evList = new Vector<EventData>();
             for (int i = 0; i < devIDList.size(); i++) { // apply limit?
                 String deviceID = devIDList.get(i);
 
+                // -- next batch of devices
+                if ((batchSize > 1) && ((i % batchSize) == 0)) {
+                    batchEvents = this._getMultiDeviceRangeEvents(account, user, devIDList, i, batchSize,
+                        startTime, endTime, this.getStatusCodes(), limitType, perDevLimit);
+                }
+
                 // -- omit unauthorized devices
                 if ((user != null) && !user.isAuthorizedDevice(deviceID)) {
                     continue;
@@ -1496,13 +1521,15 @@ public class RequestProperties
                         }
                     }
                 } else {
-                    EventData ev[] = device.getRangeEvents(
-                        devStartTime,               // startTime
-                        devEndTime,                 // endTime
-                        statusCodes,                // status codes
-                        true,                       // validGPS (or cell lat/lon?)
-                        limitType,                  // limitType (LAST)
-                        perDevLimit);               // max points
+                    EventData ev[] = (batchEvents != null)?
+                        this._getDeviceRangeEvents(batchEvents, device) :
+                        device.getRangeEvents(
+                            devStartTime,               // startTime
+                            devEndTime,                 // endTime
+                            statusCodes,                // status codes
+                            true,                       // validGPS (or cell lat/lon?)
+                            limitType,                  // limitType (LAST)
+                            perDevLimit);               // max points
                         // -- 'ev' already points to 'device'
                     if (ev != null) {
                         for (int e = 0; e < ev.length; e++) {
@@ -1584,6 +1611,47 @@ public class RequestProperties
 
     // ------------------------------------------------------------------------
 
+    /* read range events for the next batch of authorized devices with a single selection */
+    private Map<String,EventData[]> _getMultiDeviceRangeEvents(
+        Account account, User user, 
+        OrderedSet<String> devIDList, int ndx, int batchSize,
+        long startTime, long endTime, int statusCodes[],
+        EventData.LimitType limitType, long perDevLimit)
+        throws DBException
+    {
+        java.util.List<String> batchIDs = new Vector<String>();
+        int batchEnd = Math.min(ndx + batchSize, devIDList.size());
+        for (int i = ndx; i < batchEnd; i++) {
+            String deviceID = devIDList.get(i);
+            if ((user == null) || user.isAuthorizedDevice(deviceID)) {
+                batchIDs.add(deviceID);
+            }
+        }
+        return EventData.getRangeEvents(
+            account.getAccountID(), batchIDs,
+            startTime, endTime,
+            statusCodes,
+            true,                       // validGPS
+            limitType, perDevLimit,     // limitType, max points
+            true,                       // ascending
+            null,                       // additionalSelect
+            null);                      // all fields
+    }
+
+    /* return the batch range events for the specified device */
+    private EventData[] _getDeviceRangeEvents(Map<String,EventData[]> batchEvents, Device device)
+    {
+        EventData ev[] = batchEvents.get(device.getDeviceID());
+        if (ev != null) {
+            for (int e = 0; e < ev.length; e++) {
+                ev[e].setDevice(device);
+            }
+        }
+        return ev;
+    }
+
+    // ------------------------------------------------------------------------
+
     /* return array of events based on requested parameters */
     public Collection<Device> getMapEventsByDevice(long perDevLimit)
         throws DBException
@@ -1628,11 +1696,21 @@ public class RequestProperties
                 return null;
             }
 
+            // -- read events for multiple devices per selection (if no per-device constraints)
+            int batchSize = (!notifyEventsOnly && !this.hasStatusMarkers())? EventData.GetMultiDeviceBatchSize() : 0;
+            Map<String,EventData[]> batchEvents = null;
+
             // -- not every device may have an event
             int evCount = 0;
             for (int i = 0; i < devIDList.size(); i++) { // apply limit?
                 String deviceID = devIDList.get(i);
 
+                // -- next batch of devices
+                if ((batchSize > 1) && ((i % batchSize) == 0)) {
+                    batchEvents = this._getMultiDeviceRangeEvents(account, user, devIDList, i, batchSize,
+                        startTime, endTime, statusCodes, limitType, perDevLimit);
+                }
+
                 // -- omit unauthorized devices
                 if ((user != null) && !user.isAuthorizedDevice(deviceID)) {
                     continue;
@@ -1673,6 +1751,9 @@ public class RequestProperties
                             ev = new EventData[] { E };
                         }
                     }
+                } else
+                if (batchEvents != null) {
+                    ev = this._getDeviceRangeEvents(batchEvents, device);
                 } else {
                     ev = device.getRangeEvents(
                         devStartTime,               // startTime
@@ -0,0 +1,371 @@
+// ----------------------------------------------------------------------------
+// Copyright 2007-2015, GeoTelematic Solutions, Inc.
+// All rights reserved
+// ----------------------------------------------------------------------------
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+//
+// ----------------------------------------------------------------------------
+package org.opengts.war.tools;
+
+import java.util.*;
+
+import javax.servlet.*;
+
+import org.opengts.util.*;
+import org.opengts.dbtools.*;
+
+import org.opengts.db.*;
+import org.opengts.db.tables.*;
+
+/**
+*** <code>SessionPrincipal</code> holds a snapshot of the logged-in Account/User, the
+*** resolved host properties, time zone, and preferred units for an HTTP session.<br>
+*** The principal is created at login and cached in the session.  The Account/User snapshot
+*** is never returned directly, each request receives its own copy of the Account/User records
+*** (see "getAccount" and "getUser"), so records changed by one request are never seen by 
+*** another request of the same session.<br>
+*** The principal is validated by reading only the "lastUpdateTime" of the Account and User 
+*** records, at most once per "track.sessionPrincipal.validateInterval" seconds, and on the
+*** next request after a request has changed its copy of the Account/User records.
+**/
+
+public class SessionPrincipal
+{
+
+    // ------------------------------------------------------------------------
+
+    /* session attribute key */
+    public  static final String SESSION_PRINCIPAL       = "SessionPrincipal";
+
+    /* maximum age of cached host properties */
+    private static final long   HOST_PROPS_MAX_AGE_MS   = 60L * 1000L;
+
+    /* default Account/User "lastUpdateTime" validation interval */
+    private static final long   DFT_VALIDATE_INTERVAL   = 10L; // seconds
+
+    /**
+    *** Gets the interval between Account/User "lastUpdateTime" validations
+    *** @return The validation interval, in milliseconds
+    **/
+    private static long GetValidateIntervalMS()
+    {
+        long sec = RTConfig.getLong(DBConfig.PROP_track_sessionPrincipal_validateInterval, DFT_VALIDATE_INTERVAL);
+        return (sec > 0L)? (sec * 1000L) : 0L;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the SessionPrincipal cached in the session for the specified request
+    *** @param request  The ServletRequest
+    *** @return The SessionPrincipal, or null if none has been cached
+    **/
+    public static SessionPrincipal getSessionPrincipal(ServletRequest request)
+    {
+        Object sp = AttributeTools.getSessionAttribute(request, SESSION_PRINCIPAL, null);
+        return (sp instanceof SessionPrincipal)? (SessionPrincipal)sp : null;
+    }
+
+    /**
+    *** Caches the SessionPrincipal in the session for the specified request
+    *** @param request    The ServletRequest
+    *** @param principal  The SessionPrincipal (null to clear)
+    **/
+    public static void setSessionPrincipal(ServletRequest request, SessionPrincipal principal)
+    {
+        AttributeTools.setSessionAttribute(request, SESSION_PRINCIPAL, principal);
+    }
+
+    // ------------------------------------------------------------------------
+    // ------------------------------------------------------------------------
+
+    private String                      accountID       = null;
+    private String                      userID          = null;
+
+    private Account                     account         = null; // snapshot, never returned
+    private User                        user            = null; // snapshot, never returned
+
+    private long                        acctUpdateTime  = 0L;
+    private long                        userUpdateTime  = 0L;
+    private long                        loadTimeSec     = 0L;
+
+    private boolean                     stale           = false;
+    private volatile boolean            revalidate      = false;
+    private volatile long               validateTimeMS  = 0L;
+
+    /* notified when a request changes its copy of the Account/User records */
+    private DBRecord.DBChangeListener   changeListener  = new DBRecord.DBChangeListener() {
+        public void fieldChanged(DBRecord rcd, String fieldName) {
+            SessionPrincipal.this.revalidate = true;
+        }
+    };
+
+    private TimeZone                    timeZone        = null;
+    private Account.SpeedUnits          speedUnits      = null;
+    private Account.DistanceUnits       distanceUnits   = null;
+    private Account.TemperatureUnits    tempUnits       = null;
+
+    private String                      hostPropsKey    = null;
+    private RTProperties                hostProps       = null;
+    private long                        hostPropsTimeMS = 0L;
+
+    /**
+    *** Constructor.  A snapshot of the specified Account/User records is retained.
+    *** @param account  The logged-in Account
+    *** @param userID   The logged-in User ID
+    *** @param user     The logged-in User (null if logged-in as the implicit 'admin' user)
+    **/
+    public SessionPrincipal(Account account, String userID, User user)
+    {
+        this.accountID      = account.getAccountID();
+        this.userID         = StringTools.trim(userID);
+        this.account        = SessionPrincipal._copyAccount(account);
+        this.user           = (user != null)? SessionPrincipal._copyUser(user) : null;
+        this.acctUpdateTime = account.getLastUpdateTime();
+        this.userUpdateTime = (user != null)? user.getLastUpdateTime() : 0L;
+        this.loadTimeSec    = DateTime.getCurrentTimeSec();
+        this.validateTimeMS = DateTime.getCurrentTimeMillis();
+        // -- unsaved changes must not be cached
+        if ((this.account == null) || account.hasChanged() || 
+            ((user != null) && ((this.user == null) || user.hasChanged()))) {
+            this.stale = true; // reload on next request
+        }
+        // -- preferences
+        String tmz          = (user != null)? user.getTimeZone() : null;
+        if (StringTools.isBlank(tmz)) { tmz = account.getTimeZone(); }
+        this.timeZone       = DateTime.getTimeZone(tmz);
+        this.speedUnits     = Account.getSpeedUnits(account);
+        this.distanceUnits  = Account.getDistanceUnits(account);
+        this.tempUnits      = Account.getTemperatureUnits(account);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns true if this principal matches the specified Account/User IDs, and the
+    *** Account/User records have not changed since this principal was loaded.
+    *** @param acctID  The requested Account ID
+    *** @param userID  The requested User ID
+    *** @return True if this principal may be used for the current request
+    **/
+    public boolean isValid(String acctID, String userID)
+    {
+
+        /* same Account/User? */
+        if (!this.accountID.equals(acctID) || !this.userID.equals(StringTools.trim(userID))) {
+            return false;
+        } else
+        if (this.stale) {
+            return false;
+        }
+
+        /* recently validated? */
+        long nowMS = DateTime.getCurrentTimeMillis();
+        if (!this.revalidate && ((nowMS - this.validateTimeMS) < SessionPrincipal.GetValidateIntervalMS())) {
+            return true;
+        }
+
+        /* records changed? */
+        this.revalidate = false;
+        try {
+            if (!this._isCurrent(new Account.Key(this.accountID), this.acctUpdateTime)) {
+                return false;
+            } else
+            if ((this.user != null) && !this._isCurrent(new User.Key(this.accountID,this.userID), this.userUpdateTime)) {
+                return false;
+            }
+        } catch (DBException dbe) {
+            Print.logError("Unable to validate session principal: " + dbe);
+            return false;
+        }
+        this.validateTimeMS = nowMS;
+        return true;
+
+    }
+
+    /**
+    *** Returns true if the record with the specified key still has the specified lastUpdateTime
+    **/
+    private boolean _isCurrent(DBRecordKey<?> key, long updateTime)
+        throws DBException
+    {
+        long dbUpdateTime = key.getLastUpdateTime();
+        if (dbUpdateTime != updateTime) {
+            return false; // changed (or deleted)
+        } else
+        if (updateTime >= this.loadTimeSec) {
+            return false; // updated in the same second it was loaded, reload to be sure
+        } else {
+            return true;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the Account ID
+    **/
+    public String getAccountID()
+    {
+        return this.accountID;
+    }
+
+    /**
+    *** Returns a copy of the specified Account, or null if the Account could not be copied
+    **/
+    private static Account _copyAccount(Account account)
+    {
+        try {
+            Account acct = (new Account.Key(account.getAccountID())).getDBRecord();
+            acct.setAllFieldValues(account); // copy all non-key fields
+            acct.clearChanged();
+            return acct;
+        } catch (DBException dbe) {
+            // -- will not occur
+            Print.logError("Unable to copy Account record: " + dbe);
+            return null;
+        }
+    }
+
+    /**
+    *** Returns a copy of the specified User, or null if the User could not be copied
+    **/
+    private static User _copyUser(User user)
+    {
+        try {
+            User usr = (new User.Key(user.getAccountID(),user.getUserID())).getDBRecord();
+            usr.setAllFieldValues(user); // copy all non-key fields
+            usr.clearChanged();
+            return usr;
+        } catch (DBException dbe) {
+            // -- will not occur
+            Print.logError("Unable to copy User record: " + dbe);
+            return null;
+        }
+    }
+
+    /**
+    *** Gets a new copy of the Account for the current request.  A change to the returned
+    *** copy causes the principal to be validated again on the next request.
+    *** @return The Account copy, or null if the Account could not be copied
+    **/
+    public Account getAccount()
+    {
+        Account acct = SessionPrincipal._copyAccount(this.account);
+        if (acct != null) {
+            acct.addChangedNotification(this.changeListener);
+        }
+        return acct;
+    }
+
+    /**
+    *** Gets the User ID
+    **/
+    public String getUserID()
+    {
+        return this.userID;
+    }
+
+    /**
+    *** Gets a new copy of the User for the current request.  A change to the returned
+    *** copy causes the principal to be validated again on the next request.
+    *** @param account  The Account copy for the current request (see "getAccount")
+    *** @return The User copy (null if logged-in as the implicit 'admin' user)
+    **/
+    public User getUser(Account account)
+    {
+        if (this.user == null) {
+            return null;
+        }
+        User usr = SessionPrincipal._copyUser(this.user);
+        if (usr != null) {
+            usr.setAccount(account);
+            usr.addChangedNotification(this.changeListener);
+        }
+        return usr;
+    }
+
+    /**
+    *** Gets the preferred TimeZone
+    **/
+    public TimeZone getTimeZone()
+    {
+        return this.timeZone;
+    }
+
+    /**
+    *** Gets the preferred speed units
+    **/
+    public Account.SpeedUnits getSpeedUnits()
+    {
+        return this.speedUnits;
+    }
+
+    /**
+    *** Gets the preferred distance units
+    **/
+    public Account.DistanceUnits getDistanceUnits()
+    {
+        return this.distanceUnits;
+    }
+
+    /**
+    *** Gets the preferred temperature units
+    **/
+    public Account.TemperatureUnits getTemperatureUnits()
+    {
+        return this.tempUnits;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Gets the host properties for the specified host/path (see
+    *** "Resource.getPrivateLabelPropertiesForHost").  The properties are cached for up to
+    *** one minute.
+    *** @param hostName  The request host name
+    *** @param urlPath   The request URL path
+    *** @return The host properties, or null if no host properties are defined
+    **/
+    public RTProperties getHostProperties(String hostName, String urlPath)
+    {
+        String key = StringTools.trim(hostName) + "|" + StringTools.trim(urlPath);
+        long   nowMS = DateTime.getCurrentTimeMillis();
+        synchronized (this) {
+            if (key.equals(this.hostPropsKey) && ((nowMS - this.hostPropsTimeMS) <= HOST_PROPS_MAX_AGE_MS)) {
+                return this.hostProps;
+            }
+        }
+        RTProperties rtp = Resource.getPrivateLabelPropertiesForHost(hostName, urlPath); // may be null
+        synchronized (this) {
+            this.hostPropsKey    = key;
+            this.hostProps       = rtp;
+            this.hostPropsTimeMS = nowMS;
+        }
+        return rtp;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /**
+    *** Returns a String representation of this instance
+    **/
+    public String toString()
+    {
+        return this.accountID + "/" + this.userID;
+    }
+
+    // ------------------------------------------------------------------------
+
+}
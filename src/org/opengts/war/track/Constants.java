@@ -96,6 +96,11 @@ public interface Constants
 
     public  static final String LAST_REVERSEGEOCODE         = "LastReverseGeocodeRequest";
 
+    // ------------------------------------------------------------------------
+    // User ACL cached vars
+
+    public  static final String USER_ACL_MATRIX             = "UserAclMatrix";
+
     // ------------------------------------------------------------------------
     // Page definitions [PARM_PAGE argument values]
 
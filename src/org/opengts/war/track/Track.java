@@ -406,7 +406,13 @@ public class Track
         // -- if no explicit host properties, try resources
         if (hostProps == null) {
             //Print.logInfo("Looking up host properties by host/url: " + requestHostName + ", " + requestUrlPath);
-            hostProps = Resource.getPrivateLabelPropertiesForHost(requestHostName, requestUrlPath);
+            SessionPrincipal principal = SessionPrincipal.getSessionPrincipal(request);
+            if (principal != null) {
+                // -- logged-in, host properties cached in session
+                hostProps = principal.getHostProperties(requestHostName, requestUrlPath);
+            } else {
+                hostProps = Resource.getPrivateLabelPropertiesForHost(requestHostName, requestUrlPath);
+            }
         }
         // -- found?
         //if (hostProps != null) { Print.logInfo("Found host/url host properties"); }
@@ -522,6 +528,7 @@ public class Track
         String loginAcctID  = (String)AttributeTools.getSessionAttribute(request, Constants.PARM_ACCOUNT  , "");   // session only
         String loginUserID  = (String)AttributeTools.getSessionAttribute(request, Constants.PARM_USER     , "");   // session only
         boolean isLoggedIn  = !StringTools.isBlank(loginAcctID);
+        SessionPrincipal principal = isLoggedIn? SessionPrincipal.getSessionPrincipal(request) : null;
 
         /* account/user */
         String userEmail    = (String)AttributeTools.getRequestAttribute(request, Constants.PARM_USEREMAIL, "");   // session or query
@@ -1123,7 +1130,13 @@ public class Track
         Account account = null;
         try {
 
-            account = Account.getAccount(accountID);
+            if ((principal != null) && principal.isValid(accountID, loginUserID)) {
+                // -- logged-in Account unchanged since login
+                account = principal.getAccount(); // copy for this request
+            } else {
+                principal = null;
+                account = Account.getAccount(accountID);
+            }
             if (account == null) {
                 Print.logInfo("Account does not exist: " + accountID);
                 Track.clearSessionAttributes(request);
@@ -1224,7 +1237,13 @@ public class Track
 
             /* lookup specified UserID */
             boolean loginOK = true;
-            user = User.getUser(account, userID);
+            if ((principal != null) && principal.getUserID().equals(userID)) {
+                // -- logged-in User unchanged since login
+                user = principal.getUser(account); // copy for this request
+            } else {
+                principal = null;
+                user = User.getUser(account, userID);
+            }
             if (user != null) {
                 // -- we found a valid user
                 //Print.logInfo("Found User: " + userID);
@@ -1353,6 +1372,16 @@ public class Track
         reqState.setCurrentAccount(account); // never null
         reqState.setCurrentUser(user); // may be null
 
+        /* compiled User ACL matrix (cached in session) */
+        if ((user != null) && !User.isAdminUser(user)) {
+            UserAclMatrix aclMatrix = (UserAclMatrix)AttributeTools.getSessionAttribute(request, Constants.USER_ACL_MATRIX, null);
+            if ((aclMatrix == null) || !aclMatrix.isValid(privLabel,user)) {
+                aclMatrix = UserAclMatrix.Compile(privLabel, user); // may be null
+                AttributeTools.setSessionAttribute(request, Constants.USER_ACL_MATRIX, aclMatrix);
+            }
+            user.setAclMatrix(aclMatrix);
+        }
+
         // --------------------------------------
         // -- login successful after this point
 
@@ -1744,6 +1773,13 @@ public class Track
 
         }
 
+        /* cache Account/User in session for subsequent requests */
+        if (principal == null) {
+            principal = new SessionPrincipal(account, userID, user);
+            SessionPrincipal.setSessionPrincipal(request, principal);
+        }
+        reqState.setSessionPrincipal(principal);
+
         /* dispatch to page */
         reqState.setPageNavigationHTML(trackPage.getPageNavigationHTML(reqState));
         trackPage.writePage(reqState, "");
@@ -888,6 +888,7 @@ public class ReportDisplay
         /* graph? */
         // output as graph image to browser
         if (rptFormat.equalsIgnoreCase(ReportData.FORMAT_GRAPH)) {
+            report.setEventFieldProjection(false); // all EventData fields may be used
             try {
                 this._writeReportGraph(response, reqState, report, i18n);
             } catch (ReportException re) {
@@ -900,6 +901,7 @@ public class ReportDisplay
         /* map? */
         // output as map to browser
         if (rptFormat.equalsIgnoreCase(ReportData.FORMAT_MAP)) {
+            report.setEventFieldProjection(false); // all EventData fields may be used
             try {
                 this._writeReportMap(response, reqState, report, i18n);
             } catch (ReportException re) {
@@ -912,6 +914,7 @@ public class ReportDisplay
         /* KML? */
         // output as KML to browser
         if (rptFormat.equalsIgnoreCase(ReportData.FORMAT_KML)) {
+            report.setEventFieldProjection(false); // all EventData fields may be used
             try {
                 this._writeReportKML(response, reqState, report);
             } catch (ReportException re) {
@@ -116,6 +116,7 @@ var JSON_Data                   = "Data";
 var JSON_Shapes                 = "Shapes";     // map shape array
 var JSON_DataSets               = "DataSets";   // map point datasets array
 var JSON_Points                 = "Points";     // CSV data record array
+var JSON_Route                  = "Route";      // simplified route-line "lat/lon" array
 var JSON_Actions                = "Actions";    // actions array
 var JSON_cmd                    = "cmd";        // action to perform ("autoupdate", "alert", "gotourl", etc)
 var JSON_arg                    = "arg";        // action command argument
@@ -127,6 +128,7 @@ var TAG_Time                    = "Time";       // update time (server time)
 var TAG_LastEvent               = "LastEvent";  // last event time for current device
 var TAG_DataSet                 = "DataSet";    // map point datasets
 var TAG_Point                   = "P";          // CSV data record
+var TAG_Route                   = "Route";      // simplified route-line "lat/lon,lat/lon,..."
 var TAG_Shape                   = "Shape";      // CSV data record
 var TAG_Geozone                 = "Geozone";    // Geozone [attr: type, radius]
 
@@ -742,6 +744,24 @@ function jsmParseAJAXPoints(dataText, recenterMode, replay) // tmz
     }
 };
 
+/**
+*** Parse the simplified route-line points ["<lat>/<lon>", ...]
+**/
+function jsmParseRoutePoints(ptFld)
+{
+    var points = [];
+    for (var i = 0; i < ptFld.length; i++) {
+        var LL = ptFld[i].split('/');
+        if (LL.length < 2) { continue; }
+        var lat = numParseFloat(LL[0], 0);
+        var lon = numParseFloat(LL[1], 0);
+        if (((lat != 0) || (lon != 0))) {
+            points.push(new JSMapPoint(lat,lon));
+        }
+    }
+    return points;
+};
+
 /**
 *** Parse the specified JSON 
 **/
@@ -1051,6 +1071,11 @@ function jsmParseAJAXPoints_JSON(jsonText, recenterMode, replay) // tmz
             pushPinList.push(lastValidPushpin);
         }
 
+        /* simplified route-line (all points are still displayed as pushpins) [JSON] */
+        if (showRoute && !partial && (ds.Route != null)) { // JSON_Route
+            routeList = jsmParseRoutePoints(ds.Route);
+        }
+
         /* save dataset */
         if (dsPtCount > maxDataSetPoints) { maxDataSetPoints = dsPtCount; }
         dsList.push(new JSMapDataSet(pushPinList,(showRoute?routeList:null),routeColor,partial));
@@ -1418,6 +1443,13 @@ function jsmParseAJAXPoints_XML(xmlText, recenterMode, replay) // tmz
             pushPinList.push(lastValidPushpin);
         }
 
+        /* simplified route-line (all points are still displayed as pushpins) [XML] */
+        var routeTag = ds.getElementsByTagName(TAG_Route);
+        if (showRoute && !partial && (routeTag.length > 0)) {
+            var routeStr = (routeTag[0].childNodes.length > 0)? routeTag[0].childNodes[0].nodeValue : "";
+            routeList = jsmParseRoutePoints(routeStr.split(','));
+        }
+
         /* save dataset */
         if (dsPtCount > maxDataSetPoints) { maxDataSetPoints = dsPtCount; }
         dsList.push(new JSMapDataSet(pushPinList,(showRoute?routeList:null),routeColor,partial));